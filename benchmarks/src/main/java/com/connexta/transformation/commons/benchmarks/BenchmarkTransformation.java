@@ -0,0 +1,59 @@
+/**
+ * Copyright (c) Connexta
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package com.connexta.transformation.commons.benchmarks;
+
+import com.connexta.transformation.commons.api.MetadataTransformation;
+import com.connexta.transformation.commons.api.exceptions.PersistenceException;
+import com.connexta.transformation.commons.api.impl.AbstractMetadataImpl;
+import com.connexta.transformation.commons.api.impl.AbstractTransformationImpl;
+import com.connexta.transformation.pojo.MetadataPojo;
+import com.connexta.transformation.pojo.TransformationPojo;
+import io.micrometer.core.instrument.Clock;
+
+/**
+ * Minimal transformation implementation which can only be persisted and restored. It is used to
+ * measure the cost of persistence without any backend specific overhead.
+ */
+public class BenchmarkTransformation extends AbstractTransformationImpl {
+  /**
+   * Instantiates a transformation based on the information provided by the specified pojo.
+   *
+   * @param pojo the pojo to initialize the transformation with
+   * @param clock the clock to use for retrieving wall and monotonic times
+   * @throws PersistenceException if an error occurs while deserializing the pojo object
+   */
+  public BenchmarkTransformation(TransformationPojo pojo, Clock clock) throws PersistenceException {
+    super(pojo, clock);
+  }
+
+  @Override
+  public MetadataTransformation add(String metadataType) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public void delete() {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public boolean isDeleted() {
+    return false;
+  }
+
+  @Override
+  protected AbstractMetadataImpl fromPojo(MetadataPojo pojo) throws PersistenceException {
+    return new BenchmarkMetadata(pojo, getClock());
+  }
+}
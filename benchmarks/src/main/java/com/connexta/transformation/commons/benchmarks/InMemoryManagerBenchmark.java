@@ -0,0 +1,265 @@
+/**
+ * Copyright (c) Connexta
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package com.connexta.transformation.commons.benchmarks;
+
+import com.connexta.transformation.commons.api.Transformation;
+import com.connexta.transformation.commons.api.TransformationStatus;
+import com.connexta.transformation.commons.api.exceptions.TransformationException;
+import com.connexta.transformation.commons.inmemory.InMemoryTransformationManager;
+import io.micrometer.core.instrument.Clock;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures individual {@link InMemoryTransformationManager} operations performed concurrently by
+ * all benchmark threads against a single shared manager. Both throughput and sampled latencies
+ * (which report percentiles) are recorded. Run it through {@link ScalingBenchmarkRunner} to compare
+ * results from 1 to 64 threads.
+ *
+ * <p>A new manager is created for each iteration so the store grows from empty every time, which
+ * exposes the cost of resizing its map while creating transformations.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(
+    value = 1,
+    jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class InMemoryManagerBenchmark {
+  static final String CONTENT_TYPE = "application/octet-stream";
+
+  /** Upper bound on the content kept resident by completed transformations in a store. */
+  static final long RESIDENT_CONTENT_BYTES = 512L * 1024L * 1024L;
+
+  /**
+   * Distinct product locations to pick from so the location indexes are exercised with realistic
+   * keys rather than all transformations sharing the same one.
+   */
+  private static final URL[] LOCATIONS = newLocations(65536);
+
+  /**
+   * Creates a new transformation and adds the specified metadata types to it.
+   *
+   * @param manager the manager where to create the transformation
+   * @param types the metadata types to add
+   * @return the newly created transformation
+   * @throws TransformationException if an error occurs while creating the transformation
+   */
+  static Transformation newTransformation(InMemoryTransformationManager manager, String[] types)
+      throws TransformationException {
+    final URL location = location();
+    final Transformation transformation = manager.createTransform(location, location, location);
+
+    for (final String type : types) {
+      transformation.add(type);
+    }
+    return transformation;
+  }
+
+  /**
+   * Generates metadata types.
+   *
+   * @param count the number of metadata types to generate
+   * @return the generated metadata types
+   */
+  static String[] metadataTypes(int count) {
+    final String[] types = new String[count];
+
+    for (int i = 0; i < count; i++) {
+      types[i] = "metadata-" + i;
+    }
+    return types;
+  }
+
+  /**
+   * Generates random content.
+   *
+   * @param size the number of bytes to generate
+   * @return the generated content
+   */
+  static byte[] content(int size) {
+    final byte[] content = new byte[size];
+
+    new Random(size).nextBytes(content);
+    return content;
+  }
+
+  /**
+   * Computes how many completed transformations can be kept resident without exceeding {@link
+   * #RESIDENT_CONTENT_BYTES}.
+   *
+   * @param metadataTypes the number of metadata types per transformation
+   * @param contentSize the content size of each metadata
+   * @param maximum the maximum number of transformations to keep resident
+   * @return the number of transformations to keep resident
+   */
+  static int residentCapacity(int metadataTypes, int contentSize, int maximum) {
+    final long perTransformation = Math.max(1L, (long) metadataTypes * contentSize);
+
+    return (int) Math.max(16L, Math.min(maximum, RESIDENT_CONTENT_BYTES / perTransformation));
+  }
+
+  /**
+   * Picks a random product location.
+   *
+   * @return a random product location
+   */
+  static URL location() {
+    return LOCATIONS[ThreadLocalRandom.current().nextInt(LOCATIONS.length)];
+  }
+
+  private static URL[] newLocations(int count) {
+    final URL[] locations = new URL[count];
+
+    try {
+      for (int i = 0; i < count; i++) {
+        locations[i] = new URL("https://localhost/benchmarks/products/" + i);
+      }
+    } catch (MalformedURLException e) {
+      throw new AssertionError(e);
+    }
+    return locations;
+  }
+
+  /** A store that starts empty and only keeps the most recently created transformations. */
+  @State(Scope.Benchmark)
+  public static class EmptyStore {
+    @Param({"4"})
+    public int metadataTypes;
+
+    @Param({"1024", "65536"})
+    public int liveTransformations;
+
+    InMemoryTransformationManager manager;
+    String[] types;
+    LiveTransformations live;
+
+    @Setup(Level.Iteration)
+    public void setup() {
+      this.manager = new InMemoryTransformationManager(Clock.SYSTEM);
+      this.types = metadataTypes(metadataTypes);
+      this.live = new LiveTransformations(liveTransformations);
+    }
+  }
+
+  /** A store pre-populated with transformations, half of which are completed. */
+  @State(Scope.Benchmark)
+  public static class PopulatedStore {
+    @Param({"4"})
+    public int metadataTypes;
+
+    @Param({"1024", "65536"})
+    public int liveTransformations;
+
+    InMemoryTransformationManager manager;
+    LiveTransformations live;
+
+    @Setup(Level.Iteration)
+    public void setup() throws IOException, TransformationException {
+      final String[] types = metadataTypes(metadataTypes);
+      final byte[] content = content(1024);
+
+      this.manager = new InMemoryTransformationManager(Clock.SYSTEM);
+      this.live = new LiveTransformations(liveTransformations);
+      for (int i = 0; i < liveTransformations; i++) {
+        final Transformation transformation = newTransformation(manager, types);
+
+        if ((i % 2) == 0) {
+          for (final String type : types) {
+            transformation.get(type).succeed(CONTENT_TYPE, new ByteArrayInputStream(content));
+          }
+        }
+        live.register(transformation.getTransformId());
+      }
+    }
+  }
+
+  /** A store where each transformation is completed with content of a given size. */
+  @State(Scope.Benchmark)
+  public static class ContentStore {
+    @Param({"4"})
+    public int metadataTypes;
+
+    @Param({"1024", "1048576", "10485760"})
+    public int contentSize;
+
+    InMemoryTransformationManager manager;
+    String[] types;
+    byte[] content;
+
+    @Setup(Level.Iteration)
+    public void setup() {
+      this.manager = new InMemoryTransformationManager(Clock.SYSTEM);
+      this.types = metadataTypes(metadataTypes);
+      this.content = content(contentSize);
+    }
+  }
+
+  /**
+   * Creates a transformation with all its metadata types and deletes the oldest one once the store
+   * is full. This is where generating random ids and updating the store contend.
+   */
+  @Benchmark
+  public Transformation createAndDelete(EmptyStore store) throws TransformationException {
+    final Transformation transformation = newTransformation(store.manager, store.types);
+    final String evicted = store.live.register(transformation.getTransformId());
+
+    if (evicted != null) {
+      store.manager.delete(evicted);
+    }
+    return transformation;
+  }
+
+  /** Polls the state of a random transformation the way clients waiting for completion do. */
+  @Benchmark
+  public TransformationStatus.State getState(PopulatedStore store) throws TransformationException {
+    return store.manager.get(store.live.pick()).getState();
+  }
+
+  /**
+   * Runs a complete lifecycle: create, add all metadata types, succeed each of them, check the
+   * state and delete.
+   */
+  @Benchmark
+  public TransformationStatus.State lifecycle(ContentStore store)
+      throws IOException, TransformationException {
+    final Transformation transformation = newTransformation(store.manager, store.types);
+
+    for (final String type : store.types) {
+      transformation.get(type).succeed(CONTENT_TYPE, new ByteArrayInputStream(store.content));
+    }
+    final TransformationStatus.State state = transformation.getState();
+
+    store.manager.delete(transformation.getTransformId());
+    return state;
+  }
+}
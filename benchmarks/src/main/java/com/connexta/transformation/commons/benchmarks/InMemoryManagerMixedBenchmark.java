@@ -0,0 +1,193 @@
+/**
+ * Copyright (c) Connexta
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package com.connexta.transformation.commons.benchmarks;
+
+import com.connexta.transformation.commons.api.MetadataTransformation;
+import com.connexta.transformation.commons.api.Transformation;
+import com.connexta.transformation.commons.api.TransformationStatus;
+import com.connexta.transformation.commons.api.exceptions.TransformationException;
+import com.connexta.transformation.commons.api.exceptions.TransformationNotFoundException;
+import com.connexta.transformation.commons.inmemory.InMemoryTransformationManager;
+import io.micrometer.core.instrument.Clock;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures a realistic mix of operations against a shared {@link InMemoryTransformationManager}: an
+ * ingest thread creates transformations with several metadata types, worker threads concurrently
+ * succeed the pending metadata (so metadata of the same transformation complete in parallel) and
+ * client threads poll the state of recent transformations. Old transformations are deleted as new
+ * ones are created to keep the store bounded.
+ *
+ * <p>Each group runs 7 threads; run it through {@link ScalingBenchmarkRunner} to scale the number
+ * of groups up to 64 threads. Because a role may find nothing to do (e.g. no pending metadata), the
+ * secondary {@link Counters} results report how many operations of each kind actually completed.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(
+    value = 1,
+    jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@State(Scope.Group)
+public class InMemoryManagerMixedBenchmark {
+  /** Maximum number of metadata waiting to be completed before ingest stops creating. */
+  private static final int MAX_PENDING = 1024;
+
+  /** Number of transformations kept resident when completed with the smallest content. */
+  private static final int MAX_LIVE = 4096;
+
+  @Param({"4"})
+  public int metadataTypes;
+
+  @Param({"1024", "1048576", "10485760"})
+  public int contentSize;
+
+  private InMemoryTransformationManager manager;
+  private String[] types;
+  private byte[] content;
+  private LiveTransformations live;
+  private Queue<MetadataTransformation> pending;
+  private AtomicInteger pendingCount;
+  private int maxPending;
+
+  @Setup(Level.Iteration)
+  public void setup() {
+    this.manager = new InMemoryTransformationManager(Clock.SYSTEM);
+    this.types = InMemoryManagerBenchmark.metadataTypes(metadataTypes);
+    this.content = InMemoryManagerBenchmark.content(contentSize);
+    this.live =
+        new LiveTransformations(
+            InMemoryManagerBenchmark.residentCapacity(metadataTypes, contentSize, MAX_LIVE));
+    this.pending = new ConcurrentLinkedQueue<>();
+    this.pendingCount = new AtomicInteger();
+    // pending metadata must belong to transformations that are not about to be evicted
+    this.maxPending = Math.min(MAX_PENDING, live.capacity() * metadataTypes / 2);
+  }
+
+  /** Creates a transformation, queues its metadata for completion and deletes the oldest one. */
+  @Benchmark
+  @Group("mixed")
+  @GroupThreads(1)
+  public void ingest(Counters counters) throws TransformationException {
+    if (pendingCount.get() >= maxPending) {
+      counters.idle++;
+      return;
+    }
+    final URL location = InMemoryManagerBenchmark.location();
+    final Transformation transformation = manager.createTransform(location, location, location);
+    final MetadataTransformation[] metadatas = new MetadataTransformation[types.length];
+
+    // all types must be added before any can be completed by the workers
+    for (int i = 0; i < types.length; i++) {
+      metadatas[i] = transformation.add(types[i]);
+    }
+    pendingCount.addAndGet(metadatas.length);
+    for (final MetadataTransformation metadata : metadatas) {
+      pending.offer(metadata);
+    }
+    counters.created++;
+    final String evicted = live.register(transformation.getTransformId());
+
+    if (evicted != null) {
+      manager.delete(evicted);
+      counters.deleted++;
+    }
+  }
+
+  /** Completes the next pending metadata with content. */
+  @Benchmark
+  @Group("mixed")
+  @GroupThreads(2)
+  public void succeed(Counters counters) throws IOException, TransformationException {
+    final MetadataTransformation metadata = pending.poll();
+
+    if (metadata == null) {
+      counters.idle++;
+      return;
+    }
+    pendingCount.decrementAndGet();
+    try {
+      metadata.succeed(InMemoryManagerBenchmark.CONTENT_TYPE, new ByteArrayInputStream(content));
+      counters.succeeded++;
+    } catch (IllegalStateException e) { // deleted before it could be completed
+      counters.missed++;
+    }
+  }
+
+  /** Polls the state of a recent transformation. */
+  @Benchmark
+  @Group("mixed")
+  @GroupThreads(4)
+  public TransformationStatus.State poll(Counters counters) throws TransformationException {
+    final String transformId = live.pick();
+
+    if (transformId == null) {
+      counters.idle++;
+      return null;
+    }
+    try {
+      final TransformationStatus.State state = manager.get(transformId).getState();
+
+      counters.polled++;
+      return state;
+    } catch (TransformationNotFoundException e) { // deleted since it was picked
+      counters.missed++;
+      return null;
+    }
+  }
+
+  /** Per-thread counts of the operations that were actually performed. */
+  @AuxCounters(AuxCounters.Type.OPERATIONS)
+  @State(Scope.Thread)
+  public static class Counters {
+    public long created;
+    public long succeeded;
+    public long polled;
+    public long deleted;
+    public long missed;
+    public long idle;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+      this.created = 0L;
+      this.succeeded = 0L;
+      this.polled = 0L;
+      this.deleted = 0L;
+      this.missed = 0L;
+      this.idle = 0L;
+    }
+  }
+}
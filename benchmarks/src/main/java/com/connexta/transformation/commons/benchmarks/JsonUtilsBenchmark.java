@@ -0,0 +1,83 @@
+/**
+ * Copyright (c) Connexta
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package com.connexta.transformation.commons.benchmarks;
+
+import com.connexta.transformation.pojo.TransformationPojo;
+import com.connexta.transformation.pojo.jackson.JsonUtils;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures raw JSON serialization of transformation pojos through {@link JsonUtils} for a varying
+ * number of metadata. Compared with {@link PersistenceBenchmark}, this isolates the cost of Jackson
+ * from the cost of converting between pojos and transformations.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class JsonUtilsBenchmark {
+  @Param({"1", "10", "100"})
+  public int metadataCount;
+
+  private TransformationPojo pojo;
+  private String json;
+  private byte[] bytes;
+
+  @Setup
+  public void setup() throws IOException {
+    this.pojo = TransformationDocuments.newTransformation(metadataCount);
+    this.json = JsonUtils.write(pojo);
+    this.bytes = json.getBytes(StandardCharsets.UTF_8);
+  }
+
+  @Benchmark
+  public String writeString() throws IOException {
+    return JsonUtils.write(pojo);
+  }
+
+  @Benchmark
+  public int writeStream(OutputBuffer buffer) throws IOException {
+    final ByteArrayOutputStream stream = buffer.reset();
+
+    JsonUtils.write(pojo, stream);
+    return stream.size();
+  }
+
+  @Benchmark
+  public TransformationPojo readString() throws IOException {
+    return JsonUtils.read(TransformationPojo.class, json);
+  }
+
+  @Benchmark
+  public TransformationPojo readStream() throws IOException {
+    return JsonUtils.read(TransformationPojo.class, new ByteArrayInputStream(bytes));
+  }
+}
@@ -0,0 +1,62 @@
+/**
+ * Copyright (c) Connexta
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package com.connexta.transformation.commons.benchmarks;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Fixed-size ring of transformation ids shared between benchmark threads. Registering a new id
+ * evicts the oldest one which the caller is expected to delete, keeping the number of resident
+ * transformations bounded no matter how long an iteration runs.
+ */
+class LiveTransformations {
+  private final AtomicReferenceArray<String> ids;
+  private final AtomicLong next = new AtomicLong();
+
+  LiveTransformations(int capacity) {
+    this.ids = new AtomicReferenceArray<>(capacity);
+  }
+
+  /**
+   * Registers the specified transformation id.
+   *
+   * @param transformId the transformation id to register
+   * @return the evicted transformation id to be deleted by the caller or <code>null</code> if the
+   *     ring was not yet full
+   */
+  String register(String transformId) {
+    return ids.getAndSet((int) (next.getAndIncrement() % ids.length()), transformId);
+  }
+
+  /**
+   * Picks a random registered transformation id.
+   *
+   * @return a random registered transformation id or <code>null</code> if none is registered in the
+   *     picked slot
+   */
+  String pick() {
+    return ids.get(ThreadLocalRandom.current().nextInt(ids.length()));
+  }
+
+  /**
+   * Gets the number of transformations that can be registered before they start being evicted.
+   *
+   * @return the capacity of this ring
+   */
+  int capacity() {
+    return ids.length();
+  }
+}
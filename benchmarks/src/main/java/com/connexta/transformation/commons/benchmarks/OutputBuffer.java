@@ -0,0 +1,37 @@
+/**
+ * Copyright (c) Connexta
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package com.connexta.transformation.commons.benchmarks;
+
+import java.io.ByteArrayOutputStream;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Per thread output buffer reused across invocations of stream benchmarks such that only
+ * serialization is measured and not the growth of the buffer.
+ */
+@State(Scope.Thread)
+public class OutputBuffer {
+  private final ByteArrayOutputStream stream = new ByteArrayOutputStream(64 * 1024);
+
+  /**
+   * Resets the buffer such that it can be written to from the start.
+   *
+   * @return the emptied output stream
+   */
+  public ByteArrayOutputStream reset() {
+    stream.reset();
+    return stream;
+  }
+}
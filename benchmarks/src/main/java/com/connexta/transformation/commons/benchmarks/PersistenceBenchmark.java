@@ -0,0 +1,92 @@
+/**
+ * Copyright (c) Connexta
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package com.connexta.transformation.commons.benchmarks;
+
+import com.connexta.transformation.commons.api.exceptions.PersistenceException;
+import com.connexta.transformation.commons.api.impl.TransformationPersistenceManager;
+import com.connexta.transformation.pojo.jackson.JsonUtils;
+import io.micrometer.core.instrument.Clock;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures round trips through {@link TransformationPersistenceManager} for transformations with a
+ * varying number of metadata, using both the string and the stream variants. Each benchmark is run
+ * with and without serialization metrics to also expose the cost of recording them.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class PersistenceBenchmark {
+  @Param({"1", "10", "100"})
+  public int metadataCount;
+
+  @Param({"false", "true"})
+  public boolean metered;
+
+  private TransformationPersistenceManager manager;
+  private BenchmarkTransformation transformation;
+  private String json;
+  private byte[] bytes;
+
+  @Setup
+  public void setup() throws Exception {
+    this.manager =
+        new TransformationPersistenceManager(
+            Clock.SYSTEM, metered ? new SimpleMeterRegistry() : null);
+    this.json = JsonUtils.write(TransformationDocuments.newTransformation(metadataCount));
+    this.bytes = json.getBytes(StandardCharsets.UTF_8);
+    this.transformation = manager.readFrom(BenchmarkTransformation.class, json);
+  }
+
+  @Benchmark
+  public String writeToString() throws PersistenceException {
+    return manager.writeTo(transformation);
+  }
+
+  @Benchmark
+  public int writeToStream(OutputBuffer buffer) throws PersistenceException {
+    final ByteArrayOutputStream stream = buffer.reset();
+
+    manager.writeTo(transformation, stream);
+    return stream.size();
+  }
+
+  @Benchmark
+  public BenchmarkTransformation readFromString() throws PersistenceException {
+    return manager.readFrom(BenchmarkTransformation.class, json);
+  }
+
+  @Benchmark
+  public BenchmarkTransformation readFromStream() throws PersistenceException {
+    return manager.readFrom(BenchmarkTransformation.class, new ByteArrayInputStream(bytes));
+  }
+}
@@ -0,0 +1,55 @@
+/**
+ * Copyright (c) Connexta
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package com.connexta.transformation.commons.benchmarks;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs benchmarks repeatedly with 1, 2, 4, 8, 16, 32 and 64 threads since JMH only accepts a single
+ * thread count per run. Arguments are regular JMH command line options; unless benchmarks are
+ * selected, the {@link InMemoryManagerBenchmark} and {@link InMemoryManagerMixedBenchmark}
+ * benchmarks are run. The results for each thread count are written as JSON to {@code
+ * jmh-result-<threads>-threads.json} in the current directory.
+ *
+ * <p>For group benchmarks, JMH rounds the thread count up to a multiple of the group size.
+ */
+public final class ScalingBenchmarkRunner {
+  private static final int[] THREADS = {1, 2, 4, 8, 16, 32, 64};
+
+  private ScalingBenchmarkRunner() {}
+
+  public static void main(String[] args) throws CommandLineOptionException, RunnerException {
+    final CommandLineOptions options = new CommandLineOptions(args);
+
+    for (final int threads : THREADS) {
+      final ChainedOptionsBuilder builder =
+          new OptionsBuilder()
+              .parent(options)
+              .threads(threads)
+              .resultFormat(ResultFormatType.JSON)
+              .result("jmh-result-" + threads + "-threads.json");
+
+      if (options.getIncludes().isEmpty()) {
+        builder.include("InMemoryManager");
+      }
+      new Runner(builder.build()).run();
+    }
+  }
+}
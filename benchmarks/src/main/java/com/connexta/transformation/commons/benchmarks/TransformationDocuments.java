@@ -0,0 +1,96 @@
+/**
+ * Copyright (c) Connexta
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package com.connexta.transformation.commons.benchmarks;
+
+import com.connexta.transformation.commons.api.ErrorCode;
+import com.connexta.transformation.commons.api.TransformationStatus.State;
+import com.connexta.transformation.pojo.MetadataPojo;
+import com.connexta.transformation.pojo.RequestInfoPojo;
+import com.connexta.transformation.pojo.TransformationPojo;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.time.Instant;
+import java.util.UUID;
+
+/** Builds representative transformation documents for benchmarks. */
+public final class TransformationDocuments {
+  private static final Instant START_TIME = Instant.parse("2020-01-01T00:00:00Z");
+
+  /** Prevents instantiation of this class. */
+  private TransformationDocuments() {}
+
+  /**
+   * Creates a transformation pojo with the specified number of metadata. Every tenth metadata has
+   * failed, every fifth one is still in progress and all others have succeeded with a checksummed
+   * content.
+   *
+   * @param metadataCount the number of metadata to include
+   * @return the corresponding transformation pojo
+   */
+  public static TransformationPojo newTransformation(int metadataCount) {
+    final String transformId = UUID.randomUUID().toString();
+    final RequestInfoPojo requestInfo =
+        new RequestInfoPojo()
+            .setId(UUID.randomUUID().toString())
+            .setVersion(RequestInfoPojo.CURRENT_VERSION)
+            .setCurrentLocation(url("https://localhost/current/" + transformId))
+            .setFinalLocation(url("https://localhost/final/" + transformId))
+            .setMetacardLocation(url("https://localhost/metacard/" + transformId));
+    final TransformationPojo pojo =
+        new TransformationPojo()
+            .setId(transformId)
+            .setVersion(TransformationPojo.CURRENT_VERSION)
+            .setRequestInfo(requestInfo)
+            .setStartTime(TransformationDocuments.START_TIME);
+
+    for (int i = 0; i < metadataCount; i++) {
+      pojo.addMetadata(newMetadata(transformId, requestInfo, i));
+    }
+    return pojo;
+  }
+
+  private static MetadataPojo newMetadata(String transformId, RequestInfoPojo requestInfo, int i) {
+    final MetadataPojo pojo =
+        new MetadataPojo()
+            .setId(UUID.randomUUID().toString())
+            .setVersion(MetadataPojo.CURRENT_VERSION)
+            .setTransformId(transformId)
+            .setType("metadata-type-" + i)
+            .setRequestInfo(requestInfo)
+            .setStartTime(TransformationDocuments.START_TIME.plusMillis(i));
+
+    if (i % 10 == 9) {
+      return pojo.setState(State.FAILED)
+          .setFailureReason(ErrorCode.TRANSFORMATION_FAILURE)
+          .setFailureMessage("failed to transform metadata-type-" + i)
+          .setCompletionTime(TransformationDocuments.START_TIME.plusSeconds(i));
+    } else if (i % 5 == 4) {
+      return pojo.setState(State.IN_PROGRESS);
+    }
+    return pojo.setState(State.SUCCESSFUL)
+        .setCompletionTime(TransformationDocuments.START_TIME.plusSeconds(i))
+        .setContentType("application/xml")
+        .setContentLength(4096L + i)
+        .setContentCrc32c(0xCAFEBABEL + i)
+        .setContentSha256(String.format("%064x", i));
+  }
+
+  private static URL url(String spec) {
+    try {
+      return new URL(spec);
+    } catch (MalformedURLException e) {
+      throw new AssertionError(e);
+    }
+  }
+}
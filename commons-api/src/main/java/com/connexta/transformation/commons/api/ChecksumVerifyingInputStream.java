@@ -0,0 +1,69 @@
+/**
+ * Copyright (c) Connexta
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package com.connexta.transformation.commons.api;
+
+import com.connexta.transformation.commons.api.exceptions.CorruptedContentException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedInputStream;
+
+/**
+ * Input stream which computes the CRC32C checksum of the bytes read and verifies it against an
+ * expected checksum once the end of the stream is reached.
+ */
+class ChecksumVerifyingInputStream extends CheckedInputStream {
+  private final long expected;
+  private final String description;
+
+  /**
+   * Instantiates a new verifying stream.
+   *
+   * @param in the stream to read from
+   * @param expected the expected CRC32C checksum of the whole stream
+   * @param description a description of the content being read for error reporting
+   */
+  ChecksumVerifyingInputStream(InputStream in, long expected, String description) {
+    super(in, new CRC32C());
+    this.expected = expected;
+    this.description = description;
+  }
+
+  @Override
+  public int read() throws IOException {
+    return verifyAtEnd(super.read());
+  }
+
+  @Override
+  public int read(byte[] buf, int off, int len) throws IOException {
+    return verifyAtEnd(super.read(buf, off, len));
+  }
+
+  private int verifyAtEnd(int read) throws CorruptedContentException {
+    if (read == -1) {
+      final long actual = getChecksum().getValue();
+
+      if (actual != expected) {
+        throw new CorruptedContentException(
+            description
+                + " is corrupted; expected CRC32C ["
+                + Long.toHexString(expected)
+                + "] but was ["
+                + Long.toHexString(actual)
+                + "].");
+      }
+    }
+    return read;
+  }
+}
@@ -0,0 +1,37 @@
+/**
+ * Copyright (c) Connexta
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package com.connexta.transformation.commons.api;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Output stream to which the content of a metadata is written as it is being generated. Closing the
+ * stream completes the metadata successfully with the content written. A producer that fails while
+ * generating the content must instead abort the stream such that the partial content is never
+ * stored.
+ *
+ * @see MetadataTransformation#openContent(String)
+ */
+public abstract class ContentOutputStream extends OutputStream {
+  /**
+   * Aborts this stream and discards the content written so far. The metadata is not completed and
+   * remains in progress such that it can still be failed or have its content opened again. Closing
+   * or aborting the stream afterward has no effect. Aborting a stream that was already closed has
+   * no effect either.
+   *
+   * @throws IOException if an I/O error occurs while discarding the content
+   */
+  public abstract void abort() throws IOException;
+}
@@ -0,0 +1,60 @@
+/**
+ * Copyright (c) Connexta
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package com.connexta.transformation.commons.api;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.Charset;
+
+/**
+ * Writer to which the content of a metadata is written as it is being generated. Closing the writer
+ * completes the metadata successfully with the content written whereas aborting it discards the
+ * content written so far.
+ *
+ * @see MetadataTransformation#openContent(String, Charset)
+ */
+public class ContentWriter extends OutputStreamWriter {
+  private final ContentOutputStream out;
+  private boolean aborted = false;
+
+  /**
+   * Instantiates a new writer encoding characters to the specified content stream.
+   *
+   * @param out the content stream to write to
+   * @param charset the character set to use for encoding the content
+   */
+  public ContentWriter(ContentOutputStream out, Charset charset) {
+    super(out, charset);
+    this.out = out;
+  }
+
+  /**
+   * Aborts this writer and discards the content written so far. The metadata is not completed and
+   * remains in progress.
+   *
+   * @throws IOException if an I/O error occurs while discarding the content
+   * @see ContentOutputStream#abort()
+   */
+  public void abort() throws IOException {
+    this.aborted = true;
+    out.abort();
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (!aborted) { // otherwise there is no point encoding what is left
+      super.close();
+    }
+  }
+}
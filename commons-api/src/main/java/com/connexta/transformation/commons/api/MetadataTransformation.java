@@ -13,14 +13,25 @@
  */
 package com.connexta.transformation.commons.api;
 
+import com.connexta.transformation.commons.api.exceptions.CorruptedContentException;
 import com.connexta.transformation.commons.api.exceptions.TransformationException;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.io.Reader;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
 import java.nio.charset.Charset;
 import java.util.Optional;
 import java.util.OptionalLong;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.BoundedInputStream;
 import org.apache.commons.io.input.ReaderInputStream;
 
 /**
@@ -63,6 +74,189 @@ public interface MetadataTransformation extends TransformationStatus {
     return getContent().map(is -> new InputStreamReader(is, charset));
   }
 
+  /**
+   * Returns an optional {@link InputStream} for retrieving a range of the metadata. If the metadata
+   * hasn't been created yet, or failed to be created, the optional will be empty. The returned
+   * stream will be empty if the specified offset is beyond the end of the metadata and will be
+   * shorter than the specified length if the range extends beyond the end of the metadata.
+   *
+   * <p><i>Note:</i> The default implementation provided here skips over the stream returned by
+   * {@link #getContent()}. Implementations should override this method to start reading directly at
+   * the specified offset.
+   *
+   * @param offset the offset of the first byte to retrieve
+   * @param length the maximum number of bytes to retrieve
+   * @return an input stream for the specified range of this metadata or empty if not available yet
+   *     or if no metadata was generated
+   * @throws TransformationException if an error occurs while executing this method
+   * @throws IOException if an I/O error occurred while retrieving the content
+   * @throws IllegalArgumentException if <code>offset</code> or <code>length</code> is negative
+   * @throws IllegalStateException if the transformation was deleted already
+   */
+  default Optional<InputStream> getContent(long offset, long length)
+      throws TransformationException, IOException {
+    if (offset < 0L) {
+      throw new IllegalArgumentException("invalid negative offset: " + offset);
+    } else if (length < 0L) {
+      throw new IllegalArgumentException("invalid negative length: " + length);
+    }
+    final Optional<InputStream> content = getContent();
+
+    if (content.isPresent()) {
+      final InputStream is = content.get();
+
+      try {
+        IOUtils.skip(is, offset);
+      } catch (IOException e) {
+        is.close();
+        throw e;
+      }
+      return Optional.of(new BoundedInputStream(is, length));
+    }
+    return content;
+  }
+
+  /**
+   * Returns an optional containing a version of the metadata content suitable for use as an entity
+   * tag. The version changes whenever the content changes and can be used to validate that ranges
+   * retrieved through {@link #getContent(long, long)} all belong to the same content. If the
+   * metadata hasn't been created yet, or failed to be created, the optional will be empty.
+   *
+   * <p><i>Note:</i> The default implementation provided here derives the version from the CRC32C
+   * checksum and the length of the content when a checksum is available; otherwise from the
+   * completion time and the length of the content.
+   *
+   * @return the version of the metadata content or empty if the metadata hasn't been generated or
+   *     failed to be generated
+   */
+  default Optional<String> getContentVersion() {
+    final OptionalLong length = getContentLength();
+
+    if (!length.isPresent()) {
+      return Optional.empty();
+    }
+    final OptionalLong crc32c = getContentCrc32c();
+
+    if (crc32c.isPresent()) {
+      return Optional.of(
+          Long.toHexString(crc32c.getAsLong()) + '-' + Long.toHexString(length.getAsLong()));
+    }
+    return getCompletionTime()
+        .map(t -> Long.toHexString(t.toEpochMilli()) + '-' + Long.toHexString(length.getAsLong()));
+  }
+
+  /**
+   * Returns an optional {@link InputStream} for retrieving the metadata which verifies the content
+   * read against its CRC32C checksum. The verification happens as the content is read and a {@link
+   * CorruptedContentException} is thrown once the end of the stream is reached if the content
+   * doesn't match the checksum. If no checksum is available, the content is not verified. If the
+   * metadata hasn't been created yet, or failed to be created, the optional will be empty.
+   *
+   * @return an input stream for this metadata or empty if not available yet or if no metadata was
+   *     generated
+   * @throws TransformationException if an error occurs while executing this method
+   * @throws IOException if an I/O error occurred while retrieving the content
+   * @throws IllegalStateException if the transformation was deleted already
+   */
+  default Optional<InputStream> getVerifiedContent() throws TransformationException, IOException {
+    final OptionalLong crc32c = getContentCrc32c();
+    final Optional<InputStream> content = getContent();
+
+    if (!crc32c.isPresent()) {
+      return content;
+    }
+    return content.map(
+        is ->
+            new ChecksumVerifyingInputStream(
+                is,
+                crc32c.getAsLong(),
+                "content of ["
+                    + getMetadataType()
+                    + "] metadata for transformation ["
+                    + getTransformId()
+                    + "]"));
+  }
+
+  /**
+   * Returns an optional {@link ReadableByteChannel} for retrieving the metadata. If the metadata
+   * hasn't been created yet, or failed to be created, the optional will be empty.
+   *
+   * <p><i>Note:</i> The default implementation provided here adapts the stream returned by {@link
+   * #getContent()}. Implementations should override this method to provide a channel reading
+   * directly from their storage. Implementations may return a {@link
+   * java.nio.channels.SeekableByteChannel}.
+   *
+   * @return a channel for this metadata or empty if not available yet or if no metadata was
+   *     generated
+   * @throws TransformationException if an error occurs while executing this method
+   * @throws IOException if an I/O error occurred while retrieving the content
+   * @throws IllegalStateException if the transformation was deleted already
+   */
+  default Optional<ReadableByteChannel> getContentChannel()
+      throws TransformationException, IOException {
+    return getContent().map(Channels::newChannel);
+  }
+
+  /**
+   * Transfers the metadata to the specified channel. If the metadata hasn't been created yet, or
+   * failed to be created, nothing is transferred.
+   *
+   * <p><i>Note:</i> The default implementation provided here copies the content read from {@link
+   * #getContentChannel()} through an intermediate buffer. Implementations should override this
+   * method to transfer the content without copying when their storage allows it (e.g. using {@link
+   * java.nio.channels.FileChannel#transferTo} for file-based storage).
+   *
+   * @param target the channel to transfer the metadata to
+   * @return the number of bytes transferred or empty if not available yet or if no metadata was
+   *     generated
+   * @throws TransformationException if an error occurs while executing this method
+   * @throws IOException if an I/O error occurred while transferring the content
+   * @throws IllegalStateException if the transformation was deleted already
+   */
+  default OptionalLong transferContentTo(WritableByteChannel target)
+      throws TransformationException, IOException {
+    final Optional<ReadableByteChannel> channel = getContentChannel();
+
+    if (!channel.isPresent()) {
+      return OptionalLong.empty();
+    }
+    try (final ReadableByteChannel source = channel.get()) {
+      final ByteBuffer buffer = ByteBuffer.allocate(8192);
+      long transferred = 0L;
+
+      while (source.read(buffer) != -1) {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+          transferred += target.write(buffer);
+        }
+        buffer.clear();
+      }
+      return OptionalLong.of(transferred);
+    }
+  }
+
+  /**
+   * Returns an optional containing the CRC32C checksum of the metadata computed when it was stored.
+   * If the metadata hasn't been created yet, or failed to be created, or if the storage doesn't
+   * compute checksums, the optional will be empty.
+   *
+   * @return the CRC32C checksum of the metadata or empty if not available
+   */
+  default OptionalLong getContentCrc32c() {
+    return OptionalLong.empty();
+  }
+
+  /**
+   * Returns an optional containing the SHA-256 digest of the metadata computed when it was stored
+   * as a lowercase hexadecimal string. If the metadata hasn't been created yet, or failed to be
+   * created, or if the storage doesn't compute SHA-256 digests, the optional will be empty.
+   *
+   * @return the SHA-256 digest of the metadata or empty if not available
+   */
+  default Optional<String> getContentSha256() {
+    return Optional.empty();
+  }
+
   /**
    * Returns an optional containing the content type of the metadata. If the metadata hasn't been
    * created yet, or failed to be created, the optional will be empty.
@@ -112,6 +306,93 @@ public interface MetadataTransformation extends TransformationStatus {
     succeed(contentType, new ReaderInputStream(contentStream, charset));
   }
 
+  /**
+   * Opens an {@link OutputStream} to which the metadata can be written as it is being generated.
+   * The metadata is atomically completed successfully with the written content when the returned
+   * stream is closed. If the content cannot be generated, the stream should be aborted instead such
+   * that the partial content is discarded and the metadata remains in progress. If this metadata is
+   * completed by other means (e.g. {@link #fail}) before the stream is closed, the content written
+   * so far is discarded.
+   *
+   * <p><i>Note:</i> The default implementation provided here buffers the content in memory and
+   * calls {@link #succeed(String, InputStream)} when the stream is closed. Implementations should
+   * override this method to write directly into their storage.
+   *
+   * @param contentType the content type of the metadata
+   * @return an output stream for writing the metadata
+   * @throws TransformationException if an error occurs while executing this method
+   * @throws IOException if an I/O error occurs while opening the stream
+   * @throws IllegalStateException if this method is called when this metadata transformation has
+   *     already been completed or if the transformation was deleted already
+   */
+  default ContentOutputStream openContent(String contentType)
+      throws TransformationException, IOException {
+    if (isCompleted()) {
+      throw new IllegalStateException(
+          "["
+              + getMetadataType()
+              + "] metadata for transformation ["
+              + getTransformId()
+              + "] is already completed.");
+    }
+    return new ContentOutputStream() {
+      private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+      private boolean closed = false;
+
+      @Override
+      public void write(int b) {
+        buffer.write(b);
+      }
+
+      @Override
+      public void write(byte[] b, int off, int len) {
+        buffer.write(b, off, len);
+      }
+
+      @Override
+      public void abort() {
+        this.closed = true;
+        buffer.reset();
+      }
+
+      @Override
+      public void close() throws IOException {
+        if (closed) {
+          return;
+        }
+        this.closed = true;
+        if (!isCompleted()) {
+          try {
+            succeed(contentType, new ByteArrayInputStream(buffer.toByteArray()));
+          } catch (TransformationException e) {
+            throw new IOException(e);
+          }
+        }
+      }
+    };
+  }
+
+  /**
+   * Opens a {@link Writer} to which the metadata can be written as it is being generated. The
+   * metadata is atomically completed successfully with the written content when the returned writer
+   * is closed. If the content cannot be generated, the writer should be aborted instead such that
+   * the partial content is discarded and the metadata remains in progress. If this metadata is
+   * completed by other means (e.g. {@link #fail}) before the writer is closed, the content written
+   * so far is discarded.
+   *
+   * @param contentType the content type of the metadata
+   * @param charset the character set to use for encoding the content
+   * @return a writer for writing the metadata
+   * @throws TransformationException if an error occurs while executing this method
+   * @throws IOException if an I/O error occurs while opening the writer
+   * @throws IllegalStateException if this method is called when this metadata transformation has
+   *     already been completed or if the transformation was deleted already
+   */
+  default ContentWriter openContent(String contentType, Charset charset)
+      throws TransformationException, IOException {
+    return new ContentWriter(openContent(contentType), charset);
+  }
+
   /**
    * Used to signify that the creation of this metadata failed.
    *
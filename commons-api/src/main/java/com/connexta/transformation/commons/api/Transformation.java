@@ -18,6 +18,7 @@ import com.connexta.transformation.commons.api.exceptions.TransformationNotFound
 import java.time.Instant;
 import java.util.Comparator;
 import java.util.Optional;
+import java.util.concurrent.CompletionStage;
 import java.util.stream.Stream;
 
 /**
@@ -73,6 +74,18 @@ public interface Transformation extends TransformationStatus {
    */
   MetadataTransformation get(String metadataType) throws TransformationNotFoundException;
 
+  /**
+   * Returns a completion stage that will be completed with this transformation once all of its
+   * metadata have completed. Dependent actions are always executed asynchronously so they never
+   * slow down the caller completing the last metadata.
+   *
+   * <p><i>Note:</i> The returned stage will be completed exceptionally with an {@link
+   * IllegalStateException} if this transformation is deleted before it completes.
+   *
+   * @return a completion stage for this transformation
+   */
+  CompletionStage<Transformation> onCompletion();
+
   @Override
   default State getState() {
     return metadatas()
@@ -0,0 +1,89 @@
+/**
+ * Copyright (c) Connexta
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package com.connexta.transformation.commons.api;
+
+/**
+ * Service provider interface for observing the lifecycle of transformations, typically in order to
+ * create distributed-trace spans around them. Unlike {@link TransformationListener}s, lifecycle
+ * listeners are invoked synchronously from the thread performing the operation such that they can
+ * capture or restore thread-bound tracing state. Listeners which can be slow should be wrapped to
+ * dispatch callbacks asynchronously.
+ *
+ * <p>The context object returned when a transformation is created is kept with the transformation
+ * and handed back to all subsequent callbacks for that transformation and its metadata. This allows
+ * a listener to propagate a trace context from the thread that created the transformation to the
+ * threads that later complete its metadata.
+ *
+ * <p>Exceptions thrown by listeners are logged and otherwise ignored.
+ */
+public interface TransformationLifecycleListener {
+  /** A listener which does nothing. This is the default listener used when none is registered. */
+  TransformationLifecycleListener NOOP = new TransformationLifecycleListener() {};
+
+  /**
+   * Called when a new transformation is created.
+   *
+   * @param transformation the transformation that was created
+   * @return a context object to be provided back with all subsequent callbacks for this
+   *     transformation or <code>null</code> if none is required
+   */
+  default Object transformationCreated(Transformation transformation) {
+    return null;
+  }
+
+  /**
+   * Called when a new metadata is added to a transformation.
+   *
+   * @param metadata the metadata that was added
+   * @param context the context returned when the transformation was created or <code>null</code> if
+   *     none
+   */
+  default void metadataAdded(MetadataTransformation metadata, Object context) {}
+
+  /**
+   * Called when a metadata has completed successfully.
+   *
+   * @param metadata the metadata that succeeded
+   * @param context the context returned when the transformation was created or <code>null</code> if
+   *     none
+   */
+  default void metadataSucceeded(MetadataTransformation metadata, Object context) {}
+
+  /**
+   * Called when a metadata has failed.
+   *
+   * @param metadata the metadata that failed
+   * @param context the context returned when the transformation was created or <code>null</code> if
+   *     none
+   */
+  default void metadataFailed(MetadataTransformation metadata, Object context) {}
+
+  /**
+   * Called when the content of a metadata is about to be read.
+   *
+   * @param metadata the metadata whose content is being read
+   * @param context the context returned when the transformation was created or <code>null</code> if
+   *     none
+   */
+  default void contentRead(MetadataTransformation metadata, Object context) {}
+
+  /**
+   * Called when a transformation is deleted.
+   *
+   * @param transformation the transformation that was deleted
+   * @param context the context returned when the transformation was created or <code>null</code> if
+   *     none
+   */
+  default void transformationDeleted(Transformation transformation, Object context) {}
+}
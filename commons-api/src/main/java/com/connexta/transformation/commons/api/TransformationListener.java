@@ -0,0 +1,35 @@
+/**
+ * Copyright (c) Connexta
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package com.connexta.transformation.commons.api;
+
+/**
+ * A listener which can be registered with a {@link TransformationManager} in order to be notified
+ * when metadata or whole transformations complete. Notifications are always delivered
+ * asynchronously and never from the thread that completed the metadata.
+ */
+public interface TransformationListener {
+  /**
+   * Called when a metadata transformation has completed either successfully or not.
+   *
+   * @param metadata the metadata transformation that completed
+   */
+  default void metadataCompleted(MetadataTransformation metadata) {}
+
+  /**
+   * Called when all metadata of a transformation have completed either successfully or not.
+   *
+   * @param transformation the transformation that completed
+   */
+  default void transformationCompleted(Transformation transformation) {}
+}
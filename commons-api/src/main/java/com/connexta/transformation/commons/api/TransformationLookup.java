@@ -0,0 +1,72 @@
+/**
+ * Copyright (c) Connexta
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package com.connexta.transformation.commons.api;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Holds the result of looking up a batch of transformations at once. Identifiers for which no
+ * transformations could be found are reported as missing rather than through exceptions.
+ */
+public final class TransformationLookup {
+  private final Map<String, Transformation> found;
+  private final Set<String> missing;
+
+  /**
+   * Instantiates a new lookup result.
+   *
+   * @param found the transformations that were found keyed by their identifiers
+   * @param missing the identifiers for which no transformations could be found
+   */
+  public TransformationLookup(Map<String, Transformation> found, Set<String> missing) {
+    this.found = Collections.unmodifiableMap(found);
+    this.missing = Collections.unmodifiableSet(missing);
+  }
+
+  /**
+   * Gets the transformations that were found keyed by their identifiers.
+   *
+   * @return an unmodifiable map of all transformations found
+   */
+  public Map<String, Transformation> getFound() {
+    return found;
+  }
+
+  /**
+   * Gets the identifiers for which no transformations could be found.
+   *
+   * @return an unmodifiable set of all missing identifiers
+   */
+  public Set<String> getMissing() {
+    return missing;
+  }
+
+  /**
+   * Gets the transformation found for the given identifier.
+   *
+   * @param transformId the ID of the transformation to retrieve
+   * @return the corresponding transformation or empty if it wasn't found
+   */
+  public Optional<Transformation> get(String transformId) {
+    return Optional.ofNullable(found.get(transformId));
+  }
+
+  @Override
+  public String toString() {
+    return String.format("TransformationLookup[found=%s, missing=%s]", found.keySet(), missing);
+  }
+}
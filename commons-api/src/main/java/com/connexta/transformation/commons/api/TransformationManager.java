@@ -16,6 +16,13 @@ package com.connexta.transformation.commons.api;
 import com.connexta.transformation.commons.api.exceptions.TransformationException;
 import com.connexta.transformation.commons.api.exceptions.TransformationNotFoundException;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Provides the ability to save transformation request info, retrieve objects containing
@@ -36,6 +43,30 @@ public interface TransformationManager {
   Transformation createTransform(URL currentLocation, URL finalLocation, URL metadataLocation)
       throws TransformationException;
 
+  /**
+   * Saves a batch of transformation requests and creates a {@link Transformation} for each.
+   *
+   * <p><i>Note:</i> The default implementation provided here simply creates each transformation one
+   * at a time. Implementations should override this method if they can store a batch at once.
+   *
+   * @param requests the transformation requests to create transformations for
+   * @return the {@link Transformation}s created in the same order as the provided requests
+   * @throws TransformationException if an error occurs
+   */
+  default List<Transformation> createTransforms(List<? extends RequestInfo> requests)
+      throws TransformationException {
+    final List<Transformation> transformations = new ArrayList<>(requests.size());
+
+    for (final RequestInfo request : requests) {
+      transformations.add(
+          createTransform(
+              request.getCurrentLocation(),
+              request.getFinalLocation(),
+              request.getMetacardLocation()));
+    }
+    return transformations;
+  }
+
   /**
    * Gets the {@link Transformation} for a transformation.
    *
@@ -46,6 +77,64 @@ public interface TransformationManager {
    */
   Transformation get(String transformId) throws TransformationException;
 
+  /**
+   * Gets the {@link Transformation}s for a batch of transformations. Identifiers for which nothing
+   * can be found are reported as missing in the result instead of generating exceptions.
+   *
+   * <p><i>Note:</i> The default implementation provided here simply retrieves each transformation
+   * one at a time. Implementations should override this method if they can retrieve a batch at
+   * once.
+   *
+   * @param transformIds the IDs of the transformations to retrieve
+   * @return the result of the lookup
+   * @throws TransformationException if an error occurs while fetching the {@link Transformation}s
+   */
+  default TransformationLookup getAll(Collection<String> transformIds)
+      throws TransformationException {
+    final Map<String, Transformation> found = new HashMap<>();
+    final Set<String> missing = new HashSet<>();
+
+    for (final String transformId : transformIds) {
+      try {
+        found.put(transformId, get(transformId));
+      } catch (TransformationNotFoundException e) {
+        missing.add(transformId);
+      }
+    }
+    return new TransformationLookup(found, missing);
+  }
+
+  /**
+   * Lists transformations matching the given query. Results are ordered by start time and returned
+   * one page at a time.
+   *
+   * @param query the criteria the transformations to list must match
+   * @return a page of transformations matching the query
+   * @throws IllegalArgumentException if the query's cursor is invalid
+   * @throws TransformationException if an error occurs while listing transformations
+   */
+  TransformationPage query(TransformationQuery query) throws TransformationException;
+
+  /**
+   * Finds all transformations which were requested for a resource at the given current location.
+   *
+   * @param currentLocation the current location of the resource provided in a transform request
+   * @return the transformations requested for the given current location ordered by start time or
+   *     an empty list if none exist
+   * @throws TransformationException if an error occurs while looking up transformations
+   */
+  List<Transformation> findByCurrentLocation(URL currentLocation) throws TransformationException;
+
+  /**
+   * Finds all transformations which were requested for the given metacard location.
+   *
+   * @param metacardLocation the metacard location provided in a transform request
+   * @return the transformations requested for the given metacard location ordered by start time or
+   *     an empty list if none exist
+   * @throws TransformationException if an error occurs while looking up transformations
+   */
+  List<Transformation> findByMetacardLocation(URL metacardLocation) throws TransformationException;
+
   /**
    * Gets the {@link MetadataTransformation} for the given transformation ID and type.
    *
@@ -66,4 +155,43 @@ public interface TransformationManager {
    * @throws TransformationException if an error occurs while trying to delete
    */
   void delete(String transformId) throws TransformationException;
+
+  /**
+   * Deletes everything stored that is associated with the given transformation IDs. Identifiers for
+   * which nothing can be found are reported back instead of generating exceptions.
+   *
+   * <p><i>Note:</i> The default implementation provided here simply deletes each transformation one
+   * at a time. Implementations should override this method if they can delete a batch at once.
+   *
+   * @param transformIds the transformation IDs for which to delete all associated files
+   * @return the set of transformation IDs for which nothing could be found
+   * @throws TransformationException if an error occurs while trying to delete
+   */
+  default Set<String> deleteAll(Collection<String> transformIds) throws TransformationException {
+    final Set<String> missing = new HashSet<>();
+
+    for (final String transformId : transformIds) {
+      try {
+        delete(transformId);
+      } catch (TransformationNotFoundException e) {
+        missing.add(transformId);
+      }
+    }
+    return missing;
+  }
+
+  /**
+   * Registers a listener to be notified when metadata or whole transformations complete. Listeners
+   * are notified asynchronously and in the order the completions occurred.
+   *
+   * @param listener the listener to register
+   */
+  void addListener(TransformationListener listener);
+
+  /**
+   * Unregisters a listener that was previously registered.
+   *
+   * @param listener the listener to unregister
+   */
+  void removeListener(TransformationListener listener);
 }
@@ -0,0 +1,60 @@
+/**
+ * Copyright (c) Connexta
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package com.connexta.transformation.commons.api;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+/** Holds a single page of transformations returned from a {@link TransformationQuery}. */
+public final class TransformationPage {
+  private final List<Transformation> transformations;
+  private final String nextCursor;
+
+  /**
+   * Instantiates a new page.
+   *
+   * @param transformations the transformations in this page ordered by start time
+   * @param nextCursor the cursor to use for retrieving the next page or <code>null</code> if this
+   *     is the last page
+   */
+  public TransformationPage(List<Transformation> transformations, String nextCursor) {
+    this.transformations = Collections.unmodifiableList(transformations);
+    this.nextCursor = nextCursor;
+  }
+
+  /**
+   * Gets the transformations in this page ordered by start time.
+   *
+   * @return an unmodifiable list of the transformations in this page
+   */
+  public List<Transformation> getTransformations() {
+    return transformations;
+  }
+
+  /**
+   * Gets the cursor to provide in a subsequent query in order to retrieve the next page.
+   *
+   * @return the cursor for the next page or empty if this is the last page
+   */
+  public Optional<String> getNextCursor() {
+    return Optional.ofNullable(nextCursor);
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        "TransformationPage[size=%d, nextCursor=%s]", transformations.size(), nextCursor);
+  }
+}
@@ -0,0 +1,172 @@
+/**
+ * Copyright (c) Connexta
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package com.connexta.transformation.commons.api;
+
+import com.connexta.transformation.commons.api.TransformationStatus.State;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Defines criteria for listing transformations. Results are always ordered by start time (oldest
+ * first) and returned in pages. The cursor returned with a page can be provided back in a
+ * subsequent query in order to retrieve the next page.
+ */
+public class TransformationQuery {
+  /** The default maximum number of transformations returned in a single page. */
+  public static final int DEFAULT_LIMIT = 100;
+
+  private Set<State> states = EnumSet.noneOf(State.class);
+  private String metadataType;
+  private Instant startedFrom;
+  private Instant startedBefore;
+  private String cursor;
+  private int limit = TransformationQuery.DEFAULT_LIMIT;
+
+  /**
+   * Gets the states transformations must be in to be returned. An empty set indicates no filtering
+   * on states.
+   *
+   * @return an unmodifiable set of states to filter on
+   */
+  public Set<State> getStates() {
+    return Collections.unmodifiableSet(states);
+  }
+
+  /**
+   * Sets the states transformations must be in to be returned.
+   *
+   * @param states the states to filter on or none to not filter on states
+   * @return this for chaining
+   */
+  public TransformationQuery setStates(State... states) {
+    this.states = EnumSet.noneOf(State.class);
+    Collections.addAll(this.states, states);
+    return this;
+  }
+
+  /**
+   * Gets the type of metadata transformations must include to be returned.
+   *
+   * @return the metadata type to filter on or empty if not filtering on metadata types
+   */
+  public Optional<String> getMetadataType() {
+    return Optional.ofNullable(metadataType);
+  }
+
+  /**
+   * Sets the type of metadata transformations must include to be returned.
+   *
+   * @param metadataType the metadata type to filter on or <code>null</code> to not filter on
+   *     metadata types
+   * @return this for chaining
+   */
+  public TransformationQuery setMetadataType(String metadataType) {
+    this.metadataType = metadataType;
+    return this;
+  }
+
+  /**
+   * Gets the time (inclusive) at or after which transformations must have started to be returned.
+   *
+   * @return the lower bound for the start time or empty if unbounded
+   */
+  public Optional<Instant> getStartedFrom() {
+    return Optional.ofNullable(startedFrom);
+  }
+
+  /**
+   * Sets the time (inclusive) at or after which transformations must have started to be returned.
+   *
+   * @param startedFrom the lower bound for the start time or <code>null</code> if unbounded
+   * @return this for chaining
+   */
+  public TransformationQuery setStartedFrom(Instant startedFrom) {
+    this.startedFrom = startedFrom;
+    return this;
+  }
+
+  /**
+   * Gets the time (exclusive) before which transformations must have started to be returned.
+   *
+   * @return the upper bound for the start time or empty if unbounded
+   */
+  public Optional<Instant> getStartedBefore() {
+    return Optional.ofNullable(startedBefore);
+  }
+
+  /**
+   * Sets the time (exclusive) before which transformations must have started to be returned.
+   *
+   * @param startedBefore the upper bound for the start time or <code>null</code> if unbounded
+   * @return this for chaining
+   */
+  public TransformationQuery setStartedBefore(Instant startedBefore) {
+    this.startedBefore = startedBefore;
+    return this;
+  }
+
+  /**
+   * Gets the cursor returned with a previous page after which to resume the listing.
+   *
+   * @return the cursor to resume from or empty to start from the beginning
+   */
+  public Optional<String> getCursor() {
+    return Optional.ofNullable(cursor);
+  }
+
+  /**
+   * Sets the cursor returned with a previous page after which to resume the listing.
+   *
+   * @param cursor the cursor to resume from or <code>null</code> to start from the beginning
+   * @return this for chaining
+   */
+  public TransformationQuery setCursor(String cursor) {
+    this.cursor = cursor;
+    return this;
+  }
+
+  /**
+   * Gets the maximum number of transformations to return in a single page.
+   *
+   * @return the maximum number of transformations to return in a single page
+   */
+  public int getLimit() {
+    return limit;
+  }
+
+  /**
+   * Sets the maximum number of transformations to return in a single page.
+   *
+   * @param limit the maximum number of transformations to return in a single page
+   * @return this for chaining
+   * @throws IllegalArgumentException if <code>limit</code> is not positive
+   */
+  public TransformationQuery setLimit(int limit) {
+    if (limit <= 0) {
+      throw new IllegalArgumentException("invalid limit: " + limit);
+    }
+    this.limit = limit;
+    return this;
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        "TransformationQuery[states=%s, metadataType=%s, startedFrom=%s, startedBefore=%s, cursor=%s, limit=%d]",
+        states, metadataType, startedFrom, startedBefore, cursor, limit);
+  }
+}
@@ -0,0 +1,46 @@
+/**
+ * Copyright (c) Connexta
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package com.connexta.transformation.commons.api.exceptions;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Thrown when a transformation manager is overloaded and refuses to accept new transformations.
+ * Nothing was created when this exception is thrown and the request can be retried later, ideally
+ * after the suggested delay if one is provided.
+ */
+public class AdmissionRejectedException extends TransformationException {
+  private final Duration retryAfter;
+
+  /**
+   * Instantiates a new exception.
+   *
+   * @param message the message for the exception
+   * @param retryAfter the suggested delay before retrying or <code>null</code> if unknown
+   */
+  public AdmissionRejectedException(String message, Duration retryAfter) {
+    super(message);
+    this.retryAfter = retryAfter;
+  }
+
+  /**
+   * Gets the suggested delay to wait before retrying the rejected request.
+   *
+   * @return the suggested delay before retrying or empty if unknown
+   */
+  public Optional<Duration> getRetryAfter() {
+    return Optional.ofNullable(retryAfter);
+  }
+}
@@ -0,0 +1,31 @@
+/**
+ * Copyright (c) Connexta
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package com.connexta.transformation.commons.api.exceptions;
+
+import java.io.IOException;
+
+/**
+ * Thrown while reading the content of a metadata when the content read doesn't match the checksum
+ * computed when it was stored.
+ */
+public class CorruptedContentException extends IOException {
+  /**
+   * Instantiates a new exception.
+   *
+   * @param message the message for the exception
+   */
+  public CorruptedContentException(String message) {
+    super(message);
+  }
+}
@@ -0,0 +1,402 @@
+/**
+ * Copyright (c) Connexta
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package com.connexta.transformation.commons.api;
+
+import com.connexta.transformation.commons.api.TransformationStatus.State;
+import com.connexta.transformation.commons.api.exceptions.CorruptedContentException;
+import com.connexta.transformation.commons.api.exceptions.TransformationException;
+import com.github.npathai.hamcrestopt.OptionalMatchers;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.zip.CRC32C;
+import org.hamcrest.Matchers;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+
+public class MetadataTransformationTest {
+  private static final String CONTENT_TYPE = "text/plain";
+  private static final String CONTENT = "some content";
+
+  @Rule public ExpectedException exception = ExpectedException.none();
+
+  private final MetadataTransformation metadata =
+      Mockito.mock(
+          TestMetadataTransformation.class,
+          Mockito.withSettings().defaultAnswer(Mockito.CALLS_REAL_METHODS));
+
+  private final ByteArrayOutputStream succeeded = new ByteArrayOutputStream();
+
+  abstract static class TestMetadataTransformation implements MetadataTransformation {}
+
+  @Before
+  public void setup() throws Exception {
+    Mockito.doReturn(State.IN_PROGRESS).when(metadata).getState();
+    Mockito.doAnswer(
+            i -> {
+              i.<InputStream>getArgument(1).transferTo(succeeded);
+              return null;
+            })
+        .when(metadata)
+        .succeed(ArgumentMatchers.anyString(), ArgumentMatchers.any(InputStream.class));
+  }
+
+  @Test
+  public void testOpenContentSucceedsWhenClosed() throws Exception {
+    final OutputStream stream = metadata.openContent(MetadataTransformationTest.CONTENT_TYPE);
+
+    stream.write(MetadataTransformationTest.CONTENT.getBytes(StandardCharsets.UTF_8));
+
+    Mockito.verify(metadata, Mockito.never())
+        .succeed(ArgumentMatchers.anyString(), ArgumentMatchers.any(InputStream.class));
+
+    stream.close();
+
+    Mockito.verify(metadata)
+        .succeed(
+            ArgumentMatchers.eq(MetadataTransformationTest.CONTENT_TYPE),
+            ArgumentMatchers.any(InputStream.class));
+    Assert.assertThat(
+        succeeded.toString(StandardCharsets.UTF_8),
+        Matchers.equalTo(MetadataTransformationTest.CONTENT));
+  }
+
+  @Test
+  public void testOpenContentWithWriterSucceedsWhenClosed() throws Exception {
+    try (final Writer writer =
+        metadata.openContent(MetadataTransformationTest.CONTENT_TYPE, StandardCharsets.UTF_8)) {
+      writer.write(MetadataTransformationTest.CONTENT);
+    }
+
+    Assert.assertThat(
+        succeeded.toString(StandardCharsets.UTF_8),
+        Matchers.equalTo(MetadataTransformationTest.CONTENT));
+  }
+
+  @Test
+  public void testClosingContentTwiceSucceedsOnlyOnce() throws Exception {
+    final OutputStream stream = metadata.openContent(MetadataTransformationTest.CONTENT_TYPE);
+
+    stream.close();
+    stream.close();
+
+    Mockito.verify(metadata)
+        .succeed(ArgumentMatchers.anyString(), ArgumentMatchers.any(InputStream.class));
+  }
+
+  @Test
+  public void testClosingContentDiscardsItWhenCompletedInTheMeanTime() throws Exception {
+    final OutputStream stream = metadata.openContent(MetadataTransformationTest.CONTENT_TYPE);
+
+    Mockito.doReturn(State.FAILED).when(metadata).getState();
+    stream.close();
+
+    Mockito.verify(metadata, Mockito.never())
+        .succeed(ArgumentMatchers.anyString(), ArgumentMatchers.any(InputStream.class));
+  }
+
+  @Test
+  public void testAbortingContentDiscardsItWhenTheProducerFails() throws Exception {
+    try (final ContentOutputStream stream =
+        metadata.openContent(MetadataTransformationTest.CONTENT_TYPE)) {
+      try {
+        stream.write(MetadataTransformationTest.CONTENT.getBytes(StandardCharsets.UTF_8), 0, 4);
+        throw new IOException("testing");
+      } catch (IOException e) {
+        stream.abort();
+      }
+    }
+
+    Mockito.verify(metadata, Mockito.never())
+        .succeed(ArgumentMatchers.anyString(), ArgumentMatchers.any(InputStream.class));
+  }
+
+  @Test
+  public void testAbortingContentWriterDiscardsIt() throws Exception {
+    try (final ContentWriter writer =
+        metadata.openContent(MetadataTransformationTest.CONTENT_TYPE, StandardCharsets.UTF_8)) {
+      writer.write(MetadataTransformationTest.CONTENT);
+      writer.abort();
+    }
+
+    Mockito.verify(metadata, Mockito.never())
+        .succeed(ArgumentMatchers.anyString(), ArgumentMatchers.any(InputStream.class));
+  }
+
+  @Test
+  public void testOpenContentFailsWhenAlreadyCompleted() throws Exception {
+    Mockito.doReturn(State.SUCCESSFUL).when(metadata).getState();
+
+    exception.expect(IllegalStateException.class);
+
+    metadata.openContent(MetadataTransformationTest.CONTENT_TYPE);
+  }
+
+  @Test
+  public void testClosingContentFailsWhenSucceedFails() throws Exception {
+    final TransformationException error = new TransformationException("testing");
+
+    Mockito.doThrow(error)
+        .when(metadata)
+        .succeed(ArgumentMatchers.anyString(), ArgumentMatchers.any(InputStream.class));
+    final OutputStream stream = metadata.openContent(MetadataTransformationTest.CONTENT_TYPE);
+
+    exception.expect(IOException.class);
+    exception.expectCause(Matchers.sameInstance(error));
+
+    stream.close();
+  }
+
+  @Test
+  public void testGetContentChannelAdaptsContent() throws Exception {
+    Mockito.doReturn(Optional.of(contentStream())).when(metadata).getContent();
+
+    final ReadableByteChannel channel = metadata.getContentChannel().get();
+    final ByteBuffer buffer = ByteBuffer.allocate(64);
+
+    channel.read(buffer);
+
+    Assert.assertThat(
+        new String(buffer.array(), 0, buffer.position(), StandardCharsets.UTF_8),
+        Matchers.equalTo(MetadataTransformationTest.CONTENT));
+  }
+
+  @Test
+  public void testGetContentChannelWhenNoContent() throws Exception {
+    Mockito.doReturn(Optional.empty()).when(metadata).getContent();
+
+    Assert.assertThat(metadata.getContentChannel(), OptionalMatchers.isEmpty());
+  }
+
+  @Test
+  public void testTransferContentTo() throws Exception {
+    final ByteArrayOutputStream target = new ByteArrayOutputStream();
+
+    Mockito.doReturn(Optional.of(contentStream())).when(metadata).getContent();
+
+    Assert.assertThat(
+        metadata.transferContentTo(Channels.newChannel(target)).stream().boxed().findFirst(),
+        OptionalMatchers.isPresentAndIs((long) MetadataTransformationTest.CONTENT.length()));
+    Assert.assertThat(
+        target.toString(StandardCharsets.UTF_8),
+        Matchers.equalTo(MetadataTransformationTest.CONTENT));
+  }
+
+  @Test
+  public void testTransferContentToWhenNoContent() throws Exception {
+    final ByteArrayOutputStream target = new ByteArrayOutputStream();
+
+    Mockito.doReturn(Optional.empty()).when(metadata).getContent();
+
+    Assert.assertThat(
+        metadata.transferContentTo(Channels.newChannel(target)).stream().boxed().findFirst(),
+        OptionalMatchers.isEmpty());
+    Assert.assertThat(target.size(), Matchers.equalTo(0));
+  }
+
+  @Test
+  public void testGetContentRange() throws Exception {
+    Mockito.doReturn(Optional.of(contentStream())).when(metadata).getContent();
+
+    Assert.assertThat(
+        new String(metadata.getContent(5L, 3L).get().readAllBytes(), StandardCharsets.UTF_8),
+        Matchers.equalTo("con"));
+  }
+
+  @Test
+  public void testGetContentRangeBeyondTheEnd() throws Exception {
+    Mockito.doReturn(Optional.of(contentStream())).when(metadata).getContent();
+
+    Assert.assertThat(
+        new String(metadata.getContent(8L, 100L).get().readAllBytes(), StandardCharsets.UTF_8),
+        Matchers.equalTo("tent"));
+  }
+
+  @Test
+  public void testGetContentRangeWithOffsetBeyondTheEnd() throws Exception {
+    Mockito.doReturn(Optional.of(contentStream())).when(metadata).getContent();
+
+    Assert.assertThat(metadata.getContent(100L, 3L).get().read(), Matchers.equalTo(-1));
+  }
+
+  @Test
+  public void testGetContentRangeWhenNoContent() throws Exception {
+    Mockito.doReturn(Optional.empty()).when(metadata).getContent();
+
+    Assert.assertThat(metadata.getContent(0L, 3L), OptionalMatchers.isEmpty());
+  }
+
+  @Test
+  public void testGetContentRangeClosesContentWhenSkippingFails() throws Exception {
+    final InputStream is = Mockito.mock(InputStream.class);
+    final IOException error = new IOException("testing");
+
+    Mockito.doThrow(error)
+        .when(is)
+        .read(
+            ArgumentMatchers.any(byte[].class),
+            ArgumentMatchers.anyInt(),
+            ArgumentMatchers.anyInt());
+    Mockito.doReturn(Optional.of(is)).when(metadata).getContent();
+
+    try {
+      metadata.getContent(5L, 3L);
+      Assert.fail();
+    } catch (IOException e) {
+      Assert.assertThat(e, Matchers.sameInstance(error));
+    }
+    Mockito.verify(is).close();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testGetContentRangeWithNegativeOffset() throws Exception {
+    metadata.getContent(-1L, 3L);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testGetContentRangeWithNegativeLength() throws Exception {
+    metadata.getContent(0L, -1L);
+  }
+
+  @Test
+  public void testGetContentVersion() throws Exception {
+    Mockito.doReturn(OptionalLong.of(26L)).when(metadata).getContentLength();
+    Mockito.doReturn(Optional.of(Instant.ofEpochMilli(255L))).when(metadata).getCompletionTime();
+
+    Assert.assertThat(metadata.getContentVersion(), OptionalMatchers.isPresentAndIs("ff-1a"));
+  }
+
+  @Test
+  public void testGetContentVersionWhenNoContent() throws Exception {
+    Mockito.doReturn(OptionalLong.empty()).when(metadata).getContentLength();
+
+    Assert.assertThat(metadata.getContentVersion(), OptionalMatchers.isEmpty());
+  }
+
+  @Test
+  public void testGetContentCrc32cIsEmptyByDefault() throws Exception {
+    Assert.assertThat(
+        metadata.getContentCrc32c().stream().boxed().findFirst(), OptionalMatchers.isEmpty());
+  }
+
+  @Test
+  public void testGetContentSha256IsEmptyByDefault() throws Exception {
+    Assert.assertThat(metadata.getContentSha256(), OptionalMatchers.isEmpty());
+  }
+
+  @Test
+  public void testGetContentVersionWithChecksum() throws Exception {
+    Mockito.doReturn(OptionalLong.of(26L)).when(metadata).getContentLength();
+    Mockito.doReturn(OptionalLong.of(0xcafeL)).when(metadata).getContentCrc32c();
+
+    Assert.assertThat(metadata.getContentVersion(), OptionalMatchers.isPresentAndIs("cafe-1a"));
+  }
+
+  @Test
+  public void testGetVerifiedContent() throws Exception {
+    Mockito.doReturn(Optional.of(contentStream())).when(metadata).getContent();
+    Mockito.doReturn(OptionalLong.of(crc32c())).when(metadata).getContentCrc32c();
+
+    Assert.assertThat(
+        new String(metadata.getVerifiedContent().get().readAllBytes(), StandardCharsets.UTF_8),
+        Matchers.equalTo(MetadataTransformationTest.CONTENT));
+  }
+
+  @Test
+  public void testGetVerifiedContentOneByteAtATime() throws Exception {
+    Mockito.doReturn(Optional.of(contentStream())).when(metadata).getContent();
+    Mockito.doReturn(OptionalLong.of(crc32c())).when(metadata).getContentCrc32c();
+
+    final InputStream is = metadata.getVerifiedContent().get();
+    final ByteArrayOutputStream read = new ByteArrayOutputStream();
+
+    for (int b = is.read(); b != -1; b = is.read()) {
+      read.write(b);
+    }
+
+    Assert.assertThat(
+        read.toString(StandardCharsets.UTF_8),
+        Matchers.equalTo(MetadataTransformationTest.CONTENT));
+  }
+
+  @Test
+  public void testGetVerifiedContentWhenCorrupted() throws Exception {
+    Mockito.doReturn(Optional.of(contentStream())).when(metadata).getContent();
+    Mockito.doReturn(OptionalLong.of(crc32c() + 1L)).when(metadata).getContentCrc32c();
+
+    final InputStream is = metadata.getVerifiedContent().get();
+
+    exception.expect(CorruptedContentException.class);
+
+    is.readAllBytes();
+  }
+
+  @Test
+  public void testGetVerifiedContentOneByteAtATimeWhenCorrupted() throws Exception {
+    Mockito.doReturn(Optional.of(contentStream())).when(metadata).getContent();
+    Mockito.doReturn(OptionalLong.of(crc32c() + 1L)).when(metadata).getContentCrc32c();
+
+    final InputStream is = metadata.getVerifiedContent().get();
+
+    is.skip(MetadataTransformationTest.CONTENT.length());
+
+    exception.expect(CorruptedContentException.class);
+
+    is.read();
+  }
+
+  @Test
+  public void testGetVerifiedContentWithoutChecksum() throws Exception {
+    final InputStream content = contentStream();
+
+    Mockito.doReturn(Optional.of(content)).when(metadata).getContent();
+
+    Assert.assertThat(metadata.getVerifiedContent(), OptionalMatchers.isPresentAndIs(content));
+  }
+
+  @Test
+  public void testGetVerifiedContentWhenNoContent() throws Exception {
+    Mockito.doReturn(Optional.empty()).when(metadata).getContent();
+    Mockito.doReturn(OptionalLong.of(crc32c())).when(metadata).getContentCrc32c();
+
+    Assert.assertThat(metadata.getVerifiedContent(), OptionalMatchers.isEmpty());
+  }
+
+  private static long crc32c() {
+    final CRC32C crc32c = new CRC32C();
+
+    crc32c.update(MetadataTransformationTest.CONTENT.getBytes(StandardCharsets.UTF_8));
+    return crc32c.getValue();
+  }
+
+  private static InputStream contentStream() {
+    return new ByteArrayInputStream(
+        MetadataTransformationTest.CONTENT.getBytes(StandardCharsets.UTF_8));
+  }
+}
@@ -0,0 +1,109 @@
+/**
+ * Copyright (c) Connexta
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package com.connexta.transformation.commons.api;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.Mockito.when;
+
+import com.connexta.transformation.commons.api.exceptions.TransformationNotFoundException;
+import com.github.npathai.hamcrestopt.OptionalMatchers;
+import java.net.URL;
+import java.util.List;
+import java.util.Set;
+import org.hamcrest.Matchers;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+public class TransformationManagerTest {
+  private static final String ID = "1234";
+  private static final String ID2 = "5678";
+  private static final String MISSING_ID = "gibberish-ID";
+
+  abstract static class TestTransformationManager implements TransformationManager {}
+
+  private final TransformationManager manager =
+      Mockito.mock(
+          TestTransformationManager.class,
+          Mockito.withSettings().defaultAnswer(Mockito.CALLS_REAL_METHODS));
+
+  private final Transformation transformation = Mockito.mock(Transformation.class);
+  private final Transformation transformation2 = Mockito.mock(Transformation.class);
+
+  private URL currentUri;
+  private URL finalUri;
+  private URL metacardUri;
+
+  @Before
+  public void setup() throws Exception {
+    currentUri = new URL("http://current.com");
+    finalUri = new URL("http://final.com");
+    metacardUri = new URL("http://metacard.com");
+  }
+
+  @Test
+  public void createTransformsCreatesEachTransformation() throws Exception {
+    final RequestInfo request = Mockito.mock(RequestInfo.class);
+
+    when(request.getCurrentLocation()).thenReturn(currentUri);
+    when(request.getFinalLocation()).thenReturn(finalUri);
+    when(request.getMetacardLocation()).thenReturn(metacardUri);
+    Mockito.doReturn(transformation, transformation2)
+        .when(manager)
+        .createTransform(currentUri, finalUri, metacardUri);
+
+    final List<Transformation> transformations =
+        manager.createTransforms(List.of(request, request));
+
+    assertThat(transformations, Matchers.contains(transformation, transformation2));
+  }
+
+  @Test
+  public void getAllReportsMissingTransformations() throws Exception {
+    Mockito.doReturn(transformation).when(manager).get(TransformationManagerTest.ID);
+    Mockito.doReturn(transformation2).when(manager).get(TransformationManagerTest.ID2);
+    Mockito.doThrow(new TransformationNotFoundException("not found"))
+        .when(manager)
+        .get(TransformationManagerTest.MISSING_ID);
+
+    final TransformationLookup lookup =
+        manager.getAll(
+            List.of(
+                TransformationManagerTest.ID,
+                TransformationManagerTest.MISSING_ID,
+                TransformationManagerTest.ID2));
+
+    assertThat(
+        lookup.get(TransformationManagerTest.ID), OptionalMatchers.isPresentAndIs(transformation));
+    assertThat(
+        lookup.get(TransformationManagerTest.ID2),
+        OptionalMatchers.isPresentAndIs(transformation2));
+    assertThat(lookup.getMissing(), Matchers.contains(TransformationManagerTest.MISSING_ID));
+  }
+
+  @Test
+  public void deleteAllReportsMissingTransformations() throws Exception {
+    Mockito.doNothing().when(manager).delete(TransformationManagerTest.ID);
+    Mockito.doThrow(new TransformationNotFoundException("not found"))
+        .when(manager)
+        .delete(TransformationManagerTest.MISSING_ID);
+
+    final Set<String> missing =
+        manager.deleteAll(
+            List.of(TransformationManagerTest.ID, TransformationManagerTest.MISSING_ID));
+
+    assertThat(missing, Matchers.contains(TransformationManagerTest.MISSING_ID));
+    Mockito.verify(manager).delete(TransformationManagerTest.ID);
+  }
+}
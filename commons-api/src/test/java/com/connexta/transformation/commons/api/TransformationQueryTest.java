@@ -0,0 +1,65 @@
+/**
+ * Copyright (c) Connexta
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package com.connexta.transformation.commons.api;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import com.connexta.transformation.commons.api.TransformationStatus.State;
+import com.github.npathai.hamcrestopt.OptionalMatchers;
+import java.time.Instant;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+
+public class TransformationQueryTest {
+  private static final Instant FROM = Instant.ofEpochMilli(1L);
+  private static final Instant BEFORE = Instant.ofEpochMilli(22L);
+
+  @Test
+  public void defaultsDoNotFilter() {
+    final TransformationQuery query = new TransformationQuery();
+
+    assertThat(query.getStates(), Matchers.empty());
+    assertThat(query.getMetadataType(), OptionalMatchers.isEmpty());
+    assertThat(query.getStartedFrom(), OptionalMatchers.isEmpty());
+    assertThat(query.getStartedBefore(), OptionalMatchers.isEmpty());
+    assertThat(query.getCursor(), OptionalMatchers.isEmpty());
+    assertThat(query.getLimit(), Matchers.equalTo(TransformationQuery.DEFAULT_LIMIT));
+  }
+
+  @Test
+  public void settersAreRetained() {
+    final TransformationQuery query =
+        new TransformationQuery()
+            .setStates(State.FAILED, State.SUCCESSFUL)
+            .setMetadataType("irm")
+            .setStartedFrom(TransformationQueryTest.FROM)
+            .setStartedBefore(TransformationQueryTest.BEFORE)
+            .setCursor("cursor")
+            .setLimit(5);
+
+    assertThat(query.getStates(), Matchers.containsInAnyOrder(State.FAILED, State.SUCCESSFUL));
+    assertThat(query.getMetadataType(), OptionalMatchers.isPresentAndIs("irm"));
+    assertThat(
+        query.getStartedFrom(), OptionalMatchers.isPresentAndIs(TransformationQueryTest.FROM));
+    assertThat(
+        query.getStartedBefore(), OptionalMatchers.isPresentAndIs(TransformationQueryTest.BEFORE));
+    assertThat(query.getCursor(), OptionalMatchers.isPresentAndIs("cursor"));
+    assertThat(query.getLimit(), Matchers.equalTo(5));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void setLimitRejectsNonPositiveValues() {
+    new TransformationQuery().setLimit(0);
+  }
+}
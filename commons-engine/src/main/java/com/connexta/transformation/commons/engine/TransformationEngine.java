@@ -0,0 +1,369 @@
+/**
+ * Copyright (c) Connexta
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package com.connexta.transformation.commons.engine;
+
+import com.connexta.transformation.commons.api.ErrorCode;
+import com.connexta.transformation.commons.api.MetadataTransformation;
+import com.connexta.transformation.commons.api.Transformation;
+import com.connexta.transformation.commons.api.exceptions.TransformationException;
+import java.io.Closeable;
+import java.io.OutputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Drives metadata transformations to completion by running the {@link Transformer} registered for
+ * their type. Transformers run on a provided executor and stream their output straight into the
+ * content store through {@link MetadataTransformation#openContent(String)}. The metadata is
+ * completed successfully when the transformer returns and is failed with {@link
+ * ErrorCode#TRANSFORMATION_FAILURE} when it throws or times out.
+ *
+ * <p>The number of executions of a given transformer running concurrently can be limited.
+ * Executions exceeding that limit wait in a lock-free queue without holding a thread from the
+ * executor until a running execution of the same transformer completes.
+ */
+public class TransformationEngine implements Closeable {
+  private static final Logger LOGGER = LoggerFactory.getLogger(TransformationEngine.class);
+
+  private static final int RUNNING = 0;
+  private static final int CLOSING = 1;
+  private static final int FAILED = 2;
+  private static final int TIMED_OUT = 3;
+
+  private final Map<String, TransformerLane> lanes = new ConcurrentHashMap<>();
+  private final Executor executor;
+  private final ScheduledExecutorService scheduler;
+
+  /**
+   * Instantiates a new engine running transformers on the specified executor. The executor is not
+   * shut down when the engine is closed.
+   *
+   * @param executor the executor to run transformers on
+   */
+  public TransformationEngine(Executor executor) {
+    this.executor = executor;
+    final ScheduledThreadPoolExecutor timer =
+        new ScheduledThreadPoolExecutor(1, TransformationEngine.daemonThreadFactory("timeout"));
+
+    timer.setRemoveOnCancelPolicy(true);
+    this.scheduler = timer;
+  }
+
+  /**
+   * Creates a bounded executor suitable for running transformers. Tasks submitted while all threads
+   * are busy are queued up to the specified capacity after which they are rejected.
+   *
+   * @param threads the number of threads
+   * @param queueCapacity the maximum number of tasks waiting for a thread
+   * @return a new bounded executor
+   * @throws IllegalArgumentException if <code>threads</code> or <code>queueCapacity</code> is less
+   *     than 1
+   */
+  public static ExecutorService newBoundedExecutor(int threads, int queueCapacity) {
+    return new ThreadPoolExecutor(
+        threads,
+        threads,
+        0L,
+        TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(queueCapacity),
+        TransformationEngine.daemonThreadFactory("worker"));
+  }
+
+  /**
+   * Creates an executor which starts a new virtual thread for each transformer execution when
+   * running on a JDK which supports virtual threads. Since such an executor is unbounded, the
+   * concurrency of each transformer should be limited when registering it.
+   *
+   * @return a new virtual thread executor or empty if virtual threads are not supported by the
+   *     running JDK
+   */
+  public static Optional<ExecutorService> newVirtualThreadExecutor() {
+    try {
+      return Optional.of(
+          (ExecutorService)
+              Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null));
+    } catch (NoSuchMethodException e) {
+      return Optional.empty();
+    } catch (IllegalAccessException | InvocationTargetException e) {
+      throw new IllegalStateException("failed to create a virtual thread executor", e);
+    }
+  }
+
+  /**
+   * Registers a transformer for a given type of metadata with no concurrency limit and no timeout.
+   *
+   * @param metadataType the type of metadata generated by the transformer
+   * @param contentType the content type of the metadata generated by the transformer
+   * @param transformer the transformer to register
+   * @return this for chaining
+   * @throws IllegalArgumentException if a transformer is already registered for <code>metadataType
+   *     </code>
+   */
+  public TransformationEngine register(
+      String metadataType, String contentType, Transformer transformer) {
+    return register(metadataType, contentType, transformer, Integer.MAX_VALUE, null);
+  }
+
+  /**
+   * Registers a transformer for a given type of metadata.
+   *
+   * @param metadataType the type of metadata generated by the transformer
+   * @param contentType the content type of the metadata generated by the transformer
+   * @param transformer the transformer to register
+   * @param maxConcurrency the maximum number of executions of the transformer that can run
+   *     concurrently
+   * @param timeout the maximum amount of time an execution can run for before the metadata is
+   *     failed or <code>null</code> if unlimited
+   * @return this for chaining
+   * @throws IllegalArgumentException if a transformer is already registered for <code>metadataType
+   *     </code>, if <code>maxConcurrency</code> is less than 1 or if <code>timeout</code> is not
+   *     positive
+   */
+  public TransformationEngine register(
+      String metadataType,
+      String contentType,
+      Transformer transformer,
+      int maxConcurrency,
+      @Nullable Duration timeout) {
+    if (maxConcurrency < 1) {
+      throw new IllegalArgumentException("invalid max concurrency: " + maxConcurrency);
+    } else if ((timeout != null) && (timeout.isNegative() || timeout.isZero())) {
+      throw new IllegalArgumentException("invalid timeout: " + timeout);
+    }
+    final TransformerLane lane =
+        new TransformerLane(metadataType, contentType, transformer, maxConcurrency, timeout);
+
+    if (lanes.putIfAbsent(metadataType, lane) != null) {
+      throw new IllegalArgumentException(
+          "a transformer is already registered for [" + metadataType + "] metadata");
+    }
+    return this;
+  }
+
+  /**
+   * Checks if a transformer is registered for a given type of metadata.
+   *
+   * @param metadataType the type of metadata to check
+   * @return <code>true</code> if a transformer is registered; <code>false</code> otherwise
+   */
+  public boolean isRegistered(String metadataType) {
+    return lanes.containsKey(metadataType);
+  }
+
+  /**
+   * Gets the number of executions currently running for a given type of metadata.
+   *
+   * @param metadataType the type of metadata to check
+   * @return the number of executions currently running
+   */
+  public int getRunningCount(String metadataType) {
+    final TransformerLane lane = lanes.get(metadataType);
+
+    return (lane != null) ? lane.getRunningCount() : 0;
+  }
+
+  /**
+   * Adds all metadata types for which a transformer is registered to the specified transformation
+   * and runs the corresponding transformers. All metadata are added before any transformer runs
+   * such that the transformation cannot complete before the last one is added.
+   *
+   * @param transformation the transformation to drive to completion
+   * @return a future completed with the transformation once all transformers have completed
+   * @throws TransformationException if an error occurs while adding metadata to the transformation
+   * @throws IllegalStateException if the transformation has already been completed or was deleted
+   */
+  public CompletableFuture<Transformation> transform(Transformation transformation)
+      throws TransformationException {
+    final List<MetadataTransformation> metadatas = new ArrayList<>(lanes.size());
+    final List<CompletableFuture<MetadataTransformation>> futures = new ArrayList<>(lanes.size());
+
+    for (final String metadataType : lanes.keySet()) {
+      metadatas.add(transformation.add(metadataType));
+    }
+    for (final MetadataTransformation metadata : metadatas) {
+      futures.add(execute(metadata));
+    }
+    return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0]))
+        .thenApply(v -> transformation);
+  }
+
+  /**
+   * Runs the transformer registered for the type of the specified metadata. The execution waits for
+   * one of the permits of its transformer to become available before it is handed to the executor.
+   *
+   * <p>The returned future is completed with the metadata once it was completed by the engine
+   * whether successfully or not. It is completed exceptionally if the metadata could not be failed
+   * or if the execution was rejected by the executor, in which case the metadata remains in
+   * progress.
+   *
+   * @param metadata the metadata to generate
+   * @return a future completed with the metadata once completed
+   * @throws IllegalArgumentException if no transformer is registered for the metadata's type
+   */
+  public CompletableFuture<MetadataTransformation> execute(MetadataTransformation metadata) {
+    final TransformerLane lane = lanes.get(metadata.getMetadataType());
+
+    if (lane == null) {
+      throw new IllegalArgumentException(
+          "no transformer registered for [" + metadata.getMetadataType() + "] metadata");
+    }
+    final Execution execution = new Execution(lane, metadata);
+
+    lane.offer(execution);
+    dispatch(lane);
+    return execution.result;
+  }
+
+  /** Stops the timer used to enforce timeouts. The executor is not shut down. */
+  @Override
+  public void close() {
+    scheduler.shutdownNow();
+  }
+
+  private void dispatch(TransformerLane lane) {
+    Runnable execution;
+
+    while ((execution = lane.next()) != null) {
+      try {
+        executor.execute(execution);
+      } catch (RejectedExecutionException e) {
+        lane.release();
+        ((Execution) execution).result.completeExceptionally(e);
+      }
+    }
+  }
+
+  private static ThreadFactory daemonThreadFactory(String name) {
+    final AtomicInteger count = new AtomicInteger();
+
+    return r -> {
+      final Thread thread =
+          new Thread(r, "transformation-engine-" + name + "-" + count.incrementAndGet());
+
+      thread.setDaemon(true);
+      return thread;
+    };
+  }
+
+  /** A single execution of a transformer for a given metadata. */
+  private class Execution implements Runnable {
+    private final TransformerLane lane;
+    private final MetadataTransformation metadata;
+    private final CompletableFuture<MetadataTransformation> result = new CompletableFuture<>();
+    private final AtomicInteger state = new AtomicInteger(TransformationEngine.RUNNING);
+    @Nullable private Thread runner = null;
+
+    Execution(TransformerLane lane, MetadataTransformation metadata) {
+      this.lane = lane;
+      this.metadata = metadata;
+    }
+
+    @Override
+    public void run() {
+      setRunner(Thread.currentThread());
+      final ScheduledFuture<?> timer = startTimer();
+
+      try {
+        final OutputStream output = metadata.openContent(lane.getContentType());
+
+        lane.getTransformer().transform(metadata, output);
+        if (state.compareAndSet(TransformationEngine.RUNNING, TransformationEngine.CLOSING)) {
+          output.close();
+          result.complete(metadata);
+        }
+      } catch (Exception e) {
+        if (e instanceof InterruptedException) {
+          Thread.currentThread().interrupt();
+        }
+        if (state.compareAndSet(TransformationEngine.RUNNING, TransformationEngine.FAILED)
+            || (state.get() == TransformationEngine.CLOSING)) {
+          fail("[" + lane.getMetadataType() + "] transformer failed: " + e, e);
+        }
+      } finally {
+        if (timer != null) {
+          timer.cancel(false);
+        }
+        setRunner(null);
+        Thread.interrupted(); // clear any interruption so it does not leak into the next task
+        lane.release();
+        dispatch(lane);
+      }
+    }
+
+    @Nullable
+    private ScheduledFuture<?> startTimer() {
+      final Duration timeout = lane.getTimeout();
+
+      if (timeout == null) {
+        return null;
+      }
+      return scheduler.schedule(this::timedOut, timeout.toNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    private void timedOut() {
+      if (state.compareAndSet(TransformationEngine.RUNNING, TransformationEngine.TIMED_OUT)) {
+        fail(
+            "[" + lane.getMetadataType() + "] transformer timed out after " + lane.getTimeout(),
+            null);
+        interruptRunner();
+      }
+    }
+
+    private void fail(String message, @Nullable Exception cause) {
+      TransformationEngine.LOGGER.debug(
+          "failing [{}] metadata for transformation [{}]: {}",
+          metadata.getMetadataType(),
+          metadata.getTransformId(),
+          message,
+          cause);
+      try {
+        metadata.fail(ErrorCode.TRANSFORMATION_FAILURE, message);
+        result.complete(metadata);
+      } catch (Exception e) {
+        result.completeExceptionally(e);
+      }
+    }
+
+    private synchronized void setRunner(@Nullable Thread runner) {
+      this.runner = runner;
+    }
+
+    private synchronized void interruptRunner() {
+      if (runner != null) {
+        runner.interrupt();
+      }
+    }
+  }
+}
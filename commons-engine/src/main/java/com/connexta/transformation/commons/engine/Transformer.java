@@ -0,0 +1,48 @@
+/**
+ * Copyright (c) Connexta
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package com.connexta.transformation.commons.engine;
+
+import com.connexta.transformation.commons.api.MetadataTransformation;
+import com.connexta.transformation.commons.api.exceptions.TransformationException;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Generates the content of a given type of metadata. Transformers are registered with a {@link
+ * TransformationEngine} which takes care of running them and of completing the metadata based on
+ * their outcome.
+ *
+ * <p>This is a <a href="package-summary.html">functional interface</a> whose functional method is
+ * {@link #transform(MetadataTransformation, OutputStream)}.
+ */
+@FunctionalInterface
+public interface Transformer {
+  /**
+   * Generates the content for the specified metadata by writing it to the given output stream. The
+   * stream writes directly into the content store and must not be closed by the transformer. The
+   * metadata is completed successfully by the engine once this method returns normally and is
+   * failed if this method throws an exception.
+   *
+   * <p>Transformers should stop as soon as possible when interrupted or when writing to the stream
+   * fails, which happens once the engine gave up on them because they timed out.
+   *
+   * @param metadata the metadata to generate (its request info provides the source locations)
+   * @param output the stream where to write the generated content
+   * @throws TransformationException if the metadata cannot be generated
+   * @throws IOException if an I/O error occurs while generating the metadata
+   * @throws InterruptedException if interrupted while generating the metadata
+   */
+  void transform(MetadataTransformation metadata, OutputStream output)
+      throws TransformationException, IOException, InterruptedException;
+}
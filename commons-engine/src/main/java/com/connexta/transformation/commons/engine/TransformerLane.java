@@ -0,0 +1,122 @@
+/**
+ * Copyright (c) Connexta
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package com.connexta.transformation.commons.engine;
+
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import javax.annotation.Nullable;
+
+/**
+ * Keeps track of the transformer registered for a given type of metadata along with the executions
+ * waiting for one of the permits limiting how many of them can run concurrently.
+ */
+class TransformerLane {
+  private final String metadataType;
+  private final String contentType;
+  private final Transformer transformer;
+  private final int maxConcurrency;
+  @Nullable private final Duration timeout;
+  private final Semaphore permits;
+  private final Queue<Runnable> waiting = new ConcurrentLinkedQueue<>();
+
+  /**
+   * Instantiates a new lane.
+   *
+   * @param metadataType the type of metadata generated by the transformer
+   * @param contentType the content type of the metadata generated by the transformer
+   * @param transformer the transformer
+   * @param maxConcurrency the maximum number of executions of the transformer that can run
+   *     concurrently
+   * @param timeout the maximum amount of time an execution can run for or <code>null</code> if
+   *     unlimited
+   */
+  TransformerLane(
+      String metadataType,
+      String contentType,
+      Transformer transformer,
+      int maxConcurrency,
+      @Nullable Duration timeout) {
+    this.metadataType = metadataType;
+    this.contentType = contentType;
+    this.transformer = transformer;
+    this.maxConcurrency = maxConcurrency;
+    this.timeout = timeout;
+    this.permits = new Semaphore(maxConcurrency);
+  }
+
+  String getMetadataType() {
+    return metadataType;
+  }
+
+  String getContentType() {
+    return contentType;
+  }
+
+  Transformer getTransformer() {
+    return transformer;
+  }
+
+  int getMaxConcurrency() {
+    return maxConcurrency;
+  }
+
+  @Nullable
+  Duration getTimeout() {
+    return timeout;
+  }
+
+  /**
+   * Gets the number of executions currently running in this lane.
+   *
+   * @return the number of running executions
+   */
+  int getRunningCount() {
+    return maxConcurrency - permits.availablePermits();
+  }
+
+  /**
+   * Queues an execution until a permit is available.
+   *
+   * @param execution the execution to queue
+   */
+  void offer(Runnable execution) {
+    waiting.offer(execution);
+  }
+
+  /**
+   * Acquires a permit and retrieves the next waiting execution if both are available.
+   *
+   * @return the next execution to run while holding a permit or <code>null</code> if none are
+   *     waiting or no permits are available
+   */
+  @Nullable
+  Runnable next() {
+    while (!waiting.isEmpty() && permits.tryAcquire()) {
+      final Runnable execution = waiting.poll();
+
+      if (execution != null) {
+        return execution;
+      } // else - someone else got it first so release the permit and check again
+      permits.release();
+    }
+    return null;
+  }
+
+  /** Releases a permit acquired when retrieving an execution through {@link #next()}. */
+  void release() {
+    permits.release();
+  }
+}
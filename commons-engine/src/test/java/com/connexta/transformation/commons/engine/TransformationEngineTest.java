@@ -0,0 +1,438 @@
+/**
+ * Copyright (c) Connexta
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package com.connexta.transformation.commons.engine;
+
+import com.connexta.transformation.commons.api.ErrorCode;
+import com.connexta.transformation.commons.api.MetadataTransformation;
+import com.connexta.transformation.commons.api.Transformation;
+import com.connexta.transformation.commons.api.TransformationStatus.State;
+import com.connexta.transformation.commons.inmemory.InMemoryTransformationManager;
+import com.github.npathai.hamcrestopt.OptionalMatchers;
+import io.micrometer.core.instrument.Clock;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.awaitility.Awaitility;
+import org.hamcrest.Matchers;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.mockito.Mockito;
+
+public class TransformationEngineTest {
+  private static final String TYPE = "irm";
+  private static final String TYPE2 = "ddms";
+  private static final String CONTENT_TYPE = "application/xml";
+  private static final byte[] CONTENT = "<irm/>".getBytes(StandardCharsets.UTF_8);
+  private static final long TIMEOUT_SECONDS = 30L;
+
+  @Rule public ExpectedException exception = ExpectedException.none();
+
+  private final Clock clock = Mockito.mock(Clock.class);
+  private final InMemoryTransformationManager manager = new InMemoryTransformationManager(clock);
+  private final ExecutorService executor = TransformationEngine.newBoundedExecutor(4, 100);
+  private final TransformationEngine engine = new TransformationEngine(executor);
+
+  private Transformation transformation;
+
+  @Before
+  public void setup() throws Exception {
+    final URL location = new URL("http://current.com");
+
+    this.transformation = manager.createTransform(location, location, location);
+  }
+
+  @After
+  public void teardown() {
+    engine.close();
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void testRegister() {
+    Assert.assertThat(
+        engine.register(
+            TransformationEngineTest.TYPE,
+            TransformationEngineTest.CONTENT_TYPE,
+            (m, o) -> {},
+            2,
+            Duration.ofSeconds(1L)),
+        Matchers.sameInstance(engine));
+    Assert.assertThat(engine.isRegistered(TransformationEngineTest.TYPE), Matchers.equalTo(true));
+    Assert.assertThat(engine.isRegistered(TransformationEngineTest.TYPE2), Matchers.equalTo(false));
+  }
+
+  @Test
+  public void testRegisterTwice() {
+    exception.expect(IllegalArgumentException.class);
+    exception.expectMessage(Matchers.matchesPattern(".*already registered.*irm.*"));
+
+    engine.register(
+        TransformationEngineTest.TYPE, TransformationEngineTest.CONTENT_TYPE, (m, o) -> {});
+    engine.register(
+        TransformationEngineTest.TYPE, TransformationEngineTest.CONTENT_TYPE, (m, o) -> {});
+  }
+
+  @Test
+  public void testRegisterWithInvalidMaxConcurrency() {
+    exception.expect(IllegalArgumentException.class);
+    exception.expectMessage(Matchers.matchesPattern(".*invalid max concurrency.*"));
+
+    engine.register(
+        TransformationEngineTest.TYPE,
+        TransformationEngineTest.CONTENT_TYPE,
+        (m, o) -> {},
+        0,
+        null);
+  }
+
+  @Test
+  public void testRegisterWithZeroTimeout() {
+    exception.expect(IllegalArgumentException.class);
+    exception.expectMessage(Matchers.matchesPattern(".*invalid timeout.*"));
+
+    engine.register(
+        TransformationEngineTest.TYPE,
+        TransformationEngineTest.CONTENT_TYPE,
+        (m, o) -> {},
+        1,
+        Duration.ZERO);
+  }
+
+  @Test
+  public void testRegisterWithNegativeTimeout() {
+    exception.expect(IllegalArgumentException.class);
+    exception.expectMessage(Matchers.matchesPattern(".*invalid timeout.*"));
+
+    engine.register(
+        TransformationEngineTest.TYPE,
+        TransformationEngineTest.CONTENT_TYPE,
+        (m, o) -> {},
+        1,
+        Duration.ofSeconds(-1L));
+  }
+
+  @Test
+  public void testExecuteWhenNotRegistered() throws Exception {
+    exception.expect(IllegalArgumentException.class);
+    exception.expectMessage(Matchers.matchesPattern(".*no transformer.*irm.*"));
+
+    engine.execute(transformation.add(TransformationEngineTest.TYPE));
+  }
+
+  @Test
+  public void testExecuteSucceeds() throws Exception {
+    engine.register(
+        TransformationEngineTest.TYPE,
+        TransformationEngineTest.CONTENT_TYPE,
+        (m, o) -> o.write(TransformationEngineTest.CONTENT));
+
+    final MetadataTransformation metadata =
+        await(engine.execute(transformation.add(TransformationEngineTest.TYPE)));
+
+    Assert.assertThat(metadata.getState(), Matchers.equalTo(State.SUCCESSFUL));
+    Assert.assertThat(
+        metadata.getContentType(),
+        OptionalMatchers.isPresentAndIs(TransformationEngineTest.CONTENT_TYPE));
+    try (final InputStream is = metadata.getContent().get()) {
+      Assert.assertThat(is.readAllBytes(), Matchers.equalTo(TransformationEngineTest.CONTENT));
+    }
+  }
+
+  @Test
+  public void testExecuteFailsWhenTransformerThrows() throws Exception {
+    engine.register(
+        TransformationEngineTest.TYPE,
+        TransformationEngineTest.CONTENT_TYPE,
+        (m, o) -> {
+          o.write(TransformationEngineTest.CONTENT);
+          throw new IOException("cannot read source");
+        });
+
+    final MetadataTransformation metadata =
+        await(engine.execute(transformation.add(TransformationEngineTest.TYPE)));
+
+    Assert.assertThat(metadata.getState(), Matchers.equalTo(State.FAILED));
+    Assert.assertThat(
+        metadata.getFailureReason(),
+        OptionalMatchers.isPresentAndIs(ErrorCode.TRANSFORMATION_FAILURE));
+    Assert.assertThat(
+        metadata.getFailureMessage(),
+        OptionalMatchers.isPresentAnd(Matchers.containsString("cannot read source")));
+    Assert.assertThat(metadata.getContent(), OptionalMatchers.isEmpty());
+  }
+
+  @Test
+  public void testExecuteFailsWhenTransformerThrowsRuntimeException() throws Exception {
+    engine.register(
+        TransformationEngineTest.TYPE,
+        TransformationEngineTest.CONTENT_TYPE,
+        (m, o) -> {
+          throw new IllegalArgumentException("bad source");
+        });
+
+    final MetadataTransformation metadata =
+        await(engine.execute(transformation.add(TransformationEngineTest.TYPE)));
+
+    Assert.assertThat(metadata.getState(), Matchers.equalTo(State.FAILED));
+    Assert.assertThat(
+        metadata.getFailureMessage(),
+        OptionalMatchers.isPresentAnd(Matchers.containsString("bad source")));
+  }
+
+  @Test
+  public void testExecuteRestoresInterruptWhenTransformerIsInterrupted() throws Exception {
+    engine.register(
+        TransformationEngineTest.TYPE,
+        TransformationEngineTest.CONTENT_TYPE,
+        (m, o) -> {
+          throw new InterruptedException("stop");
+        });
+
+    final MetadataTransformation metadata =
+        await(engine.execute(transformation.add(TransformationEngineTest.TYPE)));
+
+    Assert.assertThat(metadata.getState(), Matchers.equalTo(State.FAILED));
+  }
+
+  @Test
+  public void testExecuteFailsWhenTimedOut() throws Exception {
+    final CountDownLatch interrupted = new CountDownLatch(1);
+
+    engine.register(
+        TransformationEngineTest.TYPE,
+        TransformationEngineTest.CONTENT_TYPE,
+        (m, o) -> {
+          try {
+            Thread.sleep(TimeUnit.SECONDS.toMillis(TransformationEngineTest.TIMEOUT_SECONDS));
+          } catch (InterruptedException e) {
+            interrupted.countDown();
+            o.write(TransformationEngineTest.CONTENT);
+          }
+        },
+        1,
+        Duration.ofMillis(50L));
+
+    final MetadataTransformation metadata =
+        await(engine.execute(transformation.add(TransformationEngineTest.TYPE)));
+
+    Assert.assertThat(metadata.getState(), Matchers.equalTo(State.FAILED));
+    Assert.assertThat(
+        metadata.getFailureMessage(),
+        OptionalMatchers.isPresentAnd(Matchers.containsString("timed out")));
+    Assert.assertThat(
+        interrupted.await(TransformationEngineTest.TIMEOUT_SECONDS, TimeUnit.SECONDS),
+        Matchers.equalTo(true));
+  }
+
+  @Test
+  public void testExecuteFailsWhenMetadataIsAlreadyCompleted() throws Exception {
+    engine.register(
+        TransformationEngineTest.TYPE,
+        TransformationEngineTest.CONTENT_TYPE,
+        (m, o) -> o.write(TransformationEngineTest.CONTENT));
+    final MetadataTransformation metadata = transformation.add(TransformationEngineTest.TYPE);
+
+    metadata.fail(ErrorCode.TRANSFORMATION_FAILURE, "already failed");
+    final CompletableFuture<MetadataTransformation> future = engine.execute(metadata);
+
+    exception.expect(ExecutionException.class);
+    exception.expectCause(Matchers.isA(IllegalStateException.class));
+
+    future.get(TransformationEngineTest.TIMEOUT_SECONDS, TimeUnit.SECONDS);
+  }
+
+  @Test
+  public void testExecuteFailsWhenTransformationIsDeletedWhileRunning() throws Exception {
+    engine.register(
+        TransformationEngineTest.TYPE,
+        TransformationEngineTest.CONTENT_TYPE,
+        (m, o) -> {
+          o.write(TransformationEngineTest.CONTENT);
+          transformation.delete();
+        });
+    final CompletableFuture<MetadataTransformation> future =
+        engine.execute(transformation.add(TransformationEngineTest.TYPE));
+
+    exception.expect(ExecutionException.class);
+    exception.expectCause(Matchers.isA(IllegalStateException.class));
+
+    future.get(TransformationEngineTest.TIMEOUT_SECONDS, TimeUnit.SECONDS);
+  }
+
+  @Test
+  public void testExecuteWhenRejected() throws Exception {
+    final Executor rejecting = Mockito.mock(Executor.class);
+    final TransformationEngine engine2 = new TransformationEngine(rejecting);
+
+    Mockito.doThrow(new RejectedExecutionException("full")).when(rejecting).execute(Mockito.any());
+    engine2.register(
+        TransformationEngineTest.TYPE,
+        TransformationEngineTest.CONTENT_TYPE,
+        (m, o) -> {},
+        1,
+        null);
+    try {
+      final MetadataTransformation metadata = transformation.add(TransformationEngineTest.TYPE);
+      final CompletableFuture<MetadataTransformation> future = engine2.execute(metadata);
+
+      Assert.assertThat(future.isCompletedExceptionally(), Matchers.equalTo(true));
+      Assert.assertThat(metadata.getState(), Matchers.equalTo(State.IN_PROGRESS));
+      Assert.assertThat(
+          engine2.getRunningCount(TransformationEngineTest.TYPE), Matchers.equalTo(0));
+    } finally {
+      engine2.close();
+    }
+  }
+
+  @Test
+  public void testExecuteLimitsConcurrencyPerType() throws Exception {
+    final int max = 2;
+    final AtomicInteger running = new AtomicInteger();
+    final AtomicInteger maxRunning = new AtomicInteger();
+    final CountDownLatch release = new CountDownLatch(1);
+    final List<CompletableFuture<MetadataTransformation>> futures = new ArrayList<>();
+
+    engine.register(
+        TransformationEngineTest.TYPE,
+        TransformationEngineTest.CONTENT_TYPE,
+        (m, o) -> {
+          maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+          release.await();
+          running.decrementAndGet();
+        },
+        max,
+        null);
+    for (int i = 0; i < 10; i++) {
+      final URL location = new URL("http://current.com/" + i);
+
+      futures.add(
+          engine.execute(
+              manager
+                  .createTransform(location, location, location)
+                  .add(TransformationEngineTest.TYPE)));
+    }
+
+    Assert.assertThat(
+        engine.getRunningCount(TransformationEngineTest.TYPE), Matchers.lessThanOrEqualTo(max));
+
+    release.countDown();
+    for (final CompletableFuture<MetadataTransformation> future : futures) {
+      Assert.assertThat(await(future).getState(), Matchers.equalTo(State.SUCCESSFUL));
+    }
+    Assert.assertThat(maxRunning.get(), Matchers.lessThanOrEqualTo(max));
+    // permits are released after the futures are completed
+    Awaitility.await()
+        .atMost(TransformationEngineTest.TIMEOUT_SECONDS, TimeUnit.SECONDS)
+        .until(() -> engine.getRunningCount(TransformationEngineTest.TYPE), Matchers.equalTo(0));
+  }
+
+  @Test
+  public void testGetRunningCountWhenNotRegistered() {
+    Assert.assertThat(engine.getRunningCount(TransformationEngineTest.TYPE), Matchers.equalTo(0));
+  }
+
+  @Test
+  public void testTransform() throws Exception {
+    engine
+        .register(
+            TransformationEngineTest.TYPE,
+            TransformationEngineTest.CONTENT_TYPE,
+            (m, o) -> o.write(TransformationEngineTest.CONTENT))
+        .register(
+            TransformationEngineTest.TYPE2,
+            TransformationEngineTest.CONTENT_TYPE,
+            (m, o) -> {
+              throw new IOException("unsupported");
+            });
+
+    final Transformation transformed =
+        engine
+            .transform(transformation)
+            .get(TransformationEngineTest.TIMEOUT_SECONDS, TimeUnit.SECONDS);
+
+    Assert.assertThat(transformed, Matchers.sameInstance(transformation));
+    Assert.assertThat(transformation.isCompleted(), Matchers.equalTo(true));
+    Assert.assertThat(
+        transformation.get(TransformationEngineTest.TYPE).getState(),
+        Matchers.equalTo(State.SUCCESSFUL));
+    Assert.assertThat(
+        transformation.get(TransformationEngineTest.TYPE2).getState(),
+        Matchers.equalTo(State.FAILED));
+  }
+
+  @Test
+  public void testTransformAddsAllMetadataBeforeRunningTransformers() throws Exception {
+    final TransformationEngine engine2 = new TransformationEngine(Runnable::run);
+
+    try {
+      engine2
+          .register(
+              TransformationEngineTest.TYPE,
+              TransformationEngineTest.CONTENT_TYPE,
+              (m, o) -> o.write(TransformationEngineTest.CONTENT))
+          .register(
+              TransformationEngineTest.TYPE2,
+              TransformationEngineTest.CONTENT_TYPE,
+              (m, o) -> o.write(TransformationEngineTest.CONTENT));
+
+      final CompletableFuture<Transformation> future = engine2.transform(transformation);
+
+      Assert.assertThat(future.isDone(), Matchers.equalTo(true));
+      Assert.assertThat(transformation.isCompleted(), Matchers.equalTo(true));
+      Assert.assertThat(
+          transformation.get(TransformationEngineTest.TYPE2).getState(),
+          Matchers.equalTo(State.SUCCESSFUL));
+    } finally {
+      engine2.close();
+    }
+  }
+
+  @Test
+  public void testNewVirtualThreadExecutor() throws Exception {
+    final Optional<ExecutorService> virtual = TransformationEngine.newVirtualThreadExecutor();
+
+    if (virtual.isPresent()) {
+      try {
+        Assert.assertThat(
+            virtual.get().submit(() -> true).get(5L, TimeUnit.SECONDS), Matchers.equalTo(true));
+      } finally {
+        virtual.get().shutdown();
+      }
+    } else {
+      Assert.assertThat(Runtime.version().feature(), Matchers.lessThan(21));
+    }
+  }
+
+  private static MetadataTransformation await(CompletableFuture<MetadataTransformation> future)
+      throws Exception {
+    return future.get(TransformationEngineTest.TIMEOUT_SECONDS, TimeUnit.SECONDS);
+  }
+}
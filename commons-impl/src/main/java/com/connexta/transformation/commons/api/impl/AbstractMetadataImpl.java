@@ -16,11 +16,11 @@ package com.connexta.transformation.commons.api.impl;
 import com.connexta.transformation.commons.api.ErrorCode;
 import com.connexta.transformation.commons.api.MetadataTransformation;
 import com.connexta.transformation.commons.api.RequestInfo;
+import com.connexta.transformation.commons.api.TransformationLifecycleListener;
 import com.connexta.transformation.commons.api.exceptions.InvalidFieldException;
 import com.connexta.transformation.commons.api.exceptions.PersistenceException;
 import com.connexta.transformation.commons.api.exceptions.UnsupportedVersionException;
 import com.connexta.transformation.pojo.MetadataPojo;
-import com.connexta.transformation.pojo.TransformationPojo;
 import com.connexta.transformation.pojo.unknown.UnknownPojo;
 import com.google.common.annotations.VisibleForTesting;
 import io.micrometer.core.instrument.Clock;
@@ -30,6 +30,8 @@ import java.util.Objects;
 import java.util.Optional;
 import java.util.OptionalLong;
 import javax.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * Provides an abstraction implementation for the {@link MetadataTransformation} interface which
@@ -37,6 +39,8 @@ import javax.annotation.Nullable;
  */
 public abstract class AbstractMetadataImpl extends Persistable<MetadataPojo>
     implements MetadataTransformation {
+  private static final Logger LOGGER = LoggerFactory.getLogger(AbstractMetadataImpl.class);
+
   private static final String PERSISTABLE_TYPE = "metadata";
 
   protected final Clock clock;
@@ -52,6 +56,8 @@ public abstract class AbstractMetadataImpl extends Persistable<MetadataPojo>
   @Nullable protected volatile Instant completionTime = null;
   @Nullable protected volatile String contentType = null;
   protected volatile long contentLength = -1;
+  protected volatile long contentCrc32c = -1L;
+  @Nullable protected volatile String contentSha256 = null;
 
   private boolean hasUnknowns = false;
 
@@ -150,6 +156,16 @@ public abstract class AbstractMetadataImpl extends Persistable<MetadataPojo>
     return (contentLength > -1L) ? OptionalLong.of(contentLength) : OptionalLong.empty();
   }
 
+  @Override
+  public OptionalLong getContentCrc32c() {
+    return (contentCrc32c > -1L) ? OptionalLong.of(contentCrc32c) : OptionalLong.empty();
+  }
+
+  @Override
+  public Optional<String> getContentSha256() {
+    return Optional.ofNullable(contentSha256);
+  }
+
   @Override
   public boolean hasUnknowns() {
     return hasUnknowns || (state == State.UNKNOWN) || (failureReason == ErrorCode.UNKNOWN);
@@ -164,6 +180,55 @@ public abstract class AbstractMetadataImpl extends Persistable<MetadataPojo>
     return clock;
   }
 
+  /**
+   * Gets the lifecycle listener to invoke for this metadata.
+   *
+   * <p><i>Note:</i> The default implementation provided here returns {@link
+   * TransformationLifecycleListener#NOOP}. Subclasses should override this method to return the
+   * listener of their transformation.
+   *
+   * @return the lifecycle listener for this metadata
+   */
+  protected TransformationLifecycleListener getLifecycleListener() {
+    return TransformationLifecycleListener.NOOP;
+  }
+
+  /**
+   * Gets the context returned by the lifecycle listener when the transformation for this metadata
+   * was created.
+   *
+   * <p><i>Note:</i> The default implementation provided here returns <code>null</code>. Subclasses
+   * should override this method to return the context of their transformation.
+   *
+   * @return the lifecycle context for this metadata or <code>null</code> if none
+   */
+  @Nullable
+  protected Object getLifecycleContext() {
+    return null;
+  }
+
+  /**
+   * Called by subclasses whenever the content of this metadata is about to be read in order to
+   * invoke the lifecycle listener.
+   */
+  protected void notifyContentRead() {
+    final TransformationLifecycleListener listener = getLifecycleListener();
+
+    if (listener == TransformationLifecycleListener.NOOP) {
+      return;
+    }
+    try {
+      listener.contentRead(this, getLifecycleContext());
+    } catch (RuntimeException e) {
+      LOGGER.warn(
+          "Failed to notify lifecycle listener [{}] of content read for [{}] metadata of [{}].",
+          listener,
+          type,
+          transformId,
+          e);
+    }
+  }
+
   @Override
   public int hashCode() {
     return hashCode0();
@@ -177,7 +242,7 @@ public abstract class AbstractMetadataImpl extends Persistable<MetadataPojo>
   @Override
   public String toString() {
     return String.format(
-        "AbstractMetadataImpl[id=%s, transformId=%s, type=%s, requestInfo=%s, state=%s, startTime=%s, completionTime=%s, contentType=%s, contentLength=%d, failureReason=%s, failureMessage=%s]",
+        "AbstractMetadataImpl[id=%s, transformId=%s, type=%s, requestInfo=%s, state=%s, startTime=%s, completionTime=%s, contentType=%s, contentLength=%d, contentCrc32c=%d, contentSha256=%s, failureReason=%s, failureMessage=%s]",
         getId(),
         transformId,
         type,
@@ -187,6 +252,8 @@ public abstract class AbstractMetadataImpl extends Persistable<MetadataPojo>
         completionTime,
         contentType,
         contentLength,
+        contentCrc32c,
+        contentSha256,
         failureReason,
         failureMessage);
   }
@@ -205,11 +272,13 @@ public abstract class AbstractMetadataImpl extends Persistable<MetadataPojo>
     convertAndSetOrFailIfNull("state", this::getState, State::name, pojo::setState);
     convertAndSet(
         "failureReason", this::getFailureReason0, ErrorCode::name, pojo::setFailureReason);
-    return pojo.setVersion(TransformationPojo.CURRENT_VERSION)
+    return pojo.setVersion(MetadataPojo.CURRENT_VERSION)
         .setCompletionTime(completionTime)
         .setFailureMessage(failureMessage)
         .setContentType(contentType)
-        .setContentLength(Math.max(-1L, contentLength));
+        .setContentLength(Math.max(-1L, contentLength))
+        .setContentCrc32c((contentCrc32c > -1L) ? contentCrc32c : null)
+        .setContentSha256(contentSha256);
   }
 
   @Override
@@ -241,7 +310,9 @@ public abstract class AbstractMetadataImpl extends Persistable<MetadataPojo>
         failureMessage,
         requestInfo,
         contentType,
-        contentLength);
+        contentLength,
+        contentCrc32c,
+        contentSha256);
   }
 
   @VisibleForTesting
@@ -251,6 +322,7 @@ public abstract class AbstractMetadataImpl extends Persistable<MetadataPojo>
 
       return (failureReason == metadata.failureReason)
           && (contentLength == metadata.contentLength)
+          && (contentCrc32c == metadata.contentCrc32c)
           && Objects.equals(transformId, metadata.transformId)
           && Objects.equals(type, metadata.type)
           && Objects.equals(requestInfo, metadata.requestInfo)
@@ -258,7 +330,8 @@ public abstract class AbstractMetadataImpl extends Persistable<MetadataPojo>
           && Objects.equals(startTime, metadata.startTime)
           && Objects.equals(failureMessage, metadata.failureMessage)
           && Objects.equals(completionTime, metadata.completionTime)
-          && Objects.equals(contentType, metadata.contentType);
+          && Objects.equals(contentType, metadata.contentType)
+          && Objects.equals(contentSha256, metadata.contentSha256);
     }
     return false;
   }
@@ -319,6 +392,16 @@ public abstract class AbstractMetadataImpl extends Persistable<MetadataPojo>
     this.contentLength = contentLength;
   }
 
+  @VisibleForTesting
+  void setContentCrc32c(long contentCrc32c) {
+    this.contentCrc32c = contentCrc32c;
+  }
+
+  @VisibleForTesting
+  void setContentSha256(@Nullable String contentSha256) {
+    this.contentSha256 = contentSha256;
+  }
+
   private void readFromCurrentOrFutureVersion(MetadataPojo pojo) throws PersistenceException {
     setOrFailIfNullOrEmpty("transformId", pojo::getTransformId, this::setTransformId);
     setOrFailIfNullOrEmpty("type", pojo::getType, this::setType);
@@ -336,6 +419,10 @@ public abstract class AbstractMetadataImpl extends Persistable<MetadataPojo>
     setCompletionTime(pojo.getCompletionTime());
     setContentType(pojo.getContentType());
     setContentLength(Math.max(-1L, pojo.getContentLength()));
+    final Long crc32c = pojo.getContentCrc32c();
+
+    setContentCrc32c((crc32c != null) ? Math.max(-1L, crc32c) : -1L);
+    setContentSha256(pojo.getContentSha256());
   }
 
   private void setRequestInfoAndCheckForUnknown(RequestInfoImpl requestInfo) {
@@ -19,10 +19,14 @@ import static com.connexta.transformation.util.ExceptionHandler.wrap;
 import com.connexta.transformation.commons.api.MetadataTransformation;
 import com.connexta.transformation.commons.api.RequestInfo;
 import com.connexta.transformation.commons.api.Transformation;
+import com.connexta.transformation.commons.api.TransformationLifecycleListener;
+import com.connexta.transformation.commons.api.TransformationStatus.State;
 import com.connexta.transformation.commons.api.exceptions.InvalidFieldException;
 import com.connexta.transformation.commons.api.exceptions.PersistenceException;
 import com.connexta.transformation.commons.api.exceptions.TransformationNotFoundException;
 import com.connexta.transformation.commons.api.exceptions.UnsupportedVersionException;
+import com.connexta.transformation.commons.api.impl.jfr.MetadataCompletedEvent;
+import com.connexta.transformation.commons.api.impl.jfr.TransformationCreatedEvent;
 import com.connexta.transformation.pojo.MetadataPojo;
 import com.connexta.transformation.pojo.TransformationPojo;
 import com.connexta.transformation.pojo.unknown.UnknownPojo;
@@ -32,22 +36,43 @@ import io.micrometer.core.instrument.Clock;
 import java.net.URL;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import javax.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * Provides an abstraction implementation for the {@link Transformation} interface which adds
  * persistence support to be used by all concrete implementations.
+ *
+ * <p>The aggregate state and completion time of the transformation are maintained incrementally as
+ * metadata are added and complete such that querying them does not require going through all
+ * metadata. Subclasses should report every metadata completion through {@link
+ * #metadataCompleted(AbstractMetadataImpl)} which updates them and dispatches the corresponding
+ * notifications. Metadata completing without being reported are only picked up the next time the
+ * aggregate state is queried, by checking the metadata still counted in progress.
  */
 public abstract class AbstractTransformationImpl extends Persistable<TransformationPojo>
     implements Transformation {
+  private static final Logger LOGGER = LoggerFactory.getLogger(AbstractTransformationImpl.class);
+
   private static final String PERSISTABLE_TYPE = "transformation";
 
+  private static final TransformationNotifier DEFAULT_NOTIFIER = new TransformationNotifier();
+
   protected final Clock clock;
 
   private RequestInfo requestInfo;
@@ -55,6 +80,26 @@ public abstract class AbstractTransformationImpl extends Persistable<Transformat
 
   private boolean hasUnknowns = false;
 
+  private final CompletableFuture<Transformation> completion = new CompletableFuture<>();
+
+  @Nullable private volatile Object lifecycleContext = null;
+
+  /** Metadata whose completions are yet to be dispatched or <code>null</code> if not deferring. */
+  @Nullable private List<AbstractMetadataImpl> deferredCompletions = null;
+
+  /** Number of metadata in each state indexed by the state's ordinal. */
+  private final AtomicIntegerArray stateCounts = new AtomicIntegerArray(State.values().length);
+
+  /** The state in which each metadata was last counted keyed by metadata type. */
+  private final Map<String, State> countedStates = new ConcurrentHashMap<>();
+
+  private final AtomicReference<Instant> latestCompletionTime = new AtomicReference<>();
+
+  /**
+   * The metadata of this transformation keyed by type. Subclasses should neither replace this map
+   * nor add metadata directly to it but instead use one of the <code>add()</code> methods or {@link
+   * #addIfAbsent(String, Function)} such that the aggregate state is maintained.
+   */
   protected Map<String, AbstractMetadataImpl> metadatas = new ConcurrentHashMap<>();
 
   /**
@@ -71,6 +116,7 @@ public abstract class AbstractTransformationImpl extends Persistable<Transformat
     this.clock = clock;
     this.requestInfo = new RequestInfoImpl(currentLocation, finalLocation, metacardLocation);
     this.startTime = Instant.ofEpochMilli(clock.wallTime());
+    TransformationCreatedEvent.emit(getId(), requestInfo);
   }
 
   /**
@@ -126,6 +172,27 @@ public abstract class AbstractTransformationImpl extends Persistable<Transformat
     return hasUnknowns;
   }
 
+  @Override
+  public State getState() {
+    reconcile();
+    // same precedence as State.reduce() where in progress wins over unknown over failed
+    if (stateCount(State.IN_PROGRESS) > 0) {
+      return State.IN_PROGRESS;
+    } else if (stateCount(State.UNKNOWN) > 0) {
+      return State.UNKNOWN;
+    } else if (stateCount(State.FAILED) > 0) {
+      return State.FAILED;
+    } else if (stateCount(State.SUCCESSFUL) > 0) {
+      return State.SUCCESSFUL;
+    }
+    return State.IN_PROGRESS; // no metadata yet
+  }
+
+  @Override
+  public Optional<Instant> getCompletionTime() {
+    return isCompleted() ? Optional.ofNullable(latestCompletionTime.get()) : Optional.empty();
+  }
+
   @Override
   public Stream<MetadataTransformation> metadatas() {
     return metadatas.values().stream().map(MetadataTransformation.class::cast);
@@ -142,6 +209,14 @@ public abstract class AbstractTransformationImpl extends Persistable<Transformat
     return metadata;
   }
 
+  @Override
+  public CompletionStage<Transformation> onCompletion() {
+    if (isCompleted()) { // could have been reloaded already completed
+      completion.complete(this);
+    }
+    return completion.thenApplyAsync(Function.identity(), getNotifier().getExecutor());
+  }
+
   /**
    * Gets the clock to use for retrieving wall and monotonic times.
    *
@@ -177,7 +252,195 @@ public abstract class AbstractTransformationImpl extends Persistable<Transformat
   public void add(Stream<? super AbstractMetadataImpl> metadatas) {
     metadatas
         .map(AbstractMetadataImpl.class::cast)
-        .forEach(m -> this.metadatas.put(m.getMetadataType(), m));
+        .forEach(
+            m -> {
+              this.metadatas.put(m.getMetadataType(), m);
+              count(m);
+            });
+  }
+
+  /**
+   * Adds a metadata of the given type to this transformation if none already exists.
+   *
+   * @param type the type of metadata to add
+   * @param factory the factory to create the metadata with if none already exists for the given
+   *     type
+   * @return the existing or newly added metadata
+   */
+  protected AbstractMetadataImpl addIfAbsent(
+      String type, Function<String, ? extends AbstractMetadataImpl> factory) {
+    return metadatas.computeIfAbsent(
+        type,
+        t -> {
+          final AbstractMetadataImpl metadata = factory.apply(t);
+
+          count(metadata);
+          return metadata;
+        });
+  }
+
+  /**
+   * Gets the notifier used to dispatch completion notifications for this transformation.
+   *
+   * <p><i>Note:</i> The default implementation provided here returns a shared notifier which
+   * delivers notifications using the common fork-join pool. Subclasses should override this method
+   * as required.
+   *
+   * @return the notifier for this transformation
+   */
+  protected TransformationNotifier getNotifier() {
+    return AbstractTransformationImpl.DEFAULT_NOTIFIER;
+  }
+
+  /**
+   * Gets the lifecycle listener to invoke for this transformation and its metadata.
+   *
+   * <p><i>Note:</i> The default implementation provided here returns {@link
+   * TransformationLifecycleListener#NOOP}. Subclasses should override this method as required.
+   *
+   * @return the lifecycle listener for this transformation
+   */
+  protected TransformationLifecycleListener getLifecycleListener() {
+    return TransformationLifecycleListener.NOOP;
+  }
+
+  /**
+   * Gets the context returned by the lifecycle listener when this transformation was created.
+   *
+   * @return the lifecycle context for this transformation or <code>null</code> if none
+   */
+  @Nullable
+  public Object getLifecycleContext() {
+    return lifecycleContext;
+  }
+
+  /**
+   * Called by subclasses once this transformation has been fully created in order to invoke the
+   * lifecycle listener and capture the context it returns.
+   */
+  protected void notifyCreated() {
+    final TransformationLifecycleListener listener = getLifecycleListener();
+
+    if (listener == TransformationLifecycleListener.NOOP) {
+      return;
+    }
+    try {
+      this.lifecycleContext = listener.transformationCreated(this);
+    } catch (RuntimeException e) {
+      logListenerFailure(listener, "creation", e);
+    }
+  }
+
+  /**
+   * Called by subclasses whenever a new metadata was added to this transformation in order to
+   * invoke the lifecycle listener.
+   *
+   * @param metadata the metadata that was added
+   */
+  protected void notifyMetadataAdded(AbstractMetadataImpl metadata) {
+    final TransformationLifecycleListener listener = getLifecycleListener();
+
+    if (listener == TransformationLifecycleListener.NOOP) {
+      return;
+    }
+    try {
+      listener.metadataAdded(metadata, lifecycleContext);
+    } catch (RuntimeException e) {
+      logListenerFailure(listener, "metadata addition", e);
+    }
+  }
+
+  /**
+   * Called by subclasses whenever this transformation is deleted in order to invoke the lifecycle
+   * listener.
+   */
+  protected void notifyDeleted() {
+    final TransformationLifecycleListener listener = getLifecycleListener();
+
+    if (listener == TransformationLifecycleListener.NOOP) {
+      return;
+    }
+    try {
+      listener.transformationDeleted(this, lifecycleContext);
+    } catch (RuntimeException e) {
+      logListenerFailure(listener, "deletion", e);
+    }
+  }
+
+  /**
+   * Called by subclasses whenever one of the metadata from this transformation has completed. This
+   * method will dispatch the corresponding notifications and complete this transformation if it was
+   * the last metadata to complete.
+   *
+   * <p><i>Note:</i> Subclasses should call this method every time a metadata completes. Although
+   * the aggregate state of this transformation eventually reflects metadata completing without it
+   * being reported, notifications and {@link #onCompletion()} are only ever triggered from here.
+   *
+   * <p>While completions are deferred (see {@link #deferCompletions()}), only the aggregate state
+   * is updated and the rest is postponed until {@link #dispatchDeferredCompletions()} is called.
+   *
+   * @param metadata the metadata that completed
+   * @return <code>true</code> if this transformation was completed as a result; <code>false
+   *     </code> otherwise or if completions are deferred
+   */
+  protected boolean metadataCompleted(AbstractMetadataImpl metadata) {
+    count(metadata);
+    synchronized (this) {
+      if (deferredCompletions != null) {
+        deferredCompletions.add(metadata);
+        return false;
+      }
+    }
+    return dispatchCompleted(metadata);
+  }
+
+  /**
+   * Defers the dispatching of metadata completions until {@link #dispatchDeferredCompletions()} is
+   * called. This is used when applying an update to a copy of a transformation which might end up
+   * being discarded such that no one is told about completions that were never stored.
+   */
+  synchronized void deferCompletions() {
+    if (deferredCompletions == null) {
+      this.deferredCompletions = new ArrayList<>(1);
+    }
+  }
+
+  /**
+   * Dispatches all metadata completions that were deferred since {@link #deferCompletions()} was
+   * called, in order, and stops deferring them.
+   */
+  void dispatchDeferredCompletions() {
+    final List<AbstractMetadataImpl> deferred;
+
+    synchronized (this) {
+      deferred = deferredCompletions;
+      this.deferredCompletions = null;
+    }
+    if (deferred != null) {
+      deferred.forEach(this::dispatchCompleted);
+    }
+  }
+
+  private boolean dispatchCompleted(AbstractMetadataImpl metadata) {
+    final TransformationNotifier notifier = getNotifier();
+
+    MetadataCompletedEvent.emit(metadata);
+    notifyMetadataCompleted(metadata);
+    notifier.metadataCompleted(metadata);
+    if (isCompleted() && completion.complete(this)) {
+      notifier.transformationCompleted(this);
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Called by subclasses whenever this transformation is deleted in order to abort any pending
+   * completion.
+   */
+  protected void abortCompletion() {
+    completion.completeExceptionally(
+        new IllegalStateException("transformation [" + getId() + "] was deleted."));
   }
 
   @Override
@@ -275,6 +538,83 @@ public abstract class AbstractTransformationImpl extends Persistable<Transformat
         ExceptionHandler.unwrap(() -> pojo.metadatas().map(ExceptionHandler.wrap(this::fromPojo))));
   }
 
+  private void notifyMetadataCompleted(AbstractMetadataImpl metadata) {
+    final TransformationLifecycleListener listener = getLifecycleListener();
+
+    if (listener == TransformationLifecycleListener.NOOP) {
+      return;
+    }
+    try {
+      if (metadata.getState() == State.SUCCESSFUL) {
+        listener.metadataSucceeded(metadata, lifecycleContext);
+      } else {
+        listener.metadataFailed(metadata, lifecycleContext);
+      }
+    } catch (RuntimeException e) {
+      logListenerFailure(listener, "metadata completion", e);
+    }
+  }
+
+  private void logListenerFailure(
+      TransformationLifecycleListener listener, String event, RuntimeException e) {
+    LOGGER.warn(
+        "Failed to notify lifecycle listener [{}] of {} for transformation [{}].",
+        listener,
+        event,
+        getId(),
+        e);
+  }
+
+  /**
+   * Reconciles the aggregate state with metadata that were added to the map directly or which
+   * completed without being reported. Since metadata never go back in progress, only the ones last
+   * counted in progress need to be checked such that nothing is checked once all have completed.
+   */
+  private void reconcile() {
+    if (countedStates.size() != metadatas.size()) {
+      metadatas.values().stream()
+          .filter(m -> !countedStates.containsKey(m.getMetadataType()))
+          .forEach(this::count);
+    }
+    if (stateCount(State.IN_PROGRESS) > 0) {
+      countedStates.forEach(
+          (type, state) -> {
+            final AbstractMetadataImpl metadata = metadatas.get(type);
+
+            if ((state == State.IN_PROGRESS)
+                && (metadata != null)
+                && (metadata.getState() != State.IN_PROGRESS)) {
+              count(metadata);
+            }
+          });
+    }
+  }
+
+  private int stateCount(State state) {
+    return stateCounts.get(state.ordinal());
+  }
+
+  private void count(AbstractMetadataImpl metadata) {
+    final State state = metadata.getState();
+
+    // increment first such that concurrent readers never see fewer metadata in progress than
+    // there really are
+    stateCounts.incrementAndGet(state.ordinal());
+    final State previous = countedStates.put(metadata.getMetadataType(), state);
+
+    if (previous != null) {
+      stateCounts.decrementAndGet(previous.ordinal());
+    }
+    metadata
+        .getCompletionTime()
+        .ifPresent(
+            t -> latestCompletionTime.accumulateAndGet(t, AbstractTransformationImpl::latest));
+  }
+
+  private static Instant latest(Instant time, Instant time2) {
+    return ((time == null) || time2.isAfter(time)) ? time2 : time;
+  }
+
   private void setRequestInfoAndCheckForUnknown(RequestInfoImpl requestInfo) {
     this.requestInfo = requestInfo;
     this.hasUnknowns |= requestInfo.hasUnknowns();
@@ -289,6 +629,17 @@ public abstract class AbstractTransformationImpl extends Persistable<Transformat
             .collect(
                 Collectors.toConcurrentMap(
                     AbstractMetadataImpl::getMetadataType, Function.identity()));
+    recount();
+  }
+
+  /** Recomputes the aggregate state from scratch. Must be called whenever the map is replaced. */
+  private void recount() {
+    countedStates.clear();
+    for (int i = 0; i < stateCounts.length(); i++) {
+      stateCounts.set(i, 0);
+    }
+    latestCompletionTime.set(null);
+    metadatas.values().forEach(this::count);
   }
 
   private void checkForUnknowns(AbstractMetadataImpl metadata) {
@@ -0,0 +1,106 @@
+/**
+ * Copyright (c) Connexta
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package com.connexta.transformation.commons.api.impl;
+
+import com.connexta.transformation.commons.api.MetadataTransformation;
+import com.connexta.transformation.commons.api.Transformation;
+import com.connexta.transformation.commons.api.TransformationLifecycleListener;
+import com.google.common.util.concurrent.MoreExecutors;
+import java.util.concurrent.Executor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Lifecycle listener which dispatches callbacks to another listener using an executor such that
+ * slow listeners do not delay the operations performed on transformations. Callbacks are delivered
+ * sequentially in the order they were submitted.
+ *
+ * <p><i>Note:</i> {@link #transformationCreated(Transformation)} is still invoked synchronously
+ * since the context it returns is needed right away and since it typically captures thread-bound
+ * state from the creating thread. Implementations should therefore keep it cheap.
+ */
+public class AsyncTransformationLifecycleListener implements TransformationLifecycleListener {
+  private static final Logger LOGGER =
+      LoggerFactory.getLogger(AsyncTransformationLifecycleListener.class);
+
+  private final TransformationLifecycleListener delegate;
+  private final Executor executor;
+
+  /**
+   * Instantiates a new asynchronous lifecycle listener.
+   *
+   * @param delegate the listener to dispatch callbacks to
+   * @param executor the executor to use for dispatching callbacks
+   */
+  public AsyncTransformationLifecycleListener(
+      TransformationLifecycleListener delegate, Executor executor) {
+    this.delegate = delegate;
+    this.executor = MoreExecutors.newSequentialExecutor(executor);
+  }
+
+  /**
+   * Gets the listener callbacks are dispatched to.
+   *
+   * @return the listener callbacks are dispatched to
+   */
+  public TransformationLifecycleListener getDelegate() {
+    return delegate;
+  }
+
+  @Override
+  public Object transformationCreated(Transformation transformation) {
+    return delegate.transformationCreated(transformation);
+  }
+
+  @Override
+  public void metadataAdded(MetadataTransformation metadata, Object context) {
+    dispatch(() -> delegate.metadataAdded(metadata, context));
+  }
+
+  @Override
+  public void metadataSucceeded(MetadataTransformation metadata, Object context) {
+    dispatch(() -> delegate.metadataSucceeded(metadata, context));
+  }
+
+  @Override
+  public void metadataFailed(MetadataTransformation metadata, Object context) {
+    dispatch(() -> delegate.metadataFailed(metadata, context));
+  }
+
+  @Override
+  public void contentRead(MetadataTransformation metadata, Object context) {
+    dispatch(() -> delegate.contentRead(metadata, context));
+  }
+
+  @Override
+  public void transformationDeleted(Transformation transformation, Object context) {
+    dispatch(() -> delegate.transformationDeleted(transformation, context));
+  }
+
+  @Override
+  public String toString() {
+    return "AsyncTransformationLifecycleListener[delegate=" + delegate + "]";
+  }
+
+  private void dispatch(Runnable callback) {
+    executor.execute(
+        () -> {
+          try {
+            callback.run();
+          } catch (RuntimeException e) {
+            LOGGER.warn("Failed to notify lifecycle listener [{}].", delegate, e);
+          }
+        });
+  }
+}
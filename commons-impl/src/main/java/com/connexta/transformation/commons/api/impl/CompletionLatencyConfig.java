@@ -0,0 +1,135 @@
+/**
+ * Copyright (c) Connexta
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package com.connexta.transformation.commons.api.impl;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * Configures the histograms recorded by a {@link CompletionLatencyRecorder}. By default, the 50th,
+ * 99th and 99.9th percentiles are tracked for latencies between 1 millisecond and 1 hour and no
+ * service level objective buckets are published.
+ */
+public class CompletionLatencyConfig {
+  private static final double[] DEFAULT_PERCENTILES = {0.5, 0.99, 0.999};
+
+  private double[] percentiles = CompletionLatencyConfig.DEFAULT_PERCENTILES;
+  private Duration[] serviceLevelObjectives = new Duration[0];
+  private Duration minimumExpectedValue = Duration.ofMillis(1L);
+  private Duration maximumExpectedValue = Duration.ofHours(1L);
+
+  /**
+   * Gets the percentiles computed for each histogram.
+   *
+   * @return the percentiles computed for each histogram
+   */
+  public double[] getPercentiles() {
+    return percentiles.clone();
+  }
+
+  /**
+   * Sets the percentiles computed for each histogram.
+   *
+   * @param percentiles the percentiles to compute, each one between 0 and 1 inclusively
+   * @return this for chaining
+   * @throws IllegalArgumentException if any of the percentiles is not between 0 and 1
+   */
+  public CompletionLatencyConfig setPercentiles(double... percentiles) {
+    for (final double percentile : percentiles) {
+      if (!(percentile >= 0.0) || (percentile > 1.0)) {
+        throw new IllegalArgumentException("invalid percentile: " + percentile);
+      }
+    }
+    this.percentiles = percentiles.clone();
+    return this;
+  }
+
+  /**
+   * Gets the service level objectives for which a cumulative bucket count is published.
+   *
+   * @return the service level objectives for which a bucket count is published
+   */
+  public Duration[] getServiceLevelObjectives() {
+    return serviceLevelObjectives.clone();
+  }
+
+  /**
+   * Sets the service level objectives for which a cumulative bucket count is published.
+   *
+   * @param objectives the service level objectives for which a bucket count is published
+   * @return this for chaining
+   * @throws IllegalArgumentException if any of the objectives is not positive
+   */
+  public CompletionLatencyConfig setServiceLevelObjectives(Duration... objectives) {
+    for (final Duration objective : objectives) {
+      if (objective.isNegative() || objective.isZero()) {
+        throw new IllegalArgumentException(
+            "invalid non-positive service level objective: " + objective);
+      }
+    }
+    this.serviceLevelObjectives = objectives.clone();
+    Arrays.sort(serviceLevelObjectives);
+    return this;
+  }
+
+  /**
+   * Gets the minimum latency expected to be recorded.
+   *
+   * @return the minimum latency expected to be recorded
+   */
+  public Duration getMinimumExpectedValue() {
+    return minimumExpectedValue;
+  }
+
+  /**
+   * Gets the maximum latency expected to be recorded.
+   *
+   * @return the maximum latency expected to be recorded
+   */
+  public Duration getMaximumExpectedValue() {
+    return maximumExpectedValue;
+  }
+
+  /**
+   * Sets the range of latencies expected to be recorded. This bounds the buckets used to compute
+   * percentiles; latencies outside this range are still recorded but with lesser precision.
+   *
+   * @param minimum the minimum latency expected to be recorded
+   * @param maximum the maximum latency expected to be recorded
+   * @return this for chaining
+   * @throws IllegalArgumentException if <code>minimum</code> is not positive or if <code>maximum
+   *     </code> is less than <code>minimum</code>
+   */
+  public CompletionLatencyConfig setExpectedRange(Duration minimum, Duration maximum) {
+    if (minimum.isNegative() || minimum.isZero()) {
+      throw new IllegalArgumentException("invalid non-positive minimum expected value: " + minimum);
+    } else if (maximum.compareTo(minimum) < 0) {
+      throw new IllegalArgumentException(
+          "invalid maximum expected value: " + maximum + " is less than " + minimum);
+    }
+    this.minimumExpectedValue = minimum;
+    this.maximumExpectedValue = maximum;
+    return this;
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        "CompletionLatencyConfig[percentiles=%s, serviceLevelObjectives=%s, minimumExpectedValue=%s, maximumExpectedValue=%s]",
+        Arrays.toString(percentiles),
+        Arrays.toString(serviceLevelObjectives),
+        minimumExpectedValue,
+        maximumExpectedValue);
+  }
+}
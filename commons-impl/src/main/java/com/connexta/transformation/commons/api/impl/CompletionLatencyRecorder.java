@@ -0,0 +1,138 @@
+/**
+ * Copyright (c) Connexta
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package com.connexta.transformation.commons.api.impl;
+
+import com.connexta.transformation.commons.api.MetadataTransformation;
+import com.connexta.transformation.commons.api.TransformationListener;
+import com.connexta.transformation.commons.api.TransformationStatus.State;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Listener which records the time it took each metadata to complete, from its start time to its
+ * completion time, in a histogram per metadata type with separate series for successful and failed
+ * metadata. The histograms are published as <code>transformation.metadata.completion</code>
+ * Micrometer timers tagged with the <code>metadata.type</code> and the <code>state</code>, with the
+ * percentiles and service level objective buckets defined by a {@link CompletionLatencyConfig}.
+ * Percentiles are computed in-process over a decaying time window such that they can also be
+ * retrieved on demand with {@link #getSnapshot(String, State)}.
+ *
+ * <p>The recorder must be registered with a manager using {@link
+ * com.connexta.transformation.commons.api.TransformationManager#addListener}. Since listeners are
+ * notified asynchronously, recording never slows down the threads completing metadata.
+ */
+public class CompletionLatencyRecorder implements TransformationListener {
+  /** The name of the timers recording completion latencies. */
+  public static final String COMPLETION = "transformation.metadata.completion";
+
+  /** The tag identifying the outcome of the metadata. */
+  public static final String STATE_TAG = "state";
+
+  private final MeterRegistry registry;
+  private final double[] percentiles;
+  private final Duration[] serviceLevelObjectives;
+  private final Duration minimumExpectedValue;
+  private final Duration maximumExpectedValue;
+  private final Map<State, ConcurrentMap<String, Timer>> timers = new EnumMap<>(State.class);
+
+  /**
+   * Instantiates a new recorder.
+   *
+   * @param registry the registry where to publish the histograms
+   * @param config the configuration for the histograms (copied such that later changes to it have
+   *     no effect on this recorder)
+   */
+  public CompletionLatencyRecorder(MeterRegistry registry, CompletionLatencyConfig config) {
+    this.registry = registry;
+    this.percentiles = config.getPercentiles();
+    this.serviceLevelObjectives = config.getServiceLevelObjectives();
+    this.minimumExpectedValue = config.getMinimumExpectedValue();
+    this.maximumExpectedValue = config.getMaximumExpectedValue();
+    timers.put(State.SUCCESSFUL, new ConcurrentHashMap<>());
+    timers.put(State.FAILED, new ConcurrentHashMap<>());
+  }
+
+  @Override
+  public void metadataCompleted(MetadataTransformation metadata) {
+    final State state = metadata.getState();
+    final ConcurrentMap<String, Timer> byType = timers.get(state);
+    final Optional<Instant> completionTime = metadata.getCompletionTime();
+
+    if ((byType != null) && completionTime.isPresent()) {
+      timer(byType, metadata.getMetadataType(), state)
+          .record(Duration.between(metadata.getStartTime(), completionTime.get()));
+    }
+  }
+
+  /**
+   * Gets the metadata types for which completion latencies were recorded.
+   *
+   * @return the sorted set of metadata types for which latencies were recorded
+   */
+  public Set<String> getMetadataTypes() {
+    final Set<String> types = new TreeSet<>();
+
+    timers.values().forEach(m -> types.addAll(m.keySet()));
+    return types;
+  }
+
+  /**
+   * Takes a snapshot of the completion latencies recorded for a given metadata type and outcome.
+   *
+   * @param metadataType the metadata type for which to get a snapshot
+   * @param state the outcome for which to get a snapshot ({@link State#SUCCESSFUL} or {@link
+   *     State#FAILED})
+   * @return a snapshot of the latencies recorded or empty if none were recorded for the given
+   *     metadata type and outcome
+   */
+  public Optional<CompletionLatencySnapshot> getSnapshot(String metadataType, State state) {
+    final ConcurrentMap<String, Timer> byType = timers.get(state);
+
+    if (byType == null) {
+      return Optional.empty();
+    }
+    return Optional.ofNullable(byType.get(metadataType))
+        .map(t -> CompletionLatencySnapshot.from(metadataType, state, t.takeSnapshot()));
+  }
+
+  private Timer timer(ConcurrentMap<String, Timer> byType, String metadataType, State state) {
+    final Timer timer = byType.get(metadataType);
+
+    if (timer != null) {
+      return timer;
+    }
+    return byType.computeIfAbsent(
+        metadataType,
+        t ->
+            Timer.builder(CompletionLatencyRecorder.COMPLETION)
+                .tag(MeteredTransformationManager.METADATA_TYPE_TAG, t)
+                .tag(CompletionLatencyRecorder.STATE_TAG, state.name().toLowerCase(Locale.ROOT))
+                .description("The time taken by metadata transformations to complete")
+                .publishPercentiles(percentiles)
+                .sla(serviceLevelObjectives)
+                .minimumExpectedValue(minimumExpectedValue)
+                .maximumExpectedValue(maximumExpectedValue)
+                .register(registry));
+  }
+}
@@ -0,0 +1,174 @@
+/**
+ * Copyright (c) Connexta
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package com.connexta.transformation.commons.api.impl;
+
+import com.connexta.transformation.commons.api.TransformationStatus.State;
+import io.micrometer.core.instrument.distribution.CountAtBucket;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Point-in-time view of the completion latencies recorded by a {@link CompletionLatencyRecorder}
+ * for a given metadata type and outcome.
+ */
+public final class CompletionLatencySnapshot {
+  private final String metadataType;
+  private final State state;
+  private final long count;
+  private final Duration mean;
+  private final Duration max;
+  private final SortedMap<Double, Duration> percentiles;
+  private final SortedMap<Duration, Long> serviceLevelCounts;
+
+  /**
+   * Instantiates a new snapshot.
+   *
+   * @param metadataType the metadata type for which latencies were recorded
+   * @param state the outcome for which latencies were recorded
+   * @param count the number of latencies recorded
+   * @param mean the mean latency recorded
+   * @param max the maximum latency recorded in the current time window
+   * @param percentiles the latency at each computed percentile
+   * @param serviceLevelCounts the number of latencies recorded at or below each service level
+   *     objective
+   */
+  public CompletionLatencySnapshot(
+      String metadataType,
+      State state,
+      long count,
+      Duration mean,
+      Duration max,
+      SortedMap<Double, Duration> percentiles,
+      SortedMap<Duration, Long> serviceLevelCounts) {
+    this.metadataType = metadataType;
+    this.state = state;
+    this.count = count;
+    this.mean = mean;
+    this.max = max;
+    this.percentiles = Collections.unmodifiableSortedMap(new TreeMap<>(percentiles));
+    this.serviceLevelCounts = Collections.unmodifiableSortedMap(new TreeMap<>(serviceLevelCounts));
+  }
+
+  /**
+   * Gets the metadata type for which latencies were recorded.
+   *
+   * @return the metadata type for which latencies were recorded
+   */
+  public String getMetadataType() {
+    return metadataType;
+  }
+
+  /**
+   * Gets the outcome for which latencies were recorded.
+   *
+   * @return {@link State#SUCCESSFUL} or {@link State#FAILED}
+   */
+  public State getState() {
+    return state;
+  }
+
+  /**
+   * Gets the number of latencies recorded.
+   *
+   * @return the number of latencies recorded
+   */
+  public long getCount() {
+    return count;
+  }
+
+  /**
+   * Gets the mean latency recorded.
+   *
+   * @return the mean latency recorded
+   */
+  public Duration getMean() {
+    return mean;
+  }
+
+  /**
+   * Gets the maximum latency recorded in the current time window.
+   *
+   * @return the maximum latency recorded in the current time window
+   */
+  public Duration getMax() {
+    return max;
+  }
+
+  /**
+   * Gets the latency at each computed percentile.
+   *
+   * @return an unmodifiable map of the latency at each percentile keyed by percentile
+   */
+  public SortedMap<Double, Duration> getPercentiles() {
+    return percentiles;
+  }
+
+  /**
+   * Gets the number of latencies recorded at or below each configured service level objective.
+   *
+   * @return an unmodifiable map of cumulative counts keyed by service level objective
+   */
+  public SortedMap<Duration, Long> getServiceLevelCounts() {
+    return serviceLevelCounts;
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        "CompletionLatencySnapshot[metadataType=%s, state=%s, count=%d, mean=%s, max=%s, percentiles=%s, serviceLevelCounts=%s]",
+        metadataType, state, count, mean, max, percentiles, serviceLevelCounts);
+  }
+
+  /**
+   * Creates a snapshot from a Micrometer histogram snapshot.
+   *
+   * @param metadataType the metadata type for which latencies were recorded
+   * @param state the outcome for which latencies were recorded
+   * @param snapshot the histogram snapshot to convert
+   * @return the corresponding snapshot
+   */
+  static CompletionLatencySnapshot from(
+      String metadataType, State state, HistogramSnapshot snapshot) {
+    final SortedMap<Double, Duration> percentiles = new TreeMap<>();
+    final SortedMap<Duration, Long> serviceLevelCounts = new TreeMap<>();
+
+    for (final ValueAtPercentile value : snapshot.percentileValues()) {
+      percentiles.put(
+          value.percentile(),
+          CompletionLatencySnapshot.toDuration(value.value(TimeUnit.NANOSECONDS)));
+    }
+    for (final CountAtBucket bucket : snapshot.histogramCounts()) {
+      serviceLevelCounts.put(
+          CompletionLatencySnapshot.toDuration(bucket.bucket(TimeUnit.NANOSECONDS)),
+          (long) bucket.count());
+    }
+    return new CompletionLatencySnapshot(
+        metadataType,
+        state,
+        snapshot.count(),
+        CompletionLatencySnapshot.toDuration(snapshot.mean(TimeUnit.NANOSECONDS)),
+        CompletionLatencySnapshot.toDuration(snapshot.max(TimeUnit.NANOSECONDS)),
+        percentiles,
+        serviceLevelCounts);
+  }
+
+  private static Duration toDuration(double nanos) {
+    return Duration.ofNanos(Math.round(nanos));
+  }
+}
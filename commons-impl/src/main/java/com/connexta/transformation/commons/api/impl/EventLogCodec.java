@@ -0,0 +1,146 @@
+/**
+ * Copyright (c) Connexta
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package com.connexta.transformation.commons.api.impl;
+
+import com.connexta.transformation.commons.api.impl.TransformationEvent.Type;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.zip.CRC32C;
+import javax.annotation.Nullable;
+
+/**
+ * Encodes and decodes {@link TransformationEvent}s to and from the records stored in the segments
+ * of a {@link TransformationEventLog}. Each record is made of a header holding the length and the
+ * CRC32C checksum of its payload followed by the payload itself which holds, in order, the offset,
+ * the time, the type, the transform id and the metadata type of the event.
+ */
+class EventLogCodec {
+  /** The size of the header preceding each record's payload. */
+  static final int HEADER_BYTES = Integer.BYTES * 2;
+
+  /** The maximum size of a record including its header. */
+  static final int MAXIMUM_RECORD_BYTES = 64 * 1024;
+
+  private static final int MINIMUM_PAYLOAD_BYTES = Long.BYTES * 2 + 1 + Integer.BYTES * 2;
+
+  private static final int NO_METADATA_TYPE = -1;
+
+  private static final Type[] TYPES = Type.values();
+
+  private EventLogCodec() {}
+
+  /**
+   * Encodes an event into a record.
+   *
+   * @param offset the offset of the event
+   * @param type the type of the event
+   * @param time the wall time in milliseconds at which the event occurred
+   * @param transformId the id of the transformation the event pertains to
+   * @param metadataType the type of metadata the event pertains to or <code>null</code> if none
+   * @return a buffer ready to be written and holding the corresponding record
+   * @throws IllegalArgumentException if the record would be larger than {@link
+   *     #MAXIMUM_RECORD_BYTES}
+   */
+  static ByteBuffer encode(
+      long offset, Type type, long time, String transformId, @Nullable String metadataType) {
+    final byte[] id = transformId.getBytes(StandardCharsets.UTF_8);
+    final byte[] metadata =
+        (metadataType != null) ? metadataType.getBytes(StandardCharsets.UTF_8) : new byte[0];
+    final int length = EventLogCodec.MINIMUM_PAYLOAD_BYTES + id.length + metadata.length;
+
+    if (length > EventLogCodec.MAXIMUM_RECORD_BYTES - EventLogCodec.HEADER_BYTES) {
+      throw new IllegalArgumentException("event too large: " + length + " bytes");
+    }
+    final ByteBuffer record = ByteBuffer.allocate(EventLogCodec.HEADER_BYTES + length);
+    final CRC32C crc = new CRC32C();
+
+    record
+        .position(EventLogCodec.HEADER_BYTES)
+        .putLong(offset)
+        .putLong(time)
+        .put((byte) type.ordinal())
+        .putInt(id.length)
+        .put(id)
+        .putInt((metadataType != null) ? metadata.length : EventLogCodec.NO_METADATA_TYPE)
+        .put(metadata)
+        .flip();
+    crc.update(record.position(EventLogCodec.HEADER_BYTES));
+    return record.putInt(0, length).putInt(Integer.BYTES, (int) crc.getValue()).rewind();
+  }
+
+  /**
+   * Decodes the record found at the current position of the specified buffer and advances the
+   * buffer's position past it.
+   *
+   * @param buffer the buffer from which to decode a record
+   * @return the corresponding event or <code>null</code> if the buffer does not hold a complete
+   *     record in which case its position is left unchanged
+   * @throws StreamCorruptedException if the record is corrupted
+   */
+  @Nullable
+  static TransformationEvent decode(ByteBuffer buffer) throws StreamCorruptedException {
+    final int start = buffer.position();
+
+    if (buffer.remaining() < EventLogCodec.HEADER_BYTES) {
+      return null;
+    }
+    final int length = buffer.getInt(start);
+
+    if ((length < EventLogCodec.MINIMUM_PAYLOAD_BYTES)
+        || (length > EventLogCodec.MAXIMUM_RECORD_BYTES - EventLogCodec.HEADER_BYTES)) {
+      throw new StreamCorruptedException("invalid event record length: " + length);
+    } else if (buffer.remaining() < EventLogCodec.HEADER_BYTES + length) {
+      return null;
+    }
+    final ByteBuffer payload =
+        buffer
+            .duplicate()
+            .position(start + EventLogCodec.HEADER_BYTES)
+            .limit(start + EventLogCodec.HEADER_BYTES + length);
+    final CRC32C crc = new CRC32C();
+
+    crc.update(payload.duplicate());
+    if ((int) crc.getValue() != buffer.getInt(start + Integer.BYTES)) {
+      throw new StreamCorruptedException("invalid event record checksum");
+    }
+    final long offset = payload.getLong();
+    final long time = payload.getLong();
+    final int type = payload.get();
+    final String transformId = EventLogCodec.getString(payload, payload.getInt());
+    final int metadataLength = payload.getInt();
+    final String metadataType =
+        (metadataLength != EventLogCodec.NO_METADATA_TYPE)
+            ? EventLogCodec.getString(payload, metadataLength)
+            : null;
+
+    if ((type < 0) || (type >= EventLogCodec.TYPES.length) || payload.hasRemaining()) {
+      throw new StreamCorruptedException("invalid event record");
+    }
+    buffer.position(start + EventLogCodec.HEADER_BYTES + length);
+    return new TransformationEvent(
+        offset, EventLogCodec.TYPES[type], Instant.ofEpochMilli(time), transformId, metadataType);
+  }
+
+  private static String getString(ByteBuffer payload, int length) throws StreamCorruptedException {
+    if ((length < 0) || (length > payload.remaining())) {
+      throw new StreamCorruptedException("invalid event record string length: " + length);
+    }
+    final byte[] bytes = new byte[length];
+
+    payload.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,218 @@
+/**
+ * Copyright (c) Connexta
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package com.connexta.transformation.commons.api.impl;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.locks.Lock;
+import java.util.regex.Pattern;
+import javax.annotation.Nullable;
+
+/**
+ * A cursor reading events sequentially from a {@link TransformationEventLog}. A cursor keeps track
+ * of its position in the current segment such that tailing the log only reads new records. Named
+ * cursors can commit their position to the log directory in order to resume from it when they are
+ * reopened.
+ *
+ * <p>If the events at the position of a cursor are deleted by retention before being read, the
+ * cursor skips ahead to the oldest event retained.
+ *
+ * <p><i>Note:</i> Cursors are not threadsafe.
+ */
+public class EventLogCursor {
+  private static final String SUFFIX = ".cursor";
+
+  private static final Pattern NAME = Pattern.compile("[A-Za-z0-9._-]+");
+
+  private final TransformationEventLog log;
+  @Nullable private final String name;
+  private final ByteBuffer buffer = ByteBuffer.allocate(EventLogCodec.MAXIMUM_RECORD_BYTES);
+  private long position;
+  @Nullable private EventLogSegment segment = null;
+  private long filePosition = 0L;
+
+  /**
+   * Instantiates a new cursor.
+   *
+   * @param log the log to read from
+   * @param name the name of the cursor or <code>null</code> if it cannot be committed
+   * @param position the offset of the next event to read
+   */
+  EventLogCursor(TransformationEventLog log, @Nullable String name, long position) {
+    this.log = log;
+    this.name = name;
+    this.position = Math.max(position, log.getStartOffset());
+  }
+
+  /**
+   * Gets the name of this cursor.
+   *
+   * @return the name of this cursor or empty if it is not a named cursor
+   */
+  public Optional<String> getName() {
+    return Optional.ofNullable(name);
+  }
+
+  /**
+   * Gets the offset of the next event to be read by this cursor.
+   *
+   * @return the offset of the next event to be read
+   */
+  public long getPosition() {
+    return position;
+  }
+
+  /**
+   * Gets the number of events this cursor has yet to read.
+   *
+   * @return the number of events appended to the log but not yet read
+   */
+  public long getLag() {
+    return Math.max(0L, log.getEndOffset() - Math.max(position, log.getStartOffset()));
+  }
+
+  /**
+   * Moves this cursor to the specified offset.
+   *
+   * @param offset the offset of the next event to be read
+   * @return this for chaining
+   * @throws IllegalArgumentException if <code>offset</code> is negative or past the end of the log
+   */
+  public EventLogCursor seek(long offset) {
+    if ((offset < 0L) || (offset > log.getEndOffset())) {
+      throw new IllegalArgumentException("invalid offset: " + offset);
+    }
+    this.position = offset;
+    this.segment = null;
+    return this;
+  }
+
+  /**
+   * Reads the next events from the log and advances this cursor past them.
+   *
+   * @param maximum the maximum number of events to read
+   * @return the events read in order or an empty list if the cursor has caught up with the log
+   * @throws IllegalStateException if the log is closed
+   * @throws IOException if an I/O error occurs while reading or if an event is corrupted
+   */
+  public List<TransformationEvent> poll(int maximum) throws IOException {
+    final List<TransformationEvent> events = new ArrayList<>(Math.min(maximum, 256));
+    final Lock lock = log.getRetentionLock().readLock();
+
+    lock.lock();
+    try {
+      log.checkIfClosed();
+      locate();
+      while (events.size() < maximum) {
+        if (filePosition >= segment.getSize()) {
+          // get the next segment before checking the size again as the current segment is
+          // guaranteed to no longer grow once a new one was started
+          final EventLogSegment next = log.nextSegment(segment);
+
+          if (next == null) {
+            break; // caught up
+          } else if (filePosition >= segment.getSize()) {
+            this.segment = next;
+            this.filePosition = 0L;
+          }
+          continue;
+        }
+        final int count = events.size();
+
+        this.filePosition += segment.read(filePosition, buffer, maximum - count, events);
+        if (events.size() > count) {
+          this.position = events.get(events.size() - 1).getOffset() + 1L;
+        }
+      }
+    } finally {
+      lock.unlock();
+    }
+    return events;
+  }
+
+  /**
+   * Commits the current position of this cursor to the log directory such that it is restored when
+   * the cursor is reopened.
+   *
+   * @throws IllegalStateException if this cursor is not a named cursor or if the log is closed
+   * @throws IOException if an I/O error occurs while committing the position
+   */
+  public void commit() throws IOException {
+    if (name == null) {
+      throw new IllegalStateException("cannot commit an unnamed cursor");
+    }
+    log.checkIfClosed();
+    final Path file = EventLogCursor.fileFor(log.getDirectory(), name);
+    final Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+
+    Files.write(temp, Long.toString(position).getBytes(StandardCharsets.US_ASCII));
+    Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+  }
+
+  @Override
+  public String toString() {
+    return String.format("EventLogCursor[name=%s, position=%d]", name, position);
+  }
+
+  /**
+   * Reads the position last committed by the specified cursor.
+   *
+   * @param directory the log directory
+   * @param name the name of the cursor
+   * @return the committed position or <code>0</code> if the cursor never committed
+   * @throws IllegalArgumentException if <code>name</code> is invalid
+   * @throws IOException if an I/O error occurs while reading the committed position
+   */
+  static long readCommitted(Path directory, String name) throws IOException {
+    final Path file = EventLogCursor.fileFor(directory, name);
+
+    if (!Files.exists(file)) {
+      return 0L;
+    }
+    final String committed = new String(Files.readAllBytes(file), StandardCharsets.US_ASCII);
+
+    try {
+      return Long.parseLong(committed.trim());
+    } catch (NumberFormatException e) {
+      throw new IOException("invalid committed position for cursor [" + name + "]: " + committed);
+    }
+  }
+
+  private void locate() throws IOException {
+    final long start = log.getStartOffset();
+
+    if (position < start) { // events were deleted by retention before being read
+      this.position = start;
+      this.segment = null;
+    }
+    if ((segment == null) || segment.isDeleted()) {
+      this.segment = log.segmentFor(position);
+      this.filePosition = segment.positionOf(position);
+    }
+  }
+
+  private static Path fileFor(Path directory, String name) {
+    if (!EventLogCursor.NAME.matcher(name).matches()) {
+      throw new IllegalArgumentException("invalid cursor name: " + name);
+    }
+    return directory.resolve(name + EventLogCursor.SUFFIX);
+  }
+}
@@ -0,0 +1,301 @@
+/**
+ * Copyright (c) Connexta
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package com.connexta.transformation.commons.api.impl;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A segment of a {@link TransformationEventLog} stored in its own file which is named after the
+ * offset of the first event it holds. Events are appended as records encoded by {@link
+ * EventLogCodec}.
+ *
+ * <p>Only one thread appends at a time but many can read concurrently. Readers never read past the
+ * size of the segment which is only updated once a record was completely written.
+ */
+class EventLogSegment implements Closeable {
+  private static final Logger LOGGER = LoggerFactory.getLogger(EventLogSegment.class);
+
+  /** The suffix of segment files. */
+  static final String SUFFIX = ".log";
+
+  private final long baseOffset;
+  private final Path path;
+  private final FileChannel channel;
+  private volatile long size = 0L;
+  private volatile long nextOffset;
+  private volatile long lastTime;
+  private volatile boolean deleted = false;
+
+  private EventLogSegment(long baseOffset, Path path, FileChannel channel, long lastTime) {
+    this.baseOffset = baseOffset;
+    this.path = path;
+    this.channel = channel;
+    this.nextOffset = baseOffset;
+    this.lastTime = lastTime;
+  }
+
+  /**
+   * Creates a new empty segment.
+   *
+   * @param directory the directory where to create the segment file
+   * @param baseOffset the offset of the first event to be appended to the segment
+   * @param now the current wall time in milliseconds
+   * @return the corresponding segment
+   * @throws IOException if an I/O error occurs while creating the segment file
+   */
+  static EventLogSegment create(Path directory, long baseOffset, long now) throws IOException {
+    final Path path = directory.resolve(EventLogSegment.fileName(baseOffset));
+
+    return new EventLogSegment(
+        baseOffset,
+        path,
+        FileChannel.open(
+            path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE),
+        now);
+  }
+
+  /**
+   * Recovers an existing segment. The segment is scanned and truncated after the last valid record
+   * in order to discard any record that was partially written when the process last stopped.
+   *
+   * @param path the path to the segment file
+   * @param baseOffset the offset of the first event in the segment
+   * @return the corresponding segment
+   * @throws IOException if an I/O error occurs while recovering the segment file
+   */
+  static EventLogSegment recover(Path path, long baseOffset) throws IOException {
+    final EventLogSegment segment =
+        new EventLogSegment(
+            baseOffset,
+            path,
+            FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE),
+            Files.getLastModifiedTime(path).toMillis());
+    final long length = segment.channel.size();
+    final ByteBuffer buffer = ByteBuffer.allocate(EventLogCodec.MAXIMUM_RECORD_BYTES);
+    long position = 0L;
+
+    segment.size = length; // allow reading the whole file while recovering
+    try {
+      while (position < length) {
+        final long start = position;
+        TransformationEvent event;
+
+        buffer.clear();
+        segment.readFully(buffer, start);
+        buffer.flip();
+        while ((event = EventLogCodec.decode(buffer)) != null) {
+          segment.recovered(event);
+          position = start + buffer.position();
+        }
+        if (position == start) { // partially written record
+          break;
+        }
+      }
+    } catch (StreamCorruptedException e) {
+      LOGGER.warn("Discarding corrupted events from [{}] at position {}.", path, position, e);
+    }
+    if (position < length) {
+      segment.channel.truncate(position);
+    }
+    segment.size = position;
+    return segment;
+  }
+
+  /**
+   * Gets the name of the file for a segment starting at the specified offset.
+   *
+   * @param baseOffset the offset of the first event in the segment
+   * @return the corresponding file name
+   */
+  static String fileName(long baseOffset) {
+    return String.format("%020d%s", baseOffset, EventLogSegment.SUFFIX);
+  }
+
+  /**
+   * Gets the offset of the first event in this segment.
+   *
+   * @return the offset of the first event in this segment
+   */
+  long getBaseOffset() {
+    return baseOffset;
+  }
+
+  /**
+   * Gets the offset of the next event to be appended to this segment.
+   *
+   * @return the offset of the next event to be appended to this segment
+   */
+  long getNextOffset() {
+    return nextOffset;
+  }
+
+  /**
+   * Gets the number of bytes of complete records stored in this segment.
+   *
+   * @return the size of this segment in bytes
+   */
+  long getSize() {
+    return size;
+  }
+
+  /**
+   * Gets the wall time in milliseconds at which the last event was appended to this segment.
+   *
+   * @return the wall time of the last event appended or of the creation of this segment if empty
+   */
+  long getLastTime() {
+    return lastTime;
+  }
+
+  /**
+   * Checks if this segment was deleted.
+   *
+   * @return <code>true</code> if this segment was deleted; <code>false</code> otherwise
+   */
+  boolean isDeleted() {
+    return deleted;
+  }
+
+  /**
+   * Appends an encoded record to this segment.
+   *
+   * @param record the record to append as encoded by {@link EventLogCodec#encode}
+   * @param offset the offset of the event in the record
+   * @param time the wall time in milliseconds of the event in the record
+   * @throws IOException if an I/O error occurs while appending the record
+   */
+  void append(ByteBuffer record, long offset, long time) throws IOException {
+    final long position = size;
+    final int length = record.remaining();
+
+    while (record.hasRemaining()) {
+      channel.write(record, position + length - record.remaining());
+    }
+    this.nextOffset = offset + 1L;
+    this.lastTime = time;
+    this.size = position + length; // publish the record to readers
+  }
+
+  /**
+   * Forces all appended records to be written to the storage device.
+   *
+   * @throws IOException if an I/O error occurs while syncing
+   */
+  void sync() throws IOException {
+    channel.force(false);
+  }
+
+  /**
+   * Reads events starting at the specified position.
+   *
+   * @param position the position in the segment file of the first record to read
+   * @param buffer the buffer to use for reading records
+   * @param maximum the maximum number of events to read
+   * @param events the list where to add the events read
+   * @return the number of bytes consumed from the segment file
+   * @throws IOException if an I/O error occurs while reading or if a record is corrupted
+   */
+  long read(long position, ByteBuffer buffer, int maximum, List<TransformationEvent> events)
+      throws IOException {
+    TransformationEvent event;
+    int count = 0;
+
+    buffer.clear();
+    readFully(buffer, position);
+    buffer.flip();
+    while ((count < maximum) && ((event = EventLogCodec.decode(buffer)) != null)) {
+      events.add(event);
+      count++;
+    }
+    return buffer.position();
+  }
+
+  /**
+   * Gets the position in the segment file of the record for the specified offset by skipping over
+   * the records preceding it.
+   *
+   * @param offset the offset of the event to locate
+   * @return the position in the segment file of the corresponding record or the size of this
+   *     segment if the offset is past the last event it holds
+   * @throws IOException if an I/O error occurs while reading
+   */
+  long positionOf(long offset) throws IOException {
+    final ByteBuffer header = ByteBuffer.allocate(EventLogCodec.HEADER_BYTES);
+    final long end = size;
+    long position = 0L;
+
+    for (long o = baseOffset; (o < offset) && (position < end); o++) {
+      header.clear();
+      readFully(header, position);
+      position += EventLogCodec.HEADER_BYTES + header.getInt(0);
+    }
+    return Math.min(position, end);
+  }
+
+  /**
+   * Closes and deletes this segment's file.
+   *
+   * @throws IOException if an I/O error occurs while deleting the file
+   */
+  void delete() throws IOException {
+    this.deleted = true;
+    close();
+    Files.deleteIfExists(path);
+  }
+
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        "EventLogSegment[path=%s, baseOffset=%d, nextOffset=%d, size=%d]",
+        path, baseOffset, nextOffset, size);
+  }
+
+  private void recovered(TransformationEvent event) throws StreamCorruptedException {
+    if (event.getOffset() != nextOffset) {
+      throw new StreamCorruptedException(
+          "unexpected event offset: " + event.getOffset() + " (expected: " + nextOffset + ")");
+    }
+    this.nextOffset = event.getOffset() + 1L;
+    this.lastTime = event.getTime().toEpochMilli();
+  }
+
+  private void readFully(ByteBuffer buffer, long position) throws IOException {
+    final long available = size - position;
+    final int start = buffer.position();
+
+    if (available < buffer.remaining()) {
+      buffer.limit(start + (int) available);
+    }
+    while (buffer.hasRemaining()) {
+      if (channel.read(buffer, position + buffer.position() - start) < 0) {
+        break; // the file was truncated
+      }
+    }
+  }
+}
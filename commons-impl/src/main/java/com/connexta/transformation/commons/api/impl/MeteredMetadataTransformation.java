@@ -0,0 +1,343 @@
+/**
+ * Copyright (c) Connexta
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package com.connexta.transformation.commons.api.impl;
+
+import com.connexta.transformation.commons.api.ContentOutputStream;
+import com.connexta.transformation.commons.api.ContentWriter;
+import com.connexta.transformation.commons.api.ErrorCode;
+import com.connexta.transformation.commons.api.MetadataTransformation;
+import com.connexta.transformation.commons.api.RequestInfo;
+import com.connexta.transformation.commons.api.exceptions.TransformationException;
+import com.connexta.transformation.commons.api.impl.MeteredTransformationManager.Operation;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.OptionalLong;
+
+/**
+ * Metadata transformation decorator which records metrics for the operations performed on a
+ * metadata returned by a {@link MeteredTransformationManager}. Content opened for writing with
+ * {@link #openContent(String)} is recorded as a <code>succeed</code> operation measuring the time
+ * it takes to close the stream and commit the content.
+ */
+class MeteredMetadataTransformation implements MetadataTransformation {
+  private final MetadataTransformation delegate;
+  private final MeteredTransformationManager manager;
+
+  /**
+   * Instantiates a new metered metadata transformation.
+   *
+   * @param delegate the metadata transformation to decorate
+   * @param manager the metered manager recording metrics
+   */
+  MeteredMetadataTransformation(
+      MetadataTransformation delegate, MeteredTransformationManager manager) {
+    this.delegate = delegate;
+    this.manager = manager;
+  }
+
+  /**
+   * Gets the metadata transformation decorated by this one.
+   *
+   * @return the decorated metadata transformation
+   */
+  MetadataTransformation getDelegate() {
+    return delegate;
+  }
+
+  @Override
+  public String getMetadataType() {
+    return delegate.getMetadataType();
+  }
+
+  @Override
+  public Optional<InputStream> getContent() throws TransformationException, IOException {
+    final long start = manager.startTime();
+
+    try {
+      return delegate.getContent();
+    } finally {
+      manager.record(Operation.GET_CONTENT, getMetadataType(), start);
+    }
+  }
+
+  @Override
+  public Optional<Reader> getContent(Charset charset) throws TransformationException, IOException {
+    final long start = manager.startTime();
+
+    try {
+      return delegate.getContent(charset);
+    } finally {
+      manager.record(Operation.GET_CONTENT, getMetadataType(), start);
+    }
+  }
+
+  @Override
+  public Optional<InputStream> getContent(long offset, long length)
+      throws TransformationException, IOException {
+    final long start = manager.startTime();
+
+    try {
+      return delegate.getContent(offset, length);
+    } finally {
+      manager.record(Operation.GET_CONTENT, getMetadataType(), start);
+    }
+  }
+
+  @Override
+  public Optional<InputStream> getVerifiedContent() throws TransformationException, IOException {
+    final long start = manager.startTime();
+
+    try {
+      return delegate.getVerifiedContent();
+    } finally {
+      manager.record(Operation.GET_CONTENT, getMetadataType(), start);
+    }
+  }
+
+  @Override
+  public Optional<ReadableByteChannel> getContentChannel()
+      throws TransformationException, IOException {
+    final long start = manager.startTime();
+
+    try {
+      return delegate.getContentChannel();
+    } finally {
+      manager.record(Operation.GET_CONTENT, getMetadataType(), start);
+    }
+  }
+
+  @Override
+  public OptionalLong transferContentTo(WritableByteChannel target)
+      throws TransformationException, IOException {
+    final long start = manager.startTime();
+
+    try {
+      return delegate.transferContentTo(target);
+    } finally {
+      manager.record(Operation.TRANSFER_CONTENT, getMetadataType(), start);
+    }
+  }
+
+  @Override
+  public Optional<String> getContentVersion() {
+    return delegate.getContentVersion();
+  }
+
+  @Override
+  public OptionalLong getContentCrc32c() {
+    return delegate.getContentCrc32c();
+  }
+
+  @Override
+  public Optional<String> getContentSha256() {
+    return delegate.getContentSha256();
+  }
+
+  @Override
+  public Optional<String> getContentType() {
+    return delegate.getContentType();
+  }
+
+  @Override
+  public OptionalLong getContentLength() {
+    return delegate.getContentLength();
+  }
+
+  @Override
+  public void succeed(String contentType, InputStream contentStream)
+      throws TransformationException, IOException {
+    final long start = manager.startTime();
+
+    try {
+      delegate.succeed(contentType, contentStream);
+    } finally {
+      manager.record(Operation.SUCCEED, getMetadataType(), start);
+    }
+  }
+
+  @Override
+  public void succeed(String contentType, Charset charset, Reader contentStream)
+      throws TransformationException, IOException {
+    final long start = manager.startTime();
+
+    try {
+      delegate.succeed(contentType, charset, contentStream);
+    } finally {
+      manager.record(Operation.SUCCEED, getMetadataType(), start);
+    }
+  }
+
+  @Override
+  public ContentOutputStream openContent(String contentType)
+      throws TransformationException, IOException {
+    return new MeteredOutputStream(delegate.openContent(contentType));
+  }
+
+  @Override
+  public ContentWriter openContent(String contentType, Charset charset)
+      throws TransformationException, IOException {
+    return new ContentWriter(openContent(contentType), charset);
+  }
+
+  @Override
+  public void fail(ErrorCode reason, String message) throws TransformationException {
+    final long start = manager.startTime();
+
+    try {
+      delegate.fail(reason, message);
+      manager.failed(reason, getMetadataType());
+    } finally {
+      manager.record(Operation.FAIL, getMetadataType(), start);
+    }
+  }
+
+  @Override
+  public Optional<ErrorCode> getFailureReason() {
+    return delegate.getFailureReason();
+  }
+
+  @Override
+  public Optional<String> getFailureMessage() {
+    return delegate.getFailureMessage();
+  }
+
+  @Override
+  public String getTransformId() {
+    return delegate.getTransformId();
+  }
+
+  @Override
+  public RequestInfo getRequestInfo() {
+    return delegate.getRequestInfo();
+  }
+
+  @Override
+  public Instant getStartTime() {
+    return delegate.getStartTime();
+  }
+
+  @Override
+  public Optional<Instant> getCompletionTime() {
+    return delegate.getCompletionTime();
+  }
+
+  @Override
+  public State getState() {
+    return delegate.getState();
+  }
+
+  @Override
+  public Duration getDuration() {
+    return delegate.getDuration();
+  }
+
+  @Override
+  public boolean isDeleted() {
+    return delegate.isDeleted();
+  }
+
+  @Override
+  public boolean isCompleted() {
+    return delegate.isCompleted();
+  }
+
+  @Override
+  public boolean hasFailed() {
+    return delegate.hasFailed();
+  }
+
+  @Override
+  public boolean wasSuccessful() {
+    return delegate.wasSuccessful();
+  }
+
+  @Override
+  public boolean isUnknown() {
+    return delegate.isUnknown();
+  }
+
+  @Override
+  public int hashCode() {
+    return delegate.hashCode();
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (obj instanceof MeteredMetadataTransformation) {
+      return delegate.equals(((MeteredMetadataTransformation) obj).delegate);
+    }
+    return false;
+  }
+
+  @Override
+  public String toString() {
+    return delegate.toString();
+  }
+
+  /**
+   * Output stream which records the time taken to commit content when it is closed. Aborting the
+   * stream is not recorded since no content is committed.
+   */
+  private class MeteredOutputStream extends ContentOutputStream {
+    private final ContentOutputStream out;
+    private boolean closed = false;
+
+    MeteredOutputStream(ContentOutputStream out) {
+      this.out = out;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+      out.write(b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      out.write(b, off, len);
+    }
+
+    @Override
+    public void flush() throws IOException {
+      out.flush();
+    }
+
+    @Override
+    public void abort() throws IOException {
+      this.closed = true;
+      out.abort();
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (closed) {
+        return;
+      }
+      this.closed = true;
+      final long start = manager.startTime();
+
+      try {
+        out.close();
+      } finally {
+        manager.record(Operation.SUCCEED, getMetadataType(), start);
+      }
+    }
+  }
+}
@@ -0,0 +1,179 @@
+/**
+ * Copyright (c) Connexta
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package com.connexta.transformation.commons.api.impl;
+
+import com.connexta.transformation.commons.api.MetadataTransformation;
+import com.connexta.transformation.commons.api.RequestInfo;
+import com.connexta.transformation.commons.api.Transformation;
+import com.connexta.transformation.commons.api.exceptions.TransformationException;
+import com.connexta.transformation.commons.api.exceptions.TransformationNotFoundException;
+import com.connexta.transformation.commons.api.impl.MeteredTransformationManager.Operation;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.CompletionStage;
+import java.util.stream.Stream;
+
+/**
+ * Transformation decorator which records metrics for the operations performed on a transformation
+ * returned by a {@link MeteredTransformationManager}. Status queries are delegated as is.
+ */
+class MeteredTransformation implements Transformation {
+  private final Transformation delegate;
+  private final MeteredTransformationManager manager;
+
+  /**
+   * Instantiates a new metered transformation.
+   *
+   * @param delegate the transformation to decorate
+   * @param manager the metered manager recording metrics
+   */
+  MeteredTransformation(Transformation delegate, MeteredTransformationManager manager) {
+    this.delegate = delegate;
+    this.manager = manager;
+  }
+
+  /**
+   * Gets the transformation decorated by this one.
+   *
+   * @return the decorated transformation
+   */
+  Transformation getDelegate() {
+    return delegate;
+  }
+
+  @Override
+  public void delete() throws TransformationException {
+    final long start = manager.startTime();
+
+    try {
+      delegate.delete();
+    } finally {
+      manager.record(Operation.DELETE, start);
+    }
+  }
+
+  @Override
+  public MetadataTransformation add(String metadataType) throws TransformationException {
+    final long start = manager.startTime();
+
+    try {
+      return new MeteredMetadataTransformation(delegate.add(metadataType), manager);
+    } finally {
+      manager.record(Operation.ADD, metadataType, start);
+    }
+  }
+
+  @Override
+  public Stream<String> metadataTypes() {
+    return delegate.metadataTypes();
+  }
+
+  @Override
+  public Stream<MetadataTransformation> metadatas() {
+    return delegate.metadatas().map(m -> new MeteredMetadataTransformation(m, manager));
+  }
+
+  @Override
+  public MetadataTransformation get(String metadataType) throws TransformationNotFoundException {
+    final long start = manager.startTime();
+
+    try {
+      return new MeteredMetadataTransformation(delegate.get(metadataType), manager);
+    } catch (TransformationNotFoundException e) {
+      manager.notFound(Operation.GET_METADATA, 1);
+      throw e;
+    } finally {
+      manager.record(Operation.GET_METADATA, metadataType, start);
+    }
+  }
+
+  @Override
+  public CompletionStage<Transformation> onCompletion() {
+    return delegate.onCompletion().thenApply(t -> this);
+  }
+
+  @Override
+  public String getTransformId() {
+    return delegate.getTransformId();
+  }
+
+  @Override
+  public RequestInfo getRequestInfo() {
+    return delegate.getRequestInfo();
+  }
+
+  @Override
+  public Instant getStartTime() {
+    return delegate.getStartTime();
+  }
+
+  @Override
+  public Optional<Instant> getCompletionTime() {
+    return delegate.getCompletionTime();
+  }
+
+  @Override
+  public State getState() {
+    return delegate.getState();
+  }
+
+  @Override
+  public Duration getDuration() {
+    return delegate.getDuration();
+  }
+
+  @Override
+  public boolean isDeleted() {
+    return delegate.isDeleted();
+  }
+
+  @Override
+  public boolean isCompleted() {
+    return delegate.isCompleted();
+  }
+
+  @Override
+  public boolean hasFailed() {
+    return delegate.hasFailed();
+  }
+
+  @Override
+  public boolean wasSuccessful() {
+    return delegate.wasSuccessful();
+  }
+
+  @Override
+  public boolean isUnknown() {
+    return delegate.isUnknown();
+  }
+
+  @Override
+  public int hashCode() {
+    return delegate.hashCode();
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (obj instanceof MeteredTransformation) {
+      return delegate.equals(((MeteredTransformation) obj).delegate);
+    }
+    return false;
+  }
+
+  @Override
+  public String toString() {
+    return delegate.toString();
+  }
+}
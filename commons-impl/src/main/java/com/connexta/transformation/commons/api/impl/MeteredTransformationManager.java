@@ -0,0 +1,455 @@
+/**
+ * Copyright (c) Connexta
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package com.connexta.transformation.commons.api.impl;
+
+import com.connexta.transformation.commons.api.ErrorCode;
+import com.connexta.transformation.commons.api.MetadataTransformation;
+import com.connexta.transformation.commons.api.RequestInfo;
+import com.connexta.transformation.commons.api.Transformation;
+import com.connexta.transformation.commons.api.TransformationListener;
+import com.connexta.transformation.commons.api.TransformationLookup;
+import com.connexta.transformation.commons.api.TransformationManager;
+import com.connexta.transformation.commons.api.TransformationPage;
+import com.connexta.transformation.commons.api.TransformationQuery;
+import com.connexta.transformation.commons.api.exceptions.TransformationException;
+import com.connexta.transformation.commons.api.exceptions.TransformationNotFoundException;
+import io.micrometer.core.instrument.Clock;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.net.URL;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Decorator which records Micrometer metrics for all operations performed on a {@link
+ * TransformationManager} and on the {@link Transformation}s and {@link MetadataTransformation}s it
+ * returns. The following meters are recorded:
+ *
+ * <ul>
+ *   <li><code>transformation.requests</code>: a timer for each manager and transformation level
+ *       operation, tagged with the <code>operation</code>
+ *   <li><code>transformation.metadata.requests</code>: a timer for each metadata level operation
+ *       (add, get, succeed, fail, get.content, transfer.content), tagged with the <code>operation
+ *       </code> and the <code>metadata.type</code>
+ *   <li><code>transformation.not.found</code>: a counter of lookups and deletes which referenced
+ *       unknown transformations or metadata, tagged with the <code>operation</code>
+ *   <li><code>transformation.metadata.failures</code>: a counter of failed metadata, tagged with
+ *       the failure <code>reason</code> and the <code>metadata.type</code>
+ *   <li><code>transformation.store.size</code> and <code>transformation.store.in.progress</code>:
+ *       gauges for the number of transformations held and in progress, only registered when the
+ *       decorated manager implements {@link TransformationStoreStatistics}
+ * </ul>
+ *
+ * <p>Timers are resolved once and cached such that recording an operation only reads the registry's
+ * monotonic clock twice and updates the timer's internal adders. Listeners registered through this
+ * decorator are registered directly with the decorated manager and are therefore notified with the
+ * undecorated transformations.
+ */
+public class MeteredTransformationManager implements TransformationManager {
+  /** The name of the timer recording manager and transformation level operations. */
+  public static final String REQUESTS = "transformation.requests";
+
+  /** The name of the timer recording metadata level operations. */
+  public static final String METADATA_REQUESTS = "transformation.metadata.requests";
+
+  /** The name of the counter recording references to unknown transformations or metadata. */
+  public static final String NOT_FOUND = "transformation.not.found";
+
+  /** The name of the counter recording failed metadata. */
+  public static final String FAILURES = "transformation.metadata.failures";
+
+  /** The name of the gauge reporting the number of transformations held. */
+  public static final String STORE_SIZE = "transformation.store.size";
+
+  /** The name of the gauge reporting the number of transformations in progress. */
+  public static final String IN_PROGRESS = "transformation.store.in.progress";
+
+  /** The tag identifying the operation performed. */
+  public static final String OPERATION_TAG = "operation";
+
+  /** The tag identifying the metadata type an operation was performed on. */
+  public static final String METADATA_TYPE_TAG = "metadata.type";
+
+  /** The tag identifying the reason a metadata failed. */
+  public static final String REASON_TAG = "reason";
+
+  private final TransformationManager delegate;
+  private final MeterRegistry registry;
+  private final Clock clock;
+  private final Map<Operation, Timer> timers = new EnumMap<>(Operation.class);
+  private final Map<Operation, ConcurrentMap<String, Timer>> metadataTimers =
+      new EnumMap<>(Operation.class);
+  private final ConcurrentMap<Operation, Counter> notFoundCounters = new ConcurrentHashMap<>();
+  private final Map<ErrorCode, ConcurrentMap<String, Counter>> failureCounters =
+      new EnumMap<>(ErrorCode.class);
+
+  /**
+   * Instantiates a new metered manager.
+   *
+   * @param delegate the manager to decorate
+   * @param registry the registry where to record metrics
+   */
+  public MeteredTransformationManager(TransformationManager delegate, MeterRegistry registry) {
+    this.delegate = delegate;
+    this.registry = registry;
+    this.clock = registry.config().clock();
+    for (final Operation operation : Operation.values()) {
+      if (operation.metadata) {
+        metadataTimers.put(operation, new ConcurrentHashMap<>());
+      } else {
+        timers.put(
+            operation,
+            Timer.builder(MeteredTransformationManager.REQUESTS)
+                .tag(MeteredTransformationManager.OPERATION_TAG, operation.tag)
+                .description("The time taken by transformation operations")
+                .register(registry));
+      }
+    }
+    for (final ErrorCode reason : ErrorCode.values()) {
+      failureCounters.put(reason, new ConcurrentHashMap<>());
+    }
+    if (delegate instanceof TransformationStoreStatistics) {
+      final TransformationStoreStatistics statistics = (TransformationStoreStatistics) delegate;
+
+      Gauge.builder(
+              MeteredTransformationManager.STORE_SIZE,
+              statistics,
+              TransformationStoreStatistics::getTransformationCount)
+          .description("The number of transformations currently held")
+          .baseUnit("objects")
+          .register(registry);
+      Gauge.builder(
+              MeteredTransformationManager.IN_PROGRESS,
+              statistics,
+              TransformationStoreStatistics::getInProgressCount)
+          .description("The number of transformations currently in progress")
+          .baseUnit("objects")
+          .register(registry);
+    }
+  }
+
+  /**
+   * Gets the manager decorated by this one.
+   *
+   * @return the decorated manager
+   */
+  public TransformationManager getDelegate() {
+    return delegate;
+  }
+
+  /**
+   * Gets the registry where metrics are recorded.
+   *
+   * @return the registry where metrics are recorded
+   */
+  public MeterRegistry getRegistry() {
+    return registry;
+  }
+
+  @Override
+  public Transformation createTransform(
+      URL currentLocation, URL finalLocation, URL metacardLocation) throws TransformationException {
+    final long start = clock.monotonicTime();
+
+    try {
+      return wrap(delegate.createTransform(currentLocation, finalLocation, metacardLocation));
+    } finally {
+      record(Operation.CREATE, start);
+    }
+  }
+
+  @Override
+  public List<Transformation> createTransforms(List<? extends RequestInfo> requests)
+      throws TransformationException {
+    final long start = clock.monotonicTime();
+
+    try {
+      return wrap(delegate.createTransforms(requests));
+    } finally {
+      record(Operation.CREATE_BATCH, start);
+    }
+  }
+
+  @Override
+  public Transformation get(String transformId) throws TransformationException {
+    final long start = clock.monotonicTime();
+
+    try {
+      return wrap(delegate.get(transformId));
+    } catch (TransformationNotFoundException e) {
+      notFound(Operation.GET, 1);
+      throw e;
+    } finally {
+      record(Operation.GET, start);
+    }
+  }
+
+  @Override
+  public TransformationLookup getAll(Collection<String> transformIds)
+      throws TransformationException {
+    final long start = clock.monotonicTime();
+
+    try {
+      final TransformationLookup lookup = delegate.getAll(transformIds);
+      final Map<String, Transformation> found = new LinkedHashMap<>();
+
+      lookup.getFound().forEach((id, t) -> found.put(id, wrap(t)));
+      notFound(Operation.GET_BATCH, lookup.getMissing().size());
+      return new TransformationLookup(found, lookup.getMissing());
+    } finally {
+      record(Operation.GET_BATCH, start);
+    }
+  }
+
+  @Override
+  public TransformationPage query(TransformationQuery query) throws TransformationException {
+    final long start = clock.monotonicTime();
+
+    try {
+      final TransformationPage page = delegate.query(query);
+
+      return new TransformationPage(
+          wrap(page.getTransformations()), page.getNextCursor().orElse(null));
+    } finally {
+      record(Operation.QUERY, start);
+    }
+  }
+
+  @Override
+  public List<Transformation> findByCurrentLocation(URL currentLocation)
+      throws TransformationException {
+    final long start = clock.monotonicTime();
+
+    try {
+      return wrap(delegate.findByCurrentLocation(currentLocation));
+    } finally {
+      record(Operation.FIND, start);
+    }
+  }
+
+  @Override
+  public List<Transformation> findByMetacardLocation(URL metacardLocation)
+      throws TransformationException {
+    final long start = clock.monotonicTime();
+
+    try {
+      return wrap(delegate.findByMetacardLocation(metacardLocation));
+    } finally {
+      record(Operation.FIND, start);
+    }
+  }
+
+  @Override
+  public MetadataTransformation get(String transformId, String type)
+      throws TransformationException {
+    final long start = clock.monotonicTime();
+
+    try {
+      return new MeteredMetadataTransformation(delegate.get(transformId, type), this);
+    } catch (TransformationNotFoundException e) {
+      notFound(Operation.GET_METADATA, 1);
+      throw e;
+    } finally {
+      record(Operation.GET_METADATA, type, start);
+    }
+  }
+
+  @Override
+  public void delete(String transformId) throws TransformationException {
+    final long start = clock.monotonicTime();
+
+    try {
+      delegate.delete(transformId);
+    } catch (TransformationNotFoundException e) {
+      notFound(Operation.DELETE, 1);
+      throw e;
+    } finally {
+      record(Operation.DELETE, start);
+    }
+  }
+
+  @Override
+  public Set<String> deleteAll(Collection<String> transformIds) throws TransformationException {
+    final long start = clock.monotonicTime();
+
+    try {
+      final Set<String> missing = delegate.deleteAll(transformIds);
+
+      notFound(Operation.DELETE_BATCH, missing.size());
+      return missing;
+    } finally {
+      record(Operation.DELETE_BATCH, start);
+    }
+  }
+
+  @Override
+  public void addListener(TransformationListener listener) {
+    delegate.addListener(listener);
+  }
+
+  @Override
+  public void removeListener(TransformationListener listener) {
+    delegate.removeListener(listener);
+  }
+
+  @Override
+  public String toString() {
+    return "MeteredTransformationManager[" + delegate + "]";
+  }
+
+  /**
+   * Gets the current time from the registry's monotonic clock.
+   *
+   * @return the current monotonic time in nanoseconds
+   */
+  long startTime() {
+    return clock.monotonicTime();
+  }
+
+  /**
+   * Records the time taken by a manager or transformation level operation.
+   *
+   * @param operation the operation performed
+   * @param start the monotonic time at which the operation started
+   */
+  void record(Operation operation, long start) {
+    timers.get(operation).record(clock.monotonicTime() - start, TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * Records the time taken by a metadata level operation.
+   *
+   * @param operation the operation performed
+   * @param metadataType the type of metadata the operation was performed on
+   * @param start the monotonic time at which the operation started
+   */
+  void record(Operation operation, String metadataType, long start) {
+    final ConcurrentMap<String, Timer> byType = metadataTimers.get(operation);
+    Timer timer = byType.get(metadataType);
+
+    if (timer == null) {
+      timer =
+          byType.computeIfAbsent(
+              metadataType,
+              t ->
+                  Timer.builder(MeteredTransformationManager.METADATA_REQUESTS)
+                      .tag(MeteredTransformationManager.OPERATION_TAG, operation.tag)
+                      .tag(MeteredTransformationManager.METADATA_TYPE_TAG, t)
+                      .description("The time taken by metadata transformation operations")
+                      .register(registry));
+    }
+    timer.record(clock.monotonicTime() - start, TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * Records references to unknown transformations or metadata.
+   *
+   * @param operation the operation which referenced them
+   * @param count the number of unknown transformations or metadata referenced
+   */
+  void notFound(Operation operation, int count) {
+    if (count > 0) {
+      Counter counter = notFoundCounters.get(operation);
+
+      if (counter == null) {
+        counter =
+            notFoundCounters.computeIfAbsent(
+                operation,
+                o ->
+                    Counter.builder(MeteredTransformationManager.NOT_FOUND)
+                        .tag(MeteredTransformationManager.OPERATION_TAG, o.tag)
+                        .description(
+                            "The number of references to unknown transformations or metadata")
+                        .baseUnit("operations")
+                        .register(registry));
+      }
+      counter.increment(count);
+    }
+  }
+
+  /**
+   * Records a failed metadata.
+   *
+   * @param reason the reason for the failure
+   * @param metadataType the type of metadata that failed
+   */
+  void failed(ErrorCode reason, String metadataType) {
+    final ConcurrentMap<String, Counter> byType = failureCounters.get(reason);
+    Counter counter = byType.get(metadataType);
+
+    if (counter == null) {
+      counter =
+          byType.computeIfAbsent(
+              metadataType,
+              t ->
+                  Counter.builder(MeteredTransformationManager.FAILURES)
+                      .tag(
+                          MeteredTransformationManager.REASON_TAG,
+                          reason.name().toLowerCase(Locale.ROOT))
+                      .tag(MeteredTransformationManager.METADATA_TYPE_TAG, t)
+                      .description("The number of metadata transformations that failed")
+                      .baseUnit("objects")
+                      .register(registry));
+    }
+    counter.increment();
+  }
+
+  private Transformation wrap(Transformation transformation) {
+    return new MeteredTransformation(transformation, this);
+  }
+
+  private List<Transformation> wrap(List<Transformation> transformations) {
+    return transformations.stream().map(this::wrap).collect(Collectors.toList());
+  }
+
+  /** The operations for which metrics are recorded. */
+  enum Operation {
+    CREATE(false),
+    CREATE_BATCH(false),
+    GET(false),
+    GET_BATCH(false),
+    QUERY(false),
+    FIND(false),
+    DELETE(false),
+    DELETE_BATCH(false),
+    ADD(true),
+    GET_METADATA(true),
+    SUCCEED(true),
+    FAIL(true),
+    GET_CONTENT(true),
+    TRANSFER_CONTENT(true);
+
+    /** The value used to tag meters for this operation. */
+    final String tag;
+
+    /** Whether this operation is performed on a specific metadata type. */
+    final boolean metadata;
+
+    Operation(boolean metadata) {
+      this.tag = name().toLowerCase(Locale.ROOT).replace('_', '.');
+      this.metadata = metadata;
+    }
+  }
+}
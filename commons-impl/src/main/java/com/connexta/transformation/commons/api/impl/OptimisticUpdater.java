@@ -0,0 +1,285 @@
+/**
+ * Copyright (c) Connexta
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package com.connexta.transformation.commons.api.impl;
+
+import com.connexta.transformation.commons.api.ErrorCode;
+import com.connexta.transformation.commons.api.MetadataTransformation;
+import com.connexta.transformation.commons.api.exceptions.StaleRevisionException;
+import com.connexta.transformation.commons.api.exceptions.TransformationException;
+import com.google.common.annotations.VisibleForTesting;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Applies read-modify-write updates to transformations kept in a {@link RevisionedStore} using
+ * optimistic concurrency control. Each attempt reloads the transformation, applies the update and
+ * conditionally stores it back. Attempts failing because the transformation was concurrently
+ * modified are retried after an exponential backoff with full jitter, up to a maximum number of
+ * attempts.
+ *
+ * <p>Updates may be applied more than once and must therefore only depend on the transformation
+ * they are given. Metadata completions resulting from an update (notifications, lifecycle
+ * listeners, flight recorder events and {@link AbstractTransformationImpl#onCompletion()}) are only
+ * dispatched once the updated transformation has been stored and only for the attempt that was
+ * stored.
+ */
+public class OptimisticUpdater {
+  /** Default maximum number of attempts made to apply an update. */
+  public static final int DEFAULT_MAX_ATTEMPTS = 5;
+
+  /** Default base backoff between attempts. */
+  public static final Duration DEFAULT_BACKOFF = Duration.ofMillis(10L);
+
+  /** Default maximum backoff between attempts. */
+  public static final Duration DEFAULT_MAX_BACKOFF = Duration.ofSeconds(1L);
+
+  private int maxAttempts = OptimisticUpdater.DEFAULT_MAX_ATTEMPTS;
+  private Duration backoff = OptimisticUpdater.DEFAULT_BACKOFF;
+  private Duration maxBackoff = OptimisticUpdater.DEFAULT_MAX_BACKOFF;
+
+  /**
+   * Gets the maximum number of attempts made to apply an update.
+   *
+   * @return the maximum number of attempts
+   */
+  public int getMaxAttempts() {
+    return maxAttempts;
+  }
+
+  /**
+   * Sets the maximum number of attempts made to apply an update.
+   *
+   * @param maxAttempts the maximum number of attempts
+   * @return this for chaining
+   * @throws IllegalArgumentException if <code>maxAttempts</code> is less than 1
+   */
+  public OptimisticUpdater setMaxAttempts(int maxAttempts) {
+    if (maxAttempts < 1) {
+      throw new IllegalArgumentException("invalid max attempts: " + maxAttempts);
+    }
+    this.maxAttempts = maxAttempts;
+    return this;
+  }
+
+  /**
+   * Gets the base backoff between attempts. The backoff doubles after each failed attempt up to the
+   * maximum backoff and a random delay between 0 and the resulting backoff is waited.
+   *
+   * @return the base backoff
+   */
+  public Duration getBackoff() {
+    return backoff;
+  }
+
+  /**
+   * Gets the maximum backoff between attempts.
+   *
+   * @return the maximum backoff
+   */
+  public Duration getMaxBackoff() {
+    return maxBackoff;
+  }
+
+  /**
+   * Sets the base and maximum backoffs between attempts.
+   *
+   * @param backoff the base backoff
+   * @param maxBackoff the maximum backoff
+   * @return this for chaining
+   * @throws IllegalArgumentException if <code>backoff</code> is negative or if <code>maxBackoff
+   *     </code> is less than <code>backoff</code>
+   */
+  public OptimisticUpdater setBackoff(Duration backoff, Duration maxBackoff) {
+    if (backoff.isNegative()) {
+      throw new IllegalArgumentException("invalid backoff: " + backoff);
+    } else if (maxBackoff.compareTo(backoff) < 0) {
+      throw new IllegalArgumentException("invalid max backoff: " + maxBackoff);
+    }
+    this.backoff = backoff;
+    this.maxBackoff = maxBackoff;
+    return this;
+  }
+
+  /**
+   * Applies an update to a transformation and conditionally stores it back, retrying with the
+   * latest revision of the transformation if it was concurrently modified.
+   *
+   * <p><i>Note:</i> If the current thread is interrupted while waiting before a retry, the
+   * interrupt status is restored and the last {@link StaleRevisionException} is thrown.
+   *
+   * @param <T> the type of transformations managed by the store
+   * @param store the store where the transformation is kept
+   * @param transformId the id of the transformation to update
+   * @param update the update to apply
+   * @return the updated transformation as stored
+   * @throws StaleRevisionException if the transformation was concurrently modified on every attempt
+   * @throws TransformationException if an error occurs while loading, updating or storing the
+   *     transformation
+   * @throws IOException if an I/O error occurs while updating the transformation
+   */
+  public <T extends AbstractTransformationImpl> T update(
+      RevisionedStore<T> store, String transformId, Update<? super T> update)
+      throws TransformationException, IOException {
+    for (int attempt = 1; ; attempt++) {
+      final T transformation = store.load(transformId);
+      final long revision = transformation.getRevision();
+
+      transformation.deferCompletions();
+      update.apply(transformation);
+      try {
+        store.store(transformation, revision);
+      } catch (StaleRevisionException e) {
+        if ((attempt >= maxAttempts) || !sleepBeforeRetry(attempt)) {
+          throw e;
+        }
+        continue;
+      }
+      transformation.dispatchDeferredCompletions();
+      return transformation;
+    }
+  }
+
+  /**
+   * Marks a metadata of a transformation as successful, retrying with the latest revision of the
+   * transformation if it was concurrently modified. The content is re-opened on each attempt.
+   *
+   * @param <T> the type of transformations managed by the store
+   * @param store the store where the transformation is kept
+   * @param transformId the id of the transformation to update
+   * @param metadataType the type of metadata that succeeded
+   * @param contentType the content type of the generated metadata
+   * @param content a supplier for the generated metadata's content
+   * @return the updated transformation as stored
+   * @throws StaleRevisionException if the transformation was concurrently modified on every attempt
+   * @throws TransformationException if an error occurs while loading, updating or storing the
+   *     transformation
+   * @throws IOException if an I/O error occurs while reading the content
+   * @throws IllegalStateException if the metadata has already been completed
+   */
+  public <T extends AbstractTransformationImpl> T succeed(
+      RevisionedStore<T> store,
+      String transformId,
+      String metadataType,
+      String contentType,
+      ContentSupplier content)
+      throws TransformationException, IOException {
+    return update(
+        store,
+        transformId,
+        t -> {
+          final MetadataTransformation metadata = t.get(metadataType);
+
+          try (final InputStream is = content.open()) {
+            metadata.succeed(contentType, is);
+          }
+        });
+  }
+
+  /**
+   * Marks a metadata of a transformation as failed, retrying with the latest revision of the
+   * transformation if it was concurrently modified.
+   *
+   * @param <T> the type of transformations managed by the store
+   * @param store the store where the transformation is kept
+   * @param transformId the id of the transformation to update
+   * @param metadataType the type of metadata that failed
+   * @param reason an {@link ErrorCode} indicating why the metadata creation failed
+   * @param message a message including information about why the metadata creation failed
+   * @return the updated transformation as stored
+   * @throws StaleRevisionException if the transformation was concurrently modified on every attempt
+   * @throws TransformationException if an error occurs while loading, updating or storing the
+   *     transformation
+   * @throws IllegalStateException if the metadata has already been completed
+   */
+  public <T extends AbstractTransformationImpl> T fail(
+      RevisionedStore<T> store,
+      String transformId,
+      String metadataType,
+      ErrorCode reason,
+      String message)
+      throws TransformationException {
+    try {
+      return update(store, transformId, t -> t.get(metadataType).fail(reason, message));
+    } catch (IOException e) { // cannot happen as failing does not perform any I/O
+      throw new AssertionError(e);
+    }
+  }
+
+  /**
+   * Waits a random delay before retrying an attempt.
+   *
+   * @param attempt the attempt that just failed (1-based)
+   * @return <code>true</code> if the attempt should be retried; <code>false</code> if the current
+   *     thread was interrupted while waiting
+   */
+  @VisibleForTesting
+  boolean sleepBeforeRetry(int attempt) {
+    try {
+      TimeUnit.NANOSECONDS.sleep(ThreadLocalRandom.current().nextLong(backoffFor(attempt) + 1L));
+      return true;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    }
+  }
+
+  /**
+   * Computes the backoff before retrying a given attempt.
+   *
+   * @param attempt the attempt that just failed (1-based)
+   * @return the corresponding backoff in nanoseconds
+   */
+  @VisibleForTesting
+  long backoffFor(int attempt) {
+    final long max = maxBackoff.toNanos();
+    long nanos = backoff.toNanos();
+
+    for (int i = 1; (i < attempt) && (nanos < max); i++) {
+      nanos = (nanos > (max - nanos)) ? max : (nanos << 1);
+    }
+    return nanos;
+  }
+
+  /**
+   * Represents an update applied to a transformation.
+   *
+   * @param <T> the type of transformations being updated
+   */
+  @FunctionalInterface
+  public interface Update<T extends AbstractTransformationImpl> {
+    /**
+     * Applies this update to the given transformation.
+     *
+     * @param transformation the transformation to update
+     * @throws TransformationException if an error occurs while updating the transformation
+     * @throws IOException if an I/O error occurs while updating the transformation
+     */
+    void apply(T transformation) throws TransformationException, IOException;
+  }
+
+  /** Represents a supplier of content which can be opened multiple times. */
+  @FunctionalInterface
+  public interface ContentSupplier {
+    /**
+     * Opens a new stream for the content.
+     *
+     * @return a new stream for the content
+     * @throws IOException if an I/O error occurs while opening the stream
+     */
+    InputStream open() throws IOException;
+  }
+}
@@ -34,6 +34,8 @@ public abstract class Persistable<P extends Pojo> {
 
   private String id;
 
+  private long revision = 0L;
+
   /**
    * Instantiates a new persistable corresponding to a new object that do not yet exist in the
    * database.
@@ -74,6 +76,18 @@ public abstract class Persistable<P extends Pojo> {
     return id;
   }
 
+  /**
+   * Gets the revision of the persistable object as last read from or written to persistence. The
+   * revision is monotonically increasing and is used to detect concurrent modifications when
+   * conditionally writing back the object (see {@link
+   * TransformationPersistenceManager#writeTo(AbstractTransformationImpl, long)}).
+   *
+   * @return the revision of the object or <code>0</code> if it was never conditionally written
+   */
+  public long getRevision() {
+    return revision;
+  }
+
   /**
    * Checks if this persistable object contains unknown information.
    *
@@ -115,6 +129,7 @@ public abstract class Persistable<P extends Pojo> {
    */
   protected P writeTo(P pojo) throws PersistenceException {
     setOrFailIfNullOrEmpty("id", this::getId, pojo::setId);
+    pojo.setRevision(revision);
     return pojo;
   }
 
@@ -130,6 +145,11 @@ public abstract class Persistable<P extends Pojo> {
    */
   protected void readFrom(P pojo) throws PersistenceException {
     setOrFailIfNullOrEmpty("id", pojo::getId, this::setId);
+    if (pojo.getRevision() < 0L) {
+      throw new InvalidFieldException(
+          "invalid " + persistableType + " revision: " + pojo.getRevision() + " for object: " + id);
+    }
+    this.revision = pojo.getRevision();
   }
 
   /**
@@ -447,6 +467,16 @@ public abstract class Persistable<P extends Pojo> {
     return value;
   }
 
+  /**
+   * Sets the revision of this persistable object once it has been conditionally written to
+   * persistence.
+   *
+   * @param revision the new revision for this object
+   */
+  void setRevision(long revision) {
+    this.revision = revision;
+  }
+
   @VisibleForTesting
   String getPersistableType() {
     return persistableType;
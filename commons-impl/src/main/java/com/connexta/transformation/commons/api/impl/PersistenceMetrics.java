@@ -0,0 +1,228 @@
+/**
+ * Copyright (c) Connexta
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package com.connexta.transformation.commons.api.impl;
+
+import com.connexta.transformation.commons.api.exceptions.InvalidFieldException;
+import com.connexta.transformation.commons.api.exceptions.ParsingException;
+import com.connexta.transformation.commons.api.exceptions.PersistenceException;
+import com.connexta.transformation.commons.api.exceptions.ProcessingException;
+import com.connexta.transformation.commons.api.exceptions.StaleRevisionException;
+import com.connexta.transformation.commons.api.exceptions.UnsupportedVersionException;
+import com.connexta.transformation.pojo.TransformationPojo;
+import io.micrometer.core.instrument.Clock;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.BaseUnits;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records Micrometer metrics for the serialization and deserialization of transformations performed
+ * by a {@link TransformationPersistenceManager}. The following meters are recorded:
+ *
+ * <ul>
+ *   <li><code>transformation.persistence.read</code>: a timer tagged with the <code>phase</code>
+ *       which is either <code>parse</code> for the time spent parsing Json into pojos or <code>
+ *       instantiate</code> for the time spent creating the transformation from the pojos
+ *   <li><code>transformation.persistence.write</code>: a timer tagged with the <code>phase</code>
+ *       which is either <code>convert</code> for the time spent converting the transformation into
+ *       pojos or <code>serialize</code> for the time spent generating Json from the pojos
+ *   <li><code>transformation.persistence.document.size</code>: a distribution summary of the number
+ *       of bytes read or written, tagged with the <code>operation</code>
+ *   <li><code>transformation.persistence.document.metadata</code>: a distribution summary of the
+ *       number of metadata per document read or written, tagged with the <code>operation</code>
+ *   <li><code>transformation.persistence.errors</code>: a counter of failures tagged with the
+ *       <code>operation</code> and the <code>reason</code>
+ *   <li><code>transformation.persistence.unknowns</code>: a counter of documents read which
+ *       contained unknown pojos
+ * </ul>
+ */
+class PersistenceMetrics {
+  static final String READ = "transformation.persistence.read";
+  static final String WRITE = "transformation.persistence.write";
+  static final String DOCUMENT_SIZE = "transformation.persistence.document.size";
+  static final String DOCUMENT_METADATA = "transformation.persistence.document.metadata";
+  static final String ERRORS = "transformation.persistence.errors";
+  static final String UNKNOWNS = "transformation.persistence.unknowns";
+
+  static final String PHASE_TAG = "phase";
+
+  static final String READ_OPERATION = "read";
+  static final String WRITE_OPERATION = "write";
+
+  private final MeterRegistry registry;
+  private final Clock clock;
+  private final Timer parse;
+  private final Timer instantiate;
+  private final Timer convert;
+  private final Timer serialize;
+  private final DistributionSummary readSize;
+  private final DistributionSummary writeSize;
+  private final DistributionSummary readMetadata;
+  private final DistributionSummary writeMetadata;
+  private final Counter unknowns;
+
+  /**
+   * Instantiates new persistence metrics.
+   *
+   * @param registry the registry where to record metrics
+   */
+  PersistenceMetrics(MeterRegistry registry) {
+    this.registry = registry;
+    this.clock = registry.config().clock();
+    this.parse = timer(PersistenceMetrics.READ, "parse");
+    this.instantiate = timer(PersistenceMetrics.READ, "instantiate");
+    this.convert = timer(PersistenceMetrics.WRITE, "convert");
+    this.serialize = timer(PersistenceMetrics.WRITE, "serialize");
+    this.readSize = size(PersistenceMetrics.READ_OPERATION);
+    this.writeSize = size(PersistenceMetrics.WRITE_OPERATION);
+    this.readMetadata = metadata(PersistenceMetrics.READ_OPERATION);
+    this.writeMetadata = metadata(PersistenceMetrics.WRITE_OPERATION);
+    this.unknowns =
+        Counter.builder(PersistenceMetrics.UNKNOWNS)
+            .description("The number of documents read which contained unknown pojos")
+            .register(registry);
+  }
+
+  /**
+   * Gets the current monotonic time to use as the start time of an operation.
+   *
+   * @return the current monotonic time in nanoseconds
+   */
+  long startTime() {
+    return clock.monotonicTime();
+  }
+
+  /**
+   * Records the time taken to parse a document.
+   *
+   * @param start the monotonic time when parsing started
+   * @return the monotonic time when parsing completed
+   */
+  long parsed(long start) {
+    return record(parse, start);
+  }
+
+  /**
+   * Records the time taken to instantiate a transformation along with the statistics of the
+   * document it was read from.
+   *
+   * @param start the monotonic time when instantiation started
+   * @param bytes the number of bytes read
+   * @param pojo the pojo that was parsed
+   * @param transformation the transformation that was instantiated
+   */
+  void read(
+      long start, long bytes, TransformationPojo pojo, AbstractTransformationImpl transformation) {
+    record(instantiate, start);
+    readSize.record(bytes);
+    readMetadata.record(PersistenceMetrics.metadataCount(pojo));
+    if (transformation.hasUnknowns()) {
+      unknowns.increment();
+    }
+  }
+
+  /**
+   * Records the time taken to convert a transformation into pojos.
+   *
+   * @param start the monotonic time when conversion started
+   * @return the monotonic time when conversion completed
+   */
+  long converted(long start) {
+    return record(convert, start);
+  }
+
+  /**
+   * Records the time taken to serialize a document along with its statistics.
+   *
+   * @param start the monotonic time when serialization started
+   * @param bytes the number of bytes written
+   * @param pojo the pojo that was serialized
+   */
+  void written(long start, long bytes, TransformationPojo pojo) {
+    record(serialize, start);
+    writeSize.record(bytes);
+    writeMetadata.record(PersistenceMetrics.metadataCount(pojo));
+  }
+
+  /**
+   * Records a failure.
+   *
+   * @param operation the operation that failed (either {@link #READ_OPERATION} or {@link
+   *     #WRITE_OPERATION})
+   * @param e the exception that occurred
+   */
+  void failed(String operation, PersistenceException e) {
+    // failures are rare so let the registry resolve the counter
+    Counter.builder(PersistenceMetrics.ERRORS)
+        .tag(MeteredTransformationManager.OPERATION_TAG, operation)
+        .tag(MeteredTransformationManager.REASON_TAG, PersistenceMetrics.reason(e))
+        .description("The number of failures reading or writing transformations")
+        .register(registry)
+        .increment();
+  }
+
+  private long record(Timer timer, long start) {
+    final long now = clock.monotonicTime();
+
+    timer.record(now - start, TimeUnit.NANOSECONDS);
+    return now;
+  }
+
+  private Timer timer(String name, String phase) {
+    return Timer.builder(name)
+        .tag(PersistenceMetrics.PHASE_TAG, phase)
+        .description("The time taken by transformation persistence operations")
+        .register(registry);
+  }
+
+  private DistributionSummary size(String operation) {
+    return DistributionSummary.builder(PersistenceMetrics.DOCUMENT_SIZE)
+        .tag(MeteredTransformationManager.OPERATION_TAG, operation)
+        .description("The size of transformation documents")
+        .baseUnit(BaseUnits.BYTES)
+        .register(registry);
+  }
+
+  private DistributionSummary metadata(String operation) {
+    return DistributionSummary.builder(PersistenceMetrics.DOCUMENT_METADATA)
+        .tag(MeteredTransformationManager.OPERATION_TAG, operation)
+        .description("The number of metadata per transformation document")
+        .baseUnit("objects")
+        .register(registry);
+  }
+
+  private static int metadataCount(TransformationPojo pojo) {
+    final List<?> metadatas = pojo.getMetadatas();
+
+    return (metadatas != null) ? metadatas.size() : 0;
+  }
+
+  private static String reason(PersistenceException e) {
+    if (e instanceof ParsingException) {
+      return "parsing";
+    } else if (e instanceof UnsupportedVersionException) {
+      return "unsupported.version";
+    } else if (e instanceof InvalidFieldException) {
+      return "invalid.field";
+    } else if (e instanceof StaleRevisionException) {
+      return "stale.revision";
+    } else if (e instanceof ProcessingException) {
+      return "processing";
+    }
+    return "other";
+  }
+}
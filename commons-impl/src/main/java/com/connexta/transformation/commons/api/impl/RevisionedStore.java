@@ -0,0 +1,56 @@
+/**
+ * Copyright (c) Connexta
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package com.connexta.transformation.commons.api.impl;
+
+import com.connexta.transformation.commons.api.exceptions.PersistenceException;
+import com.connexta.transformation.commons.api.exceptions.StaleRevisionException;
+import com.connexta.transformation.commons.api.exceptions.TransformationException;
+import com.connexta.transformation.commons.api.exceptions.TransformationNotFoundException;
+
+/**
+ * Defines a persistent store of transformations which supports optimistic concurrency control
+ * through revision stamps. Transformations are reloaded with the revision they were stored with and
+ * are only written back if that revision is still the one stored.
+ *
+ * <p>Implementations would typically rely on {@link
+ * TransformationPersistenceManager#writeTo(AbstractTransformationImpl, long)} to serialize the
+ * transformation and on a conditional update from their underlying data store to replace it.
+ *
+ * @param <T> the type of transformations managed by this store
+ */
+public interface RevisionedStore<T extends AbstractTransformationImpl> {
+  /**
+   * Loads the latest revision of a transformation.
+   *
+   * @param transformId the id of the transformation to load
+   * @return the corresponding transformation
+   * @throws TransformationNotFoundException if the transformation cannot be found
+   * @throws PersistenceException if an error occurs while loading the transformation
+   * @throws TransformationException if any other error occurs while loading the transformation
+   */
+  T load(String transformId) throws TransformationException;
+
+  /**
+   * Atomically stores a transformation only if its currently stored revision is the one specified.
+   * On success, the transformation's revision is updated with the revision stored.
+   *
+   * @param transformation the transformation to store
+   * @param expectedRevision the revision the transformation was loaded with
+   * @throws StaleRevisionException if the stored revision is no longer <code>expectedRevision
+   *     </code> indicating the transformation was concurrently modified
+   * @throws PersistenceException if an error occurs while storing the transformation
+   * @throws TransformationException if any other error occurs while storing the transformation
+   */
+  void store(T transformation, long expectedRevision) throws TransformationException;
+}
@@ -0,0 +1,140 @@
+/**
+ * Copyright (c) Connexta
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package com.connexta.transformation.commons.api.impl;
+
+import java.time.Instant;
+import java.util.Objects;
+import java.util.Optional;
+import javax.annotation.Nullable;
+
+/**
+ * An event recorded in a {@link TransformationEventLog} when a transformation or one of its
+ * metadata transitions to a new state. Events are identified by their offset in the log.
+ */
+public class TransformationEvent {
+  private final long offset;
+  private final Type type;
+  private final Instant time;
+  private final String transformId;
+  @Nullable private final String metadataType;
+
+  /**
+   * Instantiates a new event.
+   *
+   * @param offset the offset of the event in the log
+   * @param type the type of event
+   * @param time the time at which the event was recorded
+   * @param transformId the id of the transformation the event pertains to
+   * @param metadataType the type of metadata the event pertains to or <code>null</code> if it
+   *     pertains to the whole transformation
+   */
+  public TransformationEvent(
+      long offset, Type type, Instant time, String transformId, @Nullable String metadataType) {
+    this.offset = offset;
+    this.type = type;
+    this.time = time;
+    this.transformId = transformId;
+    this.metadataType = metadataType;
+  }
+
+  /**
+   * Gets the offset of this event in the log. Offsets are monotonically increasing.
+   *
+   * @return the offset of this event
+   */
+  public long getOffset() {
+    return offset;
+  }
+
+  /**
+   * Gets the type of this event.
+   *
+   * @return the type of this event
+   */
+  public Type getType() {
+    return type;
+  }
+
+  /**
+   * Gets the time at which this event was recorded.
+   *
+   * @return the time at which this event was recorded
+   */
+  public Instant getTime() {
+    return time;
+  }
+
+  /**
+   * Gets the id of the transformation this event pertains to.
+   *
+   * @return the id of the transformation this event pertains to
+   */
+  public String getTransformId() {
+    return transformId;
+  }
+
+  /**
+   * Gets the type of metadata this event pertains to.
+   *
+   * @return the type of metadata this event pertains to or empty if it pertains to the whole
+   *     transformation
+   */
+  public Optional<String> getMetadataType() {
+    return Optional.ofNullable(metadataType);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(offset, type, time, transformId, metadataType);
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (obj instanceof TransformationEvent) {
+      final TransformationEvent event = (TransformationEvent) obj;
+
+      return (offset == event.offset)
+          && (type == event.type)
+          && time.equals(event.time)
+          && transformId.equals(event.transformId)
+          && Objects.equals(metadataType, event.metadataType);
+    }
+    return false;
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        "TransformationEvent[offset=%d, type=%s, time=%s, transformId=%s, metadataType=%s]",
+        offset, type, time, transformId, metadataType);
+  }
+
+  /** Types of events recorded in the log. */
+  public enum Type {
+    /** A transformation was created. */
+    CREATED,
+
+    /** A metadata type was added to a transformation. */
+    METADATA_ADDED,
+
+    /** A metadata transformation completed successfully. */
+    SUCCEEDED,
+
+    /** A metadata transformation failed. */
+    FAILED,
+
+    /** A transformation was deleted. */
+    DELETED
+  }
+}
@@ -0,0 +1,391 @@
+/**
+ * Copyright (c) Connexta
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package com.connexta.transformation.commons.api.impl;
+
+import com.connexta.transformation.commons.api.impl.TransformationEvent.Type;
+import com.google.common.annotations.VisibleForTesting;
+import io.micrometer.core.instrument.Clock;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import javax.annotation.Nullable;
+
+/**
+ * An ordered, durable and replayable log of the state transitions of transformations. Each event
+ * appended to the log is assigned a monotonically increasing offset and is stored in the current
+ * segment file of the log directory. A new segment is started once the current one reaches the
+ * configured segment size. Old segments are deleted as a whole according to the configured
+ * retention limits.
+ *
+ * <p>Consumers read the log through {@link EventLogCursor}s which tail it sequentially without ever
+ * touching the primary store. Cursors can commit their position to the log directory such that
+ * consumers can resume where they left off after a restart.
+ *
+ * <p>Events are written to the segment files as soon as they are appended and are therefore durable
+ * across process failures. They are only forced to the storage device when {@link #sync()} is
+ * called or after each append if {@link #setSyncOnAppend sync on append} is enabled. Segments are
+ * recovered when the log is opened, discarding any event that was partially written.
+ */
+public class TransformationEventLog implements Closeable {
+  /** The default maximum size of a segment in bytes. */
+  public static final long DEFAULT_SEGMENT_BYTES = 64L * 1024L * 1024L;
+
+  private static final Pattern SEGMENT_FILE =
+      Pattern.compile("(\\d{20})" + Pattern.quote(EventLogSegment.SUFFIX));
+
+  private final Path directory;
+  private final Clock clock;
+  private final long segmentBytes;
+  private final ConcurrentSkipListMap<Long, EventLogSegment> segments =
+      new ConcurrentSkipListMap<>();
+
+  /** Guards the segments against being deleted while they are being read. */
+  private final ReadWriteLock retentionLock = new ReentrantReadWriteLock();
+
+  private volatile EventLogSegment active;
+  private volatile long maximumRetainedBytes = Long.MAX_VALUE;
+  private volatile long maximumRetainedMillis = Long.MAX_VALUE;
+  private volatile boolean syncOnAppend = false;
+  private volatile boolean closed = false;
+
+  /**
+   * Opens the event log stored in the specified directory using segments of {@link
+   * #DEFAULT_SEGMENT_BYTES}. The directory is created if it does not exist.
+   *
+   * @param directory the directory where the log is stored
+   * @param clock the clock to use for retrieving wall times
+   * @throws IOException if an I/O error occurs while opening the log
+   */
+  public TransformationEventLog(Path directory, Clock clock) throws IOException {
+    this(directory, clock, TransformationEventLog.DEFAULT_SEGMENT_BYTES);
+  }
+
+  /**
+   * Opens the event log stored in the specified directory. The directory is created if it does not
+   * exist.
+   *
+   * @param directory the directory where the log is stored
+   * @param clock the clock to use for retrieving wall times
+   * @param segmentBytes the size in bytes after which a new segment is started
+   * @throws IllegalArgumentException if <code>segmentBytes</code> is smaller than the maximum size
+   *     of an event
+   * @throws IOException if an I/O error occurs while opening the log
+   */
+  public TransformationEventLog(Path directory, Clock clock, long segmentBytes) throws IOException {
+    if (segmentBytes < EventLogCodec.MAXIMUM_RECORD_BYTES) {
+      throw new IllegalArgumentException("invalid segment size: " + segmentBytes);
+    }
+    this.directory = Files.createDirectories(directory);
+    this.clock = clock;
+    this.segmentBytes = segmentBytes;
+    try (final Stream<Path> files = Files.list(directory)) {
+      for (final Iterator<Path> i = files.iterator(); i.hasNext(); ) {
+        final Path file = i.next();
+        final Matcher matcher =
+            TransformationEventLog.SEGMENT_FILE.matcher(file.getFileName().toString());
+
+        if (matcher.matches()) {
+          final long baseOffset = Long.parseLong(matcher.group(1));
+
+          segments.put(baseOffset, EventLogSegment.recover(file, baseOffset));
+        }
+      }
+    }
+    if (segments.isEmpty()) {
+      segments.put(0L, EventLogSegment.create(directory, 0L, clock.wallTime()));
+    }
+    this.active = segments.lastEntry().getValue();
+  }
+
+  /**
+   * Gets the directory where this log is stored.
+   *
+   * @return the directory where this log is stored
+   */
+  public Path getDirectory() {
+    return directory;
+  }
+
+  /**
+   * Gets the offset of the oldest event retained in this log.
+   *
+   * @return the offset of the oldest event retained
+   */
+  public long getStartOffset() {
+    return segments.firstKey();
+  }
+
+  /**
+   * Gets the offset that will be assigned to the next event appended to this log.
+   *
+   * @return the offset of the next event to be appended
+   */
+  public long getEndOffset() {
+    return active.getNextOffset();
+  }
+
+  /**
+   * Gets the number of segments currently making up this log.
+   *
+   * @return the number of segments
+   */
+  public int getSegmentCount() {
+    return segments.size();
+  }
+
+  /**
+   * Gets the total number of bytes stored in the segments of this log.
+   *
+   * @return the total number of bytes stored
+   */
+  public long getSize() {
+    return segments.values().stream().mapToLong(EventLogSegment::getSize).sum();
+  }
+
+  /**
+   * Sets the retention limits of this log. Once a limit is exceeded, the oldest segments are
+   * deleted until all limits are met again. The segment currently being appended to is never
+   * deleted. Retention is enforced whenever a new segment is started or when {@link
+   * #enforceRetention()} is called.
+   *
+   * @param maximumBytes the maximum total number of bytes to retain
+   * @param maximumAge the maximum age of the last event of a segment or <code>null</code> to retain
+   *     segments regardless of their age
+   * @return this for chaining
+   * @throws IllegalArgumentException if <code>maximumBytes</code> is not positive or if <code>
+   *     maximumAge</code> is negative
+   */
+  public TransformationEventLog setRetention(long maximumBytes, @Nullable Duration maximumAge) {
+    if (maximumBytes <= 0L) {
+      throw new IllegalArgumentException("invalid non-positive maximum bytes: " + maximumBytes);
+    } else if ((maximumAge != null) && maximumAge.isNegative()) {
+      throw new IllegalArgumentException("invalid negative maximum age: " + maximumAge);
+    }
+    this.maximumRetainedBytes = maximumBytes;
+    this.maximumRetainedMillis = (maximumAge != null) ? maximumAge.toMillis() : Long.MAX_VALUE;
+    return this;
+  }
+
+  /**
+   * Sets whether events should be forced to the storage device after each append. This is disabled
+   * by default.
+   *
+   * @param syncOnAppend <code>true</code> to sync after each append; <code>false</code> otherwise
+   * @return this for chaining
+   */
+  public TransformationEventLog setSyncOnAppend(boolean syncOnAppend) {
+    this.syncOnAppend = syncOnAppend;
+    return this;
+  }
+
+  /**
+   * Appends an event to this log.
+   *
+   * @param type the type of event
+   * @param transformId the id of the transformation the event pertains to
+   * @param metadataType the type of metadata the event pertains to or <code>null</code> if it
+   *     pertains to the whole transformation
+   * @return the offset assigned to the event
+   * @throws IllegalArgumentException if the event is too large to be stored
+   * @throws IllegalStateException if this log is closed
+   * @throws IOException if an I/O error occurs while appending the event
+   */
+  public synchronized long append(Type type, String transformId, @Nullable String metadataType)
+      throws IOException {
+    checkIfClosed();
+    final long time = clock.wallTime();
+    final long offset = active.getNextOffset();
+    final ByteBuffer record = EventLogCodec.encode(offset, type, time, transformId, metadataType);
+
+    if ((active.getSize() > 0L) && (active.getSize() + record.remaining() > segmentBytes)) {
+      roll(offset, time);
+    }
+    active.append(record, offset, time);
+    if (syncOnAppend) {
+      active.sync();
+    }
+    return offset;
+  }
+
+  /**
+   * Forces all events appended so far to the storage device.
+   *
+   * @throws IllegalStateException if this log is closed
+   * @throws IOException if an I/O error occurs while syncing
+   */
+  public synchronized void sync() throws IOException {
+    checkIfClosed();
+    active.sync();
+  }
+
+  /**
+   * Reads events from this log without using a cursor.
+   *
+   * @param offset the offset of the first event to read
+   * @param maximum the maximum number of events to read
+   * @return the events read in order starting at the specified offset or at the start offset of
+   *     this log if the specified offset is no longer retained
+   * @throws IllegalStateException if this log is closed
+   * @throws IOException if an I/O error occurs while reading events
+   */
+  public List<TransformationEvent> read(long offset, int maximum) throws IOException {
+    final EventLogCursor cursor = new EventLogCursor(this, null, offset);
+
+    return cursor.poll(maximum);
+  }
+
+  /**
+   * Opens a named cursor on this log. The cursor is positioned at the offset it last committed or
+   * at the start offset of this log if it never committed or if its committed offset is no longer
+   * retained.
+   *
+   * @param name the name of the cursor made of letters, digits, dots, dashes and underscores
+   * @return the corresponding cursor
+   * @throws IllegalArgumentException if <code>name</code> is invalid
+   * @throws IllegalStateException if this log is closed
+   * @throws IOException if an I/O error occurs while reading the committed offset
+   */
+  public EventLogCursor openCursor(String name) throws IOException {
+    checkIfClosed();
+    return new EventLogCursor(this, name, EventLogCursor.readCommitted(directory, name));
+  }
+
+  /**
+   * Deletes the oldest segments until this log meets its retention limits.
+   *
+   * @return the number of segments deleted
+   * @throws IllegalStateException if this log is closed
+   * @throws IOException if an I/O error occurs while deleting segments
+   */
+  public synchronized int enforceRetention() throws IOException {
+    checkIfClosed();
+    final long now = clock.wallTime();
+    long size = getSize();
+    int count = 0;
+
+    retentionLock.writeLock().lock();
+    try {
+      for (final Iterator<EventLogSegment> i = segments.values().iterator(); i.hasNext(); ) {
+        final EventLogSegment segment = i.next();
+
+        if ((segment == active)
+            || ((size <= maximumRetainedBytes)
+                && (now - segment.getLastTime() <= maximumRetainedMillis))) {
+          break;
+        }
+        i.remove();
+        segment.delete();
+        size -= segment.getSize();
+        count++;
+      }
+    } finally {
+      retentionLock.writeLock().unlock();
+    }
+    return count;
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    if (!closed) {
+      this.closed = true;
+      retentionLock.writeLock().lock();
+      try {
+        for (final EventLogSegment segment : segments.values()) {
+          segment.close();
+        }
+      } finally {
+        retentionLock.writeLock().unlock();
+      }
+    }
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        "TransformationEventLog[directory=%s, startOffset=%d, endOffset=%d, segments=%d]",
+        directory, getStartOffset(), getEndOffset(), getSegmentCount());
+  }
+
+  /**
+   * Gets the segment holding the specified offset.
+   *
+   * @param offset the offset for which to find the segment
+   * @return the segment holding the offset or <code>null</code> if it is no longer retained
+   */
+  @Nullable
+  EventLogSegment segmentFor(long offset) {
+    final Map.Entry<Long, EventLogSegment> entry = segments.floorEntry(offset);
+
+    return (entry != null) ? entry.getValue() : null;
+  }
+
+  /**
+   * Gets the segment following the specified one.
+   *
+   * @param segment the segment for which to find the next one
+   * @return the next segment or <code>null</code> if the specified segment is the last one
+   */
+  @Nullable
+  EventLogSegment nextSegment(EventLogSegment segment) {
+    final Map.Entry<Long, EventLogSegment> entry = segments.higherEntry(segment.getBaseOffset());
+
+    return (entry != null) ? entry.getValue() : null;
+  }
+
+  /**
+   * Gets the lock that must be held while reading from segments to prevent them from being deleted.
+   *
+   * @return the lock to hold while reading from segments
+   */
+  ReadWriteLock getRetentionLock() {
+    return retentionLock;
+  }
+
+  /**
+   * Checks if this log is closed.
+   *
+   * @throws IllegalStateException if this log is closed
+   */
+  void checkIfClosed() {
+    if (closed) {
+      throw new IllegalStateException("event log [" + directory + "] is closed");
+    }
+  }
+
+  @VisibleForTesting
+  EventLogSegment getActiveSegment() {
+    return active;
+  }
+
+  private void roll(long offset, long time) throws IOException {
+    final EventLogSegment segment = EventLogSegment.create(directory, offset, time);
+
+    active.sync(); // make sure older segments are fully durable before moving on
+    segments.put(offset, segment);
+    this.active = segment;
+    enforceRetention();
+  }
+}
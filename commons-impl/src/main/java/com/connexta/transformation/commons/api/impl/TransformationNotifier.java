@@ -0,0 +1,127 @@
+/**
+ * Copyright (c) Connexta
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package com.connexta.transformation.commons.api.impl;
+
+import com.connexta.transformation.commons.api.MetadataTransformation;
+import com.connexta.transformation.commons.api.Transformation;
+import com.connexta.transformation.commons.api.TransformationListener;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.MoreExecutors;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Dispatches completion notifications to registered {@link TransformationListener}s. Notifications
+ * are handed off to an executor such that the threads completing metadata never execute listener
+ * code. Notifications are delivered sequentially in the order they were submitted.
+ */
+public class TransformationNotifier {
+  private static final Logger LOGGER = LoggerFactory.getLogger(TransformationNotifier.class);
+
+  private final List<TransformationListener> listeners = new CopyOnWriteArrayList<>();
+  private final Executor executor;
+  private final Executor sequentialExecutor;
+
+  /** Instantiates a new notifier which delivers notifications using the common fork-join pool. */
+  public TransformationNotifier() {
+    this(ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Instantiates a new notifier which delivers notifications using the specified executor.
+   *
+   * @param executor the executor to use for delivering notifications
+   */
+  public TransformationNotifier(Executor executor) {
+    this.executor = executor;
+    this.sequentialExecutor = MoreExecutors.newSequentialExecutor(executor);
+  }
+
+  /**
+   * Gets the executor used to deliver notifications.
+   *
+   * @return the executor used to deliver notifications
+   */
+  public Executor getExecutor() {
+    return executor;
+  }
+
+  /**
+   * Registers a listener to be notified of completions.
+   *
+   * @param listener the listener to register
+   */
+  public void addListener(TransformationListener listener) {
+    listeners.add(listener);
+  }
+
+  /**
+   * Unregisters a listener that was previously registered.
+   *
+   * @param listener the listener to unregister
+   */
+  public void removeListener(TransformationListener listener) {
+    listeners.remove(listener);
+  }
+
+  /**
+   * Notifies all registered listeners asynchronously that the given metadata has completed.
+   *
+   * @param metadata the metadata that completed
+   */
+  public void metadataCompleted(MetadataTransformation metadata) {
+    notifyListeners(l -> l.metadataCompleted(metadata));
+  }
+
+  /**
+   * Notifies all registered listeners asynchronously that the given transformation has completed.
+   *
+   * @param transformation the transformation that completed
+   */
+  public void transformationCompleted(Transformation transformation) {
+    notifyListeners(l -> l.transformationCompleted(transformation));
+  }
+
+  @VisibleForTesting
+  List<TransformationListener> getListeners() {
+    return listeners;
+  }
+
+  private void notifyListeners(Consumer<TransformationListener> notification) {
+    if (listeners.isEmpty()) { // avoid the hand-off when nobody is listening
+      return;
+    }
+    try {
+      sequentialExecutor.execute(
+          () -> {
+            for (final TransformationListener listener : listeners) {
+              try {
+                notification.accept(listener);
+              } catch (RuntimeException e) {
+                LOGGER.warn("Failed to notify transformation listener [{}].", listener, e);
+              }
+            }
+          });
+    } catch (RejectedExecutionException e) {
+      // never fail the completion which triggered the notification (e.g. executor shut down)
+      LOGGER.warn("Failed to dispatch notification to transformation listeners.", e);
+    }
+  }
+}
@@ -17,21 +17,40 @@ import com.connexta.transformation.commons.api.exceptions.NonTransientPersistenc
 import com.connexta.transformation.commons.api.exceptions.ParsingException;
 import com.connexta.transformation.commons.api.exceptions.PersistenceException;
 import com.connexta.transformation.commons.api.exceptions.ProcessingException;
+import com.connexta.transformation.commons.api.exceptions.StaleRevisionException;
+import com.connexta.transformation.commons.api.impl.jfr.PersistenceReadEvent;
+import com.connexta.transformation.commons.api.impl.jfr.PersistenceWriteEvent;
 import com.connexta.transformation.pojo.TransformationPojo;
 import com.connexta.transformation.pojo.jackson.JsonUtils;
 import com.fasterxml.jackson.core.JsonParseException;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonMappingException;
+import com.google.common.base.Utf8;
+import com.google.common.io.CountingInputStream;
+import com.google.common.io.CountingOutputStream;
 import io.micrometer.core.instrument.Clock;
+import io.micrometer.core.instrument.MeterRegistry;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
+import javax.annotation.Nullable;
 
-/** A transformation manager capable of handling persistence operations for transformations. */
+/**
+ * A transformation manager capable of handling persistence operations for transformations.
+ *
+ * <p>When created with a meter registry, the manager records the time spent parsing and
+ * instantiating documents on reads and converting and serializing them on writes, along with the
+ * size and number of metadata of each document and the number of failures by reason. Without a
+ * registry, nothing is timed or counted and the provided streams are used as is.
+ *
+ * <p>Reads and writes also emit {@link PersistenceReadEvent} and {@link PersistenceWriteEvent}
+ * flight recorder events whenever these are enabled in a running recording.
+ */
 public class TransformationPersistenceManager {
   private final Clock clock;
+  @Nullable private final PersistenceMetrics metrics;
 
   /**
    * Instantiates a new transformation persistence manager.
@@ -39,7 +58,19 @@ public class TransformationPersistenceManager {
    * @param clock the clock to use for retrieving wall and monotonic times
    */
   public TransformationPersistenceManager(Clock clock) {
+    this(clock, null);
+  }
+
+  /**
+   * Instantiates a new transformation persistence manager which records serialization metrics.
+   *
+   * @param clock the clock to use for retrieving wall and monotonic times
+   * @param registry the registry where to record serialization metrics or <code>null</code> to not
+   *     record any
+   */
+  public TransformationPersistenceManager(Clock clock, @Nullable MeterRegistry registry) {
     this.clock = clock;
+    this.metrics = (registry != null) ? new PersistenceMetrics(registry) : null;
   }
 
   /**
@@ -55,17 +86,19 @@ public class TransformationPersistenceManager {
    */
   public <T extends AbstractTransformationImpl> T readFrom(Class<T> clazz, String content)
       throws ProcessingException, PersistenceException {
-    final Constructor<T> ctor = findConstructor(clazz);
-    final TransformationPojo pojo;
+    final PersistenceReadEvent event = new PersistenceReadEvent();
 
-    try {
-      pojo = JsonUtils.read(TransformationPojo.class, content);
-    } catch (JsonParseException | JsonMappingException e) {
-      throw new ParsingException(e);
-    } catch (JsonProcessingException e) {
-      throw new ProcessingException(e);
+    if (!event.isEnabled()) {
+      return readFrom0(clazz, content);
     }
-    return instantiate(clazz, ctor, pojo);
+    event.begin();
+    final T transformation = readFrom0(clazz, content);
+
+    event.end();
+    if (event.shouldCommit()) {
+      event.commit(transformation, Utf8.encodedLength(content));
+    }
+    return transformation;
   }
 
   /**
@@ -81,19 +114,21 @@ public class TransformationPersistenceManager {
    */
   public <T extends AbstractTransformationImpl> T readFrom(Class<T> clazz, InputStream stream)
       throws ProcessingException, PersistenceException {
-    final Constructor<T> ctor = findConstructor(clazz);
-    final TransformationPojo pojo;
+    final PersistenceReadEvent event = new PersistenceReadEvent();
 
-    try {
-      pojo = JsonUtils.read(TransformationPojo.class, stream);
-    } catch (JsonParseException | JsonMappingException e) {
-      throw new ParsingException(e);
-    } catch (JsonProcessingException e) {
-      throw new ProcessingException(e);
-    } catch (IOException e) {
-      throw new NonTransientPersistenceException(e);
+    if (!event.isEnabled()) {
+      return readFrom0(clazz, stream);
+    }
+    final CountingInputStream counting = new CountingInputStream(stream);
+
+    event.begin();
+    final T transformation = readFrom0(clazz, counting);
+
+    event.end();
+    if (event.shouldCommit()) {
+      event.commit(transformation, counting.getCount());
     }
-    return instantiate(clazz, ctor, pojo);
+    return transformation;
   }
 
   /**
@@ -107,11 +142,19 @@ public class TransformationPersistenceManager {
    */
   public String writeTo(AbstractTransformationImpl transformation)
       throws ProcessingException, PersistenceException {
-    try {
-      return JsonUtils.write(transformation.writeTo(new TransformationPojo()));
-    } catch (JsonProcessingException e) {
-      throw new ProcessingException(e);
+    final PersistenceWriteEvent event = new PersistenceWriteEvent();
+
+    if (!event.isEnabled()) {
+      return writeTo0(transformation);
     }
+    event.begin();
+    final String content = writeTo0(transformation);
+
+    event.end();
+    if (event.shouldCommit()) {
+      event.commit(transformation, Utf8.encodedLength(content));
+    }
+    return content;
   }
 
   /**
@@ -126,13 +169,248 @@ public class TransformationPersistenceManager {
    */
   public void writeTo(AbstractTransformationImpl transformation, OutputStream stream)
       throws ProcessingException, PersistenceException {
+    final PersistenceWriteEvent event = new PersistenceWriteEvent();
+
+    if (!event.isEnabled()) {
+      writeTo0(transformation, stream);
+      return;
+    }
+    final CountingOutputStream counting = new CountingOutputStream(stream);
+
+    event.begin();
+    writeTo0(transformation, counting);
+    event.end();
+    if (event.shouldCommit()) {
+      event.commit(transformation, counting.getCount());
+    }
+  }
+
+  /**
+   * Conditionally serializes a transformation into a JSON content string with the next revision.
+   * The serialization fails if the revision of the transformation (as last read from or written to
+   * persistence) is not the revision currently stored in persistence, indicating the transformation
+   * was concurrently modified. On success, the transformation's revision is updated to the
+   * serialized revision.
+   *
+   * <p><i>Note:</i> The check performed here only guards against writing back a transformation
+   * which is known to be stale. Backends are responsible for atomically replacing the stored
+   * document only if its revision still matches <code>storedRevision</code> (e.g. using a
+   * conditional update or compare-and-set) and for throwing a {@link StaleRevisionException}
+   * otherwise.
+   *
+   * @param transformation the transformation object to serialize to a string
+   * @param storedRevision the revision currently stored in persistence for the transformation
+   * @return the corresponding Json content string
+   * @throws IllegalArgumentException if the task implementation is not one that can be saved
+   * @throws StaleRevisionException if the transformation's revision does not match <code>
+   *     storedRevision</code>
+   * @throws ProcessingException if a failure occurs while serializing the value
+   * @throws PersistenceException if any other error occurs while trying to serialize the object
+   */
+  public String writeTo(AbstractTransformationImpl transformation, long storedRevision)
+      throws ProcessingException, PersistenceException {
+    final PersistenceWriteEvent event = new PersistenceWriteEvent();
+
+    if (!event.isEnabled()) {
+      return writeTo0(transformation, storedRevision);
+    }
+    event.begin();
+    final String content = writeTo0(transformation, storedRevision);
+
+    event.end();
+    if (event.shouldCommit()) {
+      event.commit(transformation, Utf8.encodedLength(content));
+    }
+    return content;
+  }
+
+  /**
+   * Conditionally serializes a transformation into the given output stream with the next revision.
+   * The serialization fails if the revision of the transformation (as last read from or written to
+   * persistence) is not the revision currently stored in persistence. On success, the
+   * transformation's revision is updated to the serialized revision.
+   *
+   * <p><i>Note:</i> Backends are responsible for atomically replacing the stored document only if
+   * its revision still matches <code>storedRevision</code> (see {@link
+   * #writeTo(AbstractTransformationImpl, long)}).
+   *
+   * @param transformation the transformation object to serialize to the specified output stream
+   * @param storedRevision the revision currently stored in persistence for the transformation
+   * @param stream the output stream to serializes the object to
+   * @throws IllegalArgumentException if the task implementation is not one that can be saved
+   * @throws StaleRevisionException if the transformation's revision does not match <code>
+   *     storedRevision</code>
+   * @throws ProcessingException if a failure occurs while serializing the value
+   * @throws PersistenceException if any other error occurs while trying to serialize the object
+   */
+  public void writeTo(
+      AbstractTransformationImpl transformation, long storedRevision, OutputStream stream)
+      throws ProcessingException, PersistenceException {
+    final PersistenceWriteEvent event = new PersistenceWriteEvent();
+
+    if (!event.isEnabled()) {
+      writeTo0(transformation, storedRevision, stream);
+      return;
+    }
+    final CountingOutputStream counting = new CountingOutputStream(stream);
+
+    event.begin();
+    writeTo0(transformation, storedRevision, counting);
+    event.end();
+    if (event.shouldCommit()) {
+      event.commit(transformation, counting.getCount());
+    }
+  }
+
+  private <T extends AbstractTransformationImpl> T readFrom0(Class<T> clazz, String content)
+      throws PersistenceException {
+    final Constructor<T> ctor = findConstructor(clazz);
+
+    if (metrics == null) {
+      return instantiate(clazz, ctor, parse(content));
+    }
     try {
-      JsonUtils.write(transformation.writeTo(new TransformationPojo()), stream);
-    } catch (JsonProcessingException e) {
-      throw new ProcessingException(e);
-    } catch (IOException e) {
-      throw new NonTransientPersistenceException(e);
+      final long start = metrics.startTime();
+      final TransformationPojo pojo = parse(content);
+      final long parsed = metrics.parsed(start);
+      final T transformation = instantiate(clazz, ctor, pojo);
+
+      metrics.read(parsed, Utf8.encodedLength(content), pojo, transformation);
+      return transformation;
+    } catch (PersistenceException e) {
+      metrics.failed(PersistenceMetrics.READ_OPERATION, e);
+      throw e;
+    }
+  }
+
+  private <T extends AbstractTransformationImpl> T readFrom0(Class<T> clazz, InputStream stream)
+      throws PersistenceException {
+    final Constructor<T> ctor = findConstructor(clazz);
+
+    if (metrics == null) {
+      return instantiate(clazz, ctor, parse(stream));
+    }
+    try {
+      final CountingInputStream counting = new CountingInputStream(stream);
+      final long start = metrics.startTime();
+      final TransformationPojo pojo = parse(counting);
+      final long parsed = metrics.parsed(start);
+      final T transformation = instantiate(clazz, ctor, pojo);
+
+      metrics.read(parsed, counting.getCount(), pojo, transformation);
+      return transformation;
+    } catch (PersistenceException e) {
+      metrics.failed(PersistenceMetrics.READ_OPERATION, e);
+      throw e;
+    }
+  }
+
+  private String writeTo0(AbstractTransformationImpl transformation) throws PersistenceException {
+    if (metrics == null) {
+      return serialize(transformation.writeTo(new TransformationPojo()));
+    }
+    try {
+      final long start = metrics.startTime();
+      final TransformationPojo pojo = transformation.writeTo(new TransformationPojo());
+
+      return write(metrics.converted(start), pojo);
+    } catch (PersistenceException e) {
+      metrics.failed(PersistenceMetrics.WRITE_OPERATION, e);
+      throw e;
+    }
+  }
+
+  private void writeTo0(AbstractTransformationImpl transformation, OutputStream stream)
+      throws PersistenceException {
+    if (metrics == null) {
+      serialize(transformation.writeTo(new TransformationPojo()), stream);
+      return;
+    }
+    try {
+      final long start = metrics.startTime();
+      final TransformationPojo pojo = transformation.writeTo(new TransformationPojo());
+
+      write(metrics.converted(start), pojo, stream);
+    } catch (PersistenceException e) {
+      metrics.failed(PersistenceMetrics.WRITE_OPERATION, e);
+      throw e;
+    }
+  }
+
+  private String writeTo0(AbstractTransformationImpl transformation, long storedRevision)
+      throws PersistenceException {
+    final String content;
+    final TransformationPojo pojo;
+
+    if (metrics == null) {
+      pojo = toNextRevision(transformation, storedRevision);
+      content = serialize(pojo);
+    } else {
+      try {
+        final long start = metrics.startTime();
+
+        pojo = toNextRevision(transformation, storedRevision);
+        content = write(metrics.converted(start), pojo);
+      } catch (PersistenceException e) {
+        metrics.failed(PersistenceMetrics.WRITE_OPERATION, e);
+        throw e;
+      }
+    }
+    transformation.setRevision(pojo.getRevision());
+    return content;
+  }
+
+  private void writeTo0(
+      AbstractTransformationImpl transformation, long storedRevision, OutputStream stream)
+      throws PersistenceException {
+    final TransformationPojo pojo;
+
+    if (metrics == null) {
+      pojo = toNextRevision(transformation, storedRevision);
+      serialize(pojo, stream);
+    } else {
+      try {
+        final long start = metrics.startTime();
+
+        pojo = toNextRevision(transformation, storedRevision);
+        write(metrics.converted(start), pojo, stream);
+      } catch (PersistenceException e) {
+        metrics.failed(PersistenceMetrics.WRITE_OPERATION, e);
+        throw e;
+      }
+    }
+    transformation.setRevision(pojo.getRevision());
+  }
+
+  private String write(long start, TransformationPojo pojo) throws ProcessingException {
+    final String content = serialize(pojo);
+
+    metrics.written(start, Utf8.encodedLength(content), pojo);
+    return content;
+  }
+
+  private void write(long start, TransformationPojo pojo, OutputStream stream)
+      throws PersistenceException {
+    final CountingOutputStream counting = new CountingOutputStream(stream);
+
+    serialize(pojo, counting);
+    metrics.written(start, counting.getCount(), pojo);
+  }
+
+  private TransformationPojo toNextRevision(
+      AbstractTransformationImpl transformation, long storedRevision) throws PersistenceException {
+    final long revision = transformation.getRevision();
+
+    if (revision != storedRevision) {
+      throw new StaleRevisionException(
+          "stale transformation revision: "
+              + revision
+              + " (stored: "
+              + storedRevision
+              + ") for object: "
+              + transformation.getId());
     }
+    return transformation.writeTo(new TransformationPojo()).setRevision(revision + 1L);
   }
 
   private <T extends AbstractTransformationImpl> Constructor<T> findConstructor(Class<T> clazz) {
@@ -159,9 +437,49 @@ public class TransformationPersistenceManager {
       if (t instanceof ProcessingException) {
         throw (ProcessingException) t;
       } else if (t instanceof PersistenceException) {
-        throw (ProcessingException) t;
+        throw (PersistenceException) t;
       }
       throw new ProcessingException("failed to instantiate class: " + clazz.getName(), t);
     }
   }
+
+  private TransformationPojo parse(String content) throws ProcessingException {
+    try {
+      return JsonUtils.read(TransformationPojo.class, content);
+    } catch (JsonParseException | JsonMappingException e) {
+      throw new ParsingException(e);
+    } catch (JsonProcessingException e) {
+      throw new ProcessingException(e);
+    }
+  }
+
+  private TransformationPojo parse(InputStream stream) throws PersistenceException {
+    try {
+      return JsonUtils.read(TransformationPojo.class, stream);
+    } catch (JsonParseException | JsonMappingException e) {
+      throw new ParsingException(e);
+    } catch (JsonProcessingException e) {
+      throw new ProcessingException(e);
+    } catch (IOException e) {
+      throw new NonTransientPersistenceException(e);
+    }
+  }
+
+  private String serialize(TransformationPojo pojo) throws ProcessingException {
+    try {
+      return JsonUtils.write(pojo);
+    } catch (JsonProcessingException e) {
+      throw new ProcessingException(e);
+    }
+  }
+
+  private void serialize(TransformationPojo pojo, OutputStream stream) throws PersistenceException {
+    try {
+      JsonUtils.write(pojo, stream);
+    } catch (JsonProcessingException e) {
+      throw new ProcessingException(e);
+    } catch (IOException e) {
+      throw new NonTransientPersistenceException(e);
+    }
+  }
 }
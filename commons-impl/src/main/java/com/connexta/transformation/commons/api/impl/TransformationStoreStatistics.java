@@ -0,0 +1,36 @@
+/**
+ * Copyright (c) Connexta
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package com.connexta.transformation.commons.api.impl;
+
+/**
+ * Optional interface implemented by {@link
+ * com.connexta.transformation.commons.api.TransformationManager}s which can cheaply report how many
+ * transformations they currently hold. It is used by the {@link MeteredTransformationManager} to
+ * expose store gauges without having to scan the store.
+ */
+public interface TransformationStoreStatistics {
+  /**
+   * Gets the number of transformations currently held in the store.
+   *
+   * @return the number of transformations currently held
+   */
+  long getTransformationCount();
+
+  /**
+   * Gets the number of transformations currently held in the store which are still in progress.
+   *
+   * @return the number of transformations currently in progress
+   */
+  long getInProgressCount();
+}
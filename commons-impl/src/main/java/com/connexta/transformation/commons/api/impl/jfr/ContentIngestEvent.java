@@ -0,0 +1,67 @@
+/**
+ * Copyright (c) Connexta
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package com.connexta.transformation.commons.api.impl.jfr;
+
+import com.connexta.transformation.commons.api.MetadataTransformation;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Flight recorder event timing the ingestion of the content of a metadata transformation into the
+ * backend's storage. Only ingestions lasting longer than 1 millisecond are recorded by default.
+ */
+@Name(ContentIngestEvent.NAME)
+@Label("Content Ingest")
+@Category("Transformation")
+@Description("The content of a metadata transformation was stored")
+@StackTrace(false)
+@Threshold("1 ms")
+public final class ContentIngestEvent extends Event {
+  /** The name of this event. */
+  public static final String NAME = "com.connexta.transformation.ContentIngest";
+
+  @Label("Transform Id")
+  private String transformId;
+
+  @Label("Metadata Type")
+  private String metadataType;
+
+  @Label("Content Type")
+  private String contentType;
+
+  @Label("Bytes")
+  @DataAmount
+  private long bytes;
+
+  /**
+   * Commits this event for the specified metadata.
+   *
+   * @param metadata the metadata for which content was ingested
+   * @param contentType the type of content ingested
+   * @param bytes the number of bytes ingested
+   */
+  public void commit(MetadataTransformation metadata, String contentType, long bytes) {
+    this.transformId = metadata.getTransformId();
+    this.metadataType = metadata.getMetadataType();
+    this.contentType = contentType;
+    this.bytes = bytes;
+    commit();
+  }
+}
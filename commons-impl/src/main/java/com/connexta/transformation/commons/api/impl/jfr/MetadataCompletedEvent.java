@@ -0,0 +1,78 @@
+/**
+ * Copyright (c) Connexta
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package com.connexta.transformation.commons.api.impl.jfr;
+
+import com.connexta.transformation.commons.api.ErrorCode;
+import com.connexta.transformation.commons.api.MetadataTransformation;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight recorder event emitted whenever a metadata transformation completes successfully or not.
+ */
+@Name(MetadataCompletedEvent.NAME)
+@Label("Metadata Completed")
+@Category("Transformation")
+@Description("A metadata transformation completed")
+@StackTrace(false)
+public final class MetadataCompletedEvent extends Event {
+  /** The name of this event. */
+  public static final String NAME = "com.connexta.transformation.MetadataCompleted";
+
+  @Label("Transform Id")
+  private String transformId;
+
+  @Label("Metadata Type")
+  private String metadataType;
+
+  @Label("State")
+  private String state;
+
+  @Label("Failure Reason")
+  private String failureReason;
+
+  @Label("Time To Complete")
+  @Description("The time between the start of the metadata transformation and its completion")
+  @Timespan(Timespan.NANOSECONDS)
+  private long timeToComplete;
+
+  @Label("Content Length")
+  @DataAmount
+  private long contentLength;
+
+  /**
+   * Emits an event for the specified metadata if the event is enabled in a running recording.
+   *
+   * @param metadata the metadata that completed
+   */
+  public static void emit(MetadataTransformation metadata) {
+    final MetadataCompletedEvent event = new MetadataCompletedEvent();
+
+    if (event.isEnabled()) {
+      event.transformId = metadata.getTransformId();
+      event.metadataType = metadata.getMetadataType();
+      event.state = metadata.getState().name();
+      event.failureReason = metadata.getFailureReason().map(ErrorCode::name).orElse(null);
+      event.timeToComplete = metadata.getDuration().toNanos();
+      event.contentLength = metadata.getContentLength().orElse(0L);
+      event.commit();
+    }
+  }
+}
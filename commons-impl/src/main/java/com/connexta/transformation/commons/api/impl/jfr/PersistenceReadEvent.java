@@ -0,0 +1,62 @@
+/**
+ * Copyright (c) Connexta
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package com.connexta.transformation.commons.api.impl.jfr;
+
+import com.connexta.transformation.commons.api.Transformation;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Flight recorder event timing a transformation being read from its persisted Json form. Only
+ * operations lasting longer than 1 millisecond are recorded by default.
+ */
+@Name(PersistenceReadEvent.NAME)
+@Label("Persistence Read")
+@Category({"Transformation", "Persistence"})
+@Description("A transformation was read from its persisted form")
+@StackTrace(false)
+@Threshold("1 ms")
+public final class PersistenceReadEvent extends Event {
+  /** The name of this event. */
+  public static final String NAME = "com.connexta.transformation.PersistenceRead";
+
+  @Label("Transform Id")
+  private String transformId;
+
+  @Label("Bytes")
+  @DataAmount
+  private long bytes;
+
+  @Label("Metadata Count")
+  private long metadataCount;
+
+  /**
+   * Commits this event for the specified transformation.
+   *
+   * @param transformation the transformation that was read from persistence
+   * @param bytes the number of bytes read
+   */
+  public void commit(Transformation transformation, long bytes) {
+    this.transformId = transformation.getTransformId();
+    this.bytes = bytes;
+    this.metadataCount = transformation.metadatas().count();
+    commit();
+  }
+}
@@ -0,0 +1,63 @@
+/**
+ * Copyright (c) Connexta
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package com.connexta.transformation.commons.api.impl.jfr;
+
+import com.connexta.transformation.commons.api.RequestInfo;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** Flight recorder event emitted whenever a new transformation is created. */
+@Name(TransformationCreatedEvent.NAME)
+@Label("Transformation Created")
+@Category("Transformation")
+@Description("A new transformation was created")
+@StackTrace(false)
+public final class TransformationCreatedEvent extends Event {
+  /** The name of this event. */
+  public static final String NAME = "com.connexta.transformation.TransformationCreated";
+
+  @Label("Transform Id")
+  private String transformId;
+
+  @Label("Current Location")
+  private String currentLocation;
+
+  @Label("Final Location")
+  private String finalLocation;
+
+  @Label("Metacard Location")
+  private String metacardLocation;
+
+  /**
+   * Emits an event for the specified transformation if the event is enabled in a running recording.
+   *
+   * @param transformId the id of the transformation that was created
+   * @param requestInfo the request information for the transformation
+   */
+  public static void emit(String transformId, RequestInfo requestInfo) {
+    final TransformationCreatedEvent event = new TransformationCreatedEvent();
+
+    if (event.isEnabled()) {
+      event.transformId = transformId;
+      event.currentLocation = String.valueOf(requestInfo.getCurrentLocation());
+      event.finalLocation = String.valueOf(requestInfo.getFinalLocation());
+      event.metacardLocation = String.valueOf(requestInfo.getMetacardLocation());
+      event.commit();
+    }
+  }
+}
@@ -15,6 +15,7 @@ package com.connexta.transformation.commons.api.impl;
 
 import com.connexta.transformation.commons.api.ErrorCode;
 import com.connexta.transformation.commons.api.RequestInfo;
+import com.connexta.transformation.commons.api.TransformationLifecycleListener;
 import com.connexta.transformation.commons.api.TransformationStatus.State;
 import com.connexta.transformation.commons.api.exceptions.InvalidFieldException;
 import com.connexta.transformation.commons.api.exceptions.UnsupportedVersionException;
@@ -52,6 +53,9 @@ public class AbstractMetadataImplTest {
   private static final String FAILURE_MSG = "some message";
   private static final String CONTENT_TYPE = "application/xml";
   private static final long CONTENT_LENGTH = 981234L;
+  private static final long CONTENT_CRC32C = 0xcafeL;
+  private static final String CONTENT_SHA256 =
+      "e3b0c44298fc1c149afbf4c8996fb92427ae41e4649b934ca495991b7852b855";
 
   static {
     try {
@@ -108,7 +112,9 @@ public class AbstractMetadataImplTest {
           .setStartTime(AbstractMetadataImplTest.START_TIME)
           .setCompletionTime(AbstractMetadataImplTest.COMPLETION_TIME)
           .setContentType(AbstractMetadataImplTest.CONTENT_TYPE)
-          .setContentLength(AbstractMetadataImplTest.CONTENT_LENGTH);
+          .setContentLength(AbstractMetadataImplTest.CONTENT_LENGTH)
+          .setContentCrc32c(AbstractMetadataImplTest.CONTENT_CRC32C)
+          .setContentSha256(AbstractMetadataImplTest.CONTENT_SHA256);
 
   @Before
   public void setup() throws Exception {
@@ -134,6 +140,8 @@ public class AbstractMetadataImplTest {
     persistable.setCompletionTime(AbstractMetadataImplTest.COMPLETION_TIME);
     persistable.setContentType(AbstractMetadataImplTest.CONTENT_TYPE);
     persistable.setContentLength(AbstractMetadataImplTest.CONTENT_LENGTH);
+    persistable.setContentCrc32c(AbstractMetadataImplTest.CONTENT_CRC32C);
+    persistable.setContentSha256(AbstractMetadataImplTest.CONTENT_SHA256);
     this.persistable2 =
         AbstractMetadataImplTest.newMetadata(
             AbstractMetadataImplTest.TYPE,
@@ -148,6 +156,8 @@ public class AbstractMetadataImplTest {
     persistable2.setCompletionTime(AbstractMetadataImplTest.COMPLETION_TIME);
     persistable2.setContentType(AbstractMetadataImplTest.CONTENT_TYPE);
     persistable2.setContentLength(AbstractMetadataImplTest.CONTENT_LENGTH);
+    persistable2.setContentCrc32c(AbstractMetadataImplTest.CONTENT_CRC32C);
+    persistable2.setContentSha256(AbstractMetadataImplTest.CONTENT_SHA256);
   }
 
   @Test
@@ -178,6 +188,9 @@ public class AbstractMetadataImplTest {
     Assert.assertThat(persistable.getContentType(), OptionalMatchers.isEmpty());
     Assert.assertThat(
         persistable.getContentLength().stream().boxed().findFirst(), OptionalMatchers.isEmpty());
+    Assert.assertThat(
+        persistable.getContentCrc32c().stream().boxed().findFirst(), OptionalMatchers.isEmpty());
+    Assert.assertThat(persistable.getContentSha256(), OptionalMatchers.isEmpty());
     Assert.assertThat(persistable.getClock(), Matchers.sameInstance(clock));
 
     Mockito.verify(clock).wallTime();
@@ -243,6 +256,35 @@ public class AbstractMetadataImplTest {
         persistable2.getContentLength().stream().boxed().findFirst(), OptionalMatchers.isEmpty());
   }
 
+  @Test
+  public void testGetContentCrc32c() throws Exception {
+    Assert.assertThat(
+        persistable2.getContentCrc32c().stream().boxed().findFirst(),
+        OptionalMatchers.isPresentAndIs(AbstractMetadataImplTest.CONTENT_CRC32C));
+  }
+
+  @Test
+  public void testGetContentCrc32cWhenNegative() throws Exception {
+    persistable2.setContentCrc32c(-5L);
+
+    Assert.assertThat(
+        persistable2.getContentCrc32c().stream().boxed().findFirst(), OptionalMatchers.isEmpty());
+  }
+
+  @Test
+  public void testGetContentSha256() throws Exception {
+    Assert.assertThat(
+        persistable2.getContentSha256(),
+        OptionalMatchers.isPresentAndIs(AbstractMetadataImplTest.CONTENT_SHA256));
+  }
+
+  @Test
+  public void testGetContentSha256WhenNull() throws Exception {
+    persistable2.setContentSha256(null);
+
+    Assert.assertThat(persistable2.getContentSha256(), OptionalMatchers.isEmpty());
+  }
+
   @Test
   public void testHasUnknownsWhenStateIsUnknown() throws Exception {
     persistable2.setState(State.UNKNOWN);
@@ -282,6 +324,23 @@ public class AbstractMetadataImplTest {
         pojo.getContentType(), Matchers.equalTo(AbstractMetadataImplTest.CONTENT_TYPE));
     Assert.assertThat(
         pojo.getContentLength(), Matchers.equalTo(AbstractMetadataImplTest.CONTENT_LENGTH));
+    Assert.assertThat(
+        pojo.getContentCrc32c(), Matchers.equalTo(AbstractMetadataImplTest.CONTENT_CRC32C));
+    Assert.assertThat(
+        pojo.getContentSha256(), Matchers.equalTo(AbstractMetadataImplTest.CONTENT_SHA256));
+  }
+
+  @Test
+  public void testWriteToWhenContentCrc32cIsNegative() throws Exception {
+    persistable2.setContentCrc32c(-5L);
+    persistable2.setContentSha256(null);
+
+    final MetadataPojo pojo = new MetadataPojo();
+
+    persistable2.writeTo(pojo);
+
+    Assert.assertThat(pojo.getContentCrc32c(), Matchers.nullValue());
+    Assert.assertThat(pojo.getContentSha256(), Matchers.nullValue());
   }
 
   @Test
@@ -580,12 +639,44 @@ public class AbstractMetadataImplTest {
     Assert.assertThat(
         persistable.getContentLength().stream().boxed().findFirst(),
         OptionalMatchers.isPresentAndIs(AbstractMetadataImplTest.CONTENT_LENGTH));
+    Assert.assertThat(
+        persistable.getContentCrc32c().stream().boxed().findFirst(),
+        OptionalMatchers.isPresentAndIs(AbstractMetadataImplTest.CONTENT_CRC32C));
+    Assert.assertThat(
+        persistable.getContentSha256(),
+        OptionalMatchers.isPresentAndIs(AbstractMetadataImplTest.CONTENT_SHA256));
     Assert.assertThat(persistable.getClock(), Matchers.sameInstance(clock));
     Assert.assertThat(persistable.hasUnknowns(), Matchers.equalTo(false));
 
     Mockito.verify(clock, Mockito.never()).wallTime();
   }
 
+  @Test
+  public void testReadFromPreviousVersionWithoutChecksums() throws Exception {
+    pojo.setVersion(1).setContentCrc32c(null).setContentSha256(null);
+    final AbstractMetadataImpl persistable = AbstractMetadataImplTest.newMetadata(clock);
+
+    persistable.readFrom(pojo);
+
+    Assert.assertThat(
+        persistable.getContentLength().stream().boxed().findFirst(),
+        OptionalMatchers.isPresentAndIs(AbstractMetadataImplTest.CONTENT_LENGTH));
+    Assert.assertThat(
+        persistable.getContentCrc32c().stream().boxed().findFirst(), OptionalMatchers.isEmpty());
+    Assert.assertThat(persistable.getContentSha256(), OptionalMatchers.isEmpty());
+  }
+
+  @Test
+  public void testReadFromCurrentVersionWithNegativeContentCrc32c() throws Exception {
+    pojo.setContentCrc32c(-5L);
+    final AbstractMetadataImpl persistable = AbstractMetadataImplTest.newMetadata(clock);
+
+    persistable.readFrom(pojo);
+
+    Assert.assertThat(
+        persistable.getContentCrc32c().stream().boxed().findFirst(), OptionalMatchers.isEmpty());
+  }
+
   @Test
   public void testReadFromFutureVersion() throws Exception {
     pojo.setVersion(9999999);
@@ -1123,6 +1214,59 @@ public class AbstractMetadataImplTest {
     Assert.assertThat(persistable.equals0(persistable2), Matchers.not(Matchers.equalTo(true)));
   }
 
+  @Test
+  public void testEqualsWhenContentCrc32cIsDifferent() throws Exception {
+    persistable2.setContentCrc32c(AbstractMetadataImplTest.CONTENT_CRC32C + 2L);
+
+    Assert.assertThat(persistable.equals0(persistable2), Matchers.not(Matchers.equalTo(true)));
+  }
+
+  @Test
+  public void testEqualsWhenContentSha256IsDifferent() throws Exception {
+    persistable2.setContentSha256(AbstractMetadataImplTest.CONTENT_SHA256 + "2");
+
+    Assert.assertThat(persistable.equals0(persistable2), Matchers.not(Matchers.equalTo(true)));
+  }
+
+  @Test
+  public void testNotifyContentReadIsSkippedWithNoopListener() throws Exception {
+    persistable.notifyContentRead();
+
+    Assert.assertThat(
+        persistable.getLifecycleListener(),
+        Matchers.sameInstance(TransformationLifecycleListener.NOOP));
+    Assert.assertThat(persistable.getLifecycleContext(), Matchers.nullValue());
+  }
+
+  @Test
+  public void testNotifyContentRead() throws Exception {
+    final Object context = new Object();
+    final TransformationLifecycleListener listener =
+        Mockito.mock(TransformationLifecycleListener.class);
+
+    Mockito.doReturn(listener).when(persistable).getLifecycleListener();
+    Mockito.doReturn(context).when(persistable).getLifecycleContext();
+
+    persistable.notifyContentRead();
+
+    Mockito.verify(listener).contentRead(persistable, context);
+  }
+
+  @Test
+  public void testNotifyContentReadIgnoresFailingListener() throws Exception {
+    final TransformationLifecycleListener listener =
+        Mockito.mock(TransformationLifecycleListener.class);
+
+    Mockito.doReturn(listener).when(persistable).getLifecycleListener();
+    Mockito.doThrow(new IllegalStateException("testing"))
+        .when(listener)
+        .contentRead(Mockito.any(), Mockito.any());
+
+    persistable.notifyContentRead();
+
+    Mockito.verify(listener).contentRead(persistable, null);
+  }
+
   @Test
   public void testToPojo() throws Exception {
     final MetadataPojo pojo = AbstractMetadataImpl.toPojo(persistable);
@@ -15,6 +15,7 @@ package com.connexta.transformation.commons.api.impl;
 
 import com.connexta.transformation.commons.api.ErrorCode;
 import com.connexta.transformation.commons.api.RequestInfo;
+import com.connexta.transformation.commons.api.TransformationLifecycleListener;
 import com.connexta.transformation.commons.api.TransformationStatus.State;
 import com.connexta.transformation.commons.api.exceptions.InvalidFieldException;
 import com.connexta.transformation.commons.api.exceptions.TransformationNotFoundException;
@@ -398,7 +399,7 @@ public class AbstractTransformationImplTest {
     persistable.writeTo(pojo);
 
     Assert.assertThat(pojo.getId(), Matchers.equalTo(AbstractTransformationImplTest.TRANSFORM_ID));
-    Assert.assertThat(pojo.getVersion(), Matchers.equalTo(MetadataPojo.CURRENT_VERSION));
+    Assert.assertThat(pojo.getVersion(), Matchers.equalTo(TransformationPojo.CURRENT_VERSION));
 
     Assert.assertThat(
         pojo.getRequestInfo(), Matchers.equalTo(AbstractTransformationImplTest.REQUEST_POJO));
@@ -698,6 +699,232 @@ public class AbstractTransformationImplTest {
     Mockito.verify(clock, Mockito.never()).wallTime();
   }
 
+  @Test
+  public void testGetStateWithoutMetadata() throws Exception {
+    final AbstractTransformationImpl persistable = newTransformation(clock);
+
+    Assert.assertThat(persistable.getState(), Matchers.equalTo(State.IN_PROGRESS));
+    Assert.assertThat(persistable.getCompletionTime(), OptionalMatchers.isEmpty());
+  }
+
+  @Test
+  public void testGetStateWhenAMetadataIsInProgress() throws Exception {
+    persistable.add(AbstractTransformationImplTest.METADATA3);
+
+    Assert.assertThat(persistable.getState(), Matchers.equalTo(State.IN_PROGRESS));
+    Assert.assertThat(persistable.isCompleted(), Matchers.equalTo(false));
+    Assert.assertThat(persistable.getCompletionTime(), OptionalMatchers.isEmpty());
+  }
+
+  @Test
+  public void testGetStateWhenAMetadataIsUnknown() throws Exception {
+    final AbstractMetadataImpl metadata = newMetadata(State.UNKNOWN, null);
+
+    persistable.add(metadata);
+
+    Assert.assertThat(persistable.getState(), Matchers.equalTo(State.UNKNOWN));
+    Assert.assertThat(persistable.getCompletionTime(), OptionalMatchers.isEmpty());
+  }
+
+  @Test
+  public void testGetStateWhenAMetadataFailed() throws Exception {
+    Assert.assertThat(persistable.getState(), Matchers.equalTo(State.FAILED));
+    Assert.assertThat(persistable.hasFailed(), Matchers.equalTo(true));
+  }
+
+  @Test
+  public void testGetStateWhenAllMetadataSucceeded() throws Exception {
+    final AbstractTransformationImpl persistable = newTransformation(clock);
+
+    persistable.add(AbstractTransformationImplTest.METADATA);
+
+    Assert.assertThat(persistable.getState(), Matchers.equalTo(State.SUCCESSFUL));
+    Assert.assertThat(persistable.wasSuccessful(), Matchers.equalTo(true));
+    Assert.assertThat(
+        persistable.getCompletionTime(),
+        OptionalMatchers.isPresentAndIs(AbstractTransformationImplTest.METADATA_COMPLETION_TIME));
+  }
+
+  @Test
+  public void testGetCompletionTimeIsTheLatestRegardlessOfOrder() throws Exception {
+    final AbstractTransformationImpl persistable = newTransformation(clock);
+
+    persistable.add(
+        AbstractTransformationImplTest.METADATA2, AbstractTransformationImplTest.METADATA);
+
+    Assert.assertThat(
+        persistable.getCompletionTime(),
+        OptionalMatchers.isPresentAndIs(AbstractTransformationImplTest.COMPLETION_TIME));
+  }
+
+  @Test
+  public void testAddReplacingAMetadataUpdatesTheState() throws Exception {
+    final AbstractTransformationImpl persistable = newTransformation(clock);
+
+    persistable.add(newMetadata(State.IN_PROGRESS, null));
+    persistable.add(
+        newMetadata(State.SUCCESSFUL, AbstractTransformationImplTest.METADATA_COMPLETION_TIME));
+
+    Assert.assertThat(persistable.getState(), Matchers.equalTo(State.SUCCESSFUL));
+  }
+
+  @Test
+  public void testAddIfAbsent() throws Exception {
+    final AbstractTransformationImpl persistable = newTransformation(clock);
+    final AbstractMetadataImpl metadata = newMetadata(State.IN_PROGRESS, null);
+
+    Assert.assertThat(
+        persistable.addIfAbsent(AbstractTransformationImplTest.METADATA_TYPE3, t -> metadata),
+        Matchers.sameInstance(metadata));
+    Assert.assertThat(
+        persistable.addIfAbsent(
+            AbstractTransformationImplTest.METADATA_TYPE3,
+            t -> newMetadata(State.SUCCESSFUL, null)),
+        Matchers.sameInstance(metadata));
+    Assert.assertThat(persistable.getState(), Matchers.equalTo(State.IN_PROGRESS));
+  }
+
+  @Test
+  public void testMetadataCompletedUpdatesTheState() throws Exception {
+    final AbstractTransformationImpl persistable = newTransformation(clock);
+    final AbstractMetadataImpl metadata = newMetadata(State.IN_PROGRESS, null);
+
+    persistable.add(metadata, AbstractTransformationImplTest.METADATA);
+    metadata.setState(State.FAILED);
+    metadata.setCompletionTime(AbstractTransformationImplTest.COMPLETION_TIME.plusMillis(1L));
+
+    Assert.assertThat(persistable.metadataCompleted(metadata), Matchers.equalTo(true));
+    Assert.assertThat(persistable.getState(), Matchers.equalTo(State.FAILED));
+    Assert.assertThat(
+        persistable.getCompletionTime(),
+        OptionalMatchers.isPresentAndIs(
+            AbstractTransformationImplTest.COMPLETION_TIME.plusMillis(1L)));
+  }
+
+  @Test
+  public void testStateReflectsMetadataCompletedWithoutBeingReported() throws Exception {
+    final AbstractTransformationImpl persistable = newTransformation(clock);
+    final AbstractMetadataImpl metadata = newMetadata(State.IN_PROGRESS, null);
+
+    persistable.add(metadata, AbstractTransformationImplTest.METADATA);
+
+    Assert.assertThat(persistable.getState(), Matchers.equalTo(State.IN_PROGRESS));
+
+    metadata.setState(State.FAILED);
+    metadata.setCompletionTime(AbstractTransformationImplTest.COMPLETION_TIME.plusMillis(1L));
+
+    Assert.assertThat(persistable.getState(), Matchers.equalTo(State.FAILED));
+    Assert.assertThat(
+        persistable.getCompletionTime(),
+        OptionalMatchers.isPresentAndIs(
+            AbstractTransformationImplTest.COMPLETION_TIME.plusMillis(1L)));
+  }
+
+  @Test
+  public void testStateReflectsMetadataAddedDirectlyToTheMap() throws Exception {
+    final AbstractTransformationImpl persistable = newTransformation(clock);
+    final AbstractMetadataImpl metadata = newMetadata(State.IN_PROGRESS, null);
+
+    persistable.add(AbstractTransformationImplTest.METADATA);
+    persistable.metadatas.put(metadata.getMetadataType(), metadata);
+
+    Assert.assertThat(persistable.getState(), Matchers.equalTo(State.IN_PROGRESS));
+  }
+
+  @Test
+  public void testLifecycleNotificationsAreSkippedWithNoopListener() throws Exception {
+    final AbstractTransformationImpl persistable = newTransformation(clock);
+    final AbstractMetadataImpl metadata = newMetadata(State.SUCCESSFUL, null);
+
+    persistable.notifyCreated();
+    persistable.notifyMetadataAdded(metadata);
+    persistable.add(metadata);
+    persistable.metadataCompleted(metadata);
+    persistable.notifyDeleted();
+
+    Assert.assertThat(
+        persistable.getLifecycleListener(),
+        Matchers.sameInstance(TransformationLifecycleListener.NOOP));
+    Assert.assertThat(persistable.getLifecycleContext(), Matchers.nullValue());
+  }
+
+  @Test
+  public void testLifecycleListenerIsNotifiedWithContext() throws Exception {
+    final Object context = new Object();
+    final TransformationLifecycleListener listener =
+        Mockito.mock(TransformationLifecycleListener.class);
+    final AbstractTransformationImpl persistable = newTransformation(clock);
+    final AbstractMetadataImpl metadata = newMetadata(State.SUCCESSFUL, null);
+    final AbstractMetadataImpl metadata2 = newMetadata(State.FAILED, null);
+
+    Mockito.doReturn(listener).when(persistable).getLifecycleListener();
+    Mockito.when(listener.transformationCreated(persistable)).thenReturn(context);
+
+    persistable.notifyCreated();
+    persistable.notifyMetadataAdded(metadata);
+    persistable.add(metadata);
+    persistable.metadataCompleted(metadata);
+    persistable.metadataCompleted(metadata2);
+    persistable.notifyDeleted();
+
+    Assert.assertThat(persistable.getLifecycleContext(), Matchers.sameInstance(context));
+    Mockito.verify(listener).metadataAdded(metadata, context);
+    Mockito.verify(listener).metadataSucceeded(metadata, context);
+    Mockito.verify(listener).metadataFailed(metadata2, context);
+    Mockito.verify(listener).transformationDeleted(persistable, context);
+  }
+
+  @Test
+  public void testFailingLifecycleListenerIsIgnored() throws Exception {
+    final RuntimeException error = new IllegalStateException("testing");
+    final TransformationLifecycleListener listener =
+        Mockito.mock(TransformationLifecycleListener.class);
+    final AbstractTransformationImpl persistable = newTransformation(clock);
+    final AbstractMetadataImpl metadata = newMetadata(State.SUCCESSFUL, null);
+
+    Mockito.doReturn(listener).when(persistable).getLifecycleListener();
+    Mockito.when(listener.transformationCreated(Mockito.any())).thenThrow(error);
+    Mockito.doThrow(error).when(listener).metadataAdded(Mockito.any(), Mockito.any());
+    Mockito.doThrow(error).when(listener).metadataSucceeded(Mockito.any(), Mockito.any());
+    Mockito.doThrow(error).when(listener).transformationDeleted(Mockito.any(), Mockito.any());
+
+    persistable.notifyCreated();
+    persistable.notifyMetadataAdded(metadata);
+    persistable.add(metadata);
+
+    Assert.assertThat(persistable.metadataCompleted(metadata), Matchers.equalTo(true));
+
+    persistable.notifyDeleted();
+
+    Assert.assertThat(persistable.getLifecycleContext(), Matchers.nullValue());
+  }
+
+  @Test
+  public void testStateIsRestoredWhenReadFromPojo() throws Exception {
+    final AbstractTransformationImpl persistable = newTransformation(clock);
+
+    persistable.readFrom(pojo);
+
+    Assert.assertThat(persistable.getState(), Matchers.equalTo(State.FAILED));
+    Assert.assertThat(
+        persistable.getCompletionTime(),
+        OptionalMatchers.isPresentAndIs(AbstractTransformationImplTest.COMPLETION_TIME));
+  }
+
+  @Test
+  public void testStateIsRecomputedWhenReadFromPojoAgain() throws Exception {
+    final AbstractTransformationImpl persistable = newTransformation(clock);
+
+    persistable.add(AbstractTransformationImplTest.METADATA3);
+
+    persistable.readFrom(pojo);
+
+    Assert.assertThat(persistable.getState(), Matchers.equalTo(State.FAILED));
+    Assert.assertThat(
+        persistable.getCompletionTime(),
+        OptionalMatchers.isPresentAndIs(AbstractTransformationImplTest.COMPLETION_TIME));
+  }
+
   @Test
   public void testHashCodeWhenEquals() throws Exception {
     Assert.assertThat(persistable.hashCode0(), Matchers.equalTo(persistable2.hashCode0()));
@@ -792,6 +1019,19 @@ public class AbstractTransformationImplTest {
             .defaultAnswer(Mockito.CALLS_REAL_METHODS));
   }
 
+  private static AbstractMetadataImpl newMetadata(State state, Instant completionTime) {
+    final AbstractMetadataImpl metadata =
+        AbstractTransformationImplTest.newMetadata(
+            AbstractTransformationImplTest.METADATA_TYPE3,
+            AbstractTransformationImplTest.TRANSFORM_ID,
+            AbstractTransformationImplTest.REQUEST,
+            Mockito.mock(Clock.class));
+
+    metadata.setState(state);
+    metadata.setCompletionTime(completionTime);
+    return metadata;
+  }
+
   private static AbstractMetadataImpl newMetadata(Clock clock) {
     return Mockito.mock(
         AbstractMetadataImpl.class,
@@ -0,0 +1,124 @@
+/**
+ * Copyright (c) Connexta
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package com.connexta.transformation.commons.api.impl;
+
+import com.connexta.transformation.commons.api.MetadataTransformation;
+import com.connexta.transformation.commons.api.Transformation;
+import com.connexta.transformation.commons.api.TransformationLifecycleListener;
+import java.util.concurrent.Executor;
+import org.hamcrest.Matchers;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+public class AsyncTransformationLifecycleListenerTest {
+  private static final Object CONTEXT = new Object();
+
+  private final TransformationLifecycleListener delegate =
+      Mockito.mock(TransformationLifecycleListener.class);
+
+  private final MetadataTransformation metadata = Mockito.mock(MetadataTransformation.class);
+  private final Transformation transformation = Mockito.mock(Transformation.class);
+
+  private final AsyncTransformationLifecycleListener listener =
+      new AsyncTransformationLifecycleListener(delegate, Runnable::run);
+
+  @Test
+  public void testGetDelegate() throws Exception {
+    Assert.assertThat(listener.getDelegate(), Matchers.sameInstance(delegate));
+  }
+
+  @Test
+  public void testTransformationCreatedIsSynchronous() throws Exception {
+    final Executor executor = Mockito.mock(Executor.class);
+    final AsyncTransformationLifecycleListener listener =
+        new AsyncTransformationLifecycleListener(delegate, executor);
+
+    Mockito.when(delegate.transformationCreated(transformation)).thenReturn(CONTEXT);
+
+    Assert.assertThat(
+        listener.transformationCreated(transformation), Matchers.sameInstance(CONTEXT));
+    Mockito.verifyZeroInteractions(executor);
+  }
+
+  @Test
+  public void testCallbacksAreDispatchedThroughTheExecutor() throws Exception {
+    final Executor executor = Mockito.mock(Executor.class);
+    final AsyncTransformationLifecycleListener listener =
+        new AsyncTransformationLifecycleListener(delegate, executor);
+    final ArgumentCaptor<Runnable> runnable = ArgumentCaptor.forClass(Runnable.class);
+
+    listener.metadataSucceeded(metadata, CONTEXT);
+
+    Mockito.verifyZeroInteractions(delegate);
+    Mockito.verify(executor).execute(runnable.capture());
+
+    runnable.getValue().run();
+
+    Mockito.verify(delegate).metadataSucceeded(metadata, CONTEXT);
+  }
+
+  @Test
+  public void testMetadataAdded() throws Exception {
+    listener.metadataAdded(metadata, CONTEXT);
+
+    Mockito.verify(delegate).metadataAdded(metadata, CONTEXT);
+  }
+
+  @Test
+  public void testMetadataSucceeded() throws Exception {
+    listener.metadataSucceeded(metadata, CONTEXT);
+
+    Mockito.verify(delegate).metadataSucceeded(metadata, CONTEXT);
+  }
+
+  @Test
+  public void testMetadataFailed() throws Exception {
+    listener.metadataFailed(metadata, CONTEXT);
+
+    Mockito.verify(delegate).metadataFailed(metadata, CONTEXT);
+  }
+
+  @Test
+  public void testContentRead() throws Exception {
+    listener.contentRead(metadata, CONTEXT);
+
+    Mockito.verify(delegate).contentRead(metadata, CONTEXT);
+  }
+
+  @Test
+  public void testTransformationDeleted() throws Exception {
+    listener.transformationDeleted(transformation, CONTEXT);
+
+    Mockito.verify(delegate).transformationDeleted(transformation, CONTEXT);
+  }
+
+  @Test
+  public void testFailingDelegateDoesNotStopDispatching() throws Exception {
+    Mockito.doThrow(new IllegalStateException("testing"))
+        .when(delegate)
+        .metadataFailed(metadata, CONTEXT);
+
+    listener.metadataFailed(metadata, CONTEXT);
+    listener.transformationDeleted(transformation, CONTEXT);
+
+    Mockito.verify(delegate).transformationDeleted(transformation, CONTEXT);
+  }
+
+  @Test
+  public void testToString() throws Exception {
+    Assert.assertThat(listener.toString(), Matchers.containsString(delegate.toString()));
+  }
+}
@@ -0,0 +1,136 @@
+/**
+ * Copyright (c) Connexta
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package com.connexta.transformation.commons.api.impl;
+
+import java.time.Duration;
+import org.hamcrest.Matchers;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+public class CompletionLatencyConfigTest {
+  @Rule public ExpectedException exception = ExpectedException.none();
+
+  private final CompletionLatencyConfig config = new CompletionLatencyConfig();
+
+  @Test
+  public void testDefaults() {
+    Assert.assertThat(config.getPercentiles(), Matchers.equalTo(new double[] {0.5, 0.99, 0.999}));
+    Assert.assertThat(config.getServiceLevelObjectives(), Matchers.emptyArray());
+    Assert.assertThat(config.getMinimumExpectedValue(), Matchers.equalTo(Duration.ofMillis(1L)));
+    Assert.assertThat(config.getMaximumExpectedValue(), Matchers.equalTo(Duration.ofHours(1L)));
+  }
+
+  @Test
+  public void testSetters() {
+    Assert.assertThat(
+        config
+            .setPercentiles(0.0, 0.95, 1.0)
+            .setServiceLevelObjectives(Duration.ofSeconds(5L), Duration.ofSeconds(1L))
+            .setExpectedRange(Duration.ofMillis(10L), Duration.ofMillis(10L)),
+        Matchers.sameInstance(config));
+    Assert.assertThat(config.getPercentiles(), Matchers.equalTo(new double[] {0.0, 0.95, 1.0}));
+    Assert.assertThat(
+        config.getServiceLevelObjectives(),
+        Matchers.arrayContaining(Duration.ofSeconds(1L), Duration.ofSeconds(5L)));
+    Assert.assertThat(config.getMinimumExpectedValue(), Matchers.equalTo(Duration.ofMillis(10L)));
+    Assert.assertThat(config.getMaximumExpectedValue(), Matchers.equalTo(Duration.ofMillis(10L)));
+  }
+
+  @Test
+  public void testGettersReturnCopies() {
+    config.getPercentiles()[0] = 0.1;
+    config.setServiceLevelObjectives(Duration.ofSeconds(1L)).getServiceLevelObjectives()[0] = null;
+
+    Assert.assertThat(config.getPercentiles()[0], Matchers.equalTo(0.5));
+    Assert.assertThat(
+        config.getServiceLevelObjectives(), Matchers.arrayContaining(Duration.ofSeconds(1L)));
+  }
+
+  @Test
+  public void testSetPercentilesWithNegativePercentile() {
+    exception.expect(IllegalArgumentException.class);
+    exception.expectMessage(Matchers.matchesPattern(".*invalid percentile.*"));
+
+    config.setPercentiles(0.5, -0.1);
+  }
+
+  @Test
+  public void testSetPercentilesWithPercentileGreaterThanOne() {
+    exception.expect(IllegalArgumentException.class);
+    exception.expectMessage(Matchers.matchesPattern(".*invalid percentile.*"));
+
+    config.setPercentiles(1.1);
+  }
+
+  @Test
+  public void testSetPercentilesWithNaN() {
+    exception.expect(IllegalArgumentException.class);
+    exception.expectMessage(Matchers.matchesPattern(".*invalid percentile.*"));
+
+    config.setPercentiles(Double.NaN);
+  }
+
+  @Test
+  public void testSetServiceLevelObjectivesWithZero() {
+    exception.expect(IllegalArgumentException.class);
+    exception.expectMessage(Matchers.matchesPattern(".*non-positive service level objective.*"));
+
+    config.setServiceLevelObjectives(Duration.ZERO);
+  }
+
+  @Test
+  public void testSetServiceLevelObjectivesWithNegative() {
+    exception.expect(IllegalArgumentException.class);
+    exception.expectMessage(Matchers.matchesPattern(".*non-positive service level objective.*"));
+
+    config.setServiceLevelObjectives(Duration.ofSeconds(-1L));
+  }
+
+  @Test
+  public void testSetExpectedRangeWithZeroMinimum() {
+    exception.expect(IllegalArgumentException.class);
+    exception.expectMessage(Matchers.matchesPattern(".*non-positive minimum.*"));
+
+    config.setExpectedRange(Duration.ZERO, Duration.ofSeconds(1L));
+  }
+
+  @Test
+  public void testSetExpectedRangeWithNegativeMinimum() {
+    exception.expect(IllegalArgumentException.class);
+    exception.expectMessage(Matchers.matchesPattern(".*non-positive minimum.*"));
+
+    config.setExpectedRange(Duration.ofSeconds(-1L), Duration.ofSeconds(1L));
+  }
+
+  @Test
+  public void testSetExpectedRangeWithMaximumLessThanMinimum() {
+    exception.expect(IllegalArgumentException.class);
+    exception.expectMessage(Matchers.matchesPattern(".*invalid maximum.*less than.*"));
+
+    config.setExpectedRange(Duration.ofSeconds(2L), Duration.ofSeconds(1L));
+  }
+
+  @Test
+  public void testToString() {
+    Assert.assertThat(
+        config.setServiceLevelObjectives(Duration.ofSeconds(1L)).toString(),
+        Matchers.allOf(
+            Matchers.containsString("[0.5, 0.99, 0.999]"),
+            Matchers.containsString("[PT1S]"),
+            Matchers.containsString("PT0.001S"),
+            Matchers.containsString("PT1H")));
+  }
+}
@@ -0,0 +1,184 @@
+/**
+ * Copyright (c) Connexta
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package com.connexta.transformation.commons.api.impl;
+
+import static org.mockito.Mockito.when;
+
+import com.connexta.transformation.commons.api.MetadataTransformation;
+import com.connexta.transformation.commons.api.TransformationStatus.State;
+import com.github.npathai.hamcrestopt.OptionalMatchers;
+import io.micrometer.core.instrument.MockClock;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import org.hamcrest.Matchers;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+public class CompletionLatencyRecorderTest {
+  private static final String TYPE = "metacard";
+  private static final String TYPE2 = "irm";
+  private static final Instant START = Instant.ofEpochMilli(1000L);
+
+  private final SimpleMeterRegistry registry =
+      new SimpleMeterRegistry(SimpleConfig.DEFAULT, new MockClock());
+
+  private final CompletionLatencyConfig config =
+      new CompletionLatencyConfig()
+          .setPercentiles(0.5, 0.99)
+          .setServiceLevelObjectives(Duration.ofMillis(10L), Duration.ofMillis(50L));
+
+  private final CompletionLatencyRecorder recorder =
+      new CompletionLatencyRecorder(registry, config);
+
+  @Test
+  public void testNothingRecorded() {
+    Assert.assertThat(recorder.getMetadataTypes(), Matchers.empty());
+    Assert.assertThat(
+        recorder.getSnapshot(CompletionLatencyRecorderTest.TYPE, State.SUCCESSFUL),
+        OptionalMatchers.isEmpty());
+    Assert.assertThat(
+        registry.find(CompletionLatencyRecorder.COMPLETION).timer(), Matchers.nullValue());
+  }
+
+  @Test
+  public void testSuccessAndFailureAreRecordedSeparately() {
+    complete(CompletionLatencyRecorderTest.TYPE, State.SUCCESSFUL, 20L);
+    complete(CompletionLatencyRecorderTest.TYPE, State.SUCCESSFUL, 40L);
+    complete(CompletionLatencyRecorderTest.TYPE, State.FAILED, 5L);
+    complete(CompletionLatencyRecorderTest.TYPE2, State.FAILED, 100L);
+
+    Assert.assertThat(
+        recorder.getMetadataTypes(),
+        Matchers.contains(CompletionLatencyRecorderTest.TYPE2, CompletionLatencyRecorderTest.TYPE));
+    Assert.assertThat(
+        timer(CompletionLatencyRecorderTest.TYPE, "successful").count(), Matchers.equalTo(2L));
+    Assert.assertThat(
+        timer(CompletionLatencyRecorderTest.TYPE, "failed").count(), Matchers.equalTo(1L));
+    Assert.assertThat(
+        timer(CompletionLatencyRecorderTest.TYPE2, "failed").count(), Matchers.equalTo(1L));
+    Assert.assertThat(
+        registry
+            .find(CompletionLatencyRecorder.COMPLETION)
+            .tag(
+                MeteredTransformationManager.METADATA_TYPE_TAG, CompletionLatencyRecorderTest.TYPE2)
+            .tag(CompletionLatencyRecorder.STATE_TAG, "successful")
+            .timer(),
+        Matchers.nullValue());
+  }
+
+  @Test
+  public void testSnapshot() {
+    for (long i = 1L; i <= 100L; i++) {
+      complete(CompletionLatencyRecorderTest.TYPE, State.SUCCESSFUL, i);
+    }
+
+    final Optional<CompletionLatencySnapshot> snapshot =
+        recorder.getSnapshot(CompletionLatencyRecorderTest.TYPE, State.SUCCESSFUL);
+
+    Assert.assertThat(snapshot, OptionalMatchers.isPresent());
+    Assert.assertThat(
+        snapshot.get().getMetadataType(), Matchers.equalTo(CompletionLatencyRecorderTest.TYPE));
+    Assert.assertThat(snapshot.get().getState(), Matchers.equalTo(State.SUCCESSFUL));
+    Assert.assertThat(snapshot.get().getCount(), Matchers.equalTo(100L));
+    Assert.assertThat(
+        snapshot.get().getMean(), Matchers.equalTo(Duration.ofMillis(50L).plusNanos(500_000L)));
+    Assert.assertThat(snapshot.get().getMax(), Matchers.equalTo(Duration.ofMillis(100L)));
+    Assert.assertThat(snapshot.get().getPercentiles().keySet(), Matchers.contains(0.5, 0.99));
+    Assert.assertThat(
+        snapshot.get().getPercentiles().get(0.5),
+        Matchers.allOf(
+            Matchers.greaterThan(Duration.ofMillis(40L)),
+            Matchers.lessThan(Duration.ofMillis(60L))));
+    Assert.assertThat(
+        snapshot.get().getPercentiles().get(0.99), Matchers.greaterThan(Duration.ofMillis(90L)));
+    Assert.assertThat(
+        snapshot.get().getServiceLevelCounts(),
+        Matchers.allOf(
+            Matchers.hasEntry(Duration.ofMillis(10L), 10L),
+            Matchers.hasEntry(Duration.ofMillis(50L), 50L)));
+    Assert.assertThat(
+        snapshot.get().toString(),
+        Matchers.allOf(
+            Matchers.containsString(CompletionLatencyRecorderTest.TYPE),
+            Matchers.containsString("count=100")));
+  }
+
+  @Test
+  public void testSnapshotForUnsupportedState() {
+    complete(CompletionLatencyRecorderTest.TYPE, State.SUCCESSFUL, 10L);
+
+    Assert.assertThat(
+        recorder.getSnapshot(CompletionLatencyRecorderTest.TYPE, State.IN_PROGRESS),
+        OptionalMatchers.isEmpty());
+  }
+
+  @Test
+  public void testMetadataNeitherSuccessfulNorFailedIsIgnored() {
+    complete(CompletionLatencyRecorderTest.TYPE, State.UNKNOWN, 10L);
+
+    Assert.assertThat(recorder.getMetadataTypes(), Matchers.empty());
+  }
+
+  @Test
+  public void testMetadataWithoutCompletionTimeIsIgnored() {
+    final MetadataTransformation metadata = Mockito.mock(MetadataTransformation.class);
+
+    when(metadata.getMetadataType()).thenReturn(CompletionLatencyRecorderTest.TYPE);
+    when(metadata.getState()).thenReturn(State.SUCCESSFUL);
+    when(metadata.getStartTime()).thenReturn(CompletionLatencyRecorderTest.START);
+    when(metadata.getCompletionTime()).thenReturn(Optional.empty());
+
+    recorder.metadataCompleted(metadata);
+
+    Assert.assertThat(recorder.getMetadataTypes(), Matchers.empty());
+  }
+
+  @Test
+  public void testLaterConfigChangesHaveNoEffect() {
+    config.setPercentiles(0.75);
+    complete(CompletionLatencyRecorderTest.TYPE, State.SUCCESSFUL, 10L);
+
+    Assert.assertThat(
+        recorder
+            .getSnapshot(CompletionLatencyRecorderTest.TYPE, State.SUCCESSFUL)
+            .get()
+            .getPercentiles()
+            .keySet(),
+        Matchers.contains(0.5, 0.99));
+  }
+
+  private void complete(String type, State state, long millis) {
+    final MetadataTransformation metadata = Mockito.mock(MetadataTransformation.class);
+
+    when(metadata.getMetadataType()).thenReturn(type);
+    when(metadata.getState()).thenReturn(state);
+    when(metadata.getStartTime()).thenReturn(CompletionLatencyRecorderTest.START);
+    when(metadata.getCompletionTime())
+        .thenReturn(Optional.of(CompletionLatencyRecorderTest.START.plusMillis(millis)));
+    recorder.metadataCompleted(metadata);
+  }
+
+  private Timer timer(String type, String state) {
+    return registry
+        .get(CompletionLatencyRecorder.COMPLETION)
+        .tag(MeteredTransformationManager.METADATA_TYPE_TAG, type)
+        .tag(CompletionLatencyRecorder.STATE_TAG, state)
+        .timer();
+  }
+}
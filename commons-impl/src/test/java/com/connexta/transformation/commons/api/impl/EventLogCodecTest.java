@@ -0,0 +1,188 @@
+/**
+ * Copyright (c) Connexta
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package com.connexta.transformation.commons.api.impl;
+
+import com.connexta.transformation.commons.api.impl.TransformationEvent.Type;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.zip.CRC32C;
+import org.hamcrest.Matchers;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+public class EventLogCodecTest {
+  private static final long TIME = 1_000L;
+  private static final String ID = "id";
+  private static final String TYPE = "irm";
+
+  @Rule public ExpectedException exception = ExpectedException.none();
+
+  @Test
+  public void testEncodeAndDecode() throws Exception {
+    final ByteBuffer record =
+        EventLogCodec.encode(
+            3L, Type.FAILED, EventLogCodecTest.TIME, EventLogCodecTest.ID, EventLogCodecTest.TYPE);
+
+    Assert.assertThat(
+        EventLogCodec.decode(record),
+        Matchers.equalTo(
+            new TransformationEvent(
+                3L,
+                Type.FAILED,
+                Instant.ofEpochMilli(EventLogCodecTest.TIME),
+                EventLogCodecTest.ID,
+                EventLogCodecTest.TYPE)));
+    Assert.assertThat(record.hasRemaining(), Matchers.equalTo(false));
+  }
+
+  @Test
+  public void testEncodeAndDecodeWithoutMetadataType() throws Exception {
+    final ByteBuffer record =
+        EventLogCodec.encode(0L, Type.CREATED, EventLogCodecTest.TIME, EventLogCodecTest.ID, null);
+
+    Assert.assertThat(
+        EventLogCodec.decode(record),
+        Matchers.equalTo(
+            new TransformationEvent(
+                0L,
+                Type.CREATED,
+                Instant.ofEpochMilli(EventLogCodecTest.TIME),
+                EventLogCodecTest.ID,
+                null)));
+  }
+
+  @Test
+  public void testEncodeWhenTooLarge() throws Exception {
+    exception.expect(IllegalArgumentException.class);
+    exception.expectMessage(Matchers.matchesPattern(".*too large.*"));
+
+    EventLogCodec.encode(
+        0L,
+        Type.CREATED,
+        EventLogCodecTest.TIME,
+        EventLogCodecTest.ID,
+        new String(new char[EventLogCodec.MAXIMUM_RECORD_BYTES]));
+  }
+
+  @Test
+  public void testDecodeWhenHeaderIsIncomplete() throws Exception {
+    final ByteBuffer buffer = ByteBuffer.allocate(EventLogCodec.HEADER_BYTES - 1);
+
+    Assert.assertThat(EventLogCodec.decode(buffer), Matchers.nullValue());
+    Assert.assertThat(buffer.position(), Matchers.equalTo(0));
+  }
+
+  @Test
+  public void testDecodeWhenPayloadIsIncomplete() throws Exception {
+    final ByteBuffer record =
+        EventLogCodec.encode(0L, Type.CREATED, EventLogCodecTest.TIME, EventLogCodecTest.ID, null);
+
+    record.limit(record.limit() - 1);
+
+    Assert.assertThat(EventLogCodec.decode(record), Matchers.nullValue());
+    Assert.assertThat(record.position(), Matchers.equalTo(0));
+  }
+
+  @Test
+  public void testDecodeWhenLengthIsTooSmall() throws Exception {
+    exception.expect(StreamCorruptedException.class);
+    exception.expectMessage(Matchers.matchesPattern(".*invalid event record length.*"));
+
+    EventLogCodec.decode(ByteBuffer.allocate(64).putInt(0, 1));
+  }
+
+  @Test
+  public void testDecodeWhenLengthIsTooLarge() throws Exception {
+    exception.expect(StreamCorruptedException.class);
+    exception.expectMessage(Matchers.matchesPattern(".*invalid event record length.*"));
+
+    EventLogCodec.decode(ByteBuffer.allocate(64).putInt(0, EventLogCodec.MAXIMUM_RECORD_BYTES));
+  }
+
+  @Test
+  public void testDecodeWhenChecksumIsInvalid() throws Exception {
+    final ByteBuffer record =
+        EventLogCodec.encode(0L, Type.CREATED, EventLogCodecTest.TIME, EventLogCodecTest.ID, null);
+
+    record.put(record.limit() - 1, (byte) 0x7f);
+
+    exception.expect(StreamCorruptedException.class);
+    exception.expectMessage(Matchers.matchesPattern(".*checksum.*"));
+
+    EventLogCodec.decode(record);
+  }
+
+  @Test
+  public void testDecodeWhenTypeIsInvalid() throws Exception {
+    exception.expect(StreamCorruptedException.class);
+    exception.expectMessage(Matchers.matchesPattern(".*invalid event record.*"));
+
+    EventLogCodec.decode(EventLogCodecTest.record(Type.values().length, 2, 0, 0));
+  }
+
+  @Test
+  public void testDecodeWhenTypeIsNegative() throws Exception {
+    exception.expect(StreamCorruptedException.class);
+    exception.expectMessage(Matchers.matchesPattern(".*invalid event record.*"));
+
+    EventLogCodec.decode(EventLogCodecTest.record(-1, 2, 0, 0));
+  }
+
+  @Test
+  public void testDecodeWhenStringLengthIsNegative() throws Exception {
+    exception.expect(StreamCorruptedException.class);
+    exception.expectMessage(Matchers.matchesPattern(".*string length.*"));
+
+    EventLogCodec.decode(EventLogCodecTest.record(0, 2, -2, 0));
+  }
+
+  @Test
+  public void testDecodeWhenStringLengthIsTooLarge() throws Exception {
+    exception.expect(StreamCorruptedException.class);
+    exception.expectMessage(Matchers.matchesPattern(".*string length.*"));
+
+    EventLogCodec.decode(EventLogCodecTest.record(0, 200, 0, 0));
+  }
+
+  @Test
+  public void testDecodeWhenPayloadHasExtraBytes() throws Exception {
+    exception.expect(StreamCorruptedException.class);
+    exception.expectMessage(Matchers.matchesPattern(".*invalid event record.*"));
+
+    EventLogCodec.decode(EventLogCodecTest.record(0, 2, -1, 3));
+  }
+
+  private static ByteBuffer record(int type, int idLength, int metadataLength, int extra) {
+    final ByteBuffer payload =
+        ByteBuffer.allocate(Long.BYTES * 2 + 1 + Integer.BYTES * 2 + 2 + extra)
+            .putLong(0L)
+            .putLong(EventLogCodecTest.TIME)
+            .put((byte) type)
+            .putInt(idLength)
+            .put(new byte[] {'i', 'd'})
+            .putInt(metadataLength);
+    final CRC32C crc = new CRC32C();
+
+    payload.rewind();
+    crc.update(payload.duplicate());
+    return ByteBuffer.allocate(EventLogCodec.HEADER_BYTES + payload.capacity())
+        .putInt(payload.capacity())
+        .putInt((int) crc.getValue())
+        .put(payload)
+        .flip();
+  }
+}
@@ -0,0 +1,298 @@
+/**
+ * Copyright (c) Connexta
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package com.connexta.transformation.commons.api.impl;
+
+import static org.mockito.Mockito.when;
+
+import com.connexta.transformation.commons.api.ContentOutputStream;
+import com.connexta.transformation.commons.api.ErrorCode;
+import com.connexta.transformation.commons.api.MetadataTransformation;
+import com.connexta.transformation.commons.api.RequestInfo;
+import com.connexta.transformation.commons.api.TransformationManager;
+import com.connexta.transformation.commons.api.TransformationStatus.State;
+import com.github.npathai.hamcrestopt.OptionalMatchers;
+import io.micrometer.core.instrument.MockClock;
+import io.micrometer.core.instrument.simple.SimpleConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.OptionalLong;
+import org.hamcrest.Matchers;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+public class MeteredMetadataTransformationTest {
+  private static final String ID = "1234";
+  private static final String TYPE = "metacard";
+  private static final String CONTENT_TYPE = "text/plain";
+  private static final Instant START_TIME = Instant.ofEpochMilli(111L);
+  private static final Instant COMPLETION_TIME = Instant.ofEpochMilli(2222L);
+
+  private final SimpleMeterRegistry registry =
+      new SimpleMeterRegistry(SimpleConfig.DEFAULT, new MockClock());
+  private final MetadataTransformation delegate = Mockito.mock(MetadataTransformation.class);
+  private final InputStream content = new ByteArrayInputStream(new byte[0]);
+
+  private MeteredMetadataTransformation metadata;
+
+  @Before
+  public void setup() {
+    final MeteredTransformationManager manager =
+        new MeteredTransformationManager(Mockito.mock(TransformationManager.class), registry);
+
+    when(delegate.getMetadataType()).thenReturn(MeteredMetadataTransformationTest.TYPE);
+    this.metadata = new MeteredMetadataTransformation(delegate, manager);
+  }
+
+  @Test
+  public void testStatusIsDelegated() {
+    final RequestInfo request = Mockito.mock(RequestInfo.class);
+
+    when(delegate.getTransformId()).thenReturn(MeteredMetadataTransformationTest.ID);
+    when(delegate.getRequestInfo()).thenReturn(request);
+    when(delegate.getStartTime()).thenReturn(MeteredMetadataTransformationTest.START_TIME);
+    when(delegate.getCompletionTime())
+        .thenReturn(Optional.of(MeteredMetadataTransformationTest.COMPLETION_TIME));
+    when(delegate.getState()).thenReturn(State.SUCCESSFUL);
+    when(delegate.getDuration()).thenReturn(Duration.ofSeconds(2L));
+    when(delegate.isDeleted()).thenReturn(false);
+    when(delegate.isCompleted()).thenReturn(true);
+    when(delegate.hasFailed()).thenReturn(false);
+    when(delegate.wasSuccessful()).thenReturn(true);
+    when(delegate.isUnknown()).thenReturn(false);
+    when(delegate.getContentType())
+        .thenReturn(Optional.of(MeteredMetadataTransformationTest.CONTENT_TYPE));
+    when(delegate.getContentLength()).thenReturn(OptionalLong.of(12L));
+    when(delegate.getContentVersion()).thenReturn(Optional.of("version"));
+    when(delegate.getContentCrc32c()).thenReturn(OptionalLong.of(34L));
+    when(delegate.getContentSha256()).thenReturn(Optional.of("sha"));
+    when(delegate.getFailureReason()).thenReturn(Optional.empty());
+    when(delegate.getFailureMessage()).thenReturn(Optional.empty());
+
+    Assert.assertThat(metadata.getDelegate(), Matchers.sameInstance(delegate));
+    Assert.assertThat(
+        metadata.getMetadataType(), Matchers.equalTo(MeteredMetadataTransformationTest.TYPE));
+    Assert.assertThat(
+        metadata.getTransformId(), Matchers.equalTo(MeteredMetadataTransformationTest.ID));
+    Assert.assertThat(metadata.getRequestInfo(), Matchers.sameInstance(request));
+    Assert.assertThat(
+        metadata.getStartTime(), Matchers.equalTo(MeteredMetadataTransformationTest.START_TIME));
+    Assert.assertThat(
+        metadata.getCompletionTime(),
+        OptionalMatchers.isPresentAndIs(MeteredMetadataTransformationTest.COMPLETION_TIME));
+    Assert.assertThat(metadata.getState(), Matchers.equalTo(State.SUCCESSFUL));
+    Assert.assertThat(metadata.getDuration(), Matchers.equalTo(Duration.ofSeconds(2L)));
+    Assert.assertThat(metadata.isDeleted(), Matchers.equalTo(false));
+    Assert.assertThat(metadata.isCompleted(), Matchers.equalTo(true));
+    Assert.assertThat(metadata.hasFailed(), Matchers.equalTo(false));
+    Assert.assertThat(metadata.wasSuccessful(), Matchers.equalTo(true));
+    Assert.assertThat(metadata.isUnknown(), Matchers.equalTo(false));
+    Assert.assertThat(
+        metadata.getContentType(),
+        OptionalMatchers.isPresentAndIs(MeteredMetadataTransformationTest.CONTENT_TYPE));
+    Assert.assertThat(metadata.getContentLength(), Matchers.equalTo(OptionalLong.of(12L)));
+    Assert.assertThat(metadata.getContentVersion(), OptionalMatchers.isPresentAndIs("version"));
+    Assert.assertThat(metadata.getContentCrc32c(), Matchers.equalTo(OptionalLong.of(34L)));
+    Assert.assertThat(metadata.getContentSha256(), OptionalMatchers.isPresentAndIs("sha"));
+    Assert.assertThat(metadata.getFailureReason(), OptionalMatchers.isEmpty());
+    Assert.assertThat(metadata.getFailureMessage(), OptionalMatchers.isEmpty());
+  }
+
+  @Test
+  public void testContentReadsAreTimed() throws Exception {
+    final Reader reader = new StringReader("");
+    final ReadableByteChannel channel = Channels.newChannel(content);
+    final WritableByteChannel target = Channels.newChannel(new ByteArrayOutputStream());
+
+    when(delegate.getContent()).thenReturn(Optional.of(content));
+    when(delegate.getContent(StandardCharsets.UTF_8)).thenReturn(Optional.of(reader));
+    when(delegate.getContent(1L, 2L)).thenReturn(Optional.of(content));
+    when(delegate.getVerifiedContent()).thenReturn(Optional.of(content));
+    when(delegate.getContentChannel()).thenReturn(Optional.of(channel));
+    when(delegate.transferContentTo(target)).thenReturn(OptionalLong.of(0L));
+
+    Assert.assertThat(metadata.getContent(), OptionalMatchers.isPresentAndIs(content));
+    Assert.assertThat(
+        metadata.getContent(StandardCharsets.UTF_8), OptionalMatchers.isPresentAndIs(reader));
+    Assert.assertThat(metadata.getContent(1L, 2L), OptionalMatchers.isPresentAndIs(content));
+    Assert.assertThat(metadata.getVerifiedContent(), OptionalMatchers.isPresentAndIs(content));
+    Assert.assertThat(metadata.getContentChannel(), OptionalMatchers.isPresentAndIs(channel));
+    Assert.assertThat(metadata.transferContentTo(target), Matchers.equalTo(OptionalLong.of(0L)));
+    Assert.assertThat(count("get.content"), Matchers.equalTo(5L));
+    Assert.assertThat(count("transfer.content"), Matchers.equalTo(1L));
+  }
+
+  @Test
+  public void testSucceedIsTimed() throws Exception {
+    final Reader reader = new StringReader("");
+
+    metadata.succeed(MeteredMetadataTransformationTest.CONTENT_TYPE, content);
+    metadata.succeed(
+        MeteredMetadataTransformationTest.CONTENT_TYPE, StandardCharsets.UTF_8, reader);
+
+    Mockito.verify(delegate).succeed(MeteredMetadataTransformationTest.CONTENT_TYPE, content);
+    Mockito.verify(delegate)
+        .succeed(MeteredMetadataTransformationTest.CONTENT_TYPE, StandardCharsets.UTF_8, reader);
+    Assert.assertThat(count("succeed"), Matchers.equalTo(2L));
+  }
+
+  @Test
+  public void testOpenContentIsTimedWhenClosed() throws Exception {
+    final BufferedContentOutputStream out = Mockito.spy(new BufferedContentOutputStream());
+
+    when(delegate.openContent(MeteredMetadataTransformationTest.CONTENT_TYPE)).thenReturn(out);
+
+    final OutputStream os = metadata.openContent(MeteredMetadataTransformationTest.CONTENT_TYPE);
+
+    os.write('a');
+    os.write("bcd".getBytes(StandardCharsets.UTF_8), 1, 2);
+    os.flush();
+    Mockito.verify(out).flush();
+    Assert.assertThat(
+        registry.find(MeteredTransformationManager.METADATA_REQUESTS).timer(),
+        Matchers.nullValue());
+    os.close();
+    os.close();
+
+    Assert.assertThat(out.toString(), Matchers.equalTo("acd"));
+    Mockito.verify(out).close();
+    Assert.assertThat(count("succeed"), Matchers.equalTo(1L));
+  }
+
+  @Test
+  public void testOpenContentIsNotTimedWhenAborted() throws Exception {
+    final BufferedContentOutputStream out = Mockito.spy(new BufferedContentOutputStream());
+
+    when(delegate.openContent(MeteredMetadataTransformationTest.CONTENT_TYPE)).thenReturn(out);
+
+    final ContentOutputStream os =
+        metadata.openContent(MeteredMetadataTransformationTest.CONTENT_TYPE);
+
+    os.write('a');
+    os.abort();
+    os.close();
+
+    Mockito.verify(out).abort();
+    Mockito.verify(out, Mockito.never()).close();
+    Assert.assertThat(
+        registry.find(MeteredTransformationManager.METADATA_REQUESTS).timer(),
+        Matchers.nullValue());
+  }
+
+  @Test
+  public void testOpenContentWriter() throws Exception {
+    final BufferedContentOutputStream out = new BufferedContentOutputStream();
+
+    when(delegate.openContent(MeteredMetadataTransformationTest.CONTENT_TYPE)).thenReturn(out);
+
+    try (final Writer writer =
+        metadata.openContent(
+            MeteredMetadataTransformationTest.CONTENT_TYPE, StandardCharsets.UTF_8)) {
+      writer.write("abc");
+    }
+
+    Assert.assertThat(out.toString(), Matchers.equalTo("abc"));
+    Assert.assertThat(count("succeed"), Matchers.equalTo(1L));
+  }
+
+  @Test
+  public void testFailIsTimedAndCounted() throws Exception {
+    metadata.fail(ErrorCode.TRANSFORMATION_FAILURE, "some message");
+
+    Mockito.verify(delegate).fail(ErrorCode.TRANSFORMATION_FAILURE, "some message");
+    Assert.assertThat(count("fail"), Matchers.equalTo(1L));
+    Assert.assertThat(
+        registry
+            .get(MeteredTransformationManager.FAILURES)
+            .tag(MeteredTransformationManager.REASON_TAG, "transformation_failure")
+            .tag(
+                MeteredTransformationManager.METADATA_TYPE_TAG,
+                MeteredMetadataTransformationTest.TYPE)
+            .counter()
+            .count(),
+        Matchers.equalTo(1.0));
+  }
+
+  @Test
+  public void testFailWhenRejectedIsTimedButNotCounted() throws Exception {
+    Mockito.doThrow(new IllegalStateException("completed"))
+        .when(delegate)
+        .fail(ErrorCode.TRANSFORMATION_FAILURE, "some message");
+
+    try {
+      metadata.fail(ErrorCode.TRANSFORMATION_FAILURE, "some message");
+      Assert.fail("expected an IllegalStateException");
+    } catch (IllegalStateException e) {
+      Assert.assertThat(count("fail"), Matchers.equalTo(1L));
+      Assert.assertThat(
+          registry.find(MeteredTransformationManager.FAILURES).counter(), Matchers.nullValue());
+    }
+  }
+
+  @Test
+  public void testEqualsHashCodeAndToString() {
+    final MeteredMetadataTransformation other =
+        new MeteredMetadataTransformation(
+            delegate,
+            new MeteredTransformationManager(Mockito.mock(TransformationManager.class), registry));
+
+    Assert.assertThat(metadata, Matchers.equalTo(other));
+    Assert.assertThat(metadata.hashCode(), Matchers.equalTo(delegate.hashCode()));
+    Assert.assertThat(metadata.toString(), Matchers.equalTo(delegate.toString()));
+    Assert.assertThat(metadata, Matchers.not(Matchers.equalTo(delegate)));
+  }
+
+  private long count(String operation) {
+    return registry
+        .get(MeteredTransformationManager.METADATA_REQUESTS)
+        .tag(MeteredTransformationManager.OPERATION_TAG, operation)
+        .tag(MeteredTransformationManager.METADATA_TYPE_TAG, MeteredMetadataTransformationTest.TYPE)
+        .timer()
+        .count();
+  }
+
+  /** Content stream accumulating the content written in memory. */
+  static class BufferedContentOutputStream extends ContentOutputStream {
+    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+
+    @Override
+    public void write(int b) {
+      buffer.write(b);
+    }
+
+    @Override
+    public void abort() {
+      buffer.reset();
+    }
+
+    @Override
+    public String toString() {
+      return buffer.toString(StandardCharsets.UTF_8);
+    }
+  }
+}
@@ -0,0 +1,385 @@
+/**
+ * Copyright (c) Connexta
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package com.connexta.transformation.commons.api.impl;
+
+import static org.mockito.Mockito.when;
+
+import com.connexta.transformation.commons.api.ErrorCode;
+import com.connexta.transformation.commons.api.MetadataTransformation;
+import com.connexta.transformation.commons.api.RequestInfo;
+import com.connexta.transformation.commons.api.Transformation;
+import com.connexta.transformation.commons.api.TransformationListener;
+import com.connexta.transformation.commons.api.TransformationLookup;
+import com.connexta.transformation.commons.api.TransformationManager;
+import com.connexta.transformation.commons.api.TransformationPage;
+import com.connexta.transformation.commons.api.TransformationQuery;
+import com.connexta.transformation.commons.api.exceptions.TransformationNotFoundException;
+import com.connexta.transformation.commons.api.impl.MeteredTransformationManager.Operation;
+import com.github.npathai.hamcrestopt.OptionalMatchers;
+import io.micrometer.core.instrument.MockClock;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.net.URL;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.hamcrest.Matchers;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.mockito.Mockito;
+import org.mockito.stubbing.Answer;
+
+public class MeteredTransformationManagerTest {
+  private static final String ID = "1234";
+  private static final String ID2 = "5678";
+  private static final String TYPE = "metacard";
+  private static final long ELAPSED = 25L;
+
+  @Rule public ExpectedException exception = ExpectedException.none();
+
+  private final MockClock clock = new MockClock();
+  private final SimpleMeterRegistry registry = new SimpleMeterRegistry(SimpleConfig.DEFAULT, clock);
+  private final TransformationManager delegate = Mockito.mock(TransformationManager.class);
+  private final Transformation transformation = Mockito.mock(Transformation.class);
+  private final MetadataTransformation metadata = Mockito.mock(MetadataTransformation.class);
+
+  private MeteredTransformationManager manager;
+  private URL location;
+
+  @Before
+  public void setup() throws Exception {
+    when(transformation.getTransformId()).thenReturn(MeteredTransformationManagerTest.ID);
+    when(metadata.getMetadataType()).thenReturn(MeteredTransformationManagerTest.TYPE);
+    this.manager = new MeteredTransformationManager(delegate, registry);
+    this.location = new URL("http://current.com");
+  }
+
+  @Test
+  public void testGetters() {
+    Assert.assertThat(manager.getDelegate(), Matchers.sameInstance(delegate));
+    Assert.assertThat(manager.getRegistry(), Matchers.sameInstance(registry));
+    Assert.assertThat(manager.toString(), Matchers.containsString(delegate.toString()));
+  }
+
+  @Test
+  public void testCreateTransform() throws Exception {
+    when(delegate.createTransform(location, location, location)).thenAnswer(elapse(transformation));
+
+    final Transformation created = manager.createTransform(location, location, location);
+
+    Assert.assertThat(created, Matchers.instanceOf(MeteredTransformation.class));
+    Assert.assertThat(
+        ((MeteredTransformation) created).getDelegate(), Matchers.sameInstance(transformation));
+    assertTimed("create", 1L);
+  }
+
+  @Test
+  public void testCreateTransforms() throws Exception {
+    final List<RequestInfo> requests =
+        Collections.singletonList(new RequestInfoImpl(location, location, location));
+
+    when(delegate.createTransforms(requests))
+        .thenAnswer(elapse(Collections.singletonList(transformation)));
+
+    final List<Transformation> created = manager.createTransforms(requests);
+
+    Assert.assertThat(created, Matchers.contains(Matchers.instanceOf(MeteredTransformation.class)));
+    assertTimed("create.batch", 1L);
+  }
+
+  @Test
+  public void testGet() throws Exception {
+    when(delegate.get(MeteredTransformationManagerTest.ID)).thenAnswer(elapse(transformation));
+
+    final Transformation found = manager.get(MeteredTransformationManagerTest.ID);
+
+    Assert.assertThat(
+        found.getTransformId(), Matchers.equalTo(MeteredTransformationManagerTest.ID));
+    assertTimed("get", 1L);
+    Assert.assertThat(
+        registry.find(MeteredTransformationManager.NOT_FOUND).counter(), Matchers.nullValue());
+  }
+
+  @Test
+  public void testGetWhenNotFound() throws Exception {
+    final TransformationNotFoundException error = new TransformationNotFoundException("not found");
+
+    when(delegate.get(MeteredTransformationManagerTest.ID)).thenThrow(error);
+
+    exception.expect(Matchers.sameInstance(error));
+    try {
+      manager.get(MeteredTransformationManagerTest.ID);
+    } finally {
+      assertNotFound("get", 1.0);
+      Assert.assertThat(timer("get").count(), Matchers.equalTo(1L));
+    }
+  }
+
+  @Test
+  public void testGetAll() throws Exception {
+    final List<String> ids =
+        List.of(MeteredTransformationManagerTest.ID, MeteredTransformationManagerTest.ID2);
+
+    when(delegate.getAll(ids))
+        .thenAnswer(
+            elapse(
+                new TransformationLookup(
+                    Map.of(MeteredTransformationManagerTest.ID, transformation),
+                    Set.of(MeteredTransformationManagerTest.ID2))));
+
+    final TransformationLookup lookup = manager.getAll(ids);
+
+    Assert.assertThat(
+        lookup.get(MeteredTransformationManagerTest.ID),
+        OptionalMatchers.isPresentAnd(Matchers.instanceOf(MeteredTransformation.class)));
+    Assert.assertThat(lookup.getMissing(), Matchers.contains(MeteredTransformationManagerTest.ID2));
+    assertTimed("get.batch", 1L);
+    assertNotFound("get.batch", 1.0);
+  }
+
+  @Test
+  public void testGetAllWhenAllFound() throws Exception {
+    final List<String> ids = List.of(MeteredTransformationManagerTest.ID);
+
+    when(delegate.getAll(ids))
+        .thenReturn(
+            new TransformationLookup(
+                Map.of(MeteredTransformationManagerTest.ID, transformation), Set.of()));
+
+    Assert.assertThat(manager.getAll(ids).getMissing(), Matchers.empty());
+    Assert.assertThat(
+        registry.find(MeteredTransformationManager.NOT_FOUND).counter(), Matchers.nullValue());
+  }
+
+  @Test
+  public void testQuery() throws Exception {
+    final TransformationQuery query = new TransformationQuery();
+
+    when(delegate.query(query))
+        .thenAnswer(
+            elapse(new TransformationPage(Collections.singletonList(transformation), "next")));
+
+    final TransformationPage page = manager.query(query);
+
+    Assert.assertThat(
+        page.getTransformations(),
+        Matchers.contains(Matchers.instanceOf(MeteredTransformation.class)));
+    Assert.assertThat(page.getNextCursor(), OptionalMatchers.isPresentAndIs("next"));
+    assertTimed("query", 1L);
+  }
+
+  @Test
+  public void testFindByLocations() throws Exception {
+    when(delegate.findByCurrentLocation(location))
+        .thenAnswer(elapse(Collections.singletonList(transformation)));
+    when(delegate.findByMetacardLocation(location))
+        .thenAnswer(elapse(Collections.singletonList(transformation)));
+
+    Assert.assertThat(
+        manager.findByCurrentLocation(location),
+        Matchers.contains(Matchers.instanceOf(MeteredTransformation.class)));
+    Assert.assertThat(
+        manager.findByMetacardLocation(location),
+        Matchers.contains(Matchers.instanceOf(MeteredTransformation.class)));
+    assertTimed("find", 2L);
+  }
+
+  @Test
+  public void testGetMetadata() throws Exception {
+    when(delegate.get(MeteredTransformationManagerTest.ID, MeteredTransformationManagerTest.TYPE))
+        .thenAnswer(elapse(metadata));
+
+    final MetadataTransformation found =
+        manager.get(MeteredTransformationManagerTest.ID, MeteredTransformationManagerTest.TYPE);
+
+    Assert.assertThat(found, Matchers.instanceOf(MeteredMetadataTransformation.class));
+    Assert.assertThat(
+        ((MeteredMetadataTransformation) found).getDelegate(), Matchers.sameInstance(metadata));
+    assertMetadataTimed("get.metadata", 1L);
+  }
+
+  @Test
+  public void testGetMetadataWhenNotFound() throws Exception {
+    final TransformationNotFoundException error = new TransformationNotFoundException("not found");
+
+    when(delegate.get(MeteredTransformationManagerTest.ID, MeteredTransformationManagerTest.TYPE))
+        .thenThrow(error);
+
+    exception.expect(Matchers.sameInstance(error));
+    try {
+      manager.get(MeteredTransformationManagerTest.ID, MeteredTransformationManagerTest.TYPE);
+    } finally {
+      assertNotFound("get.metadata", 1.0);
+    }
+  }
+
+  @Test
+  public void testDelete() throws Exception {
+    Mockito.doAnswer(elapse(null)).when(delegate).delete(MeteredTransformationManagerTest.ID);
+
+    manager.delete(MeteredTransformationManagerTest.ID);
+
+    Mockito.verify(delegate).delete(MeteredTransformationManagerTest.ID);
+    assertTimed("delete", 1L);
+  }
+
+  @Test
+  public void testDeleteWhenNotFound() throws Exception {
+    final TransformationNotFoundException error = new TransformationNotFoundException("not found");
+
+    Mockito.doThrow(error).when(delegate).delete(MeteredTransformationManagerTest.ID);
+
+    exception.expect(Matchers.sameInstance(error));
+    try {
+      manager.delete(MeteredTransformationManagerTest.ID);
+    } finally {
+      assertNotFound("delete", 1.0);
+    }
+  }
+
+  @Test
+  public void testDeleteAll() throws Exception {
+    final List<String> ids =
+        List.of(MeteredTransformationManagerTest.ID, MeteredTransformationManagerTest.ID2);
+
+    when(delegate.deleteAll(ids)).thenAnswer(elapse(Set.of(MeteredTransformationManagerTest.ID2)));
+
+    Assert.assertThat(
+        manager.deleteAll(ids), Matchers.contains(MeteredTransformationManagerTest.ID2));
+    assertTimed("delete.batch", 1L);
+    assertNotFound("delete.batch", 1.0);
+  }
+
+  @Test
+  public void testListenersAreRegisteredWithDelegate() {
+    final TransformationListener listener = Mockito.mock(TransformationListener.class);
+
+    manager.addListener(listener);
+    manager.removeListener(listener);
+
+    Mockito.verify(delegate).addListener(listener);
+    Mockito.verify(delegate).removeListener(listener);
+  }
+
+  @Test
+  public void testNotFoundIsCountedByOperation() {
+    manager.notFound(Operation.GET, 2);
+    manager.notFound(Operation.GET, 0);
+    manager.notFound(Operation.GET, 1);
+
+    assertNotFound("get", 3.0);
+  }
+
+  @Test
+  public void testFailedIsCountedByReasonAndType() {
+    manager.failed(ErrorCode.TRANSFORMATION_FAILURE, MeteredTransformationManagerTest.TYPE);
+    manager.failed(ErrorCode.TRANSFORMATION_FAILURE, MeteredTransformationManagerTest.TYPE);
+
+    Assert.assertThat(
+        registry
+            .get(MeteredTransformationManager.FAILURES)
+            .tag(MeteredTransformationManager.REASON_TAG, "transformation_failure")
+            .tag(
+                MeteredTransformationManager.METADATA_TYPE_TAG,
+                MeteredTransformationManagerTest.TYPE)
+            .counter()
+            .count(),
+        Matchers.equalTo(2.0));
+  }
+
+  @Test
+  public void testStoreGaugesAreNotRegisteredWithoutStatistics() {
+    Assert.assertThat(
+        registry.find(MeteredTransformationManager.STORE_SIZE).gauge(), Matchers.nullValue());
+    Assert.assertThat(
+        registry.find(MeteredTransformationManager.IN_PROGRESS).gauge(), Matchers.nullValue());
+  }
+
+  @Test
+  public void testStoreGaugesWithStatistics() {
+    final TransformationManager statisticsManager =
+        Mockito.mock(
+            TransformationManager.class,
+            Mockito.withSettings().extraInterfaces(TransformationStoreStatistics.class));
+    final TransformationStoreStatistics statistics =
+        (TransformationStoreStatistics) statisticsManager;
+
+    when(statistics.getTransformationCount()).thenReturn(5L);
+    when(statistics.getInProgressCount()).thenReturn(2L);
+
+    new MeteredTransformationManager(statisticsManager, registry);
+
+    Assert.assertThat(
+        registry.get(MeteredTransformationManager.STORE_SIZE).gauge().value(),
+        Matchers.equalTo(5.0));
+    Assert.assertThat(
+        registry.get(MeteredTransformationManager.IN_PROGRESS).gauge().value(),
+        Matchers.equalTo(2.0));
+  }
+
+  private <T> Answer<T> elapse(T result) {
+    return i -> {
+      clock.add(MeteredTransformationManagerTest.ELAPSED, TimeUnit.MILLISECONDS);
+      return result;
+    };
+  }
+
+  private Timer timer(String operation) {
+    return registry
+        .get(MeteredTransformationManager.REQUESTS)
+        .tag(MeteredTransformationManager.OPERATION_TAG, operation)
+        .timer();
+  }
+
+  private void assertTimed(String operation, long count) {
+    final Timer timer = timer(operation);
+
+    Assert.assertThat(timer.count(), Matchers.equalTo(count));
+    Assert.assertThat(
+        timer.totalTime(TimeUnit.MILLISECONDS),
+        Matchers.equalTo((double) (count * MeteredTransformationManagerTest.ELAPSED)));
+  }
+
+  private void assertMetadataTimed(String operation, long count) {
+    final Timer timer =
+        registry
+            .get(MeteredTransformationManager.METADATA_REQUESTS)
+            .tag(MeteredTransformationManager.OPERATION_TAG, operation)
+            .tag(
+                MeteredTransformationManager.METADATA_TYPE_TAG,
+                MeteredTransformationManagerTest.TYPE)
+            .timer();
+
+    Assert.assertThat(timer.count(), Matchers.equalTo(count));
+    Assert.assertThat(
+        timer.totalTime(TimeUnit.MILLISECONDS),
+        Matchers.equalTo((double) (count * MeteredTransformationManagerTest.ELAPSED)));
+  }
+
+  private void assertNotFound(String operation, double count) {
+    Assert.assertThat(
+        registry
+            .get(MeteredTransformationManager.NOT_FOUND)
+            .tag(MeteredTransformationManager.OPERATION_TAG, operation)
+            .counter()
+            .count(),
+        Matchers.equalTo(count));
+  }
+}
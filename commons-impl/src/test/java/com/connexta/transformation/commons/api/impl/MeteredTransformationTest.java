@@ -0,0 +1,199 @@
+/**
+ * Copyright (c) Connexta
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package com.connexta.transformation.commons.api.impl;
+
+import static org.mockito.Mockito.when;
+
+import com.connexta.transformation.commons.api.MetadataTransformation;
+import com.connexta.transformation.commons.api.RequestInfo;
+import com.connexta.transformation.commons.api.Transformation;
+import com.connexta.transformation.commons.api.TransformationManager;
+import com.connexta.transformation.commons.api.TransformationStatus.State;
+import com.connexta.transformation.commons.api.exceptions.TransformationNotFoundException;
+import com.github.npathai.hamcrestopt.OptionalMatchers;
+import io.micrometer.core.instrument.MockClock;
+import io.micrometer.core.instrument.simple.SimpleConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.hamcrest.Matchers;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.mockito.Mockito;
+
+public class MeteredTransformationTest {
+  private static final String ID = "1234";
+  private static final String TYPE = "metacard";
+  private static final Instant START_TIME = Instant.ofEpochMilli(111L);
+  private static final Instant COMPLETION_TIME = Instant.ofEpochMilli(2222L);
+
+  @Rule public ExpectedException exception = ExpectedException.none();
+
+  private final SimpleMeterRegistry registry =
+      new SimpleMeterRegistry(SimpleConfig.DEFAULT, new MockClock());
+  private final Transformation delegate = Mockito.mock(Transformation.class);
+  private final MetadataTransformation metadata = Mockito.mock(MetadataTransformation.class);
+
+  private MeteredTransformation transformation;
+
+  @Before
+  public void setup() {
+    final MeteredTransformationManager manager =
+        new MeteredTransformationManager(Mockito.mock(TransformationManager.class), registry);
+
+    this.transformation = new MeteredTransformation(delegate, manager);
+  }
+
+  @Test
+  public void testStatusIsDelegated() {
+    final RequestInfo request = Mockito.mock(RequestInfo.class);
+
+    when(delegate.getTransformId()).thenReturn(MeteredTransformationTest.ID);
+    when(delegate.getRequestInfo()).thenReturn(request);
+    when(delegate.getStartTime()).thenReturn(MeteredTransformationTest.START_TIME);
+    when(delegate.getCompletionTime())
+        .thenReturn(Optional.of(MeteredTransformationTest.COMPLETION_TIME));
+    when(delegate.getState()).thenReturn(State.FAILED);
+    when(delegate.getDuration()).thenReturn(Duration.ofSeconds(2L));
+    when(delegate.isDeleted()).thenReturn(true);
+    when(delegate.isCompleted()).thenReturn(true);
+    when(delegate.hasFailed()).thenReturn(true);
+    when(delegate.wasSuccessful()).thenReturn(false);
+    when(delegate.isUnknown()).thenReturn(false);
+    when(delegate.metadataTypes()).thenAnswer(i -> Stream.of(MeteredTransformationTest.TYPE));
+
+    Assert.assertThat(transformation.getDelegate(), Matchers.sameInstance(delegate));
+    Assert.assertThat(
+        transformation.getTransformId(), Matchers.equalTo(MeteredTransformationTest.ID));
+    Assert.assertThat(transformation.getRequestInfo(), Matchers.sameInstance(request));
+    Assert.assertThat(
+        transformation.getStartTime(), Matchers.equalTo(MeteredTransformationTest.START_TIME));
+    Assert.assertThat(
+        transformation.getCompletionTime(),
+        OptionalMatchers.isPresentAndIs(MeteredTransformationTest.COMPLETION_TIME));
+    Assert.assertThat(transformation.getState(), Matchers.equalTo(State.FAILED));
+    Assert.assertThat(transformation.getDuration(), Matchers.equalTo(Duration.ofSeconds(2L)));
+    Assert.assertThat(transformation.isDeleted(), Matchers.equalTo(true));
+    Assert.assertThat(transformation.isCompleted(), Matchers.equalTo(true));
+    Assert.assertThat(transformation.hasFailed(), Matchers.equalTo(true));
+    Assert.assertThat(transformation.wasSuccessful(), Matchers.equalTo(false));
+    Assert.assertThat(transformation.isUnknown(), Matchers.equalTo(false));
+    Assert.assertThat(
+        transformation.metadataTypes().collect(Collectors.toList()),
+        Matchers.contains(MeteredTransformationTest.TYPE));
+  }
+
+  @Test
+  public void testDelete() throws Exception {
+    transformation.delete();
+
+    Mockito.verify(delegate).delete();
+    Assert.assertThat(
+        registry
+            .get(MeteredTransformationManager.REQUESTS)
+            .tag(MeteredTransformationManager.OPERATION_TAG, "delete")
+            .timer()
+            .count(),
+        Matchers.equalTo(1L));
+  }
+
+  @Test
+  public void testAdd() throws Exception {
+    when(delegate.add(MeteredTransformationTest.TYPE)).thenReturn(metadata);
+
+    final MetadataTransformation added = transformation.add(MeteredTransformationTest.TYPE);
+
+    Assert.assertThat(
+        ((MeteredMetadataTransformation) added).getDelegate(), Matchers.sameInstance(metadata));
+    Assert.assertThat(metadataCount("add"), Matchers.equalTo(1L));
+  }
+
+  @Test
+  public void testMetadatas() {
+    when(delegate.metadatas()).thenAnswer(i -> Stream.of(metadata));
+
+    Assert.assertThat(
+        transformation.metadatas().collect(Collectors.toList()),
+        Matchers.contains(Matchers.instanceOf(MeteredMetadataTransformation.class)));
+  }
+
+  @Test
+  public void testGet() throws Exception {
+    when(delegate.get(MeteredTransformationTest.TYPE)).thenReturn(metadata);
+
+    final MetadataTransformation found = transformation.get(MeteredTransformationTest.TYPE);
+
+    Assert.assertThat(
+        ((MeteredMetadataTransformation) found).getDelegate(), Matchers.sameInstance(metadata));
+    Assert.assertThat(metadataCount("get.metadata"), Matchers.equalTo(1L));
+  }
+
+  @Test
+  public void testGetWhenNotFound() throws Exception {
+    final TransformationNotFoundException error = new TransformationNotFoundException("not found");
+
+    when(delegate.get(MeteredTransformationTest.TYPE)).thenThrow(error);
+
+    exception.expect(Matchers.sameInstance(error));
+    try {
+      transformation.get(MeteredTransformationTest.TYPE);
+    } finally {
+      Assert.assertThat(
+          registry
+              .get(MeteredTransformationManager.NOT_FOUND)
+              .tag(MeteredTransformationManager.OPERATION_TAG, "get.metadata")
+              .counter()
+              .count(),
+          Matchers.equalTo(1.0));
+    }
+  }
+
+  @Test
+  public void testOnCompletionCompletesWithDecoratedTransformation() {
+    when(delegate.onCompletion()).thenReturn(CompletableFuture.completedFuture(delegate));
+
+    Assert.assertThat(
+        transformation.onCompletion().toCompletableFuture().join(),
+        Matchers.sameInstance(transformation));
+  }
+
+  @Test
+  public void testEqualsHashCodeAndToString() {
+    final MeteredTransformation other =
+        new MeteredTransformation(
+            delegate,
+            new MeteredTransformationManager(Mockito.mock(TransformationManager.class), registry));
+
+    Assert.assertThat(transformation, Matchers.equalTo(other));
+    Assert.assertThat(transformation.hashCode(), Matchers.equalTo(delegate.hashCode()));
+    Assert.assertThat(transformation.toString(), Matchers.equalTo(delegate.toString()));
+    Assert.assertThat(transformation, Matchers.not(Matchers.equalTo(delegate)));
+  }
+
+  private long metadataCount(String operation) {
+    return registry
+        .get(MeteredTransformationManager.METADATA_REQUESTS)
+        .tag(MeteredTransformationManager.OPERATION_TAG, operation)
+        .tag(MeteredTransformationManager.METADATA_TYPE_TAG, MeteredTransformationTest.TYPE)
+        .timer()
+        .count();
+  }
+}
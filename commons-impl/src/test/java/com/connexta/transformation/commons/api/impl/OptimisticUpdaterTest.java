@@ -0,0 +1,362 @@
+/**
+ * Copyright (c) Connexta
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package com.connexta.transformation.commons.api.impl;
+
+import com.connexta.transformation.commons.api.ErrorCode;
+import com.connexta.transformation.commons.api.MetadataTransformation;
+import com.connexta.transformation.commons.api.TransformationListener;
+import com.connexta.transformation.commons.api.TransformationStatus.State;
+import com.connexta.transformation.commons.api.exceptions.StaleRevisionException;
+import io.micrometer.core.instrument.Clock;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.hamcrest.Matchers;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+
+public class OptimisticUpdaterTest {
+  private static final String TRANSFORM_ID = "1234";
+  private static final String METADATA_TYPE = "irm";
+  private static final String CONTENT_TYPE = "application/xml";
+  private static final String MESSAGE = "some message";
+
+  @Rule public ExpectedException exception = ExpectedException.none();
+
+  private final RevisionedStore<AbstractTransformationImpl> store =
+      Mockito.mock(RevisionedStore.class);
+  private final AbstractTransformationImpl transformation =
+      Mockito.mock(AbstractTransformationImpl.class);
+  private final AbstractTransformationImpl transformation2 =
+      Mockito.mock(AbstractTransformationImpl.class);
+  private final MetadataTransformation metadata = Mockito.mock(MetadataTransformation.class);
+  private final MetadataTransformation metadata2 = Mockito.mock(MetadataTransformation.class);
+
+  private final OptimisticUpdater updater =
+      new OptimisticUpdater().setBackoff(Duration.ZERO, Duration.ZERO);
+
+  @Before
+  public void setup() throws Exception {
+    Mockito.when(transformation.getRevision()).thenReturn(3L);
+    Mockito.when(transformation2.getRevision()).thenReturn(4L);
+    Mockito.when(transformation.get(OptimisticUpdaterTest.METADATA_TYPE)).thenReturn(metadata);
+    Mockito.when(transformation2.get(OptimisticUpdaterTest.METADATA_TYPE)).thenReturn(metadata2);
+    Mockito.when(store.load(OptimisticUpdaterTest.TRANSFORM_ID))
+        .thenReturn(transformation, transformation2);
+  }
+
+  @After
+  public void clearInterrupt() {
+    Thread.interrupted();
+  }
+
+  @Test
+  public void testDefaults() throws Exception {
+    final OptimisticUpdater updater = new OptimisticUpdater();
+
+    Assert.assertThat(
+        updater.getMaxAttempts(), Matchers.equalTo(OptimisticUpdater.DEFAULT_MAX_ATTEMPTS));
+    Assert.assertThat(updater.getBackoff(), Matchers.equalTo(OptimisticUpdater.DEFAULT_BACKOFF));
+    Assert.assertThat(
+        updater.getMaxBackoff(), Matchers.equalTo(OptimisticUpdater.DEFAULT_MAX_BACKOFF));
+  }
+
+  @Test
+  public void testSetMaxAttempts() throws Exception {
+    Assert.assertThat(updater.setMaxAttempts(2), Matchers.sameInstance(updater));
+    Assert.assertThat(updater.getMaxAttempts(), Matchers.equalTo(2));
+  }
+
+  @Test
+  public void testSetMaxAttemptsWhenLessThanOne() throws Exception {
+    exception.expect(IllegalArgumentException.class);
+    exception.expectMessage(Matchers.matchesPattern(".*invalid.*attempts.*"));
+
+    updater.setMaxAttempts(0);
+  }
+
+  @Test
+  public void testSetBackoff() throws Exception {
+    Assert.assertThat(
+        updater.setBackoff(Duration.ofMillis(2L), Duration.ofMillis(5L)),
+        Matchers.sameInstance(updater));
+    Assert.assertThat(updater.getBackoff(), Matchers.equalTo(Duration.ofMillis(2L)));
+    Assert.assertThat(updater.getMaxBackoff(), Matchers.equalTo(Duration.ofMillis(5L)));
+  }
+
+  @Test
+  public void testSetBackoffWhenNegative() throws Exception {
+    exception.expect(IllegalArgumentException.class);
+    exception.expectMessage(Matchers.matchesPattern(".*invalid backoff.*"));
+
+    updater.setBackoff(Duration.ofMillis(-1L), Duration.ofMillis(5L));
+  }
+
+  @Test
+  public void testSetBackoffWhenMaxIsLessThanBase() throws Exception {
+    exception.expect(IllegalArgumentException.class);
+    exception.expectMessage(Matchers.matchesPattern(".*invalid max backoff.*"));
+
+    updater.setBackoff(Duration.ofMillis(5L), Duration.ofMillis(2L));
+  }
+
+  @Test
+  public void testBackoffFor() throws Exception {
+    updater.setBackoff(Duration.ofNanos(10L), Duration.ofNanos(25L));
+
+    Assert.assertThat(updater.backoffFor(1), Matchers.equalTo(10L));
+    Assert.assertThat(updater.backoffFor(2), Matchers.equalTo(20L));
+    Assert.assertThat(updater.backoffFor(3), Matchers.equalTo(25L));
+    Assert.assertThat(updater.backoffFor(10), Matchers.equalTo(25L));
+  }
+
+  @Test
+  public void testSleepBeforeRetry() throws Exception {
+    updater.setBackoff(Duration.ofNanos(1L), Duration.ofNanos(1L));
+
+    Assert.assertThat(updater.sleepBeforeRetry(1), Matchers.equalTo(true));
+    Assert.assertThat(Thread.currentThread().isInterrupted(), Matchers.equalTo(false));
+  }
+
+  @Test
+  public void testSleepBeforeRetryWhenInterrupted() throws Exception {
+    updater.setBackoff(Duration.ofSeconds(1L), Duration.ofSeconds(1L));
+    Thread.currentThread().interrupt();
+
+    Assert.assertThat(updater.sleepBeforeRetry(1), Matchers.equalTo(false));
+    Assert.assertThat(Thread.currentThread().isInterrupted(), Matchers.equalTo(true));
+  }
+
+  @Test
+  public void testUpdate() throws Exception {
+    final OptimisticUpdater.Update<AbstractTransformationImpl> update =
+        Mockito.mock(OptimisticUpdater.Update.class);
+
+    final AbstractTransformationImpl updated =
+        updater.update(store, OptimisticUpdaterTest.TRANSFORM_ID, update);
+
+    Assert.assertThat(updated, Matchers.sameInstance(transformation));
+    Mockito.verify(update).apply(transformation);
+    Mockito.verify(store).store(transformation, 3L);
+  }
+
+  @Test
+  public void testUpdateRetriesWhenStale() throws Exception {
+    final OptimisticUpdater.Update<AbstractTransformationImpl> update =
+        Mockito.mock(OptimisticUpdater.Update.class);
+
+    Mockito.doThrow(new StaleRevisionException("stale")).when(store).store(transformation, 3L);
+
+    final AbstractTransformationImpl updated =
+        updater.update(store, OptimisticUpdaterTest.TRANSFORM_ID, update);
+
+    Assert.assertThat(updated, Matchers.sameInstance(transformation2));
+    Mockito.verify(update).apply(transformation);
+    Mockito.verify(update).apply(transformation2);
+    Mockito.verify(store).store(transformation2, 4L);
+  }
+
+  @Test
+  public void testUpdateWhenAlwaysStale() throws Exception {
+    final StaleRevisionException stale = new StaleRevisionException("stale");
+
+    exception.expect(Matchers.sameInstance(stale));
+
+    Mockito.doThrow(new StaleRevisionException("stale"))
+        .doThrow(stale)
+        .when(store)
+        .store(ArgumentMatchers.any(), ArgumentMatchers.anyLong());
+
+    updater.setMaxAttempts(2).update(store, OptimisticUpdaterTest.TRANSFORM_ID, t -> {});
+  }
+
+  @Test
+  public void testUpdateWhenInterruptedBeforeRetry() throws Exception {
+    final StaleRevisionException stale = new StaleRevisionException("stale");
+
+    exception.expect(Matchers.sameInstance(stale));
+
+    Mockito.doThrow(stale).when(store).store(transformation, 3L);
+    updater.setBackoff(Duration.ofSeconds(1L), Duration.ofSeconds(1L));
+    Thread.currentThread().interrupt();
+
+    try {
+      updater.update(store, OptimisticUpdaterTest.TRANSFORM_ID, t -> {});
+    } finally {
+      Assert.assertThat(Thread.currentThread().isInterrupted(), Matchers.equalTo(true));
+      Mockito.verify(store, Mockito.never()).store(transformation2, 4L);
+    }
+  }
+
+  @Test
+  public void testSucceedReopensContentOnRetry() throws Exception {
+    final AtomicInteger opened = new AtomicInteger();
+
+    Mockito.doThrow(new StaleRevisionException("stale")).when(store).store(transformation, 3L);
+
+    final AbstractTransformationImpl updated =
+        updater.succeed(
+            store,
+            OptimisticUpdaterTest.TRANSFORM_ID,
+            OptimisticUpdaterTest.METADATA_TYPE,
+            OptimisticUpdaterTest.CONTENT_TYPE,
+            () -> {
+              opened.incrementAndGet();
+              return new ByteArrayInputStream(new byte[] {1, 2, 3});
+            });
+
+    Assert.assertThat(updated, Matchers.sameInstance(transformation2));
+    Assert.assertThat(opened.get(), Matchers.equalTo(2));
+    Mockito.verify(metadata)
+        .succeed(
+            ArgumentMatchers.eq(OptimisticUpdaterTest.CONTENT_TYPE),
+            ArgumentMatchers.any(InputStream.class));
+    Mockito.verify(metadata2)
+        .succeed(
+            ArgumentMatchers.eq(OptimisticUpdaterTest.CONTENT_TYPE),
+            ArgumentMatchers.any(InputStream.class));
+  }
+
+  @Test
+  public void testSucceedClosesContent() throws Exception {
+    final InputStream is = Mockito.mock(InputStream.class);
+
+    updater.succeed(
+        store,
+        OptimisticUpdaterTest.TRANSFORM_ID,
+        OptimisticUpdaterTest.METADATA_TYPE,
+        OptimisticUpdaterTest.CONTENT_TYPE,
+        () -> is);
+
+    Mockito.verify(metadata).succeed(OptimisticUpdaterTest.CONTENT_TYPE, is);
+    Mockito.verify(is).close();
+  }
+
+  @Test
+  public void testFail() throws Exception {
+    final AbstractTransformationImpl updated =
+        updater.fail(
+            store,
+            OptimisticUpdaterTest.TRANSFORM_ID,
+            OptimisticUpdaterTest.METADATA_TYPE,
+            ErrorCode.TRANSFORMATION_FAILURE,
+            OptimisticUpdaterTest.MESSAGE);
+
+    Assert.assertThat(updated, Matchers.sameInstance(transformation));
+    Mockito.verify(metadata).fail(ErrorCode.TRANSFORMATION_FAILURE, OptimisticUpdaterTest.MESSAGE);
+    Mockito.verify(store).store(transformation, 3L);
+  }
+
+  @Test
+  public void testFailRetriesWhenStale() throws Exception {
+    Mockito.doThrow(new StaleRevisionException("stale")).when(store).store(transformation, 3L);
+
+    final AbstractTransformationImpl updated =
+        updater.fail(
+            store,
+            OptimisticUpdaterTest.TRANSFORM_ID,
+            OptimisticUpdaterTest.METADATA_TYPE,
+            ErrorCode.TRANSFORMATION_FAILURE,
+            OptimisticUpdaterTest.MESSAGE);
+
+    Assert.assertThat(updated, Matchers.sameInstance(transformation2));
+    Mockito.verify(metadata2).fail(ErrorCode.TRANSFORMATION_FAILURE, OptimisticUpdaterTest.MESSAGE);
+  }
+
+  @Test
+  public void testCompletionsAreOnlyDispatchedForTheStoredAttempt() throws Exception {
+    final TransformationListener listener = Mockito.mock(TransformationListener.class);
+    final AbstractTransformationImpl loaded = newTransformation(listener);
+    final AbstractTransformationImpl loaded2 = newTransformation(listener);
+
+    Mockito.when(store.load(OptimisticUpdaterTest.TRANSFORM_ID)).thenReturn(loaded, loaded2);
+    Mockito.doAnswer(
+            i -> {
+              Mockito.verifyZeroInteractions(listener);
+              throw new StaleRevisionException("stale");
+            })
+        .doAnswer(
+            i -> {
+              Mockito.verifyZeroInteractions(listener);
+              return null;
+            })
+        .when(store)
+        .store(ArgumentMatchers.any(), ArgumentMatchers.anyLong());
+
+    final AbstractTransformationImpl updated =
+        updater.update(store, OptimisticUpdaterTest.TRANSFORM_ID, this::completeMetadata);
+
+    Assert.assertThat(updated, Matchers.sameInstance(loaded2));
+    Assert.assertThat(loaded.getState(), Matchers.equalTo(State.FAILED));
+    Mockito.verify(listener).metadataCompleted(ArgumentMatchers.any());
+    Mockito.verify(listener).transformationCompleted(loaded2);
+    Mockito.verifyNoMoreInteractions(listener);
+  }
+
+  @Test
+  public void testCompletionsAreNeverDispatchedWhenNeverStored() throws Exception {
+    final TransformationListener listener = Mockito.mock(TransformationListener.class);
+    final AbstractTransformationImpl loaded = newTransformation(listener);
+    final AbstractTransformationImpl loaded2 = newTransformation(listener);
+
+    Mockito.when(store.load(OptimisticUpdaterTest.TRANSFORM_ID)).thenReturn(loaded, loaded2);
+    Mockito.doThrow(new StaleRevisionException("stale"))
+        .when(store)
+        .store(ArgumentMatchers.any(), ArgumentMatchers.anyLong());
+
+    try {
+      updater
+          .setMaxAttempts(2)
+          .update(store, OptimisticUpdaterTest.TRANSFORM_ID, this::completeMetadata);
+      Assert.fail();
+    } catch (StaleRevisionException e) {
+      Mockito.verifyZeroInteractions(listener);
+    }
+  }
+
+  private void completeMetadata(AbstractTransformationImpl transformation) {
+    final AbstractMetadataImpl metadata =
+        Mockito.mock(
+            AbstractMetadataImpl.class,
+            Mockito.withSettings()
+                .useConstructor(Mockito.mock(Clock.class))
+                .defaultAnswer(Mockito.CALLS_REAL_METHODS));
+
+    metadata.setType(OptimisticUpdaterTest.METADATA_TYPE);
+    metadata.setTransformId(OptimisticUpdaterTest.TRANSFORM_ID);
+    metadata.setState(State.FAILED);
+    transformation.metadataCompleted(metadata);
+  }
+
+  private static AbstractTransformationImpl newTransformation(TransformationListener listener) {
+    final TransformationNotifier notifier = new TransformationNotifier(Runnable::run);
+    final AbstractTransformationImpl transformation =
+        Mockito.mock(
+            AbstractTransformationImpl.class,
+            Mockito.withSettings()
+                .useConstructor(Mockito.mock(Clock.class))
+                .defaultAnswer(Mockito.CALLS_REAL_METHODS));
+
+    notifier.addListener(listener);
+    Mockito.doReturn(notifier).when(transformation).getNotifier();
+    return transformation;
+  }
+}
@@ -73,6 +73,18 @@ public class PersistableTest {
     Assert.assertThat(pojo.getId(), Matchers.equalTo(PersistableTest.ID));
   }
 
+  @Test
+  public void testWriteToWithRevision() throws Exception {
+    final TestPojo pojo = new TestPojo();
+    final TestPersistable persistable =
+        new TestPersistable(PersistableTest.TYPE, PersistableTest.ID);
+
+    persistable.setRevision(4L);
+    persistable.writeTo(pojo);
+
+    Assert.assertThat(pojo.getRevision(), Matchers.equalTo(4L));
+  }
+
   @Test
   public void testWriteToWithNullId() throws Exception {
     exception.expect(InvalidFieldException.class);
@@ -107,6 +119,36 @@ public class PersistableTest {
     Assert.assertThat(persistable.getId(), Matchers.equalTo(PersistableTest.ID));
   }
 
+  @Test
+  public void testReadFromWithRevision() throws Exception {
+    final TestPojo pojo =
+        new TestPojo()
+            .setId(PersistableTest.ID)
+            .setVersion(TestPojo.CURRENT_VERSION)
+            .setRevision(7L);
+    final TestPersistable persistable = new TestPersistable();
+
+    persistable.readFrom(pojo);
+
+    Assert.assertThat(persistable.getRevision(), Matchers.equalTo(7L));
+  }
+
+  @Test
+  public void testReadFromWithNegativeRevision() throws Exception {
+    exception.expect(InvalidFieldException.class);
+    exception.expectMessage(
+        Matchers.matchesPattern(".*invalid.*" + PersistableTest.TYPE + ".*revision.*"));
+
+    final TestPojo pojo =
+        new TestPojo()
+            .setId(PersistableTest.ID)
+            .setVersion(TestPojo.CURRENT_VERSION)
+            .setRevision(-1L);
+    final TestPersistable persistable = new TestPersistable();
+
+    persistable.readFrom(pojo);
+  }
+
   @Test
   public void testReadFromWithNullId() throws Exception {
     exception.expect(InvalidFieldException.class);
@@ -0,0 +1,468 @@
+/**
+ * Copyright (c) Connexta
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package com.connexta.transformation.commons.api.impl;
+
+import static org.mockito.Mockito.when;
+
+import com.connexta.transformation.commons.api.impl.TransformationEvent.Type;
+import com.github.npathai.hamcrestopt.OptionalMatchers;
+import io.micrometer.core.instrument.Clock;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import org.hamcrest.Matchers;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mockito;
+
+public class TransformationEventLogTest {
+  private static final String ID = "id";
+  private static final String TYPE = "irm";
+  private static final long SEGMENT_BYTES = EventLogCodec.MAXIMUM_RECORD_BYTES;
+
+  /** The size of a record for an event with transform id {@link #ID} and no metadata type. */
+  private static final int RECORD_BYTES =
+      EventLogCodec.encode(0L, Type.CREATED, 0L, TransformationEventLogTest.ID, null).remaining();
+
+  @Rule public ExpectedException exception = ExpectedException.none();
+
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+  private final AtomicLong now = new AtomicLong(1_000L);
+  private final Clock clock = Mockito.mock(Clock.class);
+
+  private Path directory;
+  private TransformationEventLog log;
+
+  @Before
+  public void setup() throws Exception {
+    when(clock.wallTime()).thenAnswer(i -> now.get());
+    this.directory = folder.getRoot().toPath().resolve("events");
+    this.log = newLog();
+  }
+
+  @After
+  public void teardown() throws Exception {
+    log.close();
+  }
+
+  @Test
+  public void testConstructorWithDefaultSegmentSize() throws Exception {
+    log.close();
+    this.log = new TransformationEventLog(directory, clock);
+
+    Assert.assertThat(log.getDirectory(), Matchers.equalTo(directory));
+    Assert.assertThat(log.getSegmentCount(), Matchers.equalTo(1));
+  }
+
+  @Test
+  public void testConstructorWithSegmentSizeTooSmall() throws Exception {
+    exception.expect(IllegalArgumentException.class);
+    exception.expectMessage(Matchers.matchesPattern(".*invalid segment size.*"));
+
+    new TransformationEventLog(directory, clock, TransformationEventLogTest.SEGMENT_BYTES - 1L);
+  }
+
+  @Test
+  public void testNewLogIsEmpty() throws Exception {
+    Assert.assertThat(Files.isDirectory(directory), Matchers.equalTo(true));
+    Assert.assertThat(log.getStartOffset(), Matchers.equalTo(0L));
+    Assert.assertThat(log.getEndOffset(), Matchers.equalTo(0L));
+    Assert.assertThat(log.getSegmentCount(), Matchers.equalTo(1));
+    Assert.assertThat(log.getSize(), Matchers.equalTo(0L));
+    Assert.assertThat(log.read(0L, 10), Matchers.empty());
+    Assert.assertThat(log.toString(), Matchers.containsString("endOffset=0"));
+  }
+
+  @Test
+  public void testAppendAssignsMonotonicallyIncreasingOffsets() throws Exception {
+    Assert.assertThat(
+        log.append(Type.CREATED, TransformationEventLogTest.ID, null), Matchers.equalTo(0L));
+    now.incrementAndGet();
+    Assert.assertThat(
+        log.append(
+            Type.METADATA_ADDED, TransformationEventLogTest.ID, TransformationEventLogTest.TYPE),
+        Matchers.equalTo(1L));
+    Assert.assertThat(log.getEndOffset(), Matchers.equalTo(2L));
+    Assert.assertThat(
+        log.read(0L, 10),
+        Matchers.contains(
+            new TransformationEvent(
+                0L,
+                Type.CREATED,
+                Instant.ofEpochMilli(1_000L),
+                TransformationEventLogTest.ID,
+                null),
+            new TransformationEvent(
+                1L,
+                Type.METADATA_ADDED,
+                Instant.ofEpochMilli(1_001L),
+                TransformationEventLogTest.ID,
+                TransformationEventLogTest.TYPE)));
+  }
+
+  @Test
+  public void testAppendWithSyncOnAppend() throws Exception {
+    Assert.assertThat(log.setSyncOnAppend(true), Matchers.sameInstance(log));
+
+    log.append(Type.CREATED, TransformationEventLogTest.ID, null);
+    log.sync();
+
+    Assert.assertThat(log.getEndOffset(), Matchers.equalTo(1L));
+  }
+
+  @Test
+  public void testAppendStartsNewSegmentsWhenFull() throws Exception {
+    final int count = perSegment() * 3;
+
+    append(count);
+
+    Assert.assertThat(log.getSegmentCount(), Matchers.equalTo(3));
+    Assert.assertThat(
+        log.getSize(), Matchers.equalTo((long) count * TransformationEventLogTest.RECORD_BYTES));
+    Assert.assertThat(offsets(log.read(0L, count + 1)), Matchers.equalTo(range(0L, count)));
+  }
+
+  @Test
+  public void testReadFromTheMiddleOfTheLog() throws Exception {
+    final int count = perSegment() * 2 + 5;
+
+    append(count);
+
+    Assert.assertThat(
+        offsets(log.read(perSegment() + 3L, 4)),
+        Matchers.equalTo(range(perSegment() + 3L, perSegment() + 7L)));
+    Assert.assertThat(log.read(count, 4), Matchers.empty());
+  }
+
+  @Test
+  public void testReopenRecoversTheLog() throws Exception {
+    final int count = perSegment() * 2 + 5;
+
+    append(count);
+    log.close();
+    this.log = newLog();
+
+    Assert.assertThat(log.getSegmentCount(), Matchers.equalTo(3));
+    Assert.assertThat(log.getEndOffset(), Matchers.equalTo((long) count));
+    Assert.assertThat(
+        log.append(Type.DELETED, TransformationEventLogTest.ID, null),
+        Matchers.equalTo((long) count));
+    Assert.assertThat(offsets(log.read(0L, count + 1)), Matchers.equalTo(range(0L, count + 1)));
+  }
+
+  @Test
+  public void testReopenDiscardsPartiallyWrittenEvents() throws Exception {
+    append(3);
+    log.close();
+    Files.write(activeFile(), new byte[] {0, 0, 0, 40, 1, 2, 3, 4, 5}, StandardOpenOption.APPEND);
+    this.log = newLog();
+
+    Assert.assertThat(log.getEndOffset(), Matchers.equalTo(3L));
+    Assert.assertThat(
+        Files.size(activeFile()), Matchers.equalTo(3L * TransformationEventLogTest.RECORD_BYTES));
+  }
+
+  @Test
+  public void testReopenDiscardsCorruptedEvents() throws Exception {
+    append(3);
+    log.close();
+    Files.write(activeFile(), new byte[64], StandardOpenOption.APPEND);
+    this.log = newLog();
+
+    Assert.assertThat(log.getEndOffset(), Matchers.equalTo(3L));
+    Assert.assertThat(log.append(Type.CREATED, "id2", null), Matchers.equalTo(3L));
+    Assert.assertThat(offsets(log.read(0L, 10)), Matchers.equalTo(range(0L, 4L)));
+  }
+
+  @Test
+  public void testReopenDiscardsEventsWithUnexpectedOffsets() throws Exception {
+    append(3);
+    log.close();
+    Files.write(
+        activeFile(),
+        EventLogCodec.encode(7L, Type.CREATED, 0L, TransformationEventLogTest.ID, null).array(),
+        StandardOpenOption.APPEND);
+    this.log = newLog();
+
+    Assert.assertThat(log.getEndOffset(), Matchers.equalTo(3L));
+  }
+
+  @Test
+  public void testReopenIgnoresOtherFiles() throws Exception {
+    append(1);
+    log.close();
+    Files.write(directory.resolve("readme.txt"), new byte[] {1});
+    this.log = newLog();
+
+    Assert.assertThat(log.getSegmentCount(), Matchers.equalTo(1));
+    Assert.assertThat(log.getEndOffset(), Matchers.equalTo(1L));
+  }
+
+  @Test
+  public void testSetRetentionWithInvalidMaximumBytes() throws Exception {
+    exception.expect(IllegalArgumentException.class);
+    exception.expectMessage(Matchers.matchesPattern(".*invalid non-positive maximum bytes.*"));
+
+    log.setRetention(0L, null);
+  }
+
+  @Test
+  public void testSetRetentionWithNegativeMaximumAge() throws Exception {
+    exception.expect(IllegalArgumentException.class);
+    exception.expectMessage(Matchers.matchesPattern(".*invalid negative maximum age.*"));
+
+    log.setRetention(1L, Duration.ofSeconds(-1L));
+  }
+
+  @Test
+  public void testRetentionBySize() throws Exception {
+    Assert.assertThat(
+        log.setRetention(TransformationEventLogTest.SEGMENT_BYTES * 2L, null),
+        Matchers.sameInstance(log));
+
+    append(perSegment() * 4);
+
+    // retention is enforced when starting new segments which are empty at that point
+    Assert.assertThat(log.getSegmentCount(), Matchers.equalTo(3));
+    Assert.assertThat(log.getStartOffset(), Matchers.equalTo((long) perSegment()));
+    Assert.assertThat(offsets(log.read(0L, 1)), Matchers.contains((long) perSegment()));
+  }
+
+  @Test
+  public void testRetentionByAge() throws Exception {
+    append(perSegment() * 2);
+    now.addAndGet(Duration.ofHours(2L).toMillis());
+    append(perSegment());
+    log.setRetention(Long.MAX_VALUE, Duration.ofHours(1L));
+
+    Assert.assertThat(log.enforceRetention(), Matchers.equalTo(2));
+    Assert.assertThat(log.getStartOffset(), Matchers.equalTo(perSegment() * 2L));
+    Assert.assertThat(log.enforceRetention(), Matchers.equalTo(0));
+  }
+
+  @Test
+  public void testRetentionNeverDeletesTheActiveSegment() throws Exception {
+    append(perSegment() + 1);
+    now.addAndGet(Duration.ofHours(2L).toMillis());
+    log.setRetention(1L, Duration.ZERO);
+
+    Assert.assertThat(log.enforceRetention(), Matchers.equalTo(1));
+    Assert.assertThat(log.getSegmentCount(), Matchers.equalTo(1));
+    Assert.assertThat(log.getActiveSegment().toString(), Matchers.containsString("nextOffset"));
+  }
+
+  @Test
+  public void testOpenCursorStartsAtTheStartOffset() throws Exception {
+    append(2);
+
+    final EventLogCursor cursor = log.openCursor("consumer");
+
+    Assert.assertThat(cursor.getName(), OptionalMatchers.isPresentAndIs("consumer"));
+    Assert.assertThat(cursor.getPosition(), Matchers.equalTo(0L));
+    Assert.assertThat(cursor.getLag(), Matchers.equalTo(2L));
+    Assert.assertThat(cursor.toString(), Matchers.containsString("consumer"));
+  }
+
+  @Test
+  public void testOpenCursorWithInvalidName() throws Exception {
+    exception.expect(IllegalArgumentException.class);
+    exception.expectMessage(Matchers.matchesPattern(".*invalid cursor name.*"));
+
+    log.openCursor("../consumer");
+  }
+
+  @Test
+  public void testOpenCursorWithInvalidCommittedPosition() throws Exception {
+    Files.write(directory.resolve("consumer.cursor"), "abc".getBytes(StandardCharsets.US_ASCII));
+
+    exception.expect(IOException.class);
+    exception.expectMessage(Matchers.matchesPattern(".*invalid committed position.*abc.*"));
+
+    log.openCursor("consumer");
+  }
+
+  @Test
+  public void testCursorTailsTheLog() throws Exception {
+    final EventLogCursor cursor = log.openCursor("consumer");
+    final int count = perSegment() + 10;
+
+    Assert.assertThat(cursor.poll(10), Matchers.empty());
+
+    append(5);
+
+    Assert.assertThat(offsets(cursor.poll(3)), Matchers.equalTo(range(0L, 3L)));
+    Assert.assertThat(offsets(cursor.poll(10)), Matchers.equalTo(range(3L, 5L)));
+    Assert.assertThat(cursor.poll(10), Matchers.empty());
+
+    append(count);
+
+    Assert.assertThat(offsets(cursor.poll(count * 2)), Matchers.equalTo(range(5L, count + 5L)));
+    Assert.assertThat(cursor.getPosition(), Matchers.equalTo(count + 5L));
+    Assert.assertThat(cursor.getLag(), Matchers.equalTo(0L));
+  }
+
+  @Test
+  public void testCursorResumesFromItsCommittedPosition() throws Exception {
+    append(5);
+    final EventLogCursor cursor = log.openCursor("consumer");
+
+    cursor.poll(3);
+    cursor.commit();
+    cursor.poll(1);
+    log.close();
+    this.log = newLog();
+
+    final EventLogCursor reopened = log.openCursor("consumer");
+
+    Assert.assertThat(reopened.getPosition(), Matchers.equalTo(3L));
+    Assert.assertThat(offsets(reopened.poll(10)), Matchers.equalTo(range(3L, 5L)));
+  }
+
+  @Test
+  public void testCursorSeek() throws Exception {
+    append(perSegment() * 2);
+    final EventLogCursor cursor = log.openCursor("consumer");
+
+    cursor.poll(5);
+
+    Assert.assertThat(cursor.seek(perSegment() + 1L), Matchers.sameInstance(cursor));
+    Assert.assertThat(offsets(cursor.poll(1)), Matchers.contains(perSegment() + 1L));
+    Assert.assertThat(offsets(cursor.seek(2L).poll(1)), Matchers.contains(2L));
+    Assert.assertThat(cursor.seek(log.getEndOffset()).poll(1), Matchers.empty());
+  }
+
+  @Test
+  public void testCursorSeekWithNegativeOffset() throws Exception {
+    exception.expect(IllegalArgumentException.class);
+    exception.expectMessage(Matchers.matchesPattern(".*invalid offset.*"));
+
+    log.openCursor("consumer").seek(-1L);
+  }
+
+  @Test
+  public void testCursorSeekPastTheEndOfTheLog() throws Exception {
+    exception.expect(IllegalArgumentException.class);
+    exception.expectMessage(Matchers.matchesPattern(".*invalid offset.*"));
+
+    log.openCursor("consumer").seek(1L);
+  }
+
+  @Test
+  public void testCursorSkipsEventsDeletedByRetention() throws Exception {
+    final EventLogCursor cursor = log.openCursor("consumer");
+
+    append(perSegment() * 3);
+    cursor.poll(1);
+    log.setRetention(TransformationEventLogTest.SEGMENT_BYTES, null);
+    log.enforceRetention();
+
+    Assert.assertThat(cursor.getLag(), Matchers.equalTo((long) perSegment()));
+    Assert.assertThat(offsets(cursor.poll(1)), Matchers.contains(perSegment() * 2L));
+  }
+
+  @Test
+  public void testCursorMovesPastItsDeletedSegment() throws Exception {
+    final EventLogCursor cursor = log.openCursor("consumer");
+
+    append(perSegment() * 2);
+    cursor.poll(perSegment());
+    log.setRetention(TransformationEventLogTest.SEGMENT_BYTES, null);
+    log.enforceRetention();
+
+    Assert.assertThat(cursor.getPosition(), Matchers.equalTo(log.getStartOffset()));
+    Assert.assertThat(offsets(cursor.poll(1)), Matchers.contains((long) perSegment()));
+  }
+
+  @Test
+  public void testCommitUnnamedCursor() throws Exception {
+    exception.expect(IllegalStateException.class);
+    exception.expectMessage(Matchers.matchesPattern(".*unnamed cursor.*"));
+
+    final EventLogCursor cursor = new EventLogCursor(log, null, 0L);
+
+    Assert.assertThat(cursor.getName(), OptionalMatchers.isEmpty());
+
+    cursor.commit();
+  }
+
+  @Test
+  public void testClose() throws Exception {
+    final EventLogCursor cursor = log.openCursor("consumer");
+
+    log.close();
+    log.close();
+
+    assertClosed(() -> log.append(Type.CREATED, TransformationEventLogTest.ID, null));
+    assertClosed(log::sync);
+    assertClosed(log::enforceRetention);
+    assertClosed(() -> log.openCursor("consumer"));
+    assertClosed(() -> cursor.poll(1));
+    assertClosed(cursor::commit);
+  }
+
+  private TransformationEventLog newLog() throws IOException {
+    return new TransformationEventLog(directory, clock, TransformationEventLogTest.SEGMENT_BYTES);
+  }
+
+  private void append(int count) throws IOException {
+    for (int i = 0; i < count; i++) {
+      log.append(Type.CREATED, TransformationEventLogTest.ID, null);
+    }
+  }
+
+  private Path activeFile() {
+    return directory.resolve(EventLogSegment.fileName(log.getActiveSegment().getBaseOffset()));
+  }
+
+  private static int perSegment() {
+    return (int)
+        (TransformationEventLogTest.SEGMENT_BYTES / TransformationEventLogTest.RECORD_BYTES);
+  }
+
+  private static List<Long> offsets(List<TransformationEvent> events) {
+    return events.stream().map(TransformationEvent::getOffset).collect(Collectors.toList());
+  }
+
+  private static List<Long> range(long from, long to) {
+    return LongStream.range(from, to).boxed().collect(Collectors.toList());
+  }
+
+  private static void assertClosed(Operation operation) throws Exception {
+    try {
+      operation.run();
+      Assert.fail("expected IllegalStateException");
+    } catch (IllegalStateException e) {
+      Assert.assertThat(e.getMessage(), Matchers.containsString("closed"));
+    }
+  }
+
+  @FunctionalInterface
+  private interface Operation {
+    void run() throws Exception;
+  }
+}
@@ -0,0 +1,130 @@
+/**
+ * Copyright (c) Connexta
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package com.connexta.transformation.commons.api.impl;
+
+import com.connexta.transformation.commons.api.impl.TransformationEvent.Type;
+import com.github.npathai.hamcrestopt.OptionalMatchers;
+import java.time.Instant;
+import org.hamcrest.Matchers;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TransformationEventTest {
+  private static final Instant TIME = Instant.ofEpochMilli(1_000L);
+  private static final String ID = "id";
+  private static final String TYPE = "irm";
+
+  private final TransformationEvent event =
+      new TransformationEvent(
+          5L,
+          Type.SUCCEEDED,
+          TransformationEventTest.TIME,
+          TransformationEventTest.ID,
+          TransformationEventTest.TYPE);
+
+  @Test
+  public void testGetters() {
+    Assert.assertThat(event.getOffset(), Matchers.equalTo(5L));
+    Assert.assertThat(event.getType(), Matchers.equalTo(Type.SUCCEEDED));
+    Assert.assertThat(event.getTime(), Matchers.equalTo(TransformationEventTest.TIME));
+    Assert.assertThat(event.getTransformId(), Matchers.equalTo(TransformationEventTest.ID));
+    Assert.assertThat(
+        event.getMetadataType(), OptionalMatchers.isPresentAndIs(TransformationEventTest.TYPE));
+  }
+
+  @Test
+  public void testGetMetadataTypeWhenNone() {
+    Assert.assertThat(
+        new TransformationEvent(
+                5L, Type.CREATED, TransformationEventTest.TIME, TransformationEventTest.ID, null)
+            .getMetadataType(),
+        OptionalMatchers.isEmpty());
+  }
+
+  @Test
+  public void testEquals() {
+    final TransformationEvent event2 =
+        new TransformationEvent(
+            5L,
+            Type.SUCCEEDED,
+            TransformationEventTest.TIME,
+            TransformationEventTest.ID,
+            TransformationEventTest.TYPE);
+
+    Assert.assertThat(event.equals(event2), Matchers.equalTo(true));
+    Assert.assertThat(event.hashCode(), Matchers.equalTo(event2.hashCode()));
+  }
+
+  @Test
+  public void testEqualsWhenDifferent() {
+    Assert.assertThat(
+        event.equals(
+            new TransformationEvent(
+                6L,
+                Type.SUCCEEDED,
+                TransformationEventTest.TIME,
+                TransformationEventTest.ID,
+                TransformationEventTest.TYPE)),
+        Matchers.equalTo(false));
+    Assert.assertThat(
+        event.equals(
+            new TransformationEvent(
+                5L,
+                Type.FAILED,
+                TransformationEventTest.TIME,
+                TransformationEventTest.ID,
+                TransformationEventTest.TYPE)),
+        Matchers.equalTo(false));
+    Assert.assertThat(
+        event.equals(
+            new TransformationEvent(
+                5L,
+                Type.SUCCEEDED,
+                Instant.EPOCH,
+                TransformationEventTest.ID,
+                TransformationEventTest.TYPE)),
+        Matchers.equalTo(false));
+    Assert.assertThat(
+        event.equals(
+            new TransformationEvent(
+                5L,
+                Type.SUCCEEDED,
+                TransformationEventTest.TIME,
+                "id2",
+                TransformationEventTest.TYPE)),
+        Matchers.equalTo(false));
+    Assert.assertThat(
+        event.equals(
+            new TransformationEvent(
+                5L,
+                Type.SUCCEEDED,
+                TransformationEventTest.TIME,
+                TransformationEventTest.ID,
+                null)),
+        Matchers.equalTo(false));
+  }
+
+  @SuppressWarnings(
+      "PMD.PositionLiteralsFirstInComparisons" /* purposely testing equals() when call with something else than expected */)
+  @Test
+  public void testEqualsWhenNotTheSameClass() {
+    Assert.assertThat(event.equals("test"), Matchers.equalTo(false));
+  }
+
+  @Test
+  public void testToString() {
+    Assert.assertThat(
+        event.toString(), Matchers.matchesPattern(".*offset=5.*SUCCEEDED.*id.*irm.*"));
+  }
+}
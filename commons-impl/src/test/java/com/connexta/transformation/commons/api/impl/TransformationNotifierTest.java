@@ -0,0 +1,133 @@
+/**
+ * Copyright (c) Connexta
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package com.connexta.transformation.commons.api.impl;
+
+import com.connexta.transformation.commons.api.MetadataTransformation;
+import com.connexta.transformation.commons.api.Transformation;
+import com.connexta.transformation.commons.api.TransformationListener;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import org.hamcrest.Matchers;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+public class TransformationNotifierTest {
+  private final Executor executor = Mockito.mock(Executor.class);
+
+  private final TransformationListener listener = Mockito.mock(TransformationListener.class);
+  private final TransformationListener listener2 = Mockito.mock(TransformationListener.class);
+
+  private final MetadataTransformation metadata = Mockito.mock(MetadataTransformation.class);
+  private final Transformation transformation = Mockito.mock(Transformation.class);
+
+  private final TransformationNotifier notifier = new TransformationNotifier(Runnable::run);
+
+  @Test
+  public void testDefaultConstructorUsesCommonPool() throws Exception {
+    Assert.assertThat(
+        new TransformationNotifier().getExecutor(),
+        Matchers.sameInstance(ForkJoinPool.commonPool()));
+  }
+
+  @Test
+  public void testAddListener() throws Exception {
+    notifier.addListener(listener);
+
+    Assert.assertThat(notifier.getListeners(), Matchers.contains(listener));
+  }
+
+  @Test
+  public void testRemoveListener() throws Exception {
+    notifier.addListener(listener);
+    notifier.addListener(listener2);
+
+    notifier.removeListener(listener);
+
+    Assert.assertThat(notifier.getListeners(), Matchers.contains(listener2));
+  }
+
+  @Test
+  public void testMetadataCompleted() throws Exception {
+    notifier.addListener(listener);
+    notifier.addListener(listener2);
+
+    notifier.metadataCompleted(metadata);
+
+    Mockito.verify(listener).metadataCompleted(metadata);
+    Mockito.verify(listener2).metadataCompleted(metadata);
+  }
+
+  @Test
+  public void testTransformationCompleted() throws Exception {
+    notifier.addListener(listener);
+    notifier.addListener(listener2);
+
+    notifier.transformationCompleted(transformation);
+
+    Mockito.verify(listener).transformationCompleted(transformation);
+    Mockito.verify(listener2).transformationCompleted(transformation);
+  }
+
+  @Test
+  public void testFailingListenerDoesNotPreventOthersFromBeingNotified() throws Exception {
+    Mockito.doThrow(new IllegalStateException("testing"))
+        .when(listener)
+        .transformationCompleted(transformation);
+    notifier.addListener(listener);
+    notifier.addListener(listener2);
+
+    notifier.transformationCompleted(transformation);
+
+    Mockito.verify(listener2).transformationCompleted(transformation);
+  }
+
+  @Test
+  public void testNothingIsDispatchedWhenNoListenersAreRegistered() throws Exception {
+    final TransformationNotifier notifier = new TransformationNotifier(executor);
+
+    notifier.metadataCompleted(metadata);
+    notifier.transformationCompleted(transformation);
+
+    Mockito.verifyZeroInteractions(executor);
+  }
+
+  @Test
+  public void testNotificationsAreDispatchedThroughTheExecutor() throws Exception {
+    final TransformationNotifier notifier = new TransformationNotifier(executor);
+
+    notifier.addListener(listener);
+
+    notifier.metadataCompleted(metadata);
+
+    Mockito.verify(executor).execute(Mockito.any(Runnable.class));
+    Mockito.verifyZeroInteractions(listener);
+  }
+
+  @Test
+  public void testNotificationsRejectedByTheExecutorAreDropped() throws Exception {
+    final ExecutorService executor = Executors.newSingleThreadExecutor();
+    final TransformationNotifier notifier = new TransformationNotifier(executor);
+
+    executor.shutdown();
+    notifier.addListener(listener);
+
+    notifier.metadataCompleted(metadata);
+    notifier.transformationCompleted(transformation);
+
+    Mockito.verifyZeroInteractions(listener);
+  }
+}
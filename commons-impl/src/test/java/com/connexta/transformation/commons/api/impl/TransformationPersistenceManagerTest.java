@@ -0,0 +1,493 @@
+/**
+ * Copyright (c) Connexta
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package com.connexta.transformation.commons.api.impl;
+
+import com.connexta.transformation.commons.api.MetadataTransformation;
+import com.connexta.transformation.commons.api.exceptions.ParsingException;
+import com.connexta.transformation.commons.api.exceptions.PersistenceException;
+import com.connexta.transformation.commons.api.exceptions.StaleRevisionException;
+import com.connexta.transformation.commons.api.exceptions.UnsupportedVersionException;
+import com.connexta.transformation.commons.api.impl.jfr.PersistenceReadEvent;
+import com.connexta.transformation.commons.api.impl.jfr.PersistenceWriteEvent;
+import com.connexta.transformation.pojo.MetadataPojo;
+import com.connexta.transformation.pojo.TransformationPojo;
+import com.connexta.transformation.pojo.jackson.JsonUtils;
+import io.micrometer.core.instrument.Clock;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MockClock;
+import io.micrometer.core.instrument.simple.SimpleConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.stream.Collectors;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.hamcrest.Matchers;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mockito;
+
+public class TransformationPersistenceManagerTest {
+  @Rule public ExpectedException exception = ExpectedException.none();
+
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+  private final Clock clock = Mockito.mock(Clock.class);
+
+  private final TransformationPersistenceManager manager =
+      new TransformationPersistenceManager(clock);
+
+  private final SimpleMeterRegistry registry =
+      new SimpleMeterRegistry(SimpleConfig.DEFAULT, new MockClock());
+
+  private final TransformationPersistenceManager meteredManager =
+      new TransformationPersistenceManager(clock, registry);
+
+  private final AbstractTransformationImpl transformation;
+
+  public TransformationPersistenceManagerTest() throws Exception {
+    this.transformation =
+        Mockito.mock(
+            AbstractTransformationImpl.class,
+            Mockito.withSettings()
+                .useConstructor(
+                    new URL("https://localhost/current"),
+                    new URL("https://localhost/final"),
+                    new URL("https://localhost/metacard"),
+                    clock)
+                .defaultAnswer(Mockito.CALLS_REAL_METHODS));
+  }
+
+  @Test
+  public void testConditionalWriteToString() throws Exception {
+    final String json = manager.writeTo(transformation, 0L);
+
+    Assert.assertThat(
+        JsonUtils.read(TransformationPojo.class, json).getRevision(), Matchers.equalTo(1L));
+    Assert.assertThat(transformation.getRevision(), Matchers.equalTo(1L));
+  }
+
+  @Test
+  public void testConditionalWriteToStringTwice() throws Exception {
+    manager.writeTo(transformation, 0L);
+    final String json = manager.writeTo(transformation, 1L);
+
+    Assert.assertThat(
+        JsonUtils.read(TransformationPojo.class, json).getRevision(), Matchers.equalTo(2L));
+    Assert.assertThat(transformation.getRevision(), Matchers.equalTo(2L));
+  }
+
+  @Test
+  public void testConditionalWriteToStringWhenStale() throws Exception {
+    exception.expect(StaleRevisionException.class);
+    exception.expectMessage(Matchers.matchesPattern(".*stale.*revision.*0.*stored.*3.*"));
+
+    manager.writeTo(transformation, 3L);
+  }
+
+  @Test
+  public void testConditionalWriteToStringWhenStaleDoesNotUpdateRevision() throws Exception {
+    try {
+      manager.writeTo(transformation, 3L);
+      Assert.fail("expected StaleRevisionException");
+    } catch (StaleRevisionException e) {
+      Assert.assertThat(transformation.getRevision(), Matchers.equalTo(0L));
+    }
+  }
+
+  @Test
+  public void testConditionalWriteToStream() throws Exception {
+    final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+
+    manager.writeTo(transformation, 0L, baos);
+
+    Assert.assertThat(
+        JsonUtils.read(TransformationPojo.class, new ByteArrayInputStream(baos.toByteArray()))
+            .getRevision(),
+        Matchers.equalTo(1L));
+    Assert.assertThat(transformation.getRevision(), Matchers.equalTo(1L));
+  }
+
+  @Test
+  public void testConditionalWriteToStreamWhenStale() throws Exception {
+    exception.expect(StaleRevisionException.class);
+
+    manager.writeTo(transformation, 1L, new ByteArrayOutputStream());
+  }
+
+  @Test
+  public void testWriteToStringRecordsMetrics() throws Exception {
+    final String json = meteredManager.writeTo(transformation);
+
+    assertWriteMetrics(json.getBytes(StandardCharsets.UTF_8).length);
+  }
+
+  @Test
+  public void testWriteToStreamRecordsMetrics() throws Exception {
+    final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+
+    meteredManager.writeTo(transformation, baos);
+
+    assertWriteMetrics(baos.size());
+  }
+
+  @Test
+  public void testConditionalWriteToStringRecordsMetrics() throws Exception {
+    final String json = meteredManager.writeTo(transformation, 0L);
+
+    assertWriteMetrics(json.getBytes(StandardCharsets.UTF_8).length);
+    Assert.assertThat(transformation.getRevision(), Matchers.equalTo(1L));
+  }
+
+  @Test
+  public void testConditionalWriteToStreamRecordsMetrics() throws Exception {
+    final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+
+    meteredManager.writeTo(transformation, 0L, baos);
+
+    assertWriteMetrics(baos.size());
+    Assert.assertThat(transformation.getRevision(), Matchers.equalTo(1L));
+  }
+
+  @Test
+  public void testConditionalWriteToStringWhenStaleRecordsFailure() throws Exception {
+    try {
+      meteredManager.writeTo(transformation, 3L);
+      Assert.fail("expected StaleRevisionException");
+    } catch (StaleRevisionException e) {
+      Assert.assertThat(errors("write", "stale.revision"), Matchers.equalTo(1.0));
+    }
+  }
+
+  @Test
+  public void testConditionalWriteToStreamWhenStaleRecordsFailure() throws Exception {
+    try {
+      meteredManager.writeTo(transformation, 3L, new ByteArrayOutputStream());
+      Assert.fail("expected StaleRevisionException");
+    } catch (StaleRevisionException e) {
+      Assert.assertThat(errors("write", "stale.revision"), Matchers.equalTo(1.0));
+    }
+  }
+
+  @Test
+  public void testWriteToStringWithUnknownsRecordsFailure() throws Exception {
+    final TestTransformation unknown =
+        manager.readFrom(TestTransformation.class, unknownJson(manager.writeTo(transformation)));
+
+    try {
+      meteredManager.writeTo(unknown);
+      Assert.fail("expected PersistenceException");
+    } catch (PersistenceException e) {
+      Assert.assertThat(errors("write", "invalid.field"), Matchers.equalTo(1.0));
+    }
+  }
+
+  @Test
+  public void testWriteToStreamWithUnknownsRecordsFailure() throws Exception {
+    final TestTransformation unknown =
+        manager.readFrom(TestTransformation.class, unknownJson(manager.writeTo(transformation)));
+
+    try {
+      meteredManager.writeTo(unknown, new ByteArrayOutputStream());
+      Assert.fail("expected PersistenceException");
+    } catch (PersistenceException e) {
+      Assert.assertThat(errors("write", "invalid.field"), Matchers.equalTo(1.0));
+    }
+  }
+
+  @Test
+  public void testReadFromStringRecordsMetrics() throws Exception {
+    final String json = manager.writeTo(transformation);
+
+    final TestTransformation read = meteredManager.readFrom(TestTransformation.class, json);
+
+    Assert.assertThat(read.getTransformId(), Matchers.equalTo(transformation.getTransformId()));
+    assertReadMetrics(json.getBytes(StandardCharsets.UTF_8).length);
+    Assert.assertThat(
+        registry.get(PersistenceMetrics.UNKNOWNS).counter().count(), Matchers.equalTo(0.0));
+  }
+
+  @Test
+  public void testReadFromStreamRecordsMetrics() throws Exception {
+    final byte[] json = manager.writeTo(transformation).getBytes(StandardCharsets.UTF_8);
+
+    final TestTransformation read =
+        meteredManager.readFrom(TestTransformation.class, new ByteArrayInputStream(json));
+
+    Assert.assertThat(read.getTransformId(), Matchers.equalTo(transformation.getTransformId()));
+    assertReadMetrics(json.length);
+  }
+
+  @Test
+  public void testReadFromWithUnknownsRecordsUnknown() throws Exception {
+    final String json = unknownJson(manager.writeTo(transformation));
+
+    final TestTransformation read = meteredManager.readFrom(TestTransformation.class, json);
+
+    Assert.assertThat(read.hasUnknowns(), Matchers.equalTo(true));
+    Assert.assertThat(
+        registry.get(PersistenceMetrics.UNKNOWNS).counter().count(), Matchers.equalTo(1.0));
+  }
+
+  @Test
+  public void testReadFromStringWhenInvalidRecordsFailure() throws Exception {
+    try {
+      meteredManager.readFrom(TestTransformation.class, "{");
+      Assert.fail("expected ParsingException");
+    } catch (ParsingException e) {
+      Assert.assertThat(errors("read", "parsing"), Matchers.equalTo(1.0));
+    }
+  }
+
+  @Test
+  public void testReadFromStreamWhenInvalidRecordsFailure() throws Exception {
+    try {
+      meteredManager.readFrom(TestTransformation.class, new ByteArrayInputStream("{".getBytes()));
+      Assert.fail("expected ParsingException");
+    } catch (ParsingException e) {
+      Assert.assertThat(errors("read", "parsing"), Matchers.equalTo(1.0));
+    }
+  }
+
+  @Test
+  public void testReadFromWhenUnsupportedVersionRecordsFailure() throws Exception {
+    final String json = manager.writeTo(transformation).replace("\"version\":2", "\"version\":0");
+
+    try {
+      meteredManager.readFrom(TestTransformation.class, json);
+      Assert.fail("expected UnsupportedVersionException");
+    } catch (UnsupportedVersionException e) {
+      Assert.assertThat(errors("read", "unsupported.version"), Matchers.equalTo(1.0));
+    }
+  }
+
+  @Test
+  public void testReadFromStringEmitsEvent() throws Exception {
+    final String json = manager.writeTo(transformation);
+
+    assertEvent(
+        record(
+            PersistenceReadEvent.NAME,
+            Duration.ZERO,
+            () -> manager.readFrom(TestTransformation.class, json)),
+        json.getBytes(StandardCharsets.UTF_8).length);
+  }
+
+  @Test
+  public void testReadFromStreamEmitsEvent() throws Exception {
+    final byte[] json = manager.writeTo(transformation).getBytes(StandardCharsets.UTF_8);
+
+    assertEvent(
+        record(
+            PersistenceReadEvent.NAME,
+            Duration.ZERO,
+            () -> manager.readFrom(TestTransformation.class, new ByteArrayInputStream(json))),
+        json.length);
+  }
+
+  @Test
+  public void testReadFromDoesNotEmitEventBelowThreshold() throws Exception {
+    final String json = manager.writeTo(transformation);
+
+    Assert.assertThat(
+        record(
+            PersistenceReadEvent.NAME,
+            Duration.ofHours(1L),
+            () -> manager.readFrom(TestTransformation.class, json)),
+        Matchers.empty());
+    Assert.assertThat(
+        record(
+            PersistenceReadEvent.NAME,
+            Duration.ofHours(1L),
+            () ->
+                manager.readFrom(
+                    TestTransformation.class, new ByteArrayInputStream(json.getBytes()))),
+        Matchers.empty());
+  }
+
+  @Test
+  public void testWriteToStringEmitsEvent() throws Exception {
+    final String[] json = new String[1];
+
+    final List<RecordedEvent> events =
+        record(
+            PersistenceWriteEvent.NAME,
+            Duration.ZERO,
+            () -> json[0] = manager.writeTo(transformation));
+
+    assertEvent(events, json[0].getBytes(StandardCharsets.UTF_8).length);
+  }
+
+  @Test
+  public void testWriteToStreamEmitsEvent() throws Exception {
+    final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+
+    final List<RecordedEvent> events =
+        record(
+            PersistenceWriteEvent.NAME,
+            Duration.ZERO,
+            () -> {
+              manager.writeTo(transformation, baos);
+              return null;
+            });
+
+    assertEvent(events, baos.size());
+  }
+
+  @Test
+  public void testConditionalWriteToStringEmitsEvent() throws Exception {
+    final String[] json = new String[1];
+
+    final List<RecordedEvent> events =
+        record(
+            PersistenceWriteEvent.NAME,
+            Duration.ZERO,
+            () -> json[0] = manager.writeTo(transformation, 0L));
+
+    assertEvent(events, json[0].getBytes(StandardCharsets.UTF_8).length);
+  }
+
+  @Test
+  public void testConditionalWriteToStreamEmitsEvent() throws Exception {
+    final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+
+    final List<RecordedEvent> events =
+        record(
+            PersistenceWriteEvent.NAME,
+            Duration.ZERO,
+            () -> {
+              manager.writeTo(transformation, 0L, baos);
+              return null;
+            });
+
+    assertEvent(events, baos.size());
+  }
+
+  @Test
+  public void testWriteToDoesNotEmitEventBelowThreshold() throws Exception {
+    Assert.assertThat(
+        record(
+            PersistenceWriteEvent.NAME,
+            Duration.ofHours(1L),
+            () -> {
+              manager.writeTo(transformation);
+              manager.writeTo(transformation, new ByteArrayOutputStream());
+              manager.writeTo(transformation, 0L);
+              manager.writeTo(transformation, 1L, new ByteArrayOutputStream());
+              return null;
+            }),
+        Matchers.empty());
+  }
+
+  private List<RecordedEvent> record(String name, Duration threshold, Callable<?> code)
+      throws Exception {
+    try (final Recording recording = new Recording()) {
+      recording.enable(name).withThreshold(threshold);
+      recording.start();
+      code.call();
+      recording.stop();
+      final Path path = folder.newFile().toPath();
+
+      recording.dump(path);
+      return RecordingFile.readAllEvents(path).stream()
+          .filter(e -> e.getEventType().getName().equals(name))
+          .filter(e -> transformation.getTransformId().equals(e.getString("transformId")))
+          .collect(Collectors.toList());
+    }
+  }
+
+  private void assertEvent(List<RecordedEvent> events, long bytes) {
+    Assert.assertThat(events, Matchers.hasSize(1));
+    Assert.assertThat(events.get(0).getLong("bytes"), Matchers.equalTo(bytes));
+    Assert.assertThat(events.get(0).getLong("metadataCount"), Matchers.equalTo(0L));
+    Assert.assertThat(events.get(0).getStackTrace(), Matchers.nullValue());
+  }
+
+  private void assertWriteMetrics(long bytes) {
+    assertTimer(PersistenceMetrics.WRITE, "convert");
+    assertTimer(PersistenceMetrics.WRITE, "serialize");
+    assertSummary(PersistenceMetrics.DOCUMENT_SIZE, "write", bytes);
+    assertSummary(PersistenceMetrics.DOCUMENT_METADATA, "write", 0L);
+  }
+
+  private void assertReadMetrics(long bytes) {
+    assertTimer(PersistenceMetrics.READ, "parse");
+    assertTimer(PersistenceMetrics.READ, "instantiate");
+    assertSummary(PersistenceMetrics.DOCUMENT_SIZE, "read", bytes);
+    assertSummary(PersistenceMetrics.DOCUMENT_METADATA, "read", 0L);
+  }
+
+  private void assertTimer(String name, String phase) {
+    Assert.assertThat(
+        registry.get(name).tag(PersistenceMetrics.PHASE_TAG, phase).timer().count(),
+        Matchers.equalTo(1L));
+  }
+
+  private void assertSummary(String name, String operation, long total) {
+    final DistributionSummary summary =
+        registry.get(name).tag(MeteredTransformationManager.OPERATION_TAG, operation).summary();
+
+    Assert.assertThat(summary.count(), Matchers.equalTo(1L));
+    Assert.assertThat(summary.totalAmount(), Matchers.equalTo((double) total));
+  }
+
+  private double errors(String operation, String reason) {
+    return registry
+        .get(PersistenceMetrics.ERRORS)
+        .tag(MeteredTransformationManager.OPERATION_TAG, operation)
+        .tag(MeteredTransformationManager.REASON_TAG, reason)
+        .counter()
+        .count();
+  }
+
+  private static String unknownJson(String json) {
+    return json.replace("\"clazz\":\"transformation\"", "\"clazz\":\"transformation2\"");
+  }
+
+  public static class TestTransformation extends AbstractTransformationImpl {
+    public TestTransformation(TransformationPojo pojo, Clock clock) throws PersistenceException {
+      super(pojo, clock);
+    }
+
+    @Override
+    public MetadataTransformation add(String metadataType) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void delete() {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean isDeleted() {
+      return false;
+    }
+
+    @Override
+    protected AbstractMetadataImpl fromPojo(MetadataPojo pojo) {
+      throw new UnsupportedOperationException();
+    }
+  }
+}
@@ -0,0 +1,114 @@
+/**
+ * Copyright (c) Connexta
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package com.connexta.transformation.commons.api.impl.jfr;
+
+import static org.mockito.Mockito.when;
+
+import com.connexta.transformation.commons.api.ErrorCode;
+import com.connexta.transformation.commons.api.MetadataTransformation;
+import com.connexta.transformation.commons.api.TransformationStatus.State;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.stream.Collectors;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.hamcrest.Matchers;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mockito;
+
+public class MetadataCompletedEventTest {
+  private static final String TRANSFORM_ID = "2233xy";
+  private static final String METADATA_TYPE = "metacard";
+  private static final Duration DURATION = Duration.ofMillis(1234L);
+
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+  private final MetadataTransformation metadata = Mockito.mock(MetadataTransformation.class);
+
+  @Test
+  public void testEmitWhenSuccessful() throws Exception {
+    when(metadata.getState()).thenReturn(State.SUCCESSFUL);
+    when(metadata.getFailureReason()).thenReturn(Optional.empty());
+    when(metadata.getContentLength()).thenReturn(OptionalLong.of(981234L));
+
+    final List<RecordedEvent> events = record(true);
+
+    Assert.assertThat(events, Matchers.hasSize(1));
+    final RecordedEvent event = events.get(0);
+
+    Assert.assertThat(
+        event.getString("metadataType"),
+        Matchers.equalTo(MetadataCompletedEventTest.METADATA_TYPE));
+    Assert.assertThat(event.getString("state"), Matchers.equalTo("SUCCESSFUL"));
+    Assert.assertThat(event.getString("failureReason"), Matchers.nullValue());
+    Assert.assertThat(
+        event.getDuration("timeToComplete"), Matchers.equalTo(MetadataCompletedEventTest.DURATION));
+    Assert.assertThat(event.getLong("contentLength"), Matchers.equalTo(981234L));
+    Assert.assertThat(event.getStackTrace(), Matchers.nullValue());
+  }
+
+  @Test
+  public void testEmitWhenFailed() throws Exception {
+    when(metadata.getState()).thenReturn(State.FAILED);
+    when(metadata.getFailureReason()).thenReturn(Optional.of(ErrorCode.TRANSFORMATION_FAILURE));
+    when(metadata.getContentLength()).thenReturn(OptionalLong.empty());
+
+    final List<RecordedEvent> events = record(true);
+
+    Assert.assertThat(events, Matchers.hasSize(1));
+    final RecordedEvent event = events.get(0);
+
+    Assert.assertThat(event.getString("state"), Matchers.equalTo("FAILED"));
+    Assert.assertThat(
+        event.getString("failureReason"),
+        Matchers.equalTo(ErrorCode.TRANSFORMATION_FAILURE.name()));
+    Assert.assertThat(event.getLong("contentLength"), Matchers.equalTo(0L));
+  }
+
+  @Test
+  public void testEmitWhenNotEnabled() throws Exception {
+    Assert.assertThat(record(false), Matchers.empty());
+    Mockito.verify(metadata, Mockito.never()).getState();
+  }
+
+  private List<RecordedEvent> record(boolean enabled) throws Exception {
+    when(metadata.getTransformId()).thenReturn(MetadataCompletedEventTest.TRANSFORM_ID);
+    when(metadata.getMetadataType()).thenReturn(MetadataCompletedEventTest.METADATA_TYPE);
+    when(metadata.getDuration()).thenReturn(MetadataCompletedEventTest.DURATION);
+    try (final Recording recording = new Recording()) {
+      if (enabled) {
+        recording.enable(MetadataCompletedEvent.NAME);
+      } else {
+        recording.disable(MetadataCompletedEvent.NAME);
+      }
+      recording.start();
+      MetadataCompletedEvent.emit(metadata);
+      recording.stop();
+      final Path path = folder.newFile().toPath();
+
+      recording.dump(path);
+      return RecordingFile.readAllEvents(path).stream()
+          .filter(e -> e.getEventType().getName().equals(MetadataCompletedEvent.NAME))
+          .filter(e -> MetadataCompletedEventTest.TRANSFORM_ID.equals(e.getString("transformId")))
+          .collect(Collectors.toList());
+    }
+  }
+}
@@ -0,0 +1,89 @@
+/**
+ * Copyright (c) Connexta
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package com.connexta.transformation.commons.api.impl.jfr;
+
+import com.connexta.transformation.commons.api.impl.RequestInfoImpl;
+import java.net.URL;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.hamcrest.Matchers;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TransformationCreatedEventTest {
+  private static final String TRANSFORM_ID = "2233xy";
+
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+  private final RequestInfoImpl requestInfo;
+
+  public TransformationCreatedEventTest() throws Exception {
+    this.requestInfo =
+        new RequestInfoImpl(
+            new URL("https://localhost/current"),
+            new URL("https://localhost/final"),
+            new URL("https://localhost/metacard"));
+  }
+
+  @Test
+  public void testEmitWhenRecording() throws Exception {
+    final List<RecordedEvent> events = record(true);
+
+    Assert.assertThat(events, Matchers.hasSize(1));
+    final RecordedEvent event = events.get(0);
+
+    Assert.assertThat(
+        event.getString("currentLocation"),
+        Matchers.equalTo(requestInfo.getCurrentLocation().toString()));
+    Assert.assertThat(
+        event.getString("finalLocation"),
+        Matchers.equalTo(requestInfo.getFinalLocation().toString()));
+    Assert.assertThat(
+        event.getString("metacardLocation"),
+        Matchers.equalTo(requestInfo.getMetacardLocation().toString()));
+    Assert.assertThat(event.getStackTrace(), Matchers.nullValue());
+  }
+
+  @Test
+  public void testEmitWhenNotEnabled() throws Exception {
+    Assert.assertThat(record(false), Matchers.empty());
+  }
+
+  private List<RecordedEvent> record(boolean enabled) throws Exception {
+    try (final Recording recording = new Recording()) {
+      if (enabled) {
+        recording.enable(TransformationCreatedEvent.NAME);
+      } else {
+        recording.disable(TransformationCreatedEvent.NAME);
+      }
+      recording.start();
+      TransformationCreatedEvent.emit(TransformationCreatedEventTest.TRANSFORM_ID, requestInfo);
+      recording.stop();
+      final Path path = folder.newFile().toPath();
+
+      recording.dump(path);
+      return RecordingFile.readAllEvents(path).stream()
+          .filter(e -> e.getEventType().getName().equals(TransformationCreatedEvent.NAME))
+          .filter(
+              e -> TransformationCreatedEventTest.TRANSFORM_ID.equals(e.getString("transformId")))
+          .collect(Collectors.toList());
+    }
+  }
+}
@@ -0,0 +1,325 @@
+/**
+ * Copyright (c) Connexta
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package com.connexta.transformation.commons.inmemory;
+
+import com.connexta.transformation.commons.api.exceptions.AdmissionRejectedException;
+import io.micrometer.core.instrument.Clock;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Enforces the {@link AdmissionPolicy} of an {@link InMemoryTransformationManager} by refusing to
+ * create new transformations while too many are in progress, while too many content bytes are held
+ * or while they are being created too fast. A transformation counts as in progress from the moment
+ * it is admitted until it completes or is deleted. The creation rate is limited with a token bucket
+ * which refills at the maximum rate and holds up to the maximum burst.
+ *
+ * <p>Requests that cannot be admitted are rejected with an {@link AdmissionRejectedException}
+ * either right away or once they have been blocked for the maximum wait time defined by the policy.
+ * The current pressure is exposed such that upstream load balancers can route requests elsewhere
+ * before they start being rejected.
+ */
+public class AdmissionController {
+  /** The pressure at or above which the manager is considered to be under elevated pressure. */
+  public static final double ELEVATED_PRESSURE = 0.75D;
+
+  private final AdmissionPolicy policy;
+  private final Clock clock;
+  private final MemoryAccountant memory;
+  private final long maximumInFlight;
+  private final long maximumBytes;
+  private final boolean rateLimited;
+  private final double tokensPerNano;
+  private final long maximumBurst;
+  private final long maximumWait;
+  private final Set<String> admitted = ConcurrentHashMap.newKeySet();
+  private final AtomicLong inFlight = new AtomicLong();
+  private final AtomicLong rejectionCount = new AtomicLong();
+  private final AtomicInteger waiting = new AtomicInteger();
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition released = lock.newCondition();
+
+  /** The number of creations currently available in the token bucket. Guarded by the lock. */
+  private double tokens;
+
+  /** The monotonic time at which the token bucket was last refilled. Guarded by the lock. */
+  private long lastRefill;
+
+  /**
+   * Instantiates a new admission controller.
+   *
+   * @param policy the admission policy to enforce
+   * @param clock the clock to use for retrieving monotonic times
+   * @param memory the accountant keeping track of the content bytes held by the manager
+   */
+  AdmissionController(AdmissionPolicy policy, Clock clock, MemoryAccountant memory) {
+    this.policy = policy;
+    this.clock = clock;
+    this.memory = memory;
+    this.maximumInFlight = policy.getMaximumInFlight().orElse(Long.MAX_VALUE);
+    this.maximumBytes = policy.getMaximumBytes().orElse(Long.MAX_VALUE);
+    this.rateLimited = policy.getMaximumRate().isPresent();
+    this.tokensPerNano = policy.getMaximumRate().orElse(0.0D) / TimeUnit.SECONDS.toNanos(1L);
+    this.maximumBurst = policy.getMaximumBurst();
+    this.maximumWait = policy.getMaximumWait().toNanos();
+    this.tokens = maximumBurst;
+    this.lastRefill = clock.monotonicTime();
+  }
+
+  /**
+   * Gets the admission policy enforced by this controller.
+   *
+   * @return the admission policy enforced by this controller
+   */
+  public AdmissionPolicy getPolicy() {
+    return policy;
+  }
+
+  /**
+   * Gets the number of admitted transformations which are still in progress.
+   *
+   * @return the number of transformations in progress
+   */
+  public long getInFlightCount() {
+    return inFlight.get();
+  }
+
+  /**
+   * Gets the total number of content bytes currently held by the manager.
+   *
+   * @return the total number of content bytes currently held
+   */
+  public long getResidentBytes() {
+    return memory.getContentBytes();
+  }
+
+  /**
+   * Gets the number of requests rejected so far.
+   *
+   * @return the number of requests rejected so far
+   */
+  public long getRejectionCount() {
+    return rejectionCount.get();
+  }
+
+  /**
+   * Gets the current pressure on the manager as the highest utilization of its configured limits. A
+   * pressure of <code>0</code> indicates an idle manager whereas a pressure of <code>1</code>
+   * indicates that new requests will be blocked or rejected.
+   *
+   * @return the current pressure between <code>0</code> and <code>1</code> inclusively
+   */
+  public double getPressure() {
+    double pressure =
+        Math.max(
+            (double) inFlight.get() / maximumInFlight,
+            (double) memory.getContentBytes() / maximumBytes);
+
+    if (rateLimited) {
+      lock.lock();
+      try {
+        refill(clock.monotonicTime());
+        pressure = Math.max(pressure, 1.0D - tokens / maximumBurst);
+      } finally {
+        lock.unlock();
+      }
+    }
+    return Math.min(pressure, 1.0D);
+  }
+
+  /**
+   * Gets the current pressure level on the manager.
+   *
+   * @return the current pressure level
+   */
+  public PressureLevel getPressureLevel() {
+    return PressureLevel.of(getPressure());
+  }
+
+  /**
+   * Admits new transformations, blocking for up to the maximum wait time defined by the policy if
+   * any limits are currently exceeded.
+   *
+   * @param count the number of transformations to admit
+   * @throws AdmissionRejectedException if the transformations cannot be admitted
+   */
+  void admit(int count) throws AdmissionRejectedException {
+    if ((count > maximumInFlight) || (rateLimited && (count > maximumBurst))) {
+      throw reject("cannot admit " + count + " transformations at once with " + policy, null);
+    }
+    final long start = clock.monotonicTime();
+    final boolean blocking = maximumWait > 0L;
+
+    lock.lock();
+    if (blocking) { // must be registered before checking limits to not miss any releases
+      waiting.incrementAndGet();
+    }
+    try {
+      while (true) {
+        final long now = clock.monotonicTime();
+        final long remaining = maximumWait - (now - start);
+        long delay = remaining;
+        Duration retryAfter = null;
+        final String reason;
+
+        if (inFlight.get() + count > maximumInFlight) {
+          reason = "too many transformations in progress: " + inFlight.get();
+        } else if (memory.getContentBytes() >= maximumBytes) {
+          reason = "too many content bytes held: " + memory.getContentBytes();
+        } else if (rateLimited && (refill(now) < count)) {
+          delay = (long) Math.ceil((count - tokens) / tokensPerNano);
+          retryAfter = Duration.ofNanos(delay);
+          reason = "creation rate exceeded";
+        } else {
+          inFlight.addAndGet(count);
+          this.tokens -= count;
+          return;
+        }
+        if (remaining <= 0L) {
+          throw reject(reason, retryAfter);
+        }
+        released.awaitNanos(Math.min(delay, remaining));
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw reject("interrupted while waiting for admission", null);
+    } finally {
+      if (blocking) {
+        waiting.decrementAndGet();
+      }
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Called by the manager after an admitted transformation was created and before it can be
+   * accessed.
+   *
+   * @param transformation the transformation that was created
+   */
+  void created(InMemoryTransformation transformation) {
+    admitted.add(transformation.getTransformId());
+  }
+
+  /**
+   * Called by the manager when the creation of admitted transformations failed to release their
+   * admissions. Admissions already handed over to a transformation are only released if that
+   * transformation did not release them since by completing or being deleted.
+   *
+   * @param count the number of transformations that were admitted
+   * @param created the transformations that were created out of these admissions
+   */
+  void abandoned(int count, Collection<InMemoryTransformation> created) {
+    long released = count - created.size();
+
+    for (final InMemoryTransformation transformation : created) {
+      if (admitted.remove(transformation.getTransformId())) {
+        released++;
+      }
+    }
+    inFlight.addAndGet(-released);
+    signal();
+  }
+
+  /**
+   * Called when this controller is started to account for a transformation that existed before.
+   *
+   * @param transformation the existing transformation to account for
+   */
+  void existing(InMemoryTransformation transformation) {
+    if (!transformation.isCompleted() && admitted.add(transformation.getTransformId())) {
+      inFlight.incrementAndGet();
+    }
+  }
+
+  /**
+   * Called by the manager after a transformation completed.
+   *
+   * @param transformation the transformation that completed
+   */
+  void completed(InMemoryTransformation transformation) {
+    if (admitted.remove(transformation.getTransformId())) {
+      inFlight.decrementAndGet();
+      signal();
+    }
+  }
+
+  /**
+   * Called by the manager after a transformation was deleted.
+   *
+   * @param transformation the transformation that was deleted
+   */
+  void removed(InMemoryTransformation transformation) {
+    if (admitted.remove(transformation.getTransformId())) {
+      inFlight.decrementAndGet();
+    }
+    signal();
+  }
+
+  private double refill(long now) {
+    this.tokens = Math.min(maximumBurst, tokens + (now - lastRefill) * tokensPerNano);
+    this.lastRefill = now;
+    return tokens;
+  }
+
+  private void signal() {
+    if (waiting.get() > 0) {
+      lock.lock();
+      try {
+        released.signalAll();
+      } finally {
+        lock.unlock();
+      }
+    }
+  }
+
+  private AdmissionRejectedException reject(String reason, Duration retryAfter) {
+    rejectionCount.incrementAndGet();
+    return new AdmissionRejectedException("transformation rejected; " + reason, retryAfter);
+  }
+
+  /** Levels of pressure a manager can be under. */
+  public enum PressureLevel {
+    /** The manager is comfortably within its limits. */
+    NORMAL,
+
+    /** The manager is approaching its limits and upstream requests should be routed elsewhere. */
+    ELEVATED,
+
+    /** The manager has reached one of its limits and new requests are blocked or rejected. */
+    SATURATED;
+
+    /**
+     * Gets the pressure level corresponding to the specified pressure.
+     *
+     * @param pressure the pressure between <code>0</code> and <code>1</code>
+     * @return the corresponding pressure level
+     */
+    public static PressureLevel of(double pressure) {
+      if (pressure >= 1.0D) {
+        return PressureLevel.SATURATED;
+      } else if (pressure >= AdmissionController.ELEVATED_PRESSURE) {
+        return PressureLevel.ELEVATED;
+      }
+      return PressureLevel.NORMAL;
+    }
+  }
+}
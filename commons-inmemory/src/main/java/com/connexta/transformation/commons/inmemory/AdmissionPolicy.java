@@ -0,0 +1,155 @@
+/**
+ * Copyright (c) Connexta
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package com.connexta.transformation.commons.inmemory;
+
+import java.time.Duration;
+import java.util.OptionalDouble;
+import java.util.OptionalLong;
+
+/**
+ * Defines how many new transformations an {@link InMemoryTransformationManager} accepts in terms of
+ * the number of transformations in progress, the total number of content bytes held and the rate at
+ * which transformations are created. Requests exceeding a limit are either rejected right away or
+ * blocked for up to a maximum wait time by an {@link AdmissionController}.
+ */
+public class AdmissionPolicy {
+  private OptionalLong maximumInFlight = OptionalLong.empty();
+  private OptionalLong maximumBytes = OptionalLong.empty();
+  private OptionalDouble maximumRate = OptionalDouble.empty();
+  private long maximumBurst = 1L;
+  private Duration maximumWait = Duration.ZERO;
+
+  /**
+   * Gets the maximum number of transformations that can be in progress at once.
+   *
+   * @return the maximum number of transformations in progress or empty if unbounded
+   */
+  public OptionalLong getMaximumInFlight() {
+    return maximumInFlight;
+  }
+
+  /**
+   * Sets the maximum number of transformations that can be in progress at once.
+   *
+   * @param maximumInFlight the maximum number of transformations in progress
+   * @return this for chaining
+   * @throws IllegalArgumentException if <code>maximumInFlight</code> is not positive
+   */
+  public AdmissionPolicy setMaximumInFlight(long maximumInFlight) {
+    this.maximumInFlight = OptionalLong.of(validate(maximumInFlight));
+    return this;
+  }
+
+  /**
+   * Gets the maximum total number of content bytes held above which no new transformations are
+   * accepted.
+   *
+   * @return the maximum total number of content bytes or empty if unbounded
+   */
+  public OptionalLong getMaximumBytes() {
+    return maximumBytes;
+  }
+
+  /**
+   * Sets the maximum total number of content bytes held above which no new transformations are
+   * accepted.
+   *
+   * @param maximumBytes the maximum total number of content bytes
+   * @return this for chaining
+   * @throws IllegalArgumentException if <code>maximumBytes</code> is not positive
+   */
+  public AdmissionPolicy setMaximumBytes(long maximumBytes) {
+    this.maximumBytes = OptionalLong.of(validate(maximumBytes));
+    return this;
+  }
+
+  /**
+   * Gets the maximum number of transformations that can be created per second on average.
+   *
+   * @return the maximum creation rate or empty if unbounded
+   */
+  public OptionalDouble getMaximumRate() {
+    return maximumRate;
+  }
+
+  /**
+   * Gets the maximum number of transformations that can be created in a burst when the creation
+   * rate is limited.
+   *
+   * @return the maximum number of transformations that can be created in a burst
+   */
+  public long getMaximumBurst() {
+    return maximumBurst;
+  }
+
+  /**
+   * Sets the maximum number of transformations that can be created per second on average and the
+   * number of transformations that can be created in a burst after a period of inactivity.
+   *
+   * @param maximumRate the maximum number of transformations created per second
+   * @param maximumBurst the maximum number of transformations created in a burst
+   * @return this for chaining
+   * @throws IllegalArgumentException if <code>maximumRate</code> or <code>maximumBurst</code> is
+   *     not positive
+   */
+  public AdmissionPolicy setMaximumRate(double maximumRate, long maximumBurst) {
+    if (!(maximumRate > 0.0D) || Double.isInfinite(maximumRate)) {
+      throw new IllegalArgumentException("invalid maximum rate: " + maximumRate);
+    }
+    this.maximumBurst = validate(maximumBurst);
+    this.maximumRate = OptionalDouble.of(maximumRate);
+    return this;
+  }
+
+  /**
+   * Gets the maximum amount of time to block a request waiting for it to be admitted before
+   * rejecting it.
+   *
+   * @return the maximum amount of time to wait or zero if requests are rejected right away
+   */
+  public Duration getMaximumWait() {
+    return maximumWait;
+  }
+
+  /**
+   * Sets the maximum amount of time to block a request waiting for it to be admitted before
+   * rejecting it. Requests are rejected right away by default.
+   *
+   * @param maximumWait the maximum amount of time to wait or zero to reject requests right away
+   * @return this for chaining
+   * @throws IllegalArgumentException if <code>maximumWait</code> is negative
+   */
+  public AdmissionPolicy setMaximumWait(Duration maximumWait) {
+    if (maximumWait.isNegative()) {
+      throw new IllegalArgumentException("invalid negative maximum wait: " + maximumWait);
+    }
+    this.maximumWait = maximumWait;
+    return this;
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        "AdmissionPolicy[maximumInFlight=%s, maximumBytes=%s, maximumRate=%s, maximumBurst=%d, "
+            + "maximumWait=%s]",
+        maximumInFlight, maximumBytes, maximumRate, maximumBurst, maximumWait);
+  }
+
+  private static long validate(long maximum) {
+    if (maximum <= 0L) {
+      throw new IllegalArgumentException("invalid non-positive maximum: " + maximum);
+    }
+    return maximum;
+  }
+}
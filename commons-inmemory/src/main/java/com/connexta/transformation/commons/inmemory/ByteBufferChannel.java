@@ -0,0 +1,103 @@
+/**
+ * Copyright (c) Connexta
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package com.connexta.transformation.commons.inmemory;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.channels.SeekableByteChannel;
+
+/**
+ * Read-only {@link SeekableByteChannel} reading from the remaining bytes of a {@link ByteBuffer}
+ * without copying them.
+ */
+class ByteBufferChannel implements SeekableByteChannel {
+  private final ByteBuffer buffer;
+  private long position = 0L;
+  private volatile boolean open = true;
+
+  /**
+   * Creates a new channel reading the remaining bytes of the specified buffer.
+   *
+   * @param buffer the buffer to read from (its position and limit are not modified)
+   */
+  ByteBufferChannel(ByteBuffer buffer) {
+    this.buffer = buffer.slice();
+  }
+
+  @Override
+  public synchronized int read(ByteBuffer dst) throws ClosedChannelException {
+    ensureOpen();
+    final int size = buffer.limit();
+
+    if (position >= size) {
+      return -1;
+    }
+    final int length = Math.min(dst.remaining(), size - (int) position);
+    final ByteBuffer src = buffer.duplicate();
+
+    src.position((int) position).limit((int) position + length);
+    dst.put(src);
+    this.position += length;
+    return length;
+  }
+
+  @Override
+  public int write(ByteBuffer src) {
+    throw new NonWritableChannelException();
+  }
+
+  @Override
+  public synchronized long position() throws ClosedChannelException {
+    ensureOpen();
+    return position;
+  }
+
+  @Override
+  public synchronized ByteBufferChannel position(long newPosition) throws ClosedChannelException {
+    ensureOpen();
+    if (newPosition < 0L) {
+      throw new IllegalArgumentException("invalid negative position: " + newPosition);
+    }
+    this.position = newPosition;
+    return this;
+  }
+
+  @Override
+  public long size() throws ClosedChannelException {
+    ensureOpen();
+    return buffer.limit();
+  }
+
+  @Override
+  public SeekableByteChannel truncate(long size) {
+    throw new NonWritableChannelException();
+  }
+
+  @Override
+  public boolean isOpen() {
+    return open;
+  }
+
+  @Override
+  public void close() {
+    this.open = false;
+  }
+
+  private void ensureOpen() throws ClosedChannelException {
+    if (!open) {
+      throw new ClosedChannelException();
+    }
+  }
+}
@@ -0,0 +1,81 @@
+/**
+ * Copyright (c) Connexta
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package com.connexta.transformation.commons.inmemory;
+
+import java.util.OptionalLong;
+
+/**
+ * Defines the capacity of an {@link InMemoryTransformationManager} in terms of the number of
+ * transformations it holds and/or the total number of content bytes they hold. Once a limit is
+ * exceeded, completed transformations are evicted by a {@link TransformationEvictor}.
+ */
+public class CapacityPolicy {
+  private OptionalLong maximumSize = OptionalLong.empty();
+  private OptionalLong maximumBytes = OptionalLong.empty();
+
+  /**
+   * Gets the maximum number of transformations to hold.
+   *
+   * @return the maximum number of transformations to hold or empty if unbounded
+   */
+  public OptionalLong getMaximumSize() {
+    return maximumSize;
+  }
+
+  /**
+   * Sets the maximum number of transformations to hold.
+   *
+   * @param maximumSize the maximum number of transformations to hold
+   * @return this for chaining
+   * @throws IllegalArgumentException if <code>maximumSize</code> is not positive
+   */
+  public CapacityPolicy setMaximumSize(long maximumSize) {
+    this.maximumSize = OptionalLong.of(validate(maximumSize));
+    return this;
+  }
+
+  /**
+   * Gets the maximum total number of content bytes to hold.
+   *
+   * @return the maximum total number of content bytes to hold or empty if unbounded
+   */
+  public OptionalLong getMaximumBytes() {
+    return maximumBytes;
+  }
+
+  /**
+   * Sets the maximum total number of content bytes to hold.
+   *
+   * @param maximumBytes the maximum total number of content bytes to hold
+   * @return this for chaining
+   * @throws IllegalArgumentException if <code>maximumBytes</code> is not positive
+   */
+  public CapacityPolicy setMaximumBytes(long maximumBytes) {
+    this.maximumBytes = OptionalLong.of(validate(maximumBytes));
+    return this;
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        "CapacityPolicy[maximumSize=%s, maximumBytes=%s]", maximumSize, maximumBytes);
+  }
+
+  private static long validate(long maximum) {
+    if (maximum <= 0L) {
+      throw new IllegalArgumentException("invalid non-positive maximum: " + maximum);
+    }
+    return maximum;
+  }
+}
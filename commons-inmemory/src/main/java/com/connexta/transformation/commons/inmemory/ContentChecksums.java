@@ -0,0 +1,108 @@
+/**
+ * Copyright (c) Connexta
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package com.connexta.transformation.commons.inmemory;
+
+import com.google.common.io.BaseEncoding;
+import java.io.InputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedInputStream;
+
+/**
+ * Computes the checksums of metadata content as it is being stored such that the content doesn't
+ * need to be read a second time. A CRC32C checksum is always computed whereas a SHA-256 digest is
+ * only computed when requested.
+ */
+class ContentChecksums {
+  private final CRC32C crc32c = new CRC32C();
+
+  /** The SHA-256 digest being computed or <code>null</code> if not requested. */
+  private final MessageDigest sha256;
+
+  /**
+   * Instantiates new checksums.
+   *
+   * @param sha256 <code>true</code> to also compute a SHA-256 digest; <code>false</code> otherwise
+   */
+  ContentChecksums(boolean sha256) {
+    this.sha256 = sha256 ? ContentChecksums.newSha256() : null;
+  }
+
+  /**
+   * Wraps the specified stream such that all bytes read from it are checksummed.
+   *
+   * @param in the stream to wrap
+   * @return a stream which checksums all bytes read through it
+   */
+  InputStream wrap(InputStream in) {
+    final InputStream checked = new CheckedInputStream(in, crc32c);
+
+    return (sha256 != null) ? new DigestInputStream(checked, sha256) : checked;
+  }
+
+  /**
+   * Checksums the specified byte.
+   *
+   * @param b the byte to checksum
+   */
+  void update(int b) {
+    crc32c.update(b);
+    if (sha256 != null) {
+      sha256.update((byte) b);
+    }
+  }
+
+  /**
+   * Checksums the specified bytes.
+   *
+   * @param b the array containing the bytes to checksum
+   * @param off the offset of the first byte to checksum
+   * @param len the number of bytes to checksum
+   */
+  void update(byte[] b, int off, int len) {
+    crc32c.update(b, off, len);
+    if (sha256 != null) {
+      sha256.update(b, off, len);
+    }
+  }
+
+  /**
+   * Gets the CRC32C checksum of all bytes checksummed so far.
+   *
+   * @return the CRC32C checksum
+   */
+  long getCrc32c() {
+    return crc32c.getValue();
+  }
+
+  /**
+   * Completes and gets the SHA-256 digest of all bytes checksummed so far as a lowercase
+   * hexadecimal string. This method should only be called once all bytes have been checksummed.
+   *
+   * @return the SHA-256 digest or <code>null</code> if not requested
+   */
+  String getSha256() {
+    return (sha256 != null) ? BaseEncoding.base16().lowerCase().encode(sha256.digest()) : null;
+  }
+
+  private static MessageDigest newSha256() {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) { // every Java platform is required to support SHA-256
+      throw new IllegalStateException(e);
+    }
+  }
+}
@@ -0,0 +1,28 @@
+/**
+ * Copyright (c) Connexta
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package com.connexta.transformation.commons.inmemory;
+
+import com.connexta.transformation.commons.api.Transformation;
+
+/** Listener notified when a completed transformation is evicted to enforce a capacity limit. */
+@FunctionalInterface
+public interface EvictionListener {
+  /**
+   * Called after a transformation was evicted. The transformation has already been deleted by the
+   * time this method is called.
+   *
+   * @param transformation the transformation that was evicted
+   */
+  void evicted(Transformation transformation);
+}
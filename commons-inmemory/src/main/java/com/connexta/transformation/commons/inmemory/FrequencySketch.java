@@ -0,0 +1,116 @@
+/**
+ * Copyright (c) Connexta
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package com.connexta.transformation.commons.inmemory;
+
+/**
+ * A probabilistic count-min sketch estimating the popularity of items within a time window. Each
+ * item is mapped to 4 counters of 4 bits each and its frequency is estimated as the minimum of
+ * those counters, which caps the estimates at 15. All counters are halved once the number of
+ * recorded increments reaches a sample size proportional to the table size such that the sketch
+ * ages and keeps reflecting recent popularity.
+ *
+ * <p><i>Note:</i> This class is not threadsafe.
+ */
+class FrequencySketch {
+  private static final long[] SEEDS = {
+    0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L
+  };
+
+  /** Mask used to clear the high order bit of each counter after shifting them all by one. */
+  private static final long RESET_MASK = 0x7777777777777777L;
+
+  private static final int MAXIMUM_COUNT = 15;
+  private static final int MINIMUM_CAPACITY = 16;
+  private static final int MAXIMUM_CAPACITY = 1 << 24;
+
+  private final long[] table;
+  private final int sampleSize;
+  private int size = 0;
+
+  /**
+   * Instantiates a new sketch.
+   *
+   * @param expectedItems the expected number of distinct items to track
+   */
+  FrequencySketch(long expectedItems) {
+    final int items =
+        (int)
+            Math.max(
+                FrequencySketch.MINIMUM_CAPACITY,
+                Math.min(FrequencySketch.MAXIMUM_CAPACITY, expectedItems));
+
+    // each long holds 16 counters so 1 long per item gives 16 counters per item
+    this.table = new long[1 << (32 - Integer.numberOfLeadingZeros(items - 1))];
+    this.sampleSize = 10 * table.length;
+  }
+
+  /**
+   * Gets the estimated number of occurrences of an item, up to a maximum of 15.
+   *
+   * @param item the item to estimate the frequency of
+   * @return the estimated frequency of the item
+   */
+  int frequency(Object item) {
+    final int hash = item.hashCode();
+    int frequency = FrequencySketch.MAXIMUM_COUNT;
+
+    for (int i = 0; i < FrequencySketch.SEEDS.length; i++) {
+      frequency = Math.min(frequency, count(hash, i));
+    }
+    return frequency;
+  }
+
+  /**
+   * Records an occurrence of an item, aging all counters if the sample size was reached.
+   *
+   * @param item the item to record an occurrence for
+   */
+  void increment(Object item) {
+    final int hash = item.hashCode();
+    boolean added = false;
+
+    for (int i = 0; i < FrequencySketch.SEEDS.length; i++) {
+      if (count(hash, i) < FrequencySketch.MAXIMUM_COUNT) {
+        table[index(hash, i)] += 1L << offset(hash, i);
+        added = true;
+      }
+    }
+    if (added && (++size == sampleSize)) {
+      reset();
+    }
+  }
+
+  private void reset() {
+    for (int i = 0; i < table.length; i++) {
+      table[i] = (table[i] >>> 1) & FrequencySketch.RESET_MASK;
+    }
+    this.size /= 2;
+  }
+
+  private int count(int hash, int i) {
+    return (int) ((table[index(hash, i)] >>> offset(hash, i)) & 0xfL);
+  }
+
+  private int index(int hash, int i) {
+    final long h = (hash + FrequencySketch.SEEDS[i]) * FrequencySketch.SEEDS[i];
+
+    return (int) ((h + (h >>> 32)) & (table.length - 1));
+  }
+
+  private static int offset(int hash, int i) {
+    final long h = (hash ^ FrequencySketch.SEEDS[i]) * 0x9e3779b97f4a7c15L;
+
+    return (int) (h >>> 60) << 2;
+  }
+}
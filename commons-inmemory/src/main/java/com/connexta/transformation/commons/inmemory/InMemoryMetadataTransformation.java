@@ -13,18 +13,28 @@
  */
 package com.connexta.transformation.commons.inmemory;
 
+import com.connexta.transformation.commons.api.ContentOutputStream;
 import com.connexta.transformation.commons.api.ErrorCode;
 import com.connexta.transformation.commons.api.MetadataTransformation;
 import com.connexta.transformation.commons.api.RequestInfo;
+import com.connexta.transformation.commons.api.TransformationLifecycleListener;
 import com.connexta.transformation.commons.api.exceptions.PersistenceException;
 import com.connexta.transformation.commons.api.impl.AbstractMetadataImpl;
+import com.connexta.transformation.commons.api.impl.jfr.ContentIngestEvent;
 import com.connexta.transformation.pojo.MetadataPojo;
 import com.google.common.io.ByteStreams;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
 import java.time.Instant;
+import java.util.Arrays;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.concurrent.atomic.AtomicReference;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -36,10 +46,24 @@ import org.slf4j.LoggerFactory;
 public class InMemoryMetadataTransformation extends AbstractMetadataImpl {
   private static final Logger LOGGER =
       LoggerFactory.getLogger(InMemoryMetadataTransformation.class);
+
+  private static final int INITIAL_CONTENT_CAPACITY = 8192;
+
   private final InMemoryTransformation transformation;
   private final Object stateLock = new Object();
+
+  /**
+   * The stored content which may be larger than the actual content; only the first {@link
+   * #contentLength} bytes are valid. The length is always set before the content is published.
+   */
   private volatile byte[] content;
 
+  /** The content stream currently opened for this metadata if any (guarded by stateLock). */
+  private BufferedContentStream contentStream = null;
+
+  /** Whether the content of this metadata was accounted for or released by the manager. */
+  private final AtomicReference<Accounting> accounting = new AtomicReference<>(Accounting.PENDING);
+
   /**
    * Sets the state to "In progress" and initializes the start time.
    *
@@ -77,27 +101,135 @@ public class InMemoryMetadataTransformation extends AbstractMetadataImpl {
     return transformation.isDeleted();
   }
 
+  @Override
+  protected TransformationLifecycleListener getLifecycleListener() {
+    return transformation.getLifecycleListener();
+  }
+
+  @Override
+  protected Object getLifecycleContext() {
+    return transformation.getLifecycleContext();
+  }
+
   @Override
   public Optional<InputStream> getContent() {
+    final OperationTimer timer = transformation.startOperation(SlowOperation.Type.READ);
+
     checkForDeletion();
     final byte[] c = content;
 
     if (c == null) {
+      timer.stop(this);
       return Optional.empty();
-    } else {
-      return Optional.of(new ByteArrayInputStream(content));
     }
+    notifyContentRead();
+    timer.stop(this);
+    return Optional.of(new ByteArrayInputStream(c, 0, (int) super.contentLength));
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>The returned stream reads the specified range directly from the stored content.
+   */
+  @Override
+  public Optional<InputStream> getContent(long offset, long length) {
+    if (offset < 0L) {
+      throw new IllegalArgumentException("invalid negative offset: " + offset);
+    } else if (length < 0L) {
+      throw new IllegalArgumentException("invalid negative length: " + length);
+    }
+    final OperationTimer timer = transformation.startOperation(SlowOperation.Type.READ);
+
+    checkForDeletion();
+    final byte[] c = content;
+
+    if (c == null) {
+      timer.stop(this);
+      return Optional.empty();
+    }
+    notifyContentRead();
+    final int count = (int) super.contentLength;
+    final int from = (int) Math.min(offset, count);
+
+    timer.stop(this);
+    return Optional.of(new ByteArrayInputStream(c, from, (int) Math.min(length, count - from)));
+  }
+
+  /**
+   * Returns an optional read-only {@link ByteBuffer} view of the metadata. The returned buffer
+   * shares the stored content without copying it. If the metadata hasn't been created yet, or
+   * failed to be created, the optional will be empty.
+   *
+   * @return a read-only view of the content of this metadata or empty if not available yet or if no
+   *     metadata was generated
+   * @throws IllegalStateException if the transformation was deleted already
+   */
+  public Optional<ByteBuffer> getContentBuffer() {
+    final OperationTimer timer = transformation.startOperation(SlowOperation.Type.READ);
+
+    checkForDeletion();
+    final byte[] c = content;
+
+    if (c == null) {
+      timer.stop(this);
+      return Optional.empty();
+    }
+    notifyContentRead();
+    timer.stop(this);
+    return Optional.of(ByteBuffer.wrap(c, 0, (int) super.contentLength).asReadOnlyBuffer());
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>The returned channel is a {@link java.nio.channels.SeekableByteChannel} reading directly
+   * from the stored content.
+   */
+  @Override
+  public Optional<ReadableByteChannel> getContentChannel() {
+    return getContentBuffer().map(ByteBufferChannel::new);
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>The stored content is written directly to the specified channel without intermediate copies.
+   */
+  @Override
+  public OptionalLong transferContentTo(WritableByteChannel target) throws IOException {
+    final Optional<ByteBuffer> buffer = getContentBuffer();
+
+    if (!buffer.isPresent()) {
+      return OptionalLong.empty();
+    }
+    final ByteBuffer b = buffer.get();
+    final long length = b.remaining();
+
+    while (b.hasRemaining()) {
+      target.write(b);
+    }
+    return OptionalLong.of(length);
   }
 
   @Override
   public void succeed(String contentType, InputStream contentStream) throws IOException {
+    final OperationTimer timer = transformation.startOperation(SlowOperation.Type.SUCCEED);
+
     checkForDeletion();
     final Instant now = Instant.ofEpochMilli(clock.wallTime());
+    final ContentIngestEvent event = new ContentIngestEvent();
+
+    event.begin();
 
     synchronized (stateLock) {
+      timer.acquired();
       checkForCompletion();
+      final ContentChecksums checksums = transformation.newContentChecksums();
+      final byte[] bytes;
+
       try {
-        this.content = ByteStreams.toByteArray(contentStream);
+        bytes = ByteStreams.toByteArray(checksums.wrap(contentStream));
       } finally {
         try {
           contentStream.close();
@@ -108,25 +240,144 @@ public class InMemoryMetadataTransformation extends AbstractMetadataImpl {
               getTransformId());
         }
       }
-      super.contentLength = content.length;
-      super.contentType = contentType;
-      super.completionTime = now;
-      super.state = State.SUCCESSFUL;
+      succeeded(contentType, bytes, bytes.length, checksums, now);
+    }
+    ingested(event, contentType);
+    transformation.completed(this);
+    timer.stop(this);
+  }
+
+  @Override
+  public ContentOutputStream openContent(String contentType) {
+    checkForDeletion();
+    synchronized (stateLock) {
+      checkForCompletion();
+      if (contentStream != null) {
+        throw new IllegalStateException(
+            "content for ["
+                + getMetadataType()
+                + "] metadata of transformation ["
+                + getTransformId()
+                + "] is already opened.");
+      }
+      this.contentStream = new BufferedContentStream(contentType);
+      return contentStream;
     }
   }
 
   @Override
   public void fail(ErrorCode reason, String message) {
+    final OperationTimer timer = transformation.startOperation(SlowOperation.Type.FAIL);
+
     checkForDeletion();
     final Instant now = Instant.ofEpochMilli(clock.wallTime());
 
     synchronized (stateLock) {
+      timer.acquired();
       checkForCompletion();
+      abortContentStream();
       super.failureReason = reason;
       super.failureMessage = message;
       super.completionTime = now;
       super.state = State.FAILED;
     }
+    transformation.completed(this);
+    timer.stop(this);
+  }
+
+  /**
+   * Called by the manager's memory accountant once this metadata completed to account for its
+   * content. The content is accounted for at most once and never after it was released.
+   *
+   * @return the number of content bytes to account for
+   */
+  long accountContent() {
+    return accounting.compareAndSet(Accounting.PENDING, Accounting.ACCOUNTED)
+        ? getContentLength().orElse(0L)
+        : 0L;
+  }
+
+  /**
+   * Called by the manager's memory accountant once the transformation was deleted to release the
+   * content of this metadata. Only content that was previously accounted for is released and it is
+   * released at most once.
+   *
+   * @return the number of content bytes to release
+   */
+  long releaseContent() {
+    return (accounting.getAndSet(Accounting.RELEASED) == Accounting.ACCOUNTED)
+        ? getContentLength().orElse(0L)
+        : 0L;
+  }
+
+  /**
+   * Commits the content written to the specified stream and completes this metadata successfully
+   * unless the stream was already closed or aborted because this metadata completed in the mean
+   * time.
+   *
+   * @param stream the stream being closed
+   */
+  private void commit(BufferedContentStream stream) {
+    final OperationTimer timer = transformation.startOperation(SlowOperation.Type.SUCCEED);
+
+    synchronized (stateLock) {
+      timer.acquired();
+      if (contentStream != stream) {
+        return;
+      }
+      checkForDeletion();
+      succeeded(
+          stream.contentType,
+          stream.buffer,
+          stream.count,
+          stream.checksums,
+          Instant.ofEpochMilli(clock.wallTime()));
+    }
+    ingested(stream.event, stream.contentType);
+    transformation.completed(this);
+    timer.stop(this);
+  }
+
+  /**
+   * Discards the content written to the specified stream without completing this metadata such that
+   * it can be failed or have its content opened again.
+   *
+   * @param stream the stream being aborted
+   */
+  private void abort(BufferedContentStream stream) {
+    synchronized (stateLock) {
+      if (contentStream == stream) {
+        abortContentStream();
+      }
+    }
+  }
+
+  /** Must be called while holding the state lock. */
+  private void succeeded(
+      String contentType, byte[] bytes, int length, ContentChecksums checksums, Instant now) {
+    abortContentStream();
+    super.contentLength = length;
+    this.content = bytes;
+    super.contentCrc32c = checksums.getCrc32c();
+    super.contentSha256 = checksums.getSha256();
+    super.contentType = contentType;
+    super.completionTime = now;
+    super.state = State.SUCCESSFUL;
+  }
+
+  private void ingested(ContentIngestEvent event, String contentType) {
+    event.end();
+    if (event.shouldCommit()) {
+      event.commit(this, contentType, super.contentLength);
+    }
+  }
+
+  /** Must be called while holding the state lock. */
+  private void abortContentStream() {
+    if (contentStream != null) {
+      contentStream.closed = true;
+      this.contentStream = null;
+    }
   }
 
   private void checkForCompletion() {
@@ -150,4 +401,71 @@ public class InMemoryMetadataTransformation extends AbstractMetadataImpl {
               + "] was deleted.");
     }
   }
+
+  /**
+   * Output stream accumulating content directly into a growable array which becomes the content of
+   * the metadata as is, without being trimmed, when the stream is closed or is discarded when the
+   * stream is aborted. The content is checksummed as it is being written.
+   */
+  private class BufferedContentStream extends ContentOutputStream {
+    private final String contentType;
+    private final ContentChecksums checksums = transformation.newContentChecksums();
+    private final ContentIngestEvent event = new ContentIngestEvent();
+    private byte[] buffer = new byte[InMemoryMetadataTransformation.INITIAL_CONTENT_CAPACITY];
+    private int count = 0;
+    private volatile boolean closed = false;
+
+    private BufferedContentStream(String contentType) {
+      this.contentType = contentType;
+      event.begin();
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+      ensureOpenWithCapacity(count + 1);
+      buffer[count++] = (byte) b;
+      checksums.update(b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      Objects.checkFromIndexSize(off, len, b.length);
+      ensureOpenWithCapacity(count + len);
+      System.arraycopy(b, off, buffer, count, len);
+      checksums.update(b, off, len);
+      count += len;
+    }
+
+    @Override
+    public void abort() {
+      InMemoryMetadataTransformation.this.abort(this);
+      this.buffer = null;
+    }
+
+    @Override
+    public void close() {
+      commit(this);
+    }
+
+    private void ensureOpenWithCapacity(int capacity) throws IOException {
+      if (closed) {
+        throw new IOException(
+            "content stream for ["
+                + getMetadataType()
+                + "] metadata of transformation ["
+                + getTransformId()
+                + "] is closed.");
+      }
+      if (capacity > buffer.length) {
+        this.buffer = Arrays.copyOf(buffer, Math.max(buffer.length << 1, capacity));
+      }
+    }
+  }
+
+  /** States of the content accounting of a metadata. */
+  private enum Accounting {
+    PENDING,
+    ACCOUNTED,
+    RELEASED
+  }
 }
@@ -15,13 +15,17 @@ package com.connexta.transformation.commons.inmemory;
 
 import com.connexta.transformation.commons.api.MetadataTransformation;
 import com.connexta.transformation.commons.api.Transformation;
+import com.connexta.transformation.commons.api.TransformationLifecycleListener;
 import com.connexta.transformation.commons.api.exceptions.PersistenceException;
 import com.connexta.transformation.commons.api.exceptions.TransformationNotFoundException;
 import com.connexta.transformation.commons.api.impl.AbstractMetadataImpl;
 import com.connexta.transformation.commons.api.impl.AbstractTransformationImpl;
 import com.connexta.transformation.commons.api.impl.RequestInfoImpl;
+import com.connexta.transformation.commons.api.impl.TransformationNotifier;
 import com.connexta.transformation.pojo.MetadataPojo;
 import java.net.URL;
+import java.util.OptionalLong;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /** An implementation of {@link Transformation} that stores all of the data in memory. */
 public class InMemoryTransformation extends AbstractTransformationImpl {
@@ -44,6 +48,7 @@ public class InMemoryTransformation extends AbstractTransformationImpl {
     super(currentLocation, finalLocation, metacardLocation, manager.getClock());
     this.manager = manager;
     this.deleted = false;
+    notifyCreated();
   }
 
   @Override
@@ -64,11 +69,24 @@ public class InMemoryTransformation extends AbstractTransformationImpl {
       throw new IllegalStateException(
           "transformation [" + getTransformId() + "] is already complete.");
     }
-    return metadatas.computeIfAbsent(
-        metadataType,
-        t ->
-            new InMemoryMetadataTransformation(
-                this, metadataType, getTransformId(), getRequestInfo()));
+    final OperationTimer timer = manager.startOperation(SlowOperation.Type.ADD);
+    final AtomicBoolean added = new AtomicBoolean();
+    final InMemoryMetadataTransformation metadata =
+        (InMemoryMetadataTransformation)
+            addIfAbsent(
+                metadataType,
+                t -> {
+                  added.set(true);
+                  return new InMemoryMetadataTransformation(
+                      this, t, getTransformId(), getRequestInfo());
+                });
+
+    if (added.get()) {
+      manager.metadataAdded(this, metadata);
+      notifyMetadataAdded(metadata);
+    }
+    timer.stop(metadata);
+    return metadata;
   }
 
   @Override
@@ -76,13 +94,70 @@ public class InMemoryTransformation extends AbstractTransformationImpl {
     return deleted;
   }
 
+  /**
+   * Gets the total number of content bytes currently stored for all metadata of this
+   * transformation.
+   *
+   * @return the total number of content bytes stored for this transformation
+   */
+  public long getContentBytes() {
+    return metadatas.values().stream()
+        .map(MetadataTransformation::getContentLength)
+        .filter(OptionalLong::isPresent)
+        .mapToLong(OptionalLong::getAsLong)
+        .sum();
+  }
+
   @Override
   protected AbstractMetadataImpl fromPojo(MetadataPojo pojo) throws PersistenceException {
     return new InMemoryMetadataTransformation(pojo, this);
   }
 
+  @Override
+  protected TransformationNotifier getNotifier() {
+    return manager.getNotifier();
+  }
+
+  @Override
+  protected TransformationLifecycleListener getLifecycleListener() {
+    return manager.getLifecycleListener();
+  }
+
+  /**
+   * Creates new checksums for the content of a metadata about to be stored.
+   *
+   * @return new checksums as configured on the manager
+   */
+  ContentChecksums newContentChecksums() {
+    return new ContentChecksums(manager.isContentSha256Enabled());
+  }
+
+  /**
+   * Starts timing an operation for slow operation detection.
+   *
+   * @param type the type of operation being started
+   * @return a timer to report the completion of the operation with
+   */
+  OperationTimer startOperation(SlowOperation.Type type) {
+    return manager.startOperation(type);
+  }
+
+  /**
+   * Called by the metadata to notify this transformation that it has completed.
+   *
+   * @param metadata the metadata that completed
+   */
+  void completed(InMemoryMetadataTransformation metadata) {
+    manager.metadataCompleted(metadata);
+    if (metadataCompleted(metadata)) {
+      manager.transformationCompleted(this);
+    }
+  }
+
   /** Called by the manager to notify this transformation that it was deleted. */
   void wasDeleted() {
     this.deleted = true;
+    abortCompletion();
+    notifyDeleted();
   }
 }
@@ -14,14 +14,40 @@
 package com.connexta.transformation.commons.inmemory;
 
 import com.connexta.transformation.commons.api.MetadataTransformation;
+import com.connexta.transformation.commons.api.RequestInfo;
 import com.connexta.transformation.commons.api.Transformation;
+import com.connexta.transformation.commons.api.TransformationLifecycleListener;
+import com.connexta.transformation.commons.api.TransformationListener;
+import com.connexta.transformation.commons.api.TransformationLookup;
 import com.connexta.transformation.commons.api.TransformationManager;
+import com.connexta.transformation.commons.api.TransformationPage;
+import com.connexta.transformation.commons.api.TransformationQuery;
+import com.connexta.transformation.commons.api.TransformationStatus.State;
 import com.connexta.transformation.commons.api.exceptions.TransformationException;
 import com.connexta.transformation.commons.api.exceptions.TransformationNotFoundException;
+import com.connexta.transformation.commons.api.impl.AsyncTransformationLifecycleListener;
+import com.connexta.transformation.commons.api.impl.TransformationEvent.Type;
+import com.connexta.transformation.commons.api.impl.TransformationEventLog;
+import com.connexta.transformation.commons.api.impl.TransformationNotifier;
+import com.connexta.transformation.commons.api.impl.TransformationStoreStatistics;
 import io.micrometer.core.instrument.Clock;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.io.IOException;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * An implementation of {@link TransformationManager} that stores all of the data in memory. An
@@ -29,9 +55,24 @@ import java.util.concurrent.ConcurrentHashMap;
  * MetadataTransformation}s. The store is threadsafe, but will allow multiple requests with the
  * exact same "locations" as input.
  */
-public class InMemoryTransformationManager implements TransformationManager {
+public class InMemoryTransformationManager
+    implements TransformationManager, TransformationStoreStatistics, MeterBinder {
+  private static final Logger LOGGER = LoggerFactory.getLogger(InMemoryTransformationManager.class);
+
   private final Map<String, InMemoryTransformation> store = new ConcurrentHashMap<>();
+  private final TransformationIndex index = new TransformationIndex();
+  private final MemoryAccountant memory = new MemoryAccountant();
   private final Clock clock;
+  private final TransformationNotifier notifier;
+  private final TransformationEvictor evictor;
+  private volatile TransformationReaper reaper = null;
+  private volatile MetadataWorkQueue workQueue = null;
+  private volatile AdmissionController admission = null;
+  private volatile TransformationEventLog eventLog = null;
+  private volatile SlowOperationDetector slowOperationDetector = null;
+  private volatile boolean contentSha256Enabled = false;
+  private volatile TransformationLifecycleListener lifecycleListener =
+      TransformationLifecycleListener.NOOP;
 
   /**
    * Instantiates a new transformation manager capable of managing all transformations in memory.
@@ -40,26 +81,172 @@ public class InMemoryTransformationManager implements TransformationManager {
    */
   public InMemoryTransformationManager(Clock clock) {
     this.clock = clock;
+    this.notifier = new TransformationNotifier();
+    this.evictor = null;
+  }
+
+  /**
+   * Instantiates a new transformation manager capable of managing all transformations in memory.
+   *
+   * @param clock the clock to use for retrieving wall and monotonic times
+   * @param executor the executor to use for delivering completion notifications to listeners
+   */
+  public InMemoryTransformationManager(Clock clock, Executor executor) {
+    this.clock = clock;
+    this.notifier = new TransformationNotifier(executor);
+    this.evictor = null;
+  }
+
+  /**
+   * Instantiates a new transformation manager capable of managing a bounded number of
+   * transformations in memory. Completed transformations are evicted as needed to enforce the
+   * specified capacity policy.
+   *
+   * @param clock the clock to use for retrieving wall and monotonic times
+   * @param executor the executor to use for delivering completion notifications to listeners
+   * @param capacity the capacity policy to enforce
+   */
+  public InMemoryTransformationManager(Clock clock, Executor executor, CapacityPolicy capacity) {
+    this.clock = clock;
+    this.notifier = new TransformationNotifier(executor);
+    this.evictor = new TransformationEvictor(this, memory, capacity);
   }
 
   @Override
   public Transformation createTransform(
       URL currentLocation, URL finalLocation, URL metadataLocation) throws TransformationException {
-    InMemoryTransformation transformation =
-        new InMemoryTransformation(this, currentLocation, finalLocation, metadataLocation);
-    store.put(transformation.getTransformId(), transformation);
-    return transformation;
+    final AdmissionController controller = admission;
+    final OperationTimer timer = startOperation(SlowOperation.Type.CREATE);
+    InMemoryTransformation transformation = null;
+
+    if (controller != null) {
+      controller.admit(1);
+    }
+    try {
+      timer.acquired();
+      transformation =
+          new InMemoryTransformation(this, currentLocation, finalLocation, metadataLocation);
+      if (controller != null) {
+        controller.created(transformation);
+      }
+      store.put(transformation.getTransformId(), transformation);
+      memory.created();
+      index.created(transformation);
+      track(transformation);
+      record(Type.CREATED, transformation.getTransformId(), null);
+      if (evictor != null) {
+        evictor.created();
+      }
+      timer.stop(transformation.getTransformId());
+      return transformation;
+    } catch (RuntimeException | Error e) {
+      if (transformation != null) {
+        discard(transformation);
+      }
+      if (controller != null) { // give back the admission so it does not leak
+        controller.abandoned(1, (transformation != null) ? List.of(transformation) : List.of());
+      }
+      throw e;
+    }
+  }
+
+  @Override
+  public List<Transformation> createTransforms(List<? extends RequestInfo> requests)
+      throws TransformationException {
+    final AdmissionController controller = admission;
+    final OperationTimer timer = startOperation(SlowOperation.Type.CREATE_ALL);
+    final List<Transformation> transformations = new ArrayList<>(requests.size());
+    final Map<String, InMemoryTransformation> batch = new HashMap<>(requests.size() * 2);
+
+    if (controller != null) {
+      controller.admit(requests.size());
+    }
+    try {
+      timer.acquired();
+      for (final RequestInfo request : requests) {
+        final InMemoryTransformation transformation =
+            new InMemoryTransformation(
+                this,
+                request.getCurrentLocation(),
+                request.getFinalLocation(),
+                request.getMetacardLocation());
+
+        if (controller != null) {
+          controller.created(transformation);
+        }
+        batch.put(transformation.getTransformId(), transformation);
+        transformations.add(transformation);
+      }
+      for (final InMemoryTransformation transformation : batch.values()) {
+        store.put(transformation.getTransformId(), transformation);
+        memory.created();
+      }
+      batch.values().forEach(index::created);
+      batch.values().forEach(this::track);
+      transformations.forEach(t -> record(Type.CREATED, t.getTransformId(), null));
+      if (evictor != null) {
+        evictor.created();
+      }
+      timer.stop();
+      return transformations;
+    } catch (RuntimeException | Error e) {
+      batch.values().forEach(this::discard);
+      if (controller != null) { // give back the admissions so they do not leak
+        controller.abandoned(requests.size(), batch.values());
+      }
+      throw e;
+    }
   }
 
   @Override
   public Transformation get(String transformId) throws TransformationException {
+    final OperationTimer timer = startOperation(SlowOperation.Type.GET);
     Transformation transformation = store.get(transformId);
     if (transformation == null) {
       throw new TransformationNotFoundException(
           "Transformation [" + transformId + "] cannot be found");
-    } else {
-      return transformation;
+    } else if (evictor != null) {
+      evictor.read(transformId);
+    }
+    timer.stop(transformId);
+    return transformation;
+  }
+
+  @Override
+  public TransformationLookup getAll(Collection<String> transformIds) {
+    final OperationTimer timer = startOperation(SlowOperation.Type.GET_ALL);
+    final Map<String, Transformation> found = new HashMap<>(transformIds.size() * 2);
+    final Set<String> missing = new HashSet<>();
+
+    for (final String transformId : transformIds) {
+      final Transformation transformation = store.get(transformId);
+
+      if (transformation != null) {
+        found.put(transformId, transformation);
+        if (evictor != null) {
+          evictor.read(transformId);
+        }
+      } else {
+        missing.add(transformId);
+      }
     }
+    timer.stop();
+    return new TransformationLookup(found, missing);
+  }
+
+  @Override
+  public TransformationPage query(TransformationQuery query) {
+    return index.query(query);
+  }
+
+  @Override
+  public List<Transformation> findByCurrentLocation(URL currentLocation) {
+    return index.findByCurrentLocation(currentLocation);
+  }
+
+  @Override
+  public List<Transformation> findByMetacardLocation(URL metacardLocation) {
+    return index.findByMetacardLocation(metacardLocation);
   }
 
   @Override
@@ -70,13 +257,268 @@ public class InMemoryTransformationManager implements TransformationManager {
 
   @Override
   public void delete(String transformId) throws TransformationNotFoundException {
+    final OperationTimer timer = startOperation(SlowOperation.Type.DELETE);
     final InMemoryTransformation transformation = store.remove(transformId);
 
     if (transformation == null) {
       throw new TransformationNotFoundException(
           "Transformation [" + transformId + "] cannot be found");
     }
-    transformation.wasDeleted();
+    deleted(transformation);
+    timer.stop(transformId);
+  }
+
+  @Override
+  public Set<String> deleteAll(Collection<String> transformIds) {
+    final OperationTimer timer = startOperation(SlowOperation.Type.DELETE_ALL);
+    final Set<String> missing = new HashSet<>();
+
+    for (final String transformId : transformIds) {
+      final InMemoryTransformation transformation = store.remove(transformId);
+
+      if (transformation != null) {
+        deleted(transformation);
+      } else {
+        missing.add(transformId);
+      }
+    }
+    timer.stop();
+    return missing;
+  }
+
+  @Override
+  public void addListener(TransformationListener listener) {
+    notifier.addListener(listener);
+  }
+
+  @Override
+  public void removeListener(TransformationListener listener) {
+    notifier.removeListener(listener);
+  }
+
+  @Override
+  public long getTransformationCount() {
+    return store.size();
+  }
+
+  @Override
+  public long getInProgressCount() {
+    return index.getInProgressCount();
+  }
+
+  /**
+   * Starts reclaiming transformations once they expire according to the specified retention policy.
+   * Expired transformations are deleted from this manager by a reaper which runs periodically from
+   * the specified executor until it is closed.
+   *
+   * @param policy the retention policy to enforce
+   * @param executor the executor from which to periodically run the reaper
+   * @return the reaper which can be used to retrieve metrics and to stop reclaiming transformations
+   * @throws IllegalStateException if a reaper is already running for this manager
+   */
+  public synchronized TransformationReaper startReaper(
+      RetentionPolicy policy, ScheduledExecutorService executor) {
+    if (reaper != null) {
+      throw new IllegalStateException("a reaper is already running");
+    }
+    final TransformationReaper newReaper = new TransformationReaper(this, policy);
+
+    // register the reaper before tracking existing transformations such that none are missed
+    this.reaper = newReaper;
+    store.values().forEach(newReaper::track);
+    newReaper.start(executor);
+    return newReaper;
+  }
+
+  /**
+   * Gets the work queue handing out pending metadata of this manager to workers. The queue is
+   * created the first time this method is called at which point all metadata currently in progress
+   * are queued.
+   *
+   * @return the work queue for this manager
+   */
+  public synchronized MetadataWorkQueue getWorkQueue() {
+    if (workQueue == null) {
+      final MetadataWorkQueue queue = new MetadataWorkQueue(clock);
+
+      // register the queue before queuing existing metadata such that none are missed
+      this.workQueue = queue;
+      store.values().stream()
+          .flatMap(InMemoryTransformation::metadatas)
+          .map(InMemoryMetadataTransformation.class::cast)
+          .forEach(queue::added);
+    }
+    return workQueue;
+  }
+
+  /**
+   * Enables admission control for this manager according to the specified policy. Once enabled,
+   * requests to create transformations exceeding the policy's limits are blocked and/or rejected
+   * with an {@link com.connexta.transformation.commons.api.exceptions.AdmissionRejectedException}.
+   * Transformations currently held by this manager are accounted for right away.
+   *
+   * @param policy the admission policy to enforce
+   * @return the controller which can be used to retrieve the current pressure on this manager
+   * @throws IllegalStateException if admission control is already enabled for this manager
+   */
+  public synchronized AdmissionController enableAdmissionControl(AdmissionPolicy policy) {
+    if (admission != null) {
+      throw new IllegalStateException("admission control is already enabled");
+    }
+    final AdmissionController controller = new AdmissionController(policy, clock, memory);
+
+    // register the controller before accounting for existing transformations such that none are
+    // missed
+    this.admission = controller;
+    store.values().forEach(controller::existing);
+    return controller;
+  }
+
+  /**
+   * Enables recording of the state transitions of the transformations managed by this manager in
+   * the specified event log. Transformations created, metadata added, metadata succeeded or failed
+   * and transformations deleted are recorded from then on. Failures to record events are logged and
+   * do not affect the operations performed on this manager.
+   *
+   * @param log the event log where to record state transitions
+   * @throws IllegalStateException if an event log is already enabled for this manager
+   */
+  public synchronized void enableEventLog(TransformationEventLog log) {
+    if (eventLog != null) {
+      throw new IllegalStateException("an event log is already enabled");
+    }
+    this.eventLog = log;
+  }
+
+  /**
+   * Gets the event log where state transitions are recorded.
+   *
+   * @return the event log for this manager or empty if none is enabled
+   */
+  public Optional<TransformationEventLog> getEventLog() {
+    return Optional.ofNullable(eventLog);
+  }
+
+  /**
+   * Enables detection of slow operations performed on this manager and on its transformations
+   * according to the specified policy. Once enabled, transformations being created, retrieved by id
+   * and deleted as well as metadata being added, completed and having their content read are timed
+   * and reported whenever they take longer than the threshold defined for them.
+   *
+   * @param policy the policy defining which operations are slow and how they are reported
+   * @return the detector which can be used to query the most recent slow operations
+   * @throws IllegalStateException if slow operation detection is already enabled for this manager
+   */
+  public synchronized SlowOperationDetector enableSlowOperationDetection(
+      SlowOperationPolicy policy) {
+    if (slowOperationDetector != null) {
+      throw new IllegalStateException("slow operation detection is already enabled");
+    }
+    final SlowOperationDetector detector = new SlowOperationDetector(policy, clock);
+
+    this.slowOperationDetector = detector;
+    return detector;
+  }
+
+  /**
+   * Gets the detector reporting slow operations performed on this manager.
+   *
+   * @return the slow operation detector for this manager or empty if slow operation detection is
+   *     not enabled
+   */
+  public Optional<SlowOperationDetector> getSlowOperationDetector() {
+    return Optional.ofNullable(slowOperationDetector);
+  }
+
+  /**
+   * Gets statistics about the memory currently used by this manager. Statistics are maintained
+   * incrementally as metadata are added, completed and deleted such that retrieving them does not
+   * require scanning the store.
+   *
+   * @return the current memory statistics for this manager
+   */
+  public MemoryStats getMemoryStats() {
+    return memory.getStats();
+  }
+
+  /**
+   * Binds gauges reporting the memory used by this manager to the specified registry. The total
+   * content bytes held and the estimated object overhead are reported as well as the number of
+   * metadata and the content bytes held for each metadata type.
+   *
+   * @param registry the registry to bind gauges to
+   */
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    memory.bindTo(registry);
+  }
+
+  /**
+   * Gets the controller enforcing the admission policy of this manager.
+   *
+   * @return the admission controller for this manager or empty if admission control is not enabled
+   */
+  public Optional<AdmissionController> getAdmissionController() {
+    return Optional.ofNullable(admission);
+  }
+
+  /**
+   * Gets the evictor enforcing the capacity policy of this manager.
+   *
+   * @return the evictor for this manager or empty if this manager is not bounded
+   */
+  public Optional<TransformationEvictor> getEvictor() {
+    return Optional.ofNullable(evictor);
+  }
+
+  /**
+   * Sets whether a SHA-256 digest should be computed for the content of metadata as it is being
+   * stored in addition to the CRC32C checksum which is always computed. SHA-256 digests are not
+   * computed by default.
+   *
+   * @param enabled <code>true</code> to compute SHA-256 digests; <code>false</code> otherwise
+   * @return this for chaining
+   */
+  public InMemoryTransformationManager setContentSha256Enabled(boolean enabled) {
+    this.contentSha256Enabled = enabled;
+    return this;
+  }
+
+  /**
+   * Checks whether a SHA-256 digest is computed for the content of metadata as it is being stored.
+   *
+   * @return <code>true</code> if SHA-256 digests are computed; <code>false</code> otherwise
+   */
+  public boolean isContentSha256Enabled() {
+    return contentSha256Enabled;
+  }
+
+  /**
+   * Sets the lifecycle listener to invoke whenever transformations held by this manager are created
+   * or deleted and whenever their metadata are added, completed or have their content read. The
+   * listener is invoked synchronously from the threads performing these operations. Slow listeners
+   * should be wrapped in an {@link AsyncTransformationLifecycleListener}.
+   *
+   * <p><i>Note:</i> Transformations created before a listener is set will not have a lifecycle
+   * context.
+   *
+   * @param listener the lifecycle listener to invoke or <code>null</code> to not invoke any
+   * @return this for chaining
+   */
+  public InMemoryTransformationManager setLifecycleListener(
+      TransformationLifecycleListener listener) {
+    this.lifecycleListener = (listener != null) ? listener : TransformationLifecycleListener.NOOP;
+    return this;
+  }
+
+  /**
+   * Gets the lifecycle listener invoked for transformations held by this manager.
+   *
+   * @return the lifecycle listener for this manager ({@link TransformationLifecycleListener#NOOP}
+   *     if none was set)
+   */
+  public TransformationLifecycleListener getLifecycleListener() {
+    return lifecycleListener;
   }
 
   /**
@@ -87,4 +529,162 @@ public class InMemoryTransformationManager implements TransformationManager {
   public Clock getClock() {
     return clock;
   }
+
+  /**
+   * Gets the notifier used to dispatch completion notifications.
+   *
+   * @return the notifier used to dispatch completion notifications
+   */
+  TransformationNotifier getNotifier() {
+    return notifier;
+  }
+
+  /**
+   * Called by a transformation whenever a metadata type is added to it.
+   *
+   * @param transformation the transformation to which the metadata was added
+   * @param metadata the metadata added
+   */
+  void metadataAdded(
+      InMemoryTransformation transformation, InMemoryMetadataTransformation metadata) {
+    final MetadataWorkQueue queue = workQueue;
+
+    index.metadataAdded(transformation, metadata.getMetadataType());
+    memory.metadataAdded(metadata.getMetadataType());
+    record(Type.METADATA_ADDED, transformation.getTransformId(), metadata.getMetadataType());
+    if (queue != null) {
+      queue.added(metadata);
+    }
+  }
+
+  /**
+   * Called by a transformation whenever one of its metadata completes.
+   *
+   * @param metadata the metadata that completed
+   */
+  void metadataCompleted(InMemoryMetadataTransformation metadata) {
+    final MetadataWorkQueue queue = workQueue;
+
+    if (queue != null) {
+      queue.completed(metadata);
+    }
+    memory.metadataCompleted(metadata);
+    record(
+        (metadata.getState() == State.SUCCESSFUL) ? Type.SUCCEEDED : Type.FAILED,
+        metadata.getTransformId(),
+        metadata.getMetadataType());
+    if (evictor != null) {
+      evictor.metadataCompleted();
+    }
+  }
+
+  /**
+   * Called by a transformation when all of its metadata have completed.
+   *
+   * @param transformation the transformation that completed
+   */
+  void transformationCompleted(InMemoryTransformation transformation) {
+    final AdmissionController controller = admission;
+
+    index.completed(transformation);
+    track(transformation);
+    if (controller != null) {
+      controller.completed(transformation);
+    }
+    if (evictor != null) {
+      evictor.completed(transformation);
+    }
+  }
+
+  /**
+   * Finds a transformation in this manager without failing if it cannot be found.
+   *
+   * @param transformId the id of the transformation to find
+   * @return the corresponding transformation or <code>null</code> if it cannot be found
+   */
+  InMemoryTransformation find(String transformId) {
+    return store.get(transformId);
+  }
+
+  /**
+   * Gets the number of transformations currently held by this manager.
+   *
+   * @return the number of transformations currently held
+   */
+  int size() {
+    return store.size();
+  }
+
+  /**
+   * Starts timing an operation for slow operation detection.
+   *
+   * @param type the type of operation being started
+   * @return a timer to report the completion of the operation with
+   */
+  OperationTimer startOperation(SlowOperation.Type type) {
+    final SlowOperationDetector detector = slowOperationDetector;
+
+    return (detector != null) ? detector.start(type) : OperationTimer.NOOP;
+  }
+
+  /** Called by the current reaper when it is closed. */
+  synchronized void reaperClosed() {
+    this.reaper = null;
+  }
+
+  private void track(InMemoryTransformation transformation) {
+    final TransformationReaper current = reaper;
+
+    if (current != null) {
+      current.track(transformation);
+    }
+  }
+
+  private void record(Type type, String transformId, String metadataType) {
+    final TransformationEventLog log = eventLog;
+
+    if (log != null) {
+      try {
+        log.append(type, transformId, metadataType);
+      } catch (IOException | RuntimeException e) {
+        LOGGER.error(
+            "Failed to record [{}] event for transformation [{}] in event log.",
+            type,
+            transformId,
+            e);
+      }
+    }
+  }
+
+  /**
+   * Undoes the creation of a transformation that will never be handed back to the caller. This
+   * releases everything it was indexed, tracked or accounted with, including its admission if it
+   * already made it into the store.
+   *
+   * @param transformation the transformation whose creation failed
+   */
+  private void discard(InMemoryTransformation transformation) {
+    if (store.remove(transformation.getTransformId(), transformation)) {
+      deleted(transformation);
+    }
+  }
+
+  private void deleted(InMemoryTransformation transformation) {
+    final MetadataWorkQueue queue = workQueue;
+    final AdmissionController controller = admission;
+
+    transformation.wasDeleted();
+    index.deleted(transformation);
+    memory.removed(transformation);
+    record(Type.DELETED, transformation.getTransformId(), null);
+    if (queue != null) {
+      queue.deleted(transformation);
+    }
+    if (evictor != null) {
+      evictor.removed(transformation);
+    }
+    if (controller != null) {
+      controller.removed(transformation);
+    }
+  }
 }
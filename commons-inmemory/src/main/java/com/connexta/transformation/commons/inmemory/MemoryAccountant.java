@@ -0,0 +1,173 @@
+/**
+ * Copyright (c) Connexta
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package com.connexta.transformation.commons.inmemory;
+
+import com.connexta.transformation.commons.api.impl.MeteredTransformationManager;
+import com.connexta.transformation.commons.inmemory.MemoryStats.MetadataTypeStats;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.BaseUnits;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps track of the memory used by an {@link InMemoryTransformationManager}. Counters are updated
+ * incrementally as transformations and metadata are created, completed and deleted such that
+ * statistics can be retrieved without scanning the store. The content bytes accounted here are the
+ * ones the manager's eviction and admission control are based on.
+ */
+class MemoryAccountant implements MeterBinder {
+  private final LongAdder transformations = new LongAdder();
+  private final LongAdder metadatas = new LongAdder();
+  private final LongAdder contentBytes = new LongAdder();
+  private final ConcurrentMap<String, TypeCounters> types = new ConcurrentHashMap<>();
+  private final List<MeterRegistry> registries = new CopyOnWriteArrayList<>();
+
+  /**
+   * Gets the current memory statistics.
+   *
+   * @return the current memory statistics
+   */
+  MemoryStats getStats() {
+    final Map<String, MetadataTypeStats> stats = new HashMap<>();
+
+    types.forEach(
+        (t, c) -> stats.put(t, new MetadataTypeStats(c.metadatas.sum(), c.contentBytes.sum())));
+    return new MemoryStats(transformations.sum(), metadatas.sum(), contentBytes.sum(), stats);
+  }
+
+  /**
+   * Gets the number of content bytes currently held.
+   *
+   * @return the number of content bytes currently held
+   */
+  long getContentBytes() {
+    return contentBytes.sum();
+  }
+
+  /**
+   * Gets the estimated object overhead for all transformations and metadata currently held.
+   *
+   * @return the estimated object overhead in bytes
+   */
+  long getOverheadBytes() {
+    return transformations.sum() * MemoryStats.TRANSFORMATION_OVERHEAD_BYTES
+        + metadatas.sum() * MemoryStats.METADATA_OVERHEAD_BYTES;
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    Gauge.builder("transformation.memory.content", this, MemoryAccountant::getContentBytes)
+        .description("The number of content bytes held in memory")
+        .baseUnit(BaseUnits.BYTES)
+        .register(registry);
+    Gauge.builder("transformation.memory.overhead", this, MemoryAccountant::getOverheadBytes)
+        .description("The estimated number of heap bytes used by transformations and metadata")
+        .baseUnit(BaseUnits.BYTES)
+        .register(registry);
+    registries.add(registry);
+    types.forEach((t, c) -> c.bindTo(t, registry));
+  }
+
+  /** Called by the manager after a transformation was created. */
+  void created() {
+    transformations.increment();
+  }
+
+  /**
+   * Called by the manager after a metadata was added to a transformation.
+   *
+   * @param metadataType the type of metadata added
+   */
+  void metadataAdded(String metadataType) {
+    metadatas.increment();
+    counters(metadataType).metadatas.increment();
+  }
+
+  /**
+   * Called by the manager after a metadata completed to account for the content stored, if any. The
+   * content is only accounted for once even if its completion is reported after it was removed.
+   *
+   * @param metadata the metadata that completed
+   */
+  void metadataCompleted(InMemoryMetadataTransformation metadata) {
+    final long length = metadata.accountContent();
+
+    contentBytes.add(length);
+    counters(metadata.getMetadataType()).contentBytes.add(length);
+  }
+
+  /**
+   * Called by the manager after a transformation was removed.
+   *
+   * @param transformation the transformation that was removed
+   */
+  void removed(InMemoryTransformation transformation) {
+    transformations.decrement();
+    transformation
+        .metadatas()
+        .map(InMemoryMetadataTransformation.class::cast)
+        .forEach(
+            m -> {
+              final long length = m.releaseContent();
+              final TypeCounters counters = counters(m.getMetadataType());
+
+              metadatas.decrement();
+              contentBytes.add(-length);
+              counters.metadatas.decrement();
+              counters.contentBytes.add(-length);
+            });
+  }
+
+  private TypeCounters counters(String metadataType) {
+    final TypeCounters counters = types.get(metadataType);
+
+    if (counters != null) {
+      return counters;
+    }
+    return types.computeIfAbsent(
+        metadataType,
+        t -> {
+          final TypeCounters newCounters = new TypeCounters();
+
+          registries.forEach(r -> newCounters.bindTo(t, r));
+          return newCounters;
+        });
+  }
+
+  /** Counters for a single metadata type. */
+  private static class TypeCounters {
+    private final LongAdder metadatas = new LongAdder();
+    private final LongAdder contentBytes = new LongAdder();
+
+    private void bindTo(String metadataType, MeterRegistry registry) {
+      Gauge.builder("transformation.memory.metadata.content", contentBytes, LongAdder::sum)
+          .tag(MeteredTransformationManager.METADATA_TYPE_TAG, metadataType)
+          .description("The number of content bytes held in memory for a metadata type")
+          .baseUnit(BaseUnits.BYTES)
+          .register(registry);
+      Gauge.builder("transformation.memory.metadata.count", metadatas, LongAdder::sum)
+          .tag(MeteredTransformationManager.METADATA_TYPE_TAG, metadataType)
+          .description("The number of metadata held in memory for a metadata type")
+          .baseUnit("objects")
+          .register(registry);
+    }
+  }
+}
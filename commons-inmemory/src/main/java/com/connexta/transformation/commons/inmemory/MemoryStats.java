@@ -0,0 +1,163 @@
+/**
+ * Copyright (c) Connexta
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package com.connexta.transformation.commons.inmemory;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Point-in-time view of the memory used by an {@link InMemoryTransformationManager}. Content bytes
+ * are exact and correspond to the sum of the content length of all metadata held. Object overhead
+ * is an estimate derived from the number of transformations and metadata held using fixed
+ * per-object costs which account for the objects themselves, their identifiers, request locations
+ * and their entries in the store and its indexes.
+ */
+public final class MemoryStats {
+  /** The estimated number of heap bytes used by a transformation, excluding its metadata. */
+  public static final long TRANSFORMATION_OVERHEAD_BYTES = 1_024L;
+
+  /** The estimated number of heap bytes used by a metadata, excluding its content bytes. */
+  public static final long METADATA_OVERHEAD_BYTES = 384L;
+
+  private final long transformationCount;
+  private final long metadataCount;
+  private final long contentBytes;
+  private final SortedMap<String, MetadataTypeStats> metadataTypes;
+
+  /**
+   * Instantiates new memory statistics.
+   *
+   * @param transformationCount the number of transformations held
+   * @param metadataCount the number of metadata held
+   * @param contentBytes the number of content bytes held
+   * @param metadataTypes the statistics for each metadata type held
+   */
+  public MemoryStats(
+      long transformationCount,
+      long metadataCount,
+      long contentBytes,
+      Map<String, MetadataTypeStats> metadataTypes) {
+    this.transformationCount = transformationCount;
+    this.metadataCount = metadataCount;
+    this.contentBytes = contentBytes;
+    this.metadataTypes = Collections.unmodifiableSortedMap(new TreeMap<>(metadataTypes));
+  }
+
+  /**
+   * Gets the number of transformations held.
+   *
+   * @return the number of transformations held
+   */
+  public long getTransformationCount() {
+    return transformationCount;
+  }
+
+  /**
+   * Gets the number of metadata held across all transformations.
+   *
+   * @return the number of metadata held
+   */
+  public long getMetadataCount() {
+    return metadataCount;
+  }
+
+  /**
+   * Gets the number of content bytes held across all metadata.
+   *
+   * @return the number of content bytes held
+   */
+  public long getContentBytes() {
+    return contentBytes;
+  }
+
+  /**
+   * Gets the estimated number of heap bytes used by transformation and metadata objects, excluding
+   * their content bytes.
+   *
+   * @return the estimated object overhead in bytes
+   */
+  public long getOverheadBytes() {
+    return transformationCount * MemoryStats.TRANSFORMATION_OVERHEAD_BYTES
+        + metadataCount * MemoryStats.METADATA_OVERHEAD_BYTES;
+  }
+
+  /**
+   * Gets the estimated total number of heap bytes used, including content bytes and object
+   * overhead.
+   *
+   * @return the estimated total number of bytes used
+   */
+  public long getTotalBytes() {
+    return contentBytes + getOverheadBytes();
+  }
+
+  /**
+   * Gets the statistics for each metadata type held.
+   *
+   * @return an unmodifiable map of statistics keyed by metadata type
+   */
+  public SortedMap<String, MetadataTypeStats> getMetadataTypes() {
+    return metadataTypes;
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        "MemoryStats[transformationCount=%d, metadataCount=%d, contentBytes=%d, overheadBytes=%d, metadataTypes=%s]",
+        transformationCount, metadataCount, contentBytes, getOverheadBytes(), metadataTypes);
+  }
+
+  /** Memory statistics for a single metadata type. */
+  public static final class MetadataTypeStats {
+    private final long metadataCount;
+    private final long contentBytes;
+
+    /**
+     * Instantiates new statistics for a metadata type.
+     *
+     * @param metadataCount the number of metadata of this type held
+     * @param contentBytes the number of content bytes held for metadata of this type
+     */
+    public MetadataTypeStats(long metadataCount, long contentBytes) {
+      this.metadataCount = metadataCount;
+      this.contentBytes = contentBytes;
+    }
+
+    /**
+     * Gets the number of metadata of this type held.
+     *
+     * @return the number of metadata of this type held
+     */
+    public long getMetadataCount() {
+      return metadataCount;
+    }
+
+    /**
+     * Gets the number of content bytes held for metadata of this type.
+     *
+     * @return the number of content bytes held for metadata of this type
+     */
+    public long getContentBytes() {
+      return contentBytes;
+    }
+
+    @Override
+    public String toString() {
+      return String.format(
+          "MetadataTypeStats[metadataCount=%d, contentBytes=%d]", metadataCount, contentBytes);
+    }
+  }
+}
@@ -0,0 +1,138 @@
+/**
+ * Copyright (c) Connexta
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package com.connexta.transformation.commons.inmemory;
+
+import com.connexta.transformation.commons.api.MetadataTransformation;
+import java.time.Duration;
+
+/**
+ * A lease granted by a {@link MetadataWorkQueue} to a worker on a pending metadata. The worker is
+ * expected to complete the metadata before the lease expires or to renew it. Once a lease has
+ * expired or was released, the metadata may be claimed by another worker.
+ */
+public class MetadataLease {
+  /** Expiration value used once the lease was revoked. */
+  private static final long REVOKED = Long.MIN_VALUE;
+
+  private final MetadataWorkQueue queue;
+  private final InMemoryMetadataTransformation metadata;
+
+  /** Monotonic time at which this lease expires or {@link #REVOKED} once revoked. */
+  private long expiration;
+
+  /**
+   * Instantiates a new lease.
+   *
+   * @param queue the queue granting the lease
+   * @param metadata the metadata being leased
+   * @param expiration the monotonic time at which the lease expires
+   */
+  MetadataLease(MetadataWorkQueue queue, InMemoryMetadataTransformation metadata, long expiration) {
+    this.queue = queue;
+    this.metadata = metadata;
+    this.expiration = expiration;
+  }
+
+  /**
+   * Gets the metadata being leased.
+   *
+   * @return the metadata being leased
+   */
+  public MetadataTransformation getMetadata() {
+    return metadata;
+  }
+
+  /**
+   * Checks if this lease is still valid. A lease is no longer valid once it has expired, was
+   * released or once its metadata has completed.
+   *
+   * @return <code>true</code> if this lease is still valid; <code>false</code> otherwise
+   */
+  public synchronized boolean isValid() {
+    return (expiration != MetadataLease.REVOKED) && (queue.now() < expiration);
+  }
+
+  /**
+   * Renews this lease for the specified duration starting now.
+   *
+   * @param duration the new duration for the lease
+   * @return <code>true</code> if the lease was renewed; <code>false</code> if it is no longer valid
+   * @throws IllegalArgumentException if <code>duration</code> is not positive
+   */
+  public synchronized boolean renew(Duration duration) {
+    final long nanos = MetadataWorkQueue.toPositiveNanos(duration);
+
+    if (!isValid()) {
+      return false;
+    }
+    this.expiration = queue.now() + nanos;
+    return true;
+  }
+
+  /**
+   * Releases this lease without completing the metadata such that it can be claimed again. This
+   * method does nothing if the lease is no longer valid.
+   */
+  public void release() {
+    if (revoke()) {
+      queue.released(this);
+    }
+  }
+
+  /**
+   * Gets the leased metadata.
+   *
+   * @return the leased metadata
+   */
+  InMemoryMetadataTransformation getMetadataTransformation() {
+    return metadata;
+  }
+
+  /**
+   * Gets the monotonic time at which this lease expires.
+   *
+   * @return the monotonic expiration time or {@link Long#MIN_VALUE} if the lease was revoked
+   */
+  synchronized long getExpiration() {
+    return expiration;
+  }
+
+  /**
+   * Revokes this lease.
+   *
+   * @return <code>true</code> if the lease was revoked; <code>false</code> if it was already
+   */
+  synchronized boolean revoke() {
+    if (expiration == MetadataLease.REVOKED) {
+      return false;
+    }
+    this.expiration = MetadataLease.REVOKED;
+    return true;
+  }
+
+  /**
+   * Revokes this lease if it has expired.
+   *
+   * @param now the current monotonic time
+   * @return <code>true</code> if the lease had expired and was revoked; <code>false</code>
+   *     otherwise
+   */
+  synchronized boolean revokeIfExpired(long now) {
+    if ((expiration == MetadataLease.REVOKED) || (now < expiration)) {
+      return false;
+    }
+    this.expiration = MetadataLease.REVOKED;
+    return true;
+  }
+}
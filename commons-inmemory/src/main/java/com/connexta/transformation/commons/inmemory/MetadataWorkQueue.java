@@ -0,0 +1,220 @@
+/**
+ * Copyright (c) Connexta
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package com.connexta.transformation.commons.inmemory;
+
+import com.connexta.transformation.commons.api.MetadataTransformation;
+import io.micrometer.core.instrument.Clock;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Work queue handing out pending metadata of an {@link InMemoryTransformationManager} to workers.
+ * Metadata are queued as soon as they are added to a transformation in a lock-free queue kept per
+ * metadata type. Workers claim them for a limited duration through a {@link MetadataLease} which
+ * they can renew while working on the metadata. A metadata is never leased to more than one worker
+ * at a time. Leases that expire or are released before the metadata completes make it available to
+ * be claimed again.
+ *
+ * <p>Metadata that complete or whose transformation is deleted while queued are discarded lazily
+ * when they reach the head of the queue.
+ */
+public class MetadataWorkQueue {
+  private final Clock clock;
+
+  /** Queued metadata keyed by metadata type. */
+  private final Map<String, Queue<InMemoryMetadataTransformation>> pending =
+      new ConcurrentHashMap<>();
+
+  /** Ids of all metadata that were queued and have not yet completed. */
+  private final Set<String> tracked = ConcurrentHashMap.newKeySet();
+
+  /** Current leases keyed by metadata id. */
+  private final Map<String, MetadataLease> leases = new ConcurrentHashMap<>();
+
+  /** Monotonic time at which the next lease may expire. */
+  private final AtomicLong nextExpiration = new AtomicLong(Long.MAX_VALUE);
+
+  /**
+   * Instantiates a new work queue.
+   *
+   * @param clock the clock to use for retrieving monotonic times
+   */
+  MetadataWorkQueue(Clock clock) {
+    this.clock = clock;
+  }
+
+  /**
+   * Claims the next pending metadata of one of the specified types. Types are checked in the order
+   * they are provided and metadata of a given type are claimed in the order they were added.
+   * Expired leases are released before looking for pending metadata.
+   *
+   * @param metadataTypes the types of metadata the caller can work on
+   * @param leaseDuration the duration of the lease
+   * @return a lease on the claimed metadata or empty if none are pending for the specified types
+   * @throws IllegalArgumentException if <code>leaseDuration</code> is not positive
+   */
+  public Optional<MetadataLease> claimNext(
+      Collection<String> metadataTypes, Duration leaseDuration) {
+    final long nanos = MetadataWorkQueue.toPositiveNanos(leaseDuration);
+    final long now = clock.monotonicTime();
+
+    if (now >= nextExpiration.get()) {
+      expireLeases(now);
+    }
+    for (final String type : metadataTypes) {
+      final Queue<InMemoryMetadataTransformation> queue = pending.get(type);
+
+      if (queue != null) {
+        InMemoryMetadataTransformation metadata;
+
+        while ((metadata = queue.poll()) != null) {
+          if (MetadataWorkQueue.isPending(metadata)) {
+            // a metadata is only ever queued once so no one else can be holding a lease for it
+            final MetadataLease lease = new MetadataLease(this, metadata, now + nanos);
+
+            leases.put(metadata.getId(), lease);
+            nextExpiration.accumulateAndGet(now + nanos, Math::min);
+            return Optional.of(lease);
+          }
+          tracked.remove(metadata.getId());
+        }
+      }
+    }
+    return Optional.empty();
+  }
+
+  /**
+   * Releases all leases that have expired such that their metadata can be claimed again. This is
+   * done automatically when claiming metadata but can also be triggered periodically.
+   *
+   * @return the number of leases that were released
+   */
+  public int expireLeases() {
+    return expireLeases(clock.monotonicTime());
+  }
+
+  /**
+   * Gets the number of metadata currently leased.
+   *
+   * @return the number of metadata currently leased
+   */
+  public int getLeaseCount() {
+    return leases.size();
+  }
+
+  /**
+   * Gets the current monotonic time in nanoseconds.
+   *
+   * @return the current monotonic time
+   */
+  long now() {
+    return clock.monotonicTime();
+  }
+
+  /**
+   * Called when a metadata is added to a transformation to queue it unless it was already queued or
+   * has already completed.
+   *
+   * @param metadata the metadata that was added
+   */
+  void added(InMemoryMetadataTransformation metadata) {
+    if (!metadata.isCompleted() && tracked.add(metadata.getId())) {
+      offer(metadata);
+    }
+  }
+
+  /**
+   * Called when a metadata completes to stop tracking it and revoke its current lease if any.
+   *
+   * @param metadata the metadata that completed
+   */
+  void completed(MetadataTransformation metadata) {
+    final String id = ((InMemoryMetadataTransformation) metadata).getId();
+    final MetadataLease lease = leases.remove(id);
+
+    tracked.remove(id);
+    if (lease != null) {
+      lease.revoke();
+    }
+  }
+
+  /**
+   * Called when a transformation is deleted to stop tracking all its metadata.
+   *
+   * @param transformation the transformation that was deleted
+   */
+  void deleted(InMemoryTransformation transformation) {
+    transformation.metadatas().forEach(this::completed);
+  }
+
+  /**
+   * Called when a lease is released or has expired to make its metadata available again if it is
+   * still pending.
+   *
+   * @param lease the lease that was released
+   */
+  void released(MetadataLease lease) {
+    final InMemoryMetadataTransformation metadata = lease.getMetadataTransformation();
+
+    if (leases.remove(metadata.getId(), lease) && MetadataWorkQueue.isPending(metadata)) {
+      offer(metadata);
+    }
+  }
+
+  private int expireLeases(long now) {
+    int count = 0;
+
+    nextExpiration.set(Long.MAX_VALUE);
+    for (final MetadataLease lease : leases.values()) {
+      if (lease.revokeIfExpired(now)) {
+        released(lease);
+        count++;
+      } else {
+        nextExpiration.accumulateAndGet(lease.getExpiration(), Math::min);
+      }
+    }
+    return count;
+  }
+
+  private void offer(InMemoryMetadataTransformation metadata) {
+    pending
+        .computeIfAbsent(metadata.getMetadataType(), t -> new ConcurrentLinkedQueue<>())
+        .offer(metadata);
+  }
+
+  private static boolean isPending(InMemoryMetadataTransformation metadata) {
+    return !metadata.isCompleted() && !metadata.isDeleted();
+  }
+
+  /**
+   * Converts the specified duration to nanoseconds making sure it is positive.
+   *
+   * @param duration the duration to convert
+   * @return the corresponding number of nanoseconds
+   * @throws IllegalArgumentException if <code>duration</code> is not positive
+   */
+  static long toPositiveNanos(Duration duration) {
+    if (duration.isNegative() || duration.isZero()) {
+      throw new IllegalArgumentException("invalid lease duration: " + duration);
+    }
+    return duration.toNanos();
+  }
+}
@@ -0,0 +1,105 @@
+/**
+ * Copyright (c) Connexta
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package com.connexta.transformation.commons.inmemory;
+
+import com.connexta.transformation.commons.api.MetadataTransformation;
+import com.connexta.transformation.commons.inmemory.SlowOperation.Type;
+
+/**
+ * Times a single operation on behalf of a {@link SlowOperationDetector}. When slow operation
+ * detection is disabled, the shared {@link #NOOP} timer is used such that timing operations does
+ * not allocate nor read the clock.
+ */
+class OperationTimer {
+  /** Timer used when slow operation detection is disabled. */
+  static final OperationTimer NOOP =
+      new OperationTimer(null, Type.GET, 0L) {
+        @Override
+        void acquired() { // nothing to time
+        }
+
+        @Override
+        void stop(MetadataTransformation metadata) { // nothing to report
+        }
+
+        @Override
+        void stop(String transformId, String metadataType, long contentLength) {
+          // nothing to report
+        }
+      };
+
+  private final SlowOperationDetector detector;
+  private final Type type;
+  private final long start;
+  private long acquired;
+
+  /**
+   * Instantiates a new timer.
+   *
+   * @param detector the detector to report the operation to
+   * @param type the type of operation being timed
+   * @param start the monotonic time at which the operation started
+   */
+  OperationTimer(SlowOperationDetector detector, Type type, long start) {
+    this.detector = detector;
+    this.type = type;
+    this.start = start;
+    this.acquired = start;
+  }
+
+  /**
+   * Called once the operation has acquired the lock it needed or has been admitted such that the
+   * time spent waiting can be reported.
+   */
+  void acquired() {
+    this.acquired = detector.now();
+  }
+
+  /**
+   * Called once an operation on a transformation has completed.
+   *
+   * @param transformId the id of the transformation involved
+   */
+  void stop(String transformId) {
+    stop(transformId, null, -1L);
+  }
+
+  /** Called once an operation on several transformations has completed. */
+  void stop() {
+    stop(null, null, -1L);
+  }
+
+  /**
+   * Called once an operation on a metadata has completed.
+   *
+   * @param metadata the metadata involved
+   */
+  void stop(MetadataTransformation metadata) {
+    stop(
+        metadata.getTransformId(),
+        metadata.getMetadataType(),
+        metadata.getContentLength().orElse(-1L));
+  }
+
+  /**
+   * Called once the operation has completed.
+   *
+   * @param transformId the id of the transformation involved or <code>null</code> if unknown
+   * @param metadataType the type of metadata involved or <code>null</code> if not applicable
+   * @param contentLength the length of the content involved or <code>-1</code> if not applicable
+   */
+  void stop(String transformId, String metadataType, long contentLength) {
+    detector.completed(type, start, acquired, transformId, metadataType, contentLength);
+  }
+}
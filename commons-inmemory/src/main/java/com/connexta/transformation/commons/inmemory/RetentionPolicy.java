@@ -0,0 +1,135 @@
+/**
+ * Copyright (c) Connexta
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package com.connexta.transformation.commons.inmemory;
+
+import com.connexta.transformation.commons.api.Transformation;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * Defines for how long transformations are retained in memory before being reclaimed by a {@link
+ * TransformationReaper}. Successful and failed transformations are retained for a period of time
+ * after their completion time whereas transformations that are still in progress are retained for a
+ * period of time after their start time. Transformations are retained forever for any outcome that
+ * has no configured time-to-live.
+ */
+public class RetentionPolicy {
+  private Duration successfulTtl;
+  private Duration failedTtl;
+  private Duration inProgressTtl;
+
+  /**
+   * Gets the time-to-live for successful transformations after their completion time.
+   *
+   * @return the time-to-live for successful transformations or empty if they are retained forever
+   */
+  public Optional<Duration> getSuccessfulTtl() {
+    return Optional.ofNullable(successfulTtl);
+  }
+
+  /**
+   * Sets the time-to-live for successful transformations after their completion time.
+   *
+   * @param ttl the time-to-live for successful transformations or <code>null</code> to retain them
+   *     forever
+   * @return this for chaining
+   * @throws IllegalArgumentException if <code>ttl</code> is negative
+   */
+  public RetentionPolicy setSuccessfulTtl(Duration ttl) {
+    this.successfulTtl = validate(ttl);
+    return this;
+  }
+
+  /**
+   * Gets the time-to-live for failed transformations after their completion time.
+   *
+   * @return the time-to-live for failed transformations or empty if they are retained forever
+   */
+  public Optional<Duration> getFailedTtl() {
+    return Optional.ofNullable(failedTtl);
+  }
+
+  /**
+   * Sets the time-to-live for failed transformations after their completion time.
+   *
+   * @param ttl the time-to-live for failed transformations or <code>null</code> to retain them
+   *     forever
+   * @return this for chaining
+   * @throws IllegalArgumentException if <code>ttl</code> is negative
+   */
+  public RetentionPolicy setFailedTtl(Duration ttl) {
+    this.failedTtl = validate(ttl);
+    return this;
+  }
+
+  /**
+   * Gets the time-to-live for transformations that are still in progress after their start time.
+   *
+   * @return the time-to-live for transformations still in progress or empty if they are retained
+   *     forever
+   */
+  public Optional<Duration> getInProgressTtl() {
+    return Optional.ofNullable(inProgressTtl);
+  }
+
+  /**
+   * Sets the time-to-live for transformations that are still in progress after their start time.
+   * This is used to reclaim transformations which are stuck because some of their metadata never
+   * completed.
+   *
+   * @param ttl the time-to-live for transformations still in progress or <code>null</code> to
+   *     retain them forever
+   * @return this for chaining
+   * @throws IllegalArgumentException if <code>ttl</code> is negative
+   */
+  public RetentionPolicy setInProgressTtl(Duration ttl) {
+    this.inProgressTtl = validate(ttl);
+    return this;
+  }
+
+  /**
+   * Gets the time at which the specified transformation expires based on its current state.
+   *
+   * @param transformation the transformation for which to get the expiration time
+   * @return the time at which the transformation expires or empty if it is retained forever in its
+   *     current state
+   */
+  public Optional<Instant> getExpiration(Transformation transformation) {
+    switch (transformation.getState()) {
+      case SUCCESSFUL:
+        return transformation.getCompletionTime().flatMap(t -> getSuccessfulTtl().map(t::plus));
+      case FAILED:
+        return transformation.getCompletionTime().flatMap(t -> getFailedTtl().map(t::plus));
+      case IN_PROGRESS:
+        return getInProgressTtl().map(transformation.getStartTime()::plus);
+      default:
+        return Optional.empty();
+    }
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        "RetentionPolicy[successfulTtl=%s, failedTtl=%s, inProgressTtl=%s]",
+        successfulTtl, failedTtl, inProgressTtl);
+  }
+
+  private static Duration validate(Duration ttl) {
+    if ((ttl != null) && ttl.isNegative()) {
+      throw new IllegalArgumentException("invalid negative time-to-live: " + ttl);
+    }
+    return ttl;
+  }
+}
@@ -0,0 +1,195 @@
+/**
+ * Copyright (c) Connexta
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package com.connexta.transformation.commons.inmemory;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.OptionalLong;
+
+/**
+ * Diagnostic record of an operation performed on an {@link InMemoryTransformationManager} or on one
+ * of its transformations which took longer than the threshold configured for it in the {@link
+ * SlowOperationPolicy}.
+ */
+public final class SlowOperation {
+  /** The types of operations monitored for slowness. */
+  public enum Type {
+    /** A transformation was created. */
+    CREATE,
+
+    /** Several transformations were created at once. */
+    CREATE_ALL,
+
+    /** A transformation was retrieved by id. */
+    GET,
+
+    /** Several transformations were retrieved by ids at once. */
+    GET_ALL,
+
+    /** A metadata was added to a transformation. */
+    ADD,
+
+    /** A metadata was completed successfully. */
+    SUCCEED,
+
+    /** A metadata was completed with a failure. */
+    FAIL,
+
+    /** The content of a metadata was read. */
+    READ,
+
+    /** A transformation was deleted. */
+    DELETE,
+
+    /** Several transformations were deleted at once. */
+    DELETE_ALL
+  }
+
+  private final Type type;
+  private final Instant time;
+  private final String transformId;
+  private final String metadataType;
+  private final long contentLength;
+  private final String thread;
+  private final Duration elapsed;
+  private final Duration wait;
+  private final Duration threshold;
+
+  /**
+   * Instantiates a new slow operation record.
+   *
+   * @param type the type of operation
+   * @param time the time at which the operation completed
+   * @param transformId the id of the transformation the operation was performed on or <code>null
+   *     </code> if unknown
+   * @param metadataType the type of metadata the operation was performed on or <code>null</code> if
+   *     not applicable
+   * @param contentLength the length of the content involved or <code>-1</code> if not applicable
+   * @param thread the name of the thread which performed the operation
+   * @param elapsed the total amount of time the operation took
+   * @param wait the portion of the elapsed time spent waiting for a lock or to be admitted
+   * @param threshold the threshold that was exceeded
+   */
+  public SlowOperation(
+      Type type,
+      Instant time,
+      String transformId,
+      String metadataType,
+      long contentLength,
+      String thread,
+      Duration elapsed,
+      Duration wait,
+      Duration threshold) {
+    this.type = type;
+    this.time = time;
+    this.transformId = transformId;
+    this.metadataType = metadataType;
+    this.contentLength = contentLength;
+    this.thread = thread;
+    this.elapsed = elapsed;
+    this.wait = wait;
+    this.threshold = threshold;
+  }
+
+  /**
+   * Gets the type of operation.
+   *
+   * @return the type of operation
+   */
+  public Type getType() {
+    return type;
+  }
+
+  /**
+   * Gets the time at which the operation completed.
+   *
+   * @return the time at which the operation completed
+   */
+  public Instant getTime() {
+    return time;
+  }
+
+  /**
+   * Gets the id of the transformation the operation was performed on.
+   *
+   * @return the id of the transformation or empty if unknown
+   */
+  public Optional<String> getTransformId() {
+    return Optional.ofNullable(transformId);
+  }
+
+  /**
+   * Gets the type of metadata the operation was performed on.
+   *
+   * @return the type of metadata or empty if the operation was not performed on a metadata
+   */
+  public Optional<String> getMetadataType() {
+    return Optional.ofNullable(metadataType);
+  }
+
+  /**
+   * Gets the length of the content involved in the operation.
+   *
+   * @return the length of the content or empty if no content was involved
+   */
+  public OptionalLong getContentLength() {
+    return (contentLength >= 0L) ? OptionalLong.of(contentLength) : OptionalLong.empty();
+  }
+
+  /**
+   * Gets the name of the thread which performed the operation.
+   *
+   * @return the name of the thread which performed the operation
+   */
+  public String getThread() {
+    return thread;
+  }
+
+  /**
+   * Gets the total amount of time the operation took.
+   *
+   * @return the total amount of time the operation took
+   */
+  public Duration getElapsed() {
+    return elapsed;
+  }
+
+  /**
+   * Gets the portion of the elapsed time the operation spent waiting for a lock or waiting to be
+   * admitted.
+   *
+   * @return the amount of time spent waiting
+   */
+  public Duration getWait() {
+    return wait;
+  }
+
+  /**
+   * Gets the threshold that was exceeded by the operation.
+   *
+   * @return the threshold that was exceeded
+   */
+  public Duration getThreshold() {
+    return threshold;
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        "SlowOperation[type=%s, time=%s, transformId=%s, metadataType=%s, contentLength=%d, "
+            + "thread=%s, elapsed=%s, wait=%s, threshold=%s]",
+        type, time, transformId, metadataType, contentLength, thread, elapsed, wait, threshold);
+  }
+}
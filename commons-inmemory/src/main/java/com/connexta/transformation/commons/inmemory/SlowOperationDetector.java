@@ -0,0 +1,250 @@
+/**
+ * Copyright (c) Connexta
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package com.connexta.transformation.commons.inmemory;
+
+import com.connexta.transformation.commons.inmemory.SlowOperation.Type;
+import io.micrometer.core.instrument.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Detects operations performed on an {@link InMemoryTransformationManager} and its transformations
+ * which take longer than the thresholds defined by a {@link SlowOperationPolicy}. Each slow
+ * operation is recorded in a bounded history which can be queried at runtime and logged as a
+ * structured record including the operation, the transformation and metadata involved, the length
+ * of the content involved, the thread that performed it, the time it took and how much of that time
+ * was spent waiting for a lock or waiting to be admitted.
+ *
+ * <p>Only operations which complete normally are monitored. Logging is sampled and rate limited
+ * according to the policy. Records which are not logged because of it are counted and the number
+ * skipped since the last record is included in the next one.
+ */
+public class SlowOperationDetector {
+  private static final Logger LOGGER = LoggerFactory.getLogger(SlowOperationDetector.class);
+
+  private final SlowOperationPolicy policy;
+  private final Clock clock;
+  private final long[] thresholds = new long[Type.values().length];
+  private final int historySize;
+  private final int logSampling;
+  private final int maximumLogs;
+  private final long logInterval;
+  private final LongAdder slowCount = new LongAdder();
+
+  /** The most recent slow operations, oldest first. Guarded by itself. */
+  private final Deque<SlowOperation> history;
+
+  private final Object logLock = new Object();
+
+  /** The number of slow operations considered for logging so far. Guarded by the log lock. */
+  private long sampled = 0L;
+
+  /** The monotonic time at which the current log interval started. Guarded by the log lock. */
+  private long intervalStart;
+
+  /** The number of records logged in the current interval. Guarded by the log lock. */
+  private int logged = 0;
+
+  /** The number of records skipped since the last one was logged. Guarded by the log lock. */
+  private long skipped = 0L;
+
+  /** The total number of records skipped. Guarded by the log lock. */
+  private long skippedCount = 0L;
+
+  /**
+   * Instantiates a new slow operation detector.
+   *
+   * @param policy the policy defining which operations are slow and how they are reported
+   * @param clock the clock to use for retrieving wall and monotonic times
+   */
+  SlowOperationDetector(SlowOperationPolicy policy, Clock clock) {
+    this.policy = policy;
+    this.clock = clock;
+    for (final Type type : Type.values()) {
+      thresholds[type.ordinal()] = policy.getThreshold(type).toNanos();
+    }
+    this.historySize = policy.getHistorySize();
+    this.history = new ArrayDeque<>(historySize);
+    this.logSampling = policy.getLogSampling();
+    this.maximumLogs = policy.getMaximumLogs();
+    this.logInterval = policy.getLogInterval().toNanos();
+    this.intervalStart = clock.monotonicTime();
+  }
+
+  /**
+   * Gets the policy enforced by this detector.
+   *
+   * @return the policy enforced by this detector
+   */
+  public SlowOperationPolicy getPolicy() {
+    return policy;
+  }
+
+  /**
+   * Gets the number of slow operations detected so far.
+   *
+   * @return the number of slow operations detected so far
+   */
+  public long getSlowOperationCount() {
+    return slowCount.sum();
+  }
+
+  /**
+   * Gets the number of slow operations which were not logged so far as a result of sampling or rate
+   * limiting.
+   *
+   * @return the number of slow operations not logged so far
+   */
+  public long getSkippedLogCount() {
+    synchronized (logLock) {
+      return skippedCount;
+    }
+  }
+
+  /**
+   * Gets the most recent slow operations up to the history size defined by the policy.
+   *
+   * @return the most recent slow operations ordered from the oldest to the newest
+   */
+  public List<SlowOperation> getRecentSlowOperations() {
+    synchronized (history) {
+      return new ArrayList<>(history);
+    }
+  }
+
+  /**
+   * Starts timing an operation.
+   *
+   * @param type the type of operation being started
+   * @return a timer to report the completion of the operation with
+   */
+  OperationTimer start(Type type) {
+    return new OperationTimer(this, type, clock.monotonicTime());
+  }
+
+  /**
+   * Gets the current monotonic time.
+   *
+   * @return the current monotonic time in nanoseconds
+   */
+  long now() {
+    return clock.monotonicTime();
+  }
+
+  /**
+   * Called when an operation completes to record it if it was slow.
+   *
+   * @param type the type of operation
+   * @param start the monotonic time at which the operation started
+   * @param acquired the monotonic time at which the operation stopped waiting
+   * @param transformId the id of the transformation involved or <code>null</code> if unknown
+   * @param metadataType the type of metadata involved or <code>null</code> if not applicable
+   * @param contentLength the length of the content involved or <code>-1</code> if not applicable
+   */
+  void completed(
+      Type type,
+      long start,
+      long acquired,
+      String transformId,
+      String metadataType,
+      long contentLength) {
+    final long elapsed = clock.monotonicTime() - start;
+    final long threshold = thresholds[type.ordinal()];
+
+    if (elapsed <= threshold) {
+      return;
+    }
+    final String thread = Thread.currentThread().getName();
+    final long wait = acquired - start;
+
+    slowCount.increment();
+    record(
+        new SlowOperation(
+            type,
+            Instant.ofEpochMilli(clock.wallTime()),
+            transformId,
+            metadataType,
+            contentLength,
+            thread,
+            Duration.ofNanos(elapsed),
+            Duration.ofNanos(wait),
+            Duration.ofNanos(threshold)));
+    final long skippedBefore = shouldLog();
+
+    if (skippedBefore >= 0L) {
+      LOGGER.warn(
+          "Slow operation detected: operation={}, transformId={}, metadataType={}, "
+              + "contentLength={}, thread={}, elapsedMs={}, waitMs={}, thresholdMs={}, skipped={}",
+          type,
+          transformId,
+          metadataType,
+          (contentLength >= 0L) ? contentLength : null,
+          thread,
+          toMillis(elapsed),
+          toMillis(wait),
+          toMillis(threshold),
+          skippedBefore);
+    }
+  }
+
+  private void record(SlowOperation operation) {
+    synchronized (history) {
+      if (history.size() == historySize) {
+        history.removeFirst();
+      }
+      history.addLast(operation);
+    }
+  }
+
+  /**
+   * Checks whether a slow operation should be logged based on the sampling and rate limit defined
+   * by the policy.
+   *
+   * @return the number of records skipped since the last one was logged if this one should be
+   *     logged or <code>-1</code> if it should not
+   */
+  private long shouldLog() {
+    synchronized (logLock) {
+      if ((sampled++ % logSampling) == 0L) {
+        final long now = clock.monotonicTime();
+
+        if ((now - intervalStart) >= logInterval) {
+          this.intervalStart = now;
+          this.logged = 0;
+        }
+        if (logged < maximumLogs) {
+          final long skippedBefore = skipped;
+
+          this.logged++;
+          this.skipped = 0L;
+          return skippedBefore;
+        }
+      }
+      this.skipped++;
+      this.skippedCount++;
+      return -1L;
+    }
+  }
+
+  private static double toMillis(long nanos) {
+    return nanos / 1_000_000.0D;
+  }
+}
@@ -0,0 +1,175 @@
+/**
+ * Copyright (c) Connexta
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package com.connexta.transformation.commons.inmemory;
+
+import com.connexta.transformation.commons.inmemory.SlowOperation.Type;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Defines when operations performed on an {@link InMemoryTransformationManager} are considered slow
+ * by a {@link SlowOperationDetector} and how they are reported. Each type of operation is
+ * considered slow once it takes longer than its threshold. Slow operations are kept in a bounded
+ * history and logged. Logging is sampled such that only one out of every configured number of slow
+ * operations is considered for logging and rate limited such that no more than a maximum number of
+ * records are logged per interval.
+ */
+public class SlowOperationPolicy {
+  private Duration defaultThreshold = Duration.ofSeconds(1L);
+  private final Map<Type, Duration> thresholds = new EnumMap<>(Type.class);
+  private int historySize = 100;
+  private int logSampling = 1;
+  private int maximumLogs = 10;
+  private Duration logInterval = Duration.ofMinutes(1L);
+
+  /**
+   * Gets the threshold above which operations of the specified type are considered slow.
+   *
+   * @param type the type of operation
+   * @return the threshold for the specified type of operation
+   */
+  public Duration getThreshold(Type type) {
+    return thresholds.getOrDefault(type, defaultThreshold);
+  }
+
+  /**
+   * Sets the threshold above which operations for which no specific threshold was set are
+   * considered slow. Defaults to 1 second.
+   *
+   * @param threshold the default threshold
+   * @return this for chaining
+   * @throws IllegalArgumentException if <code>threshold</code> is negative
+   */
+  public SlowOperationPolicy setThreshold(Duration threshold) {
+    this.defaultThreshold = validate(threshold);
+    return this;
+  }
+
+  /**
+   * Sets the threshold above which operations of the specified type are considered slow.
+   *
+   * @param type the type of operation
+   * @param threshold the threshold for the specified type of operation
+   * @return this for chaining
+   * @throws IllegalArgumentException if <code>threshold</code> is negative
+   */
+  public SlowOperationPolicy setThreshold(Type type, Duration threshold) {
+    thresholds.put(type, validate(threshold));
+    return this;
+  }
+
+  /**
+   * Gets the maximum number of slow operations kept in the history.
+   *
+   * @return the maximum number of slow operations kept in the history
+   */
+  public int getHistorySize() {
+    return historySize;
+  }
+
+  /**
+   * Sets the maximum number of slow operations kept in the history. Defaults to 100.
+   *
+   * @param historySize the maximum number of slow operations kept in the history
+   * @return this for chaining
+   * @throws IllegalArgumentException if <code>historySize</code> is not positive
+   */
+  public SlowOperationPolicy setHistorySize(int historySize) {
+    if (historySize <= 0) {
+      throw new IllegalArgumentException("invalid non-positive history size: " + historySize);
+    }
+    this.historySize = historySize;
+    return this;
+  }
+
+  /**
+   * Gets the number of slow operations out of which only one is considered for logging.
+   *
+   * @return the log sampling rate
+   */
+  public int getLogSampling() {
+    return logSampling;
+  }
+
+  /**
+   * Sets the number of slow operations out of which only one is considered for logging. Defaults to
+   * 1 such that all slow operations are considered.
+   *
+   * @param logSampling the log sampling rate
+   * @return this for chaining
+   * @throws IllegalArgumentException if <code>logSampling</code> is not positive
+   */
+  public SlowOperationPolicy setLogSampling(int logSampling) {
+    if (logSampling <= 0) {
+      throw new IllegalArgumentException("invalid non-positive log sampling: " + logSampling);
+    }
+    this.logSampling = logSampling;
+    return this;
+  }
+
+  /**
+   * Gets the maximum number of slow operations logged per interval.
+   *
+   * @return the maximum number of slow operations logged per interval
+   */
+  public int getMaximumLogs() {
+    return maximumLogs;
+  }
+
+  /**
+   * Gets the interval over which the number of slow operations logged is limited.
+   *
+   * @return the interval over which logging is limited
+   */
+  public Duration getLogInterval() {
+    return logInterval;
+  }
+
+  /**
+   * Sets the maximum number of slow operations logged per interval. Defaults to 10 per minute.
+   *
+   * @param maximumLogs the maximum number of slow operations logged per interval or <code>0</code>
+   *     to not log any
+   * @param logInterval the interval over which logging is limited
+   * @return this for chaining
+   * @throws IllegalArgumentException if <code>maximumLogs</code> is negative or if <code>
+   *     logInterval</code> is not positive
+   */
+  public SlowOperationPolicy setMaximumLogs(int maximumLogs, Duration logInterval) {
+    if (maximumLogs < 0) {
+      throw new IllegalArgumentException("invalid negative maximum logs: " + maximumLogs);
+    } else if (logInterval.isNegative() || logInterval.isZero()) {
+      throw new IllegalArgumentException("invalid non-positive log interval: " + logInterval);
+    }
+    this.maximumLogs = maximumLogs;
+    this.logInterval = logInterval;
+    return this;
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        "SlowOperationPolicy[defaultThreshold=%s, thresholds=%s, historySize=%d, logSampling=%d, "
+            + "maximumLogs=%d, logInterval=%s]",
+        defaultThreshold, thresholds, historySize, logSampling, maximumLogs, logInterval);
+  }
+
+  private static Duration validate(Duration threshold) {
+    if (threshold.isNegative()) {
+      throw new IllegalArgumentException("invalid negative threshold: " + threshold);
+    }
+    return threshold;
+  }
+}
@@ -0,0 +1,150 @@
+/**
+ * Copyright (c) Connexta
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package com.connexta.transformation.commons.inmemory;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.function.Consumer;
+
+/**
+ * A hierarchical timing wheel used to expire items at a given deadline without having to
+ * periodically scan all of them. Each level of the wheel is made up of buckets covering a span of
+ * time which grows with each level. Items are placed in the bucket of the lowest level that can
+ * hold their deadline and cascade down to lower levels as time advances until they finally expire.
+ * Scheduling an item and advancing the wheel by one tick are both constant time operations.
+ *
+ * <p><i>Note:</i> This class is not threadsafe.
+ *
+ * @param <T> the type of items scheduled in this wheel
+ */
+class TimingWheel<T> {
+  /** The number of buckets in each level of the wheel. */
+  private static final int BUCKETS = 64;
+
+  private static final int MASK = TimingWheel.BUCKETS - 1;
+
+  /**
+   * The power of 2 for the span in milliseconds of a bucket in each level (~1s, ~1m, ~1h, ~3d). The
+   * last level holds everything beyond the range of the previous ones.
+   */
+  private static final int[] SHIFTS = {10, 16, 22, 28};
+
+  /** The granularity at which items expire. */
+  static final Duration TICK = Duration.ofMillis(1L << TimingWheel.SHIFTS[0]);
+
+  private final Deque<Timer<T>>[][] wheel;
+  private long time;
+  private int size = 0;
+
+  /**
+   * Instantiates a new timing wheel.
+   *
+   * @param time the current time in milliseconds
+   */
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  TimingWheel(long time) {
+    this.time = time;
+    this.wheel = new Deque[TimingWheel.SHIFTS.length][TimingWheel.BUCKETS];
+    for (final Deque<Timer<T>>[] buckets : wheel) {
+      for (int i = 0; i < buckets.length; i++) {
+        buckets[i] = new ArrayDeque<>();
+      }
+    }
+  }
+
+  /**
+   * Gets the number of items currently scheduled in this wheel.
+   *
+   * @return the number of items currently scheduled
+   */
+  int size() {
+    return size;
+  }
+
+  /**
+   * Schedules an item to expire at a given deadline. An item whose deadline has already passed will
+   * expire the next time the wheel is advanced past the current tick.
+   *
+   * @param item the item to schedule
+   * @param deadline the time in milliseconds at which the item expires
+   */
+  void schedule(T item, long deadline) {
+    // items already due are placed in the current tick
+    final long due = Math.max(deadline, time);
+    final long delay = due - time;
+    int level = 0;
+
+    while ((level < TimingWheel.SHIFTS.length - 1)
+        && (delay >= (1L << TimingWheel.SHIFTS[level + 1]))) {
+      level++;
+    }
+    wheel[level][(int) ((due >>> TimingWheel.SHIFTS[level]) & TimingWheel.MASK)].add(
+        new Timer<>(item, deadline));
+    size++;
+  }
+
+  /**
+   * Advances the wheel to the specified time, expiring all items whose deadline has been reached
+   * and cascading the others down to lower levels.
+   *
+   * @param now the current time in milliseconds
+   * @param expired a consumer called with each item that expired
+   */
+  void advance(long now, Consumer<T> expired) {
+    final long previous = time;
+
+    this.time = now;
+    for (int level = 0; level < TimingWheel.SHIFTS.length; level++) {
+      final long previousTicks = previous >>> TimingWheel.SHIFTS[level];
+      final long currentTicks = now >>> TimingWheel.SHIFTS[level];
+
+      if (currentTicks <= previousTicks) {
+        break; // higher levels cannot have ticked if this one did not
+      }
+      final long steps = Math.min(currentTicks - previousTicks + 1, TimingWheel.BUCKETS);
+
+      for (long tick = previousTicks; tick < previousTicks + steps; tick++) {
+        expire(wheel[level], (int) (tick & TimingWheel.MASK), expired);
+      }
+    }
+  }
+
+  private void expire(Deque<Timer<T>>[] buckets, int index, Consumer<T> expired) {
+    final Deque<Timer<T>> bucket = buckets[index];
+
+    if (bucket.isEmpty()) {
+      return;
+    }
+    buckets[index] = new ArrayDeque<>();
+    size -= bucket.size();
+    for (final Timer<T> timer : bucket) {
+      if (timer.deadline <= time) {
+        expired.accept(timer.item);
+      } else {
+        schedule(timer.item, timer.deadline);
+      }
+    }
+  }
+
+  private static class Timer<T> {
+    private final T item;
+    private final long deadline;
+
+    private Timer(T item, long deadline) {
+      this.item = item;
+      this.deadline = deadline;
+    }
+  }
+}
@@ -0,0 +1,351 @@
+/**
+ * Copyright (c) Connexta
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package com.connexta.transformation.commons.inmemory;
+
+import com.connexta.transformation.commons.api.Transformation;
+import com.connexta.transformation.commons.api.exceptions.TransformationNotFoundException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Enforces the {@link CapacityPolicy} of an {@link InMemoryTransformationManager} by evicting
+ * completed transformations once the manager holds too many transformations or too many content
+ * bytes. Transformations still in progress count toward the limits but are never evicted.
+ *
+ * <p>Eviction follows the W-TinyLFU policy. Completed transformations first enter a small LRU
+ * admission window and then move to a main space split into a probation and a protected LRU
+ * segment. Transformations read while on probation are promoted to the protected segment. When an
+ * eviction is required, the oldest transformation of the window competes with the oldest
+ * transformation of the main space and the one estimated to be the least frequently used by a
+ * {@link FrequencySketch} is evicted. This keeps frequently polled results resident while letting
+ * recent but unpopular ones go.
+ *
+ * <p>Reads never block; they are recorded in a bounded lock-free buffer which drops reads when
+ * full. The buffer is drained, and the policy maintained, by threads performing writes. Writes
+ * never wait for the policy to be maintained either; when another thread is already maintaining it,
+ * that thread picks up the pending work before it is done. Victims are selected while holding the
+ * lock but deleted from the manager after releasing it.
+ */
+public class TransformationEvictor {
+  private static final Logger LOGGER = LoggerFactory.getLogger(TransformationEvictor.class);
+
+  /** The maximum number of reads to buffer between writes. */
+  static final int READ_BUFFER_SIZE = 256;
+
+  /** The number of distinct transformations to size the sketch for when unbounded in size. */
+  private static final long DEFAULT_SKETCH_SIZE = 1024L;
+
+  private final InMemoryTransformationManager manager;
+  private final MemoryAccountant memory;
+  private final CapacityPolicy policy;
+  private final long maximumSize;
+  private final long maximumBytes;
+  private final FrequencySketch sketch;
+  private final ReentrantLock lock = new ReentrantLock();
+  private final LinkedHashMap<String, InMemoryTransformation> window = lruMap();
+  private final LinkedHashMap<String, InMemoryTransformation> probation = lruMap();
+  private final LinkedHashMap<String, InMemoryTransformation> protectedSegment = lruMap();
+  private final Queue<String> readBuffer = new ConcurrentLinkedQueue<>();
+  private final AtomicInteger readBufferSize = new AtomicInteger();
+  private final AtomicLong evictionCount = new AtomicLong();
+  private final AtomicBoolean maintenanceRequired = new AtomicBoolean();
+  private final AtomicLong pendingEvictions = new AtomicLong();
+  private final AtomicLong pendingBytes = new AtomicLong();
+  private final List<EvictionListener> listeners = new CopyOnWriteArrayList<>();
+
+  /**
+   * Instantiates a new evictor.
+   *
+   * @param manager the manager from which to evict transformations
+   * @param memory the accountant keeping track of the content bytes held by the manager
+   * @param policy the capacity policy to enforce
+   */
+  TransformationEvictor(
+      InMemoryTransformationManager manager, MemoryAccountant memory, CapacityPolicy policy) {
+    this.manager = manager;
+    this.memory = memory;
+    this.policy = policy;
+    this.maximumSize = policy.getMaximumSize().orElse(Long.MAX_VALUE);
+    this.maximumBytes = policy.getMaximumBytes().orElse(Long.MAX_VALUE);
+    this.sketch =
+        new FrequencySketch(
+            policy.getMaximumSize().orElse(TransformationEvictor.DEFAULT_SKETCH_SIZE));
+  }
+
+  /**
+   * Gets the capacity policy enforced by this evictor.
+   *
+   * @return the capacity policy enforced by this evictor
+   */
+  public CapacityPolicy getPolicy() {
+    return policy;
+  }
+
+  /**
+   * Gets the total number of content bytes currently held by the manager.
+   *
+   * @return the total number of content bytes currently held
+   */
+  public long getResidentBytes() {
+    return memory.getContentBytes();
+  }
+
+  /**
+   * Gets the number of transformations evicted so far.
+   *
+   * @return the number of transformations evicted so far
+   */
+  public long getEvictionCount() {
+    return evictionCount.get();
+  }
+
+  /**
+   * Registers a listener to be notified when transformations are evicted. Listeners are called from
+   * the thread that triggered the eviction after the transformation was deleted.
+   *
+   * @param listener the listener to register
+   */
+  public void addListener(EvictionListener listener) {
+    listeners.add(listener);
+  }
+
+  /**
+   * Unregisters a listener previously registered with {@link #addListener}.
+   *
+   * @param listener the listener to unregister
+   */
+  public void removeListener(EvictionListener listener) {
+    listeners.remove(listener);
+  }
+
+  /** Called by the manager after transformations were created. */
+  void created() {
+    maintain();
+  }
+
+  /** Called by the manager after a metadata completed and its content was accounted for. */
+  void metadataCompleted() {
+    maintain();
+  }
+
+  /**
+   * Called by the manager after a transformation completed which makes it eligible for eviction.
+   *
+   * @param transformation the transformation that completed
+   */
+  void completed(InMemoryTransformation transformation) {
+    final String transformId = transformation.getTransformId();
+
+    lock.lock();
+    try {
+      sketch.increment(transformId);
+      window.put(transformId, transformation);
+    } finally {
+      lock.unlock();
+    }
+    maintain();
+  }
+
+  /**
+   * Called by the manager whenever a transformation is read. This never blocks.
+   *
+   * @param transformId the id of the transformation that was read
+   */
+  void read(String transformId) {
+    if (readBufferSize.incrementAndGet() <= TransformationEvictor.READ_BUFFER_SIZE) {
+      readBuffer.add(transformId);
+    } else { // the buffer is full so drop the read
+      readBufferSize.decrementAndGet();
+    }
+  }
+
+  /**
+   * Called by the manager after a transformation was deleted.
+   *
+   * @param transformation the transformation that was deleted
+   */
+  void removed(InMemoryTransformation transformation) {
+    forget(transformation);
+  }
+
+  private void maintain() {
+    maintenanceRequired.set(true);
+    // the thread currently holding the lock will loop back to pick up this request when done
+    while (maintenanceRequired.get() && lock.tryLock()) {
+      final List<InMemoryTransformation> victims;
+
+      try {
+        maintenanceRequired.set(false);
+        drainReads();
+        // let the oldest entries of the window into the main space without competing since it
+        // is only when an eviction is required that they must compete
+        while (window.size() > windowMaximum()) {
+          TransformationEvictor.moveFirst(window, probation);
+        }
+        victims = selectVictims();
+      } finally {
+        lock.unlock();
+      }
+      evict(victims);
+    }
+  }
+
+  private void drainReads() {
+    String transformId;
+
+    while ((transformId = readBuffer.poll()) != null) {
+      readBufferSize.decrementAndGet();
+      sketch.increment(transformId);
+      final InMemoryTransformation transformation = probation.remove(transformId);
+
+      if (transformation != null) {
+        protectedSegment.put(transformId, transformation);
+        if (protectedSegment.size() > protectedMaximum()) {
+          TransformationEvictor.moveFirst(protectedSegment, probation);
+        }
+      } else { // refresh its recency if it is in one of the other segments
+        window.get(transformId);
+        protectedSegment.get(transformId);
+      }
+    }
+  }
+
+  /** Must be called while holding the lock. */
+  private List<InMemoryTransformation> selectVictims() {
+    final List<InMemoryTransformation> victims = new ArrayList<>();
+    // victims selected by other threads but not yet deleted no longer count toward the limits
+    long size = manager.size() - pendingEvictions.get();
+    long bytes = memory.getContentBytes() - pendingBytes.get();
+    InMemoryTransformation victim;
+
+    while (((size > maximumSize) || (bytes > maximumBytes))
+        && ((victim = selectVictim()) != null)) {
+      final long victimBytes = victim.getContentBytes();
+
+      discard(victim.getTransformId());
+      victims.add(victim);
+      pendingEvictions.incrementAndGet();
+      pendingBytes.addAndGet(victimBytes);
+      size--;
+      bytes -= victimBytes;
+    }
+    return victims;
+  }
+
+  /** Must be called without holding the lock. */
+  private void evict(List<InMemoryTransformation> victims) {
+    for (final InMemoryTransformation victim : victims) {
+      try {
+        manager.delete(victim.getTransformId()); // calls back removed()
+        evictionCount.incrementAndGet();
+        notifyListeners(victim);
+      } catch (TransformationNotFoundException e) { // deleted concurrently
+      } finally {
+        pendingEvictions.decrementAndGet();
+        pendingBytes.addAndGet(-victim.getContentBytes());
+      }
+    }
+    if (!victims.isEmpty()) { // check again in case things changed while evicting
+      maintenanceRequired.set(true);
+    }
+  }
+
+  private InMemoryTransformation selectVictim() {
+    final InMemoryTransformation candidate = TransformationEvictor.first(window);
+    InMemoryTransformation victim = TransformationEvictor.first(probation);
+
+    if (victim == null) {
+      victim = TransformationEvictor.first(protectedSegment);
+    }
+    if (victim == null) {
+      return candidate;
+    } else if (candidate == null) {
+      return victim;
+    }
+    final String candidateId = candidate.getTransformId();
+
+    if (sketch.frequency(candidateId) > sketch.frequency(victim.getTransformId())) {
+      // admit the candidate in the main space in place of the victim
+      window.remove(candidateId);
+      probation.put(candidateId, candidate);
+      return victim;
+    }
+    return candidate;
+  }
+
+  private int windowMaximum() {
+    return Math.max(1, (window.size() + probation.size() + protectedSegment.size()) / 100);
+  }
+
+  private int protectedMaximum() {
+    return (probation.size() + protectedSegment.size()) * 4 / 5;
+  }
+
+  private void forget(InMemoryTransformation transformation) {
+    lock.lock();
+    try {
+      discard(transformation.getTransformId());
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /** Must be called while holding the lock. */
+  private void discard(String transformId) {
+    window.remove(transformId);
+    probation.remove(transformId);
+    protectedSegment.remove(transformId);
+  }
+
+  private void notifyListeners(Transformation transformation) {
+    for (final EvictionListener listener : listeners) {
+      try {
+        listener.evicted(transformation);
+      } catch (RuntimeException e) {
+        LOGGER.warn("Failed to notify eviction listener [{}].", listener, e);
+      }
+    }
+  }
+
+  private static InMemoryTransformation first(Map<String, InMemoryTransformation> segment) {
+    final Iterator<InMemoryTransformation> i = segment.values().iterator();
+
+    return i.hasNext() ? i.next() : null;
+  }
+
+  private static void moveFirst(
+      Map<String, InMemoryTransformation> from, Map<String, InMemoryTransformation> to) {
+    final Iterator<Map.Entry<String, InMemoryTransformation>> i = from.entrySet().iterator();
+    final Map.Entry<String, InMemoryTransformation> entry = i.next();
+
+    i.remove();
+    to.put(entry.getKey(), entry.getValue());
+  }
+
+  private static LinkedHashMap<String, InMemoryTransformation> lruMap() {
+    return new LinkedHashMap<>(16, 0.75F, true);
+  }
+}
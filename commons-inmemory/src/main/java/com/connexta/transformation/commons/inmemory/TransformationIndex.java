@@ -0,0 +1,390 @@
+/**
+ * Copyright (c) Connexta
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package com.connexta.transformation.commons.inmemory;
+
+import com.connexta.transformation.commons.api.Transformation;
+import com.connexta.transformation.commons.api.TransformationPage;
+import com.connexta.transformation.commons.api.TransformationQuery;
+import com.connexta.transformation.commons.api.TransformationStatus.State;
+import com.google.common.collect.Iterators;
+import java.net.URL;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Maintains secondary indexes over the in-memory transformations such that they can be listed
+ * without having to scan the whole store. All indexes are ordered by start time and are updated
+ * incrementally as transformations are created, gain metadata, complete, or are deleted.
+ */
+class TransformationIndex {
+  private final ConcurrentNavigableMap<Key, InMemoryTransformation> byStartTime =
+      new ConcurrentSkipListMap<>();
+
+  private final Map<State, SizedIndex> byState = new EnumMap<>(State.class);
+
+  private final Map<String, SizedIndex> byMetadataType = new ConcurrentHashMap<>();
+
+  // URLs are keyed by their external forms as URL.equals() may resolve host names and
+  // transformations by their ids as their hash codes change when metadata are added or completed
+  private final Map<String, Map<String, InMemoryTransformation>> byCurrentLocation =
+      new ConcurrentHashMap<>();
+
+  private final Map<String, Map<String, InMemoryTransformation>> byMetacardLocation =
+      new ConcurrentHashMap<>();
+
+  TransformationIndex() {
+    for (final State state : State.values()) {
+      byState.put(state, new SizedIndex());
+    }
+  }
+
+  /**
+   * Indexes a newly created transformation.
+   *
+   * @param transformation the transformation that was created
+   */
+  void created(InMemoryTransformation transformation) {
+    final Key key = new Key(transformation);
+
+    byStartTime.put(key, transformation);
+    // newly created transformations have no metadata yet and are therefore always in progress
+    byState.get(State.IN_PROGRESS).put(key, transformation);
+    TransformationIndex.add(
+        byCurrentLocation, transformation.getRequestInfo().getCurrentLocation(), transformation);
+    TransformationIndex.add(
+        byMetacardLocation, transformation.getRequestInfo().getMetacardLocation(), transformation);
+    removeIfDeleted(transformation);
+  }
+
+  /**
+   * Indexes a metadata type that was added to a transformation.
+   *
+   * @param transformation the transformation to which the metadata was added
+   * @param metadataType the type of metadata added
+   */
+  void metadataAdded(InMemoryTransformation transformation, String metadataType) {
+    byMetadataType
+        .computeIfAbsent(metadataType, t -> new SizedIndex())
+        .put(new Key(transformation), transformation);
+    removeIfDeleted(transformation);
+  }
+
+  /**
+   * Moves a transformation that just completed from the in-progress index to the index for its
+   * final state.
+   *
+   * @param transformation the transformation that completed
+   */
+  void completed(InMemoryTransformation transformation) {
+    final Key key = new Key(transformation);
+
+    // add first such that the transformation never disappears from the state indexes
+    byState.get(transformation.getState()).put(key, transformation);
+    byState.get(State.IN_PROGRESS).remove(key);
+    removeIfDeleted(transformation);
+  }
+
+  /**
+   * Removes a deleted transformation from all indexes.
+   *
+   * @param transformation the transformation that was deleted
+   */
+  void deleted(InMemoryTransformation transformation) {
+    final Key key = new Key(transformation);
+
+    byStartTime.remove(key);
+    byState.values().forEach(m -> m.remove(key));
+    transformation
+        .metadataTypes()
+        .map(byMetadataType::get)
+        .filter(Objects::nonNull)
+        .forEach(m -> m.remove(key));
+    TransformationIndex.remove(
+        byCurrentLocation, transformation.getRequestInfo().getCurrentLocation(), transformation);
+    TransformationIndex.remove(
+        byMetacardLocation, transformation.getRequestInfo().getMetacardLocation(), transformation);
+  }
+
+  /**
+   * Gets the number of indexed transformations which are in progress.
+   *
+   * @return the number of indexed transformations in progress
+   */
+  long getInProgressCount() {
+    return byState.get(State.IN_PROGRESS).size();
+  }
+
+  /**
+   * Finds all indexed transformations for the given current location.
+   *
+   * @param currentLocation the current location to look up
+   * @return the corresponding transformations ordered by start time
+   */
+  List<Transformation> findByCurrentLocation(URL currentLocation) {
+    return TransformationIndex.find(byCurrentLocation, currentLocation);
+  }
+
+  /**
+   * Finds all indexed transformations for the given metacard location.
+   *
+   * @param metacardLocation the metacard location to look up
+   * @return the corresponding transformations ordered by start time
+   */
+  List<Transformation> findByMetacardLocation(URL metacardLocation) {
+    return TransformationIndex.find(byMetacardLocation, metacardLocation);
+  }
+
+  /**
+   * Lists the indexed transformations matching the given query. Only the entries of the indexes for
+   * the requested states and/or metadata type are ever visited. Metadata types are never removed
+   * from a transformation such that the metadata type index does not require further filtering.
+   *
+   * @param query the query to execute
+   * @return the corresponding page of transformations
+   * @throws IllegalArgumentException if the query's cursor is invalid
+   */
+  TransformationPage query(TransformationQuery query) {
+    final Set<State> states = query.getStates();
+    final Iterator<Map.Entry<Key, InMemoryTransformation>> i =
+        select(states, query.getMetadataType().orElse(null), query);
+    final List<Transformation> page = new ArrayList<>(Math.min(query.getLimit(), 64));
+    Key previous = null;
+    Key last = null;
+
+    while (i.hasNext()) {
+      final Map.Entry<Key, InMemoryTransformation> e = i.next();
+      final Key key = e.getKey();
+
+      // a completing transformation is briefly indexed under both its old and new states
+      if ((previous != null) && (previous.compareTo(key) == 0)) {
+        continue;
+      }
+      previous = key;
+      if (!matches(e.getValue(), states)) {
+        continue;
+      }
+      if (page.size() == query.getLimit()) {
+        return new TransformationPage(page, last.toCursor());
+      }
+      page.add(e.getValue());
+      last = key;
+    }
+    return new TransformationPage(page, null);
+  }
+
+  /**
+   * Selects the entries to iterate for the given criteria. Multiple states are handled by merging
+   * the corresponding state indexes in start time order whereas a metadata type combined with
+   * states iterates the smaller of the two sides while checking for membership in the other.
+   *
+   * @param states the states to filter on
+   * @param metadataType the metadata type to filter on or <code>null</code> if none
+   * @param query the query providing the start time range and cursor
+   * @return the entries to iterate ordered by start time
+   */
+  private Iterator<Map.Entry<Key, InMemoryTransformation>> select(
+      Set<State> states, String metadataType, TransformationQuery query) {
+    if (metadataType == null) {
+      return states.isEmpty()
+          ? range(byStartTime, query).entrySet().iterator()
+          : byStates(states, query);
+    }
+    final SizedIndex typed = byMetadataType.get(metadataType);
+
+    if (typed == null) {
+      return Collections.emptyIterator();
+    }
+    final long stateSize = states.stream().map(byState::get).mapToLong(SizedIndex::size).sum();
+
+    if (states.isEmpty() || (typed.size() <= stateSize)) {
+      // the states of the transformations are checked by query()
+      return range(typed.map, query).entrySet().iterator();
+    }
+    return Iterators.filter(byStates(states, query), e -> typed.map.containsKey(e.getKey()));
+  }
+
+  private Iterator<Map.Entry<Key, InMemoryTransformation>> byStates(
+      Set<State> states, TransformationQuery query) {
+    return Iterators.mergeSorted(
+        states.stream()
+            .map(s -> range(byState.get(s).map, query).entrySet().iterator())
+            .collect(Collectors.toList()),
+        Map.Entry.comparingByKey());
+  }
+
+  private NavigableMap<Key, InMemoryTransformation> range(
+      NavigableMap<Key, InMemoryTransformation> index, TransformationQuery query) {
+    NavigableMap<Key, InMemoryTransformation> map = index;
+    final Instant from = query.getStartedFrom().orElse(null);
+    final Instant before = query.getStartedBefore().orElse(null);
+    final String cursor = query.getCursor().orElse(null);
+
+    if (from != null) {
+      map = map.tailMap(Key.lowest(from), true);
+    }
+    if (before != null) {
+      map = map.headMap(Key.lowest(before), false);
+    }
+    if (cursor != null) {
+      map = map.tailMap(Key.fromCursor(cursor), false);
+    }
+    return map;
+  }
+
+  /**
+   * Removes a transformation from all indexes if it was deleted while being indexed. Since a
+   * transformation is flagged as deleted before being removed from the indexes, checking the flag
+   * after indexing guarantees that a concurrent deletion never leaves stale entries behind.
+   *
+   * @param transformation the transformation that was just indexed
+   */
+  private void removeIfDeleted(InMemoryTransformation transformation) {
+    if (transformation.isDeleted()) {
+      deleted(transformation);
+    }
+  }
+
+  private static boolean matches(InMemoryTransformation transformation, Set<State> states) {
+    if (transformation.isDeleted()) {
+      return false;
+    }
+    return states.isEmpty() || states.contains(transformation.getState());
+  }
+
+  private static void add(
+      Map<String, Map<String, InMemoryTransformation>> index,
+      URL location,
+      InMemoryTransformation transformation) {
+    index.compute(
+        location.toExternalForm(),
+        (l, map) -> {
+          final Map<String, InMemoryTransformation> m =
+              (map != null) ? map : new ConcurrentHashMap<>();
+
+          m.put(transformation.getTransformId(), transformation);
+          return m;
+        });
+  }
+
+  private static void remove(
+      Map<String, Map<String, InMemoryTransformation>> index,
+      URL location,
+      InMemoryTransformation transformation) {
+    index.computeIfPresent(
+        location.toExternalForm(),
+        (l, map) -> {
+          map.remove(transformation.getTransformId());
+          return map.isEmpty() ? null : map;
+        });
+  }
+
+  private static List<Transformation> find(
+      Map<String, Map<String, InMemoryTransformation>> index, URL location) {
+    final Map<String, InMemoryTransformation> map = index.get(location.toExternalForm());
+
+    if (map == null) {
+      return List.of();
+    }
+    return map.values().stream()
+        .sorted(Comparator.comparing(Key::new))
+        .map(Transformation.class::cast)
+        .collect(Collectors.toList());
+  }
+
+  /**
+   * Index ordered by start time which keeps track of its size since skip lists can only be counted
+   * by traversing them.
+   */
+  private static class SizedIndex {
+    private final ConcurrentNavigableMap<Key, InMemoryTransformation> map =
+        new ConcurrentSkipListMap<>();
+    private final LongAdder size = new LongAdder();
+
+    void put(Key key, InMemoryTransformation transformation) {
+      if (map.put(key, transformation) == null) {
+        size.increment();
+      }
+    }
+
+    void remove(Key key) {
+      if (map.remove(key) != null) {
+        size.decrement();
+      }
+    }
+
+    long size() {
+      return size.sum();
+    }
+  }
+
+  /** Index key ordering transformations by start time and then by identifiers. */
+  private static class Key implements Comparable<Key> {
+    private static final Comparator<Key> COMPARATOR =
+        Comparator.comparing((Key k) -> k.startTime).thenComparing(k -> k.transformId);
+
+    private final Instant startTime;
+    private final String transformId;
+
+    Key(Transformation transformation) {
+      this(transformation.getStartTime(), transformation.getTransformId());
+    }
+
+    private Key(Instant startTime, String transformId) {
+      this.startTime = startTime;
+      this.transformId = transformId;
+    }
+
+    @Override
+    public int compareTo(Key key) {
+      return Key.COMPARATOR.compare(this, key);
+    }
+
+    String toCursor() {
+      return startTime.getEpochSecond() + ":" + startTime.getNano() + ":" + transformId;
+    }
+
+    /** Creates a key that sorts before any transformation started at the given time. */
+    static Key lowest(Instant startTime) {
+      return new Key(startTime, "");
+    }
+
+    static Key fromCursor(String cursor) {
+      final String[] parts = cursor.split(":", 3);
+
+      if (parts.length != 3) {
+        throw new IllegalArgumentException("invalid cursor: " + cursor);
+      }
+      try {
+        return new Key(
+            Instant.ofEpochSecond(Long.parseLong(parts[0]), Long.parseLong(parts[1])), parts[2]);
+      } catch (NumberFormatException e) {
+        throw new IllegalArgumentException("invalid cursor: " + cursor, e);
+      }
+    }
+  }
+}
@@ -0,0 +1,188 @@
+/**
+ * Copyright (c) Connexta
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package com.connexta.transformation.commons.inmemory;
+
+import com.connexta.transformation.commons.api.TransformationStatus.State;
+import com.connexta.transformation.commons.api.exceptions.TransformationNotFoundException;
+import io.micrometer.core.instrument.Clock;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.BaseUnits;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.io.Closeable;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Background task which reclaims transformations from an {@link InMemoryTransformationManager} once
+ * they expire according to a {@link RetentionPolicy}. Transformations are handed to the reaper
+ * through a lock-free queue when they are created and when they complete, and are tracked in a
+ * hierarchical {@link TimingWheel} such that each run of the reaper only visits the transformations
+ * that are due instead of scanning the whole store.
+ *
+ * <p>The reaper also exposes the number of transformations reclaimed for each outcome and the
+ * number of content bytes reclaimed, both directly and as Micrometer counters.
+ */
+public class TransformationReaper implements Runnable, Closeable, MeterBinder {
+  /** The states for which transformations can be reclaimed. */
+  private static final State[] RECLAIMABLE = {State.SUCCESSFUL, State.FAILED, State.IN_PROGRESS};
+
+  private final InMemoryTransformationManager manager;
+  private final RetentionPolicy policy;
+  private final Clock clock;
+  private final Queue<InMemoryTransformation> pending = new ConcurrentLinkedQueue<>();
+  private final TimingWheel<String> wheel;
+  private final Map<State, AtomicLong> reclaimed = new EnumMap<>(State.class);
+  private final AtomicLong reclaimedBytes = new AtomicLong();
+  private final AtomicBoolean closed = new AtomicBoolean();
+  private volatile ScheduledFuture<?> future;
+
+  /**
+   * Instantiates a new reaper.
+   *
+   * @param manager the manager from which to reclaim expired transformations
+   * @param policy the retention policy to enforce
+   */
+  TransformationReaper(InMemoryTransformationManager manager, RetentionPolicy policy) {
+    this.manager = manager;
+    this.policy = policy;
+    this.clock = manager.getClock();
+    this.wheel = new TimingWheel<>(clock.wallTime());
+    for (final State state : State.values()) {
+      reclaimed.put(state, new AtomicLong());
+    }
+  }
+
+  /**
+   * Gets the retention policy enforced by this reaper.
+   *
+   * @return the retention policy enforced by this reaper
+   */
+  public RetentionPolicy getPolicy() {
+    return policy;
+  }
+
+  /**
+   * Gets the number of transformations reclaimed by this reaper while in the specified state.
+   *
+   * @param state the state of the reclaimed transformations
+   * @return the number of transformations reclaimed while in the specified state
+   */
+  public long getReclaimedCount(State state) {
+    return reclaimed.get(state).get();
+  }
+
+  /**
+   * Gets the total number of content bytes reclaimed by this reaper.
+   *
+   * @return the total number of content bytes reclaimed
+   */
+  public long getReclaimedBytes() {
+    return reclaimedBytes.get();
+  }
+
+  /**
+   * Reclaims all transformations that have expired since the last run. This is normally invoked
+   * periodically from the executor the reaper was started with.
+   */
+  @Override
+  public synchronized void run() {
+    final long now = clock.wallTime();
+    InMemoryTransformation transformation;
+
+    while ((transformation = pending.poll()) != null) {
+      final String transformId = transformation.getTransformId();
+
+      policy
+          .getExpiration(transformation)
+          .ifPresent(e -> wheel.schedule(transformId, e.toEpochMilli()));
+    }
+    wheel.advance(now, transformId -> expired(transformId, now));
+  }
+
+  /** Stops this reaper. Transformations already reclaimed remain reclaimed. */
+  @Override
+  public void close() {
+    if (closed.compareAndSet(false, true)) {
+      future.cancel(false);
+      manager.reaperClosed();
+    }
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    for (final State state : TransformationReaper.RECLAIMABLE) {
+      FunctionCounter.builder(
+              "transformation.reaper.reclaimed", this, r -> r.getReclaimedCount(state))
+          .tag("state", state.name().toLowerCase())
+          .description("The number of expired transformations reclaimed")
+          .baseUnit("objects")
+          .register(registry);
+    }
+    FunctionCounter.builder(
+            "transformation.reaper.reclaimed.bytes", this, TransformationReaper::getReclaimedBytes)
+        .description("The number of content bytes reclaimed from expired transformations")
+        .baseUnit(BaseUnits.BYTES)
+        .register(registry);
+  }
+
+  /**
+   * Starts running this reaper periodically from the specified executor.
+   *
+   * @param executor the executor from which to run this reaper
+   */
+  void start(ScheduledExecutorService executor) {
+    final long tick = TimingWheel.TICK.toMillis();
+
+    this.future = executor.scheduleWithFixedDelay(this, tick, tick, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Called by the manager whenever a transformation is created or completes such that its
+   * expiration can be (re)computed on the next run.
+   *
+   * @param transformation the transformation to track
+   */
+  void track(InMemoryTransformation transformation) {
+    pending.add(transformation);
+  }
+
+  private void expired(String transformId, long now) {
+    final InMemoryTransformation transformation = manager.find(transformId);
+
+    if ((transformation == null)
+        || !policy.getExpiration(transformation).filter(e -> e.toEpochMilli() <= now).isPresent()) {
+      // already deleted or its state changed since it was scheduled in which case it was tracked
+      // again with its new expiration
+      return;
+    }
+    final State state = transformation.getState();
+    final long bytes = transformation.getContentBytes();
+
+    try {
+      manager.delete(transformId);
+    } catch (TransformationNotFoundException e) { // deleted concurrently
+      return;
+    }
+    reclaimed.get(state).incrementAndGet();
+    reclaimedBytes.addAndGet(bytes);
+  }
+}
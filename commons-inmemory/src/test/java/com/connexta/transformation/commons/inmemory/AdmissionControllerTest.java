@@ -0,0 +1,417 @@
+/**
+ * Copyright (c) Connexta
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package com.connexta.transformation.commons.inmemory;
+
+import static org.mockito.Mockito.when;
+
+import com.connexta.transformation.commons.api.RequestInfo;
+import com.connexta.transformation.commons.api.Transformation;
+import com.connexta.transformation.commons.api.exceptions.AdmissionRejectedException;
+import com.connexta.transformation.commons.api.impl.RequestInfoImpl;
+import com.connexta.transformation.commons.inmemory.AdmissionController.PressureLevel;
+import com.github.npathai.hamcrestopt.OptionalMatchers;
+import io.micrometer.core.instrument.Clock;
+import java.io.ByteArrayInputStream;
+import java.net.URL;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.hamcrest.Matchers;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.mockito.Mockito;
+
+public class AdmissionControllerTest {
+  private static final String TYPE = "myMetadataType";
+  private static final long SECOND = TimeUnit.SECONDS.toNanos(1L);
+
+  @Rule public ExpectedException exception = ExpectedException.none();
+
+  private final AtomicLong now = new AtomicLong(1_000L);
+  private final Clock clock = Mockito.mock(Clock.class);
+  private final InMemoryTransformationManager manager = new InMemoryTransformationManager(clock);
+
+  private URL location;
+
+  @Before
+  public void setup() throws Exception {
+    when(clock.wallTime()).thenAnswer(i -> now.get());
+    when(clock.monotonicTime()).thenAnswer(i -> now.get());
+    this.location = new URL("http://current.com");
+  }
+
+  @Test
+  public void testManagerHasNoAdmissionControlByDefault() {
+    Assert.assertThat(manager.getAdmissionController(), OptionalMatchers.isEmpty());
+  }
+
+  @Test
+  public void testEnableAdmissionControl() {
+    final AdmissionPolicy policy = new AdmissionPolicy().setMaximumInFlight(2L);
+    final AdmissionController controller = manager.enableAdmissionControl(policy);
+
+    Assert.assertThat(
+        manager.getAdmissionController(), OptionalMatchers.isPresentAndIs(controller));
+    Assert.assertThat(controller.getPolicy(), Matchers.sameInstance(policy));
+    Assert.assertThat(controller.getInFlightCount(), Matchers.equalTo(0L));
+    Assert.assertThat(controller.getResidentBytes(), Matchers.equalTo(0L));
+    Assert.assertThat(controller.getRejectionCount(), Matchers.equalTo(0L));
+    Assert.assertThat(controller.getPressure(), Matchers.equalTo(0.0D));
+    Assert.assertThat(controller.getPressureLevel(), Matchers.equalTo(PressureLevel.NORMAL));
+  }
+
+  @Test
+  public void testEnableAdmissionControlTwiceFails() {
+    exception.expect(IllegalStateException.class);
+    exception.expectMessage(Matchers.matchesPattern(".*already enabled.*"));
+
+    manager.enableAdmissionControl(new AdmissionPolicy());
+    manager.enableAdmissionControl(new AdmissionPolicy());
+  }
+
+  @Test
+  public void testAccountsForExistingTransformations() throws Exception {
+    manager.createTransform(location, location, location);
+    complete(manager.createTransform(location, location, location), 5);
+
+    final AdmissionController controller = enable(new AdmissionPolicy());
+
+    Assert.assertThat(controller.getInFlightCount(), Matchers.equalTo(1L));
+    Assert.assertThat(controller.getResidentBytes(), Matchers.equalTo(5L));
+  }
+
+  @Test
+  public void testExistingTransformationsAreOnlyAccountedForOnce() throws Exception {
+    final AdmissionController controller = enable(new AdmissionPolicy());
+    final InMemoryTransformation transformation =
+        (InMemoryTransformation) manager.createTransform(location, location, location);
+
+    controller.existing(transformation);
+
+    Assert.assertThat(controller.getInFlightCount(), Matchers.equalTo(1L));
+  }
+
+  @Test
+  public void testRejectsWhenTooManyTransformationsAreInProgress() throws Exception {
+    final AdmissionController controller = enable(new AdmissionPolicy().setMaximumInFlight(1L));
+
+    manager.createTransform(location, location, location);
+    try {
+      manager.createTransform(location, location, location);
+      Assert.fail("expected AdmissionRejectedException");
+    } catch (AdmissionRejectedException e) {
+      Assert.assertThat(e.getMessage(), Matchers.containsString("too many transformations"));
+      Assert.assertThat(e.getRetryAfter(), OptionalMatchers.isEmpty());
+    }
+    Assert.assertThat(controller.getInFlightCount(), Matchers.equalTo(1L));
+    Assert.assertThat(controller.getRejectionCount(), Matchers.equalTo(1L));
+    Assert.assertThat(controller.getPressureLevel(), Matchers.equalTo(PressureLevel.SATURATED));
+  }
+
+  @Test
+  public void testAdmitsAgainOnceCompleted() throws Exception {
+    final AdmissionController controller = enable(new AdmissionPolicy().setMaximumInFlight(1L));
+
+    complete(manager.createTransform(location, location, location), 3);
+
+    Assert.assertThat(controller.getInFlightCount(), Matchers.equalTo(0L));
+    Assert.assertThat(controller.getResidentBytes(), Matchers.equalTo(3L));
+    Assert.assertThat(
+        manager.createTransform(location, location, location), Matchers.notNullValue());
+  }
+
+  @Test
+  public void testAdmitsAgainOnceDeleted() throws Exception {
+    final AdmissionController controller = enable(new AdmissionPolicy().setMaximumInFlight(1L));
+
+    manager.delete(manager.createTransform(location, location, location).getTransformId());
+
+    Assert.assertThat(controller.getInFlightCount(), Matchers.equalTo(0L));
+    Assert.assertThat(
+        manager.createTransform(location, location, location), Matchers.notNullValue());
+  }
+
+  @Test
+  public void testDeletingCompletedTransformationsReleasesTheirBytes() throws Exception {
+    final AdmissionController controller = enable(new AdmissionPolicy());
+    final Transformation transformation = manager.createTransform(location, location, location);
+
+    complete(transformation, 7);
+    manager.delete(transformation.getTransformId());
+
+    Assert.assertThat(controller.getInFlightCount(), Matchers.equalTo(0L));
+    Assert.assertThat(controller.getResidentBytes(), Matchers.equalTo(0L));
+  }
+
+  @Test
+  public void testCompletionOfTransformationsNotAdmittedIsIgnored() throws Exception {
+    final AdmissionController controller = enable(new AdmissionPolicy());
+    final InMemoryTransformation transformation =
+        (InMemoryTransformation) manager.createTransform(location, location, location);
+
+    controller.completed(transformation);
+    controller.completed(transformation);
+
+    Assert.assertThat(controller.getInFlightCount(), Matchers.equalTo(0L));
+  }
+
+  @Test
+  public void testRejectsWhenTooManyBytesAreHeld() throws Exception {
+    final AdmissionController controller = enable(new AdmissionPolicy().setMaximumBytes(10L));
+
+    complete(manager.createTransform(location, location, location), 12);
+
+    Assert.assertThat(controller.getPressure(), Matchers.equalTo(1.0D));
+
+    exception.expect(AdmissionRejectedException.class);
+    exception.expectMessage(Matchers.matchesPattern(".*too many content bytes.*12.*"));
+
+    manager.createTransform(location, location, location);
+  }
+
+  @Test
+  public void testCreateTransformsAdmitsTheWholeBatch() throws Exception {
+    final AdmissionController controller = enable(new AdmissionPolicy().setMaximumInFlight(2L));
+    final RequestInfo request = new RequestInfoImpl(location, location, location);
+
+    manager.createTransforms(Arrays.asList(request, request));
+
+    Assert.assertThat(controller.getInFlightCount(), Matchers.equalTo(2L));
+  }
+
+  @Test
+  public void testCreateTransformsRejectsTheWholeBatch() throws Exception {
+    final AdmissionController controller = enable(new AdmissionPolicy().setMaximumInFlight(2L));
+    final RequestInfo request = new RequestInfoImpl(location, location, location);
+
+    manager.createTransform(location, location, location);
+    try {
+      manager.createTransforms(Arrays.asList(request, request));
+      Assert.fail("expected AdmissionRejectedException");
+    } catch (AdmissionRejectedException e) {
+      Assert.assertThat(manager.size(), Matchers.equalTo(1));
+    }
+    Assert.assertThat(controller.getInFlightCount(), Matchers.equalTo(1L));
+  }
+
+  @Test
+  public void testAdmissionIsReleasedWhenCreationFails() throws Exception {
+    final AdmissionController controller = enable(new AdmissionPolicy().setMaximumInFlight(1L));
+    final IllegalStateException error = new IllegalStateException("testing");
+
+    when(clock.wallTime()).thenThrow(error).thenAnswer(i -> now.get());
+    try {
+      manager.createTransform(location, location, location);
+      Assert.fail("expected IllegalStateException");
+    } catch (IllegalStateException e) {
+      Assert.assertThat(e, Matchers.sameInstance(error));
+    }
+    Assert.assertThat(controller.getInFlightCount(), Matchers.equalTo(0L));
+    Assert.assertThat(
+        manager.createTransform(location, location, location), Matchers.notNullValue());
+  }
+
+  @Test
+  public void testCreateTransformsReleasesTheWholeBatchWhenCreationFails() throws Exception {
+    final AdmissionController controller = enable(new AdmissionPolicy().setMaximumInFlight(2L));
+    final RequestInfo request = new RequestInfoImpl(location, location, location);
+    final RequestInfo request2 = Mockito.mock(RequestInfo.class);
+    final IllegalStateException error = new IllegalStateException("testing");
+
+    when(request2.getCurrentLocation()).thenThrow(error);
+    try {
+      manager.createTransforms(Arrays.asList(request, request2));
+      Assert.fail("expected IllegalStateException");
+    } catch (IllegalStateException e) {
+      Assert.assertThat(e, Matchers.sameInstance(error));
+    }
+    Assert.assertThat(manager.size(), Matchers.equalTo(0));
+    Assert.assertThat(controller.getInFlightCount(), Matchers.equalTo(0L));
+    Assert.assertThat(
+        manager.createTransforms(Arrays.asList(request, request)), Matchers.hasSize(2));
+  }
+
+  @Test
+  public void testAbandonedTransformationsAlreadyCompletedAreNotReleasedAgain() throws Exception {
+    final AdmissionController controller = enable(new AdmissionPolicy());
+    final InMemoryTransformation transformation =
+        (InMemoryTransformation) manager.createTransform(location, location, location);
+
+    manager.createTransform(location, location, location);
+    complete(transformation, 0);
+    controller.abandoned(1, Arrays.asList(transformation));
+
+    Assert.assertThat(controller.getInFlightCount(), Matchers.equalTo(1L));
+  }
+
+  @Test
+  public void testCreateTransformsRejectsBatchesLargerThanTheMaximumInFlight() throws Exception {
+    enable(new AdmissionPolicy().setMaximumInFlight(1L));
+    final RequestInfo request = new RequestInfoImpl(location, location, location);
+
+    exception.expect(AdmissionRejectedException.class);
+    exception.expectMessage(Matchers.matchesPattern(".*cannot admit 2 transformations.*"));
+
+    manager.createTransforms(Arrays.asList(request, request));
+  }
+
+  @Test
+  public void testCreateTransformsRejectsBatchesLargerThanTheMaximumBurst() throws Exception {
+    enable(new AdmissionPolicy().setMaximumRate(100.0D, 1L));
+    final RequestInfo request = new RequestInfoImpl(location, location, location);
+
+    exception.expect(AdmissionRejectedException.class);
+    exception.expectMessage(Matchers.matchesPattern(".*cannot admit 2 transformations.*"));
+
+    manager.createTransforms(Arrays.asList(request, request));
+  }
+
+  @Test
+  public void testRejectsWhenCreationRateIsExceeded() throws Exception {
+    final AdmissionController controller = enable(new AdmissionPolicy().setMaximumRate(1.0D, 2L));
+
+    manager.createTransform(location, location, location);
+
+    Assert.assertThat(controller.getPressure(), Matchers.equalTo(0.5D));
+
+    manager.createTransform(location, location, location);
+
+    Assert.assertThat(controller.getPressureLevel(), Matchers.equalTo(PressureLevel.SATURATED));
+    try {
+      manager.createTransform(location, location, location);
+      Assert.fail("expected AdmissionRejectedException");
+    } catch (AdmissionRejectedException e) {
+      Assert.assertThat(e.getMessage(), Matchers.containsString("creation rate exceeded"));
+      Assert.assertThat(
+          e.getRetryAfter(),
+          OptionalMatchers.isPresentAnd(Matchers.greaterThan(Duration.ofMillis(999L))));
+    }
+    now.addAndGet(2L * AdmissionControllerTest.SECOND);
+
+    Assert.assertThat(
+        manager.createTransform(location, location, location), Matchers.notNullValue());
+  }
+
+  @Test
+  public void testBlocksUntilReleased() throws Exception {
+    when(clock.monotonicTime()).thenAnswer(i -> System.nanoTime());
+    final AdmissionController controller =
+        enable(new AdmissionPolicy().setMaximumInFlight(1L).setMaximumWait(Duration.ofMinutes(1L)));
+    final Transformation transformation = manager.createTransform(location, location, location);
+    final CompletableFuture<Transformation> blocked =
+        CompletableFuture.supplyAsync(
+            () -> {
+              try {
+                return manager.createTransform(location, location, location);
+              } catch (Exception e) {
+                throw new AssertionError(e);
+              }
+            });
+
+    Thread.sleep(50L);
+
+    Assert.assertThat(blocked.isDone(), Matchers.equalTo(false));
+
+    complete(transformation, 1);
+
+    Assert.assertThat(blocked.get(1L, TimeUnit.MINUTES), Matchers.notNullValue());
+    Assert.assertThat(controller.getInFlightCount(), Matchers.equalTo(1L));
+  }
+
+  @Test
+  public void testBlocksUntilTheCreationRateAllows() throws Exception {
+    when(clock.monotonicTime()).thenAnswer(i -> System.nanoTime());
+    final AdmissionController controller =
+        enable(
+            new AdmissionPolicy()
+                .setMaximumRate(100.0D, 1L)
+                .setMaximumWait(Duration.ofMinutes(1L)));
+
+    manager.createTransform(location, location, location);
+    manager.createTransform(location, location, location);
+
+    Assert.assertThat(controller.getInFlightCount(), Matchers.equalTo(2L));
+    Assert.assertThat(controller.getRejectionCount(), Matchers.equalTo(0L));
+  }
+
+  @Test
+  public void testRejectsOnceTheMaximumWaitElapses() throws Exception {
+    when(clock.monotonicTime()).thenAnswer(i -> now.addAndGet(TimeUnit.MILLISECONDS.toNanos(5L)));
+    final AdmissionController controller =
+        enable(new AdmissionPolicy().setMaximumInFlight(1L).setMaximumWait(Duration.ofMillis(20L)));
+
+    manager.createTransform(location, location, location);
+    try {
+      manager.createTransform(location, location, location);
+      Assert.fail("expected AdmissionRejectedException");
+    } catch (AdmissionRejectedException e) {
+      Assert.assertThat(e.getMessage(), Matchers.containsString("too many transformations"));
+    }
+    Assert.assertThat(controller.getRejectionCount(), Matchers.equalTo(1L));
+  }
+
+  @Test
+  public void testRejectsWhenInterruptedWhileBlocked() throws Exception {
+    enable(new AdmissionPolicy().setMaximumInFlight(1L).setMaximumWait(Duration.ofMinutes(1L)));
+
+    manager.createTransform(location, location, location);
+    Thread.currentThread().interrupt();
+    try {
+      manager.createTransform(location, location, location);
+      Assert.fail("expected AdmissionRejectedException");
+    } catch (AdmissionRejectedException e) {
+      Assert.assertThat(e.getMessage(), Matchers.containsString("interrupted"));
+    }
+    Assert.assertThat(Thread.interrupted(), Matchers.equalTo(true));
+  }
+
+  @Test
+  public void testPressureLevels() {
+    Assert.assertThat(PressureLevel.of(0.0D), Matchers.equalTo(PressureLevel.NORMAL));
+    Assert.assertThat(PressureLevel.of(0.74D), Matchers.equalTo(PressureLevel.NORMAL));
+    Assert.assertThat(
+        PressureLevel.of(AdmissionController.ELEVATED_PRESSURE),
+        Matchers.equalTo(PressureLevel.ELEVATED));
+    Assert.assertThat(PressureLevel.of(1.0D), Matchers.equalTo(PressureLevel.SATURATED));
+  }
+
+  @Test
+  public void testPressureReflectsTheMostUtilizedLimit() throws Exception {
+    final AdmissionController controller =
+        enable(new AdmissionPolicy().setMaximumInFlight(4L).setMaximumBytes(100L));
+
+    for (int i = 0; i < 3; i++) {
+      manager.createTransform(location, location, location);
+    }
+    complete(manager.createTransform(location, location, location), 10);
+
+    Assert.assertThat(controller.getPressure(), Matchers.equalTo(0.75D));
+    Assert.assertThat(controller.getPressureLevel(), Matchers.equalTo(PressureLevel.ELEVATED));
+  }
+
+  private AdmissionController enable(AdmissionPolicy policy) {
+    return manager.enableAdmissionControl(policy);
+  }
+
+  private void complete(Transformation transformation, int bytes) throws Exception {
+    transformation
+        .add(AdmissionControllerTest.TYPE)
+        .succeed("text/plain", new ByteArrayInputStream(new byte[bytes]));
+  }
+}
@@ -0,0 +1,83 @@
+/**
+ * Copyright (c) Connexta
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package com.connexta.transformation.commons.inmemory;
+
+import java.time.Duration;
+import org.hamcrest.Matchers;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class AdmissionPolicyTest {
+  private final AdmissionPolicy policy = new AdmissionPolicy();
+
+  @Test
+  public void testDefaultsAreUnbounded() {
+    Assert.assertThat(policy.getMaximumInFlight().isPresent(), Matchers.equalTo(false));
+    Assert.assertThat(policy.getMaximumBytes().isPresent(), Matchers.equalTo(false));
+    Assert.assertThat(policy.getMaximumRate().isPresent(), Matchers.equalTo(false));
+    Assert.assertThat(policy.getMaximumBurst(), Matchers.equalTo(1L));
+    Assert.assertThat(policy.getMaximumWait(), Matchers.equalTo(Duration.ZERO));
+  }
+
+  @Test
+  public void testSetters() {
+    policy
+        .setMaximumInFlight(10L)
+        .setMaximumBytes(1024L)
+        .setMaximumRate(2.5D, 5L)
+        .setMaximumWait(Duration.ofSeconds(3L));
+
+    Assert.assertThat(policy.getMaximumInFlight().getAsLong(), Matchers.equalTo(10L));
+    Assert.assertThat(policy.getMaximumBytes().getAsLong(), Matchers.equalTo(1024L));
+    Assert.assertThat(policy.getMaximumRate().getAsDouble(), Matchers.equalTo(2.5D));
+    Assert.assertThat(policy.getMaximumBurst(), Matchers.equalTo(5L));
+    Assert.assertThat(policy.getMaximumWait(), Matchers.equalTo(Duration.ofSeconds(3L)));
+    Assert.assertThat(policy.toString(), Matchers.containsString("1024"));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testSetMaximumInFlightFailsWhenNotPositive() {
+    policy.setMaximumInFlight(0L);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testSetMaximumBytesFailsWhenNotPositive() {
+    policy.setMaximumBytes(-1L);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testSetMaximumRateFailsWhenNotPositive() {
+    policy.setMaximumRate(0.0D, 1L);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testSetMaximumRateFailsWhenNotANumber() {
+    policy.setMaximumRate(Double.NaN, 1L);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testSetMaximumRateFailsWhenInfinite() {
+    policy.setMaximumRate(Double.POSITIVE_INFINITY, 1L);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testSetMaximumRateFailsWhenBurstIsNotPositive() {
+    policy.setMaximumRate(1.0D, 0L);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testSetMaximumWaitFailsWhenNegative() {
+    policy.setMaximumWait(Duration.ofMillis(-1L));
+  }
+}
@@ -0,0 +1,142 @@
+/**
+ * Copyright (c) Connexta
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package com.connexta.transformation.commons.inmemory;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.charset.StandardCharsets;
+import org.hamcrest.Matchers;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ByteBufferChannelTest {
+  private static final String CONTENT = "0123456789";
+
+  private final ByteBuffer source =
+      ByteBuffer.wrap(ByteBufferChannelTest.CONTENT.getBytes(StandardCharsets.UTF_8));
+
+  private final ByteBufferChannel channel = new ByteBufferChannel(source);
+
+  @Test
+  public void testReadAll() throws Exception {
+    final ByteBuffer dst = ByteBuffer.allocate(32);
+
+    Assert.assertThat(channel.read(dst), Matchers.equalTo(10));
+    Assert.assertThat(channel.read(dst), Matchers.equalTo(-1));
+    Assert.assertThat(
+        new String(dst.array(), 0, dst.position(), StandardCharsets.UTF_8),
+        Matchers.equalTo(ByteBufferChannelTest.CONTENT));
+    Assert.assertThat(channel.position(), Matchers.equalTo(10L));
+  }
+
+  @Test
+  public void testReadIsLimitedByTheDestination() throws Exception {
+    final ByteBuffer dst = ByteBuffer.allocate(4);
+
+    Assert.assertThat(channel.read(dst), Matchers.equalTo(4));
+    Assert.assertThat(channel.position(), Matchers.equalTo(4L));
+    Assert.assertThat(new String(dst.array(), StandardCharsets.UTF_8), Matchers.equalTo("0123"));
+  }
+
+  @Test
+  public void testReadDoesNotModifyTheSource() throws Exception {
+    channel.read(ByteBuffer.allocate(32));
+
+    Assert.assertThat(source.position(), Matchers.equalTo(0));
+  }
+
+  @Test
+  public void testReadFromTheRemainingBytesOfTheSource() throws Exception {
+    final ByteBuffer dst = ByteBuffer.allocate(32);
+
+    source.position(6);
+    final ByteBufferChannel channel = new ByteBufferChannel(source);
+
+    Assert.assertThat(channel.size(), Matchers.equalTo(4L));
+    Assert.assertThat(channel.read(dst), Matchers.equalTo(4));
+    Assert.assertThat(
+        new String(dst.array(), 0, dst.position(), StandardCharsets.UTF_8),
+        Matchers.equalTo("6789"));
+  }
+
+  @Test
+  public void testReadFromPosition() throws Exception {
+    final ByteBuffer dst = ByteBuffer.allocate(32);
+
+    Assert.assertThat(channel.position(7L).read(dst), Matchers.equalTo(3));
+    Assert.assertThat(
+        new String(dst.array(), 0, dst.position(), StandardCharsets.UTF_8),
+        Matchers.equalTo("789"));
+  }
+
+  @Test
+  public void testReadFromPositionBeyondSize() throws Exception {
+    Assert.assertThat(channel.position(20L).read(ByteBuffer.allocate(32)), Matchers.equalTo(-1));
+    Assert.assertThat(channel.position(), Matchers.equalTo(20L));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNegativePosition() throws Exception {
+    channel.position(-1L);
+  }
+
+  @Test
+  public void testSize() throws Exception {
+    Assert.assertThat(channel.size(), Matchers.equalTo(10L));
+  }
+
+  @Test(expected = NonWritableChannelException.class)
+  public void testWrite() throws Exception {
+    channel.write(ByteBuffer.allocate(1));
+  }
+
+  @Test(expected = NonWritableChannelException.class)
+  public void testTruncate() throws Exception {
+    channel.truncate(0L);
+  }
+
+  @Test
+  public void testClose() throws Exception {
+    Assert.assertThat(channel.isOpen(), Matchers.equalTo(true));
+
+    channel.close();
+
+    Assert.assertThat(channel.isOpen(), Matchers.equalTo(false));
+  }
+
+  @Test(expected = ClosedChannelException.class)
+  public void testReadWhenClosed() throws Exception {
+    channel.close();
+    channel.read(ByteBuffer.allocate(1));
+  }
+
+  @Test(expected = ClosedChannelException.class)
+  public void testPositionWhenClosed() throws Exception {
+    channel.close();
+    channel.position();
+  }
+
+  @Test(expected = ClosedChannelException.class)
+  public void testSetPositionWhenClosed() throws Exception {
+    channel.close();
+    channel.position(1L);
+  }
+
+  @Test(expected = ClosedChannelException.class)
+  public void testSizeWhenClosed() throws Exception {
+    channel.close();
+    channel.size();
+  }
+}
@@ -0,0 +1,47 @@
+/**
+ * Copyright (c) Connexta
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package com.connexta.transformation.commons.inmemory;
+
+import org.hamcrest.Matchers;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class CapacityPolicyTest {
+  private final CapacityPolicy policy = new CapacityPolicy();
+
+  @Test
+  public void testDefaultsAreUnbounded() {
+    Assert.assertThat(policy.getMaximumSize().isPresent(), Matchers.equalTo(false));
+    Assert.assertThat(policy.getMaximumBytes().isPresent(), Matchers.equalTo(false));
+  }
+
+  @Test
+  public void testSetters() {
+    policy.setMaximumSize(10L).setMaximumBytes(1024L);
+
+    Assert.assertThat(policy.getMaximumSize().getAsLong(), Matchers.equalTo(10L));
+    Assert.assertThat(policy.getMaximumBytes().getAsLong(), Matchers.equalTo(1024L));
+    Assert.assertThat(policy.toString(), Matchers.containsString("1024"));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testSetMaximumSizeFailsWhenNotPositive() {
+    policy.setMaximumSize(0L);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testSetMaximumBytesFailsWhenNotPositive() {
+    policy.setMaximumBytes(-1L);
+  }
+}
@@ -0,0 +1,78 @@
+/**
+ * Copyright (c) Connexta
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package com.connexta.transformation.commons.inmemory;
+
+import com.google.common.hash.Hashing;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32C;
+import org.hamcrest.Matchers;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ContentChecksumsTest {
+  private static final byte[] CONTENT = "some content".getBytes(StandardCharsets.UTF_8);
+  private static final long CRC32C;
+  private static final String SHA256 =
+      Hashing.sha256().hashBytes(ContentChecksumsTest.CONTENT).toString();
+
+  static {
+    final CRC32C crc32c = new CRC32C();
+
+    crc32c.update(ContentChecksumsTest.CONTENT);
+    CRC32C = crc32c.getValue();
+  }
+
+  @Test
+  public void testWrap() throws Exception {
+    final ContentChecksums checksums = new ContentChecksums(true);
+
+    checksums.wrap(new ByteArrayInputStream(ContentChecksumsTest.CONTENT)).readAllBytes();
+
+    Assert.assertThat(checksums.getCrc32c(), Matchers.equalTo(ContentChecksumsTest.CRC32C));
+    Assert.assertThat(checksums.getSha256(), Matchers.equalTo(ContentChecksumsTest.SHA256));
+  }
+
+  @Test
+  public void testWrapWithoutSha256() throws Exception {
+    final ContentChecksums checksums = new ContentChecksums(false);
+
+    checksums.wrap(new ByteArrayInputStream(ContentChecksumsTest.CONTENT)).readAllBytes();
+
+    Assert.assertThat(checksums.getCrc32c(), Matchers.equalTo(ContentChecksumsTest.CRC32C));
+    Assert.assertThat(checksums.getSha256(), Matchers.nullValue());
+  }
+
+  @Test
+  public void testUpdate() throws Exception {
+    final ContentChecksums checksums = new ContentChecksums(true);
+
+    checksums.update(ContentChecksumsTest.CONTENT[0]);
+    checksums.update(ContentChecksumsTest.CONTENT, 1, ContentChecksumsTest.CONTENT.length - 1);
+
+    Assert.assertThat(checksums.getCrc32c(), Matchers.equalTo(ContentChecksumsTest.CRC32C));
+    Assert.assertThat(checksums.getSha256(), Matchers.equalTo(ContentChecksumsTest.SHA256));
+  }
+
+  @Test
+  public void testUpdateWithoutSha256() throws Exception {
+    final ContentChecksums checksums = new ContentChecksums(false);
+
+    checksums.update(ContentChecksumsTest.CONTENT[0]);
+    checksums.update(ContentChecksumsTest.CONTENT, 1, ContentChecksumsTest.CONTENT.length - 1);
+
+    Assert.assertThat(checksums.getCrc32c(), Matchers.equalTo(ContentChecksumsTest.CRC32C));
+    Assert.assertThat(checksums.getSha256(), Matchers.nullValue());
+  }
+}
@@ -0,0 +1,59 @@
+/**
+ * Copyright (c) Connexta
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package com.connexta.transformation.commons.inmemory;
+
+import org.hamcrest.Matchers;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class FrequencySketchTest {
+  private final FrequencySketch sketch = new FrequencySketch(16L);
+
+  @Test
+  public void testFrequencyOfUnknownItemIsZero() {
+    Assert.assertThat(sketch.frequency("a"), Matchers.equalTo(0));
+  }
+
+  @Test
+  public void testIncrement() {
+    sketch.increment("a");
+    sketch.increment("a");
+    sketch.increment("b");
+
+    Assert.assertThat(sketch.frequency("a"), Matchers.equalTo(2));
+    Assert.assertThat(sketch.frequency("b"), Matchers.equalTo(1));
+  }
+
+  @Test
+  public void testFrequencyIsCapped() {
+    for (int i = 0; i < 20; i++) {
+      sketch.increment("a");
+    }
+
+    Assert.assertThat(sketch.frequency("a"), Matchers.equalTo(15));
+  }
+
+  @Test
+  public void testCountersAreHalvedOnceTheSampleSizeIsReached() {
+    for (int i = 0; i < 16; i++) {
+      sketch.increment("a");
+    }
+    // the sample size is 10 times the 16 longs of the table and 15 increments were recorded
+    for (int i = 0; i < 145; i++) {
+      sketch.increment("item" + i);
+    }
+
+    Assert.assertThat(sketch.frequency("a"), Matchers.equalTo(7));
+  }
+}
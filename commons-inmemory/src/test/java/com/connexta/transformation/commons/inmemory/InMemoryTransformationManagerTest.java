@@ -21,27 +21,73 @@ import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.Mockito.when;
 
+import com.connexta.transformation.commons.api.ContentOutputStream;
+import com.connexta.transformation.commons.api.ContentWriter;
 import com.connexta.transformation.commons.api.ErrorCode;
 import com.connexta.transformation.commons.api.MetadataTransformation;
+import com.connexta.transformation.commons.api.RequestInfo;
 import com.connexta.transformation.commons.api.Transformation;
+import com.connexta.transformation.commons.api.TransformationLifecycleListener;
+import com.connexta.transformation.commons.api.TransformationListener;
+import com.connexta.transformation.commons.api.TransformationLookup;
+import com.connexta.transformation.commons.api.TransformationPage;
+import com.connexta.transformation.commons.api.TransformationQuery;
 import com.connexta.transformation.commons.api.TransformationStatus.State;
 import com.connexta.transformation.commons.api.exceptions.TransformationNotFoundException;
+import com.connexta.transformation.commons.api.impl.MeteredTransformationManager;
+import com.connexta.transformation.commons.api.impl.RequestInfoImpl;
+import com.connexta.transformation.commons.api.impl.TransformationEvent;
+import com.connexta.transformation.commons.api.impl.TransformationEvent.Type;
+import com.connexta.transformation.commons.api.impl.TransformationEventLog;
+import com.connexta.transformation.commons.api.impl.jfr.ContentIngestEvent;
 import com.github.npathai.hamcrestopt.OptionalMatchers;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteStreams;
 import com.google.common.io.CharStreams;
+import com.google.common.util.concurrent.MoreExecutors;
 import io.micrometer.core.instrument.Clock;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.io.Reader;
 import java.io.StringReader;
+import java.io.Writer;
 import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.SeekableByteChannel;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.zip.CRC32C;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
 import org.hamcrest.Matchers;
 import org.junit.Assert;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.InOrder;
 import org.mockito.Mockito;
 
 public class InMemoryTransformationManagerTest {
@@ -54,6 +100,8 @@ public class InMemoryTransformationManagerTest {
   private static final Instant TIME4 = Instant.ofEpochMilli(4444L);
   private static final Instant TIME5 = Instant.ofEpochMilli(55555L);
 
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
   private final Clock clock = Mockito.mock(Clock.class);
 
   private final InMemoryTransformationManager manager = new InMemoryTransformationManager(clock);
@@ -305,6 +353,459 @@ public class InMemoryTransformationManagerTest {
                 InMemoryTransformationManagerTest.TIME, InMemoryTransformationManagerTest.TIME3)));
   }
 
+  @Test
+  public void openContentStoresContentsWhenClosed() throws Exception {
+    final Transformation transformation =
+        manager.createTransform(currentUri, finalUri, metacardUri);
+    final MetadataTransformation metadata = transformation.add(TEST_METADATA_TYPE);
+    final OutputStream stream = metadata.openContent("text/plain");
+
+    stream.write('t');
+    stream.write("esting".getBytes());
+
+    assertThat(metadata.getState(), Matchers.equalTo(State.IN_PROGRESS));
+    assertThat(metadata.getContent(), OptionalMatchers.isEmpty());
+
+    stream.close();
+
+    assertTrue(metadata.wasSuccessful());
+    assertTrue(transformation.wasSuccessful());
+    assertThat(metadata.getContentType(), OptionalMatchers.isPresentAndIs("text/plain"));
+    assertThat(metadata.getContentLength().getAsLong(), Matchers.equalTo(7L));
+    try (final InputStream is = metadata.getContent().get()) {
+      assertThat(new String(ByteStreams.toByteArray(is)), Matchers.equalTo("testing"));
+    }
+  }
+
+  @Test
+  public void openContentWithWriterStoresContentsWhenClosed() throws Exception {
+    final Transformation transformation =
+        manager.createTransform(currentUri, finalUri, metacardUri);
+    final MetadataTransformation metadata = transformation.add(TEST_METADATA_TYPE);
+
+    try (final Writer writer = metadata.openContent("text/plain", StandardCharsets.UTF_8)) {
+      writer.write("done");
+    }
+
+    try (final Reader reader = metadata.getContent(StandardCharsets.UTF_8).get()) {
+      assertThat(CharStreams.toString(reader), Matchers.equalTo("done"));
+    }
+  }
+
+  @Test
+  public void openContentGrowsAsNeeded() throws Exception {
+    final MetadataTransformation metadata =
+        manager.createTransform(currentUri, finalUri, metacardUri).add(TEST_METADATA_TYPE);
+    final byte[] bytes = new byte[20000];
+
+    Arrays.fill(bytes, (byte) 'a');
+    try (final OutputStream stream = metadata.openContent("text/plain")) {
+      stream.write(bytes, 0, 100);
+      stream.write(bytes);
+    }
+
+    assertThat(metadata.getContentLength().getAsLong(), Matchers.equalTo(20100L));
+  }
+
+  @Test
+  public void openContentFilledToCapacity() throws Exception {
+    final MetadataTransformation metadata =
+        manager.createTransform(currentUri, finalUri, metacardUri).add(TEST_METADATA_TYPE);
+
+    try (final OutputStream stream = metadata.openContent("text/plain")) {
+      stream.write(new byte[8192]);
+    }
+
+    assertThat(metadata.getContentLength().getAsLong(), Matchers.equalTo(8192L));
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void openContentTwiceThrowsException() throws Exception {
+    final MetadataTransformation metadata =
+        manager.createTransform(currentUri, finalUri, metacardUri).add(TEST_METADATA_TYPE);
+
+    metadata.openContent("text/plain");
+    metadata.openContent("text/plain");
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void openContentWhenCompletedThrowsException() throws Exception {
+    final MetadataTransformation metadata =
+        manager.createTransform(currentUri, finalUri, metacardUri).add(TEST_METADATA_TYPE);
+
+    metadata.fail(ErrorCode.TRANSFORMATION_FAILURE, "it failed");
+    metadata.openContent("text/plain");
+  }
+
+  @Test
+  public void closingContentTwiceCompletesOnlyOnce() throws Exception {
+    final MetadataTransformation metadata =
+        manager.createTransform(currentUri, finalUri, metacardUri).add(TEST_METADATA_TYPE);
+    final OutputStream stream = metadata.openContent("text/plain");
+
+    stream.close();
+    final Optional<Instant> completionTime = metadata.getCompletionTime();
+
+    stream.close();
+
+    assertThat(metadata.getCompletionTime(), Matchers.equalTo(completionTime));
+  }
+
+  @Test(expected = IOException.class)
+  public void writingToClosedContentThrowsException() throws Exception {
+    final MetadataTransformation metadata =
+        manager.createTransform(currentUri, finalUri, metacardUri).add(TEST_METADATA_TYPE);
+    final OutputStream stream = metadata.openContent("text/plain");
+
+    stream.close();
+    stream.write('a');
+  }
+
+  @Test
+  public void failAbortsOpenedContent() throws Exception {
+    final MetadataTransformation metadata =
+        manager.createTransform(currentUri, finalUri, metacardUri).add(TEST_METADATA_TYPE);
+    final OutputStream stream = metadata.openContent("text/plain");
+
+    stream.write("partial".getBytes());
+    metadata.fail(ErrorCode.TRANSFORMATION_FAILURE, "it failed");
+    try {
+      stream.write("more".getBytes());
+      fail();
+    } catch (IOException e) {
+      assertTrue(e.getMessage().contains("closed"));
+    }
+    stream.close();
+
+    assertTrue(metadata.hasFailed());
+    assertThat(metadata.getContent(), OptionalMatchers.isEmpty());
+  }
+
+  @Test
+  public void succeedAbortsOpenedContent() throws Exception {
+    final MetadataTransformation metadata =
+        manager.createTransform(currentUri, finalUri, metacardUri).add(TEST_METADATA_TYPE);
+    final OutputStream stream = metadata.openContent("text/plain");
+
+    stream.write("partial".getBytes());
+    metadata.succeed("text/xml", new ByteArrayInputStream("done".getBytes()));
+    stream.close();
+
+    assertThat(metadata.getContentType(), OptionalMatchers.isPresentAndIs("text/xml"));
+    assertThat(metadata.getContentLength().getAsLong(), Matchers.equalTo(4L));
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void closingContentWhenDeletedThrowsException() throws Exception {
+    final Transformation transformation =
+        manager.createTransform(currentUri, finalUri, metacardUri);
+    final OutputStream stream = transformation.add(TEST_METADATA_TYPE).openContent("text/plain");
+
+    transformation.delete();
+    stream.close();
+  }
+
+  @Test
+  public void abortingContentDiscardsItWhenTheProducerFails() throws Exception {
+    final MetadataTransformation metadata =
+        manager.createTransform(currentUri, finalUri, metacardUri).add(TEST_METADATA_TYPE);
+
+    try (final ContentOutputStream stream = metadata.openContent("text/plain")) {
+      try {
+        produceAndFail(stream);
+      } catch (IOException e) {
+        stream.abort();
+      }
+    }
+
+    assertThat(metadata.getState(), Matchers.equalTo(State.IN_PROGRESS));
+    assertThat(metadata.getContent(), OptionalMatchers.isEmpty());
+
+    // the content can be generated again
+    try (final OutputStream stream = metadata.openContent("text/plain")) {
+      stream.write("done".getBytes());
+    }
+
+    assertTrue(metadata.wasSuccessful());
+    assertThat(metadata.getContentLength().getAsLong(), Matchers.equalTo(4L));
+  }
+
+  @Test
+  public void abortingContentWriterDiscardsIt() throws Exception {
+    final MetadataTransformation metadata =
+        manager.createTransform(currentUri, finalUri, metacardUri).add(TEST_METADATA_TYPE);
+
+    try (final ContentWriter writer = metadata.openContent("text/plain", StandardCharsets.UTF_8)) {
+      writer.write("partial");
+      writer.abort();
+    }
+
+    assertThat(metadata.getState(), Matchers.equalTo(State.IN_PROGRESS));
+    assertThat(metadata.getContent(), OptionalMatchers.isEmpty());
+  }
+
+  @Test(expected = IOException.class)
+  public void writingToAbortedContentThrowsException() throws Exception {
+    final MetadataTransformation metadata =
+        manager.createTransform(currentUri, finalUri, metacardUri).add(TEST_METADATA_TYPE);
+    final ContentOutputStream stream = metadata.openContent("text/plain");
+
+    stream.abort();
+    stream.write('a');
+  }
+
+  @Test
+  public void abortingContentOnceCompletedHasNoEffect() throws Exception {
+    final MetadataTransformation metadata =
+        manager.createTransform(currentUri, finalUri, metacardUri).add(TEST_METADATA_TYPE);
+    final ContentOutputStream stream = metadata.openContent("text/plain");
+
+    stream.write("testing".getBytes());
+    stream.close();
+    stream.abort();
+
+    assertTrue(metadata.wasSuccessful());
+    assertThat(metadata.getContentLength().getAsLong(), Matchers.equalTo(7L));
+  }
+
+  @Test
+  public void succeedMetadataComputesChecksums() throws Exception {
+    final MetadataTransformation metadata =
+        manager
+            .setContentSha256Enabled(true)
+            .createTransform(currentUri, finalUri, metacardUri)
+            .add(TEST_METADATA_TYPE);
+
+    metadata.succeed("text/plain", new ByteArrayInputStream("testing".getBytes()));
+
+    assertThat(
+        metadata.getContentCrc32c().stream().boxed().findFirst(),
+        OptionalMatchers.isPresentAndIs(crc32c("testing")));
+    assertThat(
+        metadata.getContentSha256(),
+        OptionalMatchers.isPresentAndIs(
+            Hashing.sha256().hashString("testing", StandardCharsets.UTF_8).toString()));
+  }
+
+  @Test
+  public void succeedMetadataDoesNotComputeSha256ByDefault() throws Exception {
+    final MetadataTransformation metadata =
+        manager.createTransform(currentUri, finalUri, metacardUri).add(TEST_METADATA_TYPE);
+
+    metadata.succeed("text/plain", new ByteArrayInputStream("testing".getBytes()));
+
+    assertFalse(manager.isContentSha256Enabled());
+    assertThat(
+        metadata.getContentCrc32c().stream().boxed().findFirst(),
+        OptionalMatchers.isPresentAndIs(crc32c("testing")));
+    assertThat(metadata.getContentSha256(), OptionalMatchers.isEmpty());
+  }
+
+  @Test
+  public void openContentComputesChecksums() throws Exception {
+    final MetadataTransformation metadata =
+        manager
+            .setContentSha256Enabled(true)
+            .createTransform(currentUri, finalUri, metacardUri)
+            .add(TEST_METADATA_TYPE);
+
+    try (final OutputStream stream = metadata.openContent("text/plain")) {
+      stream.write('t');
+      stream.write("esting".getBytes());
+    }
+
+    assertThat(
+        metadata.getContentCrc32c().stream().boxed().findFirst(),
+        OptionalMatchers.isPresentAndIs(crc32c("testing")));
+    assertThat(
+        metadata.getContentSha256(),
+        OptionalMatchers.isPresentAndIs(
+            Hashing.sha256().hashString("testing", StandardCharsets.UTF_8).toString()));
+  }
+
+  @Test
+  public void getVerifiedContent() throws Exception {
+    final MetadataTransformation metadata =
+        manager.createTransform(currentUri, finalUri, metacardUri).add(TEST_METADATA_TYPE);
+
+    metadata.succeed("text/plain", new ByteArrayInputStream("testing".getBytes()));
+
+    assertThat(
+        new String(metadata.getVerifiedContent().get().readAllBytes()),
+        Matchers.equalTo("testing"));
+  }
+
+  @Test
+  public void getContentRange() throws Exception {
+    final MetadataTransformation metadata =
+        manager.createTransform(currentUri, finalUri, metacardUri).add(TEST_METADATA_TYPE);
+
+    metadata.succeed("text/plain", new ByteArrayInputStream("testing".getBytes()));
+
+    assertThat(
+        new String(metadata.getContent(1L, 3L).get().readAllBytes()), Matchers.equalTo("est"));
+    assertThat(
+        new String(metadata.getContent(4L, 100L).get().readAllBytes()), Matchers.equalTo("ing"));
+    assertThat(metadata.getContent(100L, 3L).get().read(), Matchers.equalTo(-1));
+  }
+
+  @Test
+  public void getContentRangeWhenNotCompleted() throws Exception {
+    final MetadataTransformation metadata =
+        manager.createTransform(currentUri, finalUri, metacardUri).add(TEST_METADATA_TYPE);
+
+    assertThat(metadata.getContent(0L, 3L), OptionalMatchers.isEmpty());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void getContentRangeWithNegativeOffsetThrowsException() throws Exception {
+    manager
+        .createTransform(currentUri, finalUri, metacardUri)
+        .add(TEST_METADATA_TYPE)
+        .getContent(-1L, 3L);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void getContentRangeWithNegativeLengthThrowsException() throws Exception {
+    manager
+        .createTransform(currentUri, finalUri, metacardUri)
+        .add(TEST_METADATA_TYPE)
+        .getContent(0L, -1L);
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void getContentRangeWhenDeletedThrowsException() throws Exception {
+    final Transformation transformation =
+        manager.createTransform(currentUri, finalUri, metacardUri);
+    final MetadataTransformation metadata = transformation.add(TEST_METADATA_TYPE);
+
+    transformation.delete();
+
+    metadata.getContent(0L, 3L);
+  }
+
+  @Test
+  public void getContentVersionChangesWithContent() throws Exception {
+    final Transformation transformation =
+        manager.createTransform(currentUri, finalUri, metacardUri);
+    final MetadataTransformation metadata = transformation.add(TEST_METADATA_TYPE);
+    final MetadataTransformation metadata2 = transformation.add("other");
+
+    assertThat(metadata.getContentVersion(), OptionalMatchers.isEmpty());
+
+    metadata.succeed("text/plain", new ByteArrayInputStream("testing".getBytes()));
+    metadata2.succeed("text/plain", new ByteArrayInputStream("testing2".getBytes()));
+
+    assertThat(metadata.getContentVersion(), OptionalMatchers.isPresent());
+    assertThat(metadata.getContentVersion(), Matchers.equalTo(metadata.getContentVersion()));
+    assertThat(
+        metadata.getContentVersion(),
+        Matchers.not(Matchers.equalTo(metadata2.getContentVersion())));
+  }
+
+  @Test
+  public void getContentBufferIsAReadOnlyView() throws Exception {
+    final InMemoryMetadataTransformation metadata =
+        (InMemoryMetadataTransformation)
+            manager.createTransform(currentUri, finalUri, metacardUri).add(TEST_METADATA_TYPE);
+
+    metadata.succeed("text/plain", new ByteArrayInputStream("testing".getBytes()));
+    final ByteBuffer buffer = metadata.getContentBuffer().get();
+
+    assertTrue(buffer.isReadOnly());
+    assertThat(StandardCharsets.UTF_8.decode(buffer).toString(), Matchers.equalTo("testing"));
+    assertThat(metadata.getContentBuffer().get().remaining(), Matchers.equalTo(7));
+  }
+
+  @Test
+  public void getContentBufferWhenNotCompleted() throws Exception {
+    final InMemoryMetadataTransformation metadata =
+        (InMemoryMetadataTransformation)
+            manager.createTransform(currentUri, finalUri, metacardUri).add(TEST_METADATA_TYPE);
+
+    assertThat(metadata.getContentBuffer(), OptionalMatchers.isEmpty());
+    assertThat(metadata.getContentChannel(), OptionalMatchers.isEmpty());
+  }
+
+  @Test
+  public void getContentChannelIsSeekable() throws Exception {
+    final MetadataTransformation metadata =
+        manager.createTransform(currentUri, finalUri, metacardUri).add(TEST_METADATA_TYPE);
+
+    metadata.succeed("text/plain", new ByteArrayInputStream("testing".getBytes()));
+    final SeekableByteChannel channel = (SeekableByteChannel) metadata.getContentChannel().get();
+    final ByteBuffer buffer = ByteBuffer.allocate(10);
+
+    channel.position(4L).read(buffer);
+
+    assertThat(channel.size(), Matchers.equalTo(7L));
+    assertThat(new String(buffer.array(), 0, buffer.position()), Matchers.equalTo("ing"));
+  }
+
+  @Test
+  public void openContentIsReadWithinItsLengthWithoutBeingTrimmed() throws Exception {
+    final InMemoryMetadataTransformation metadata =
+        (InMemoryMetadataTransformation)
+            manager.createTransform(currentUri, finalUri, metacardUri).add(TEST_METADATA_TYPE);
+    final ByteArrayOutputStream target = new ByteArrayOutputStream();
+
+    try (final OutputStream stream = metadata.openContent("text/plain")) {
+      stream.write("testing".getBytes());
+    }
+    final ByteBuffer buffer = metadata.getContentBuffer().get();
+    final SeekableByteChannel channel = (SeekableByteChannel) metadata.getContentChannel().get();
+
+    assertThat(buffer.capacity(), Matchers.greaterThan(7));
+    assertThat(StandardCharsets.UTF_8.decode(buffer).toString(), Matchers.equalTo("testing"));
+    assertThat(channel.size(), Matchers.equalTo(7L));
+    assertThat(new String(metadata.getContent().get().readAllBytes()), Matchers.equalTo("testing"));
+    assertThat(
+        new String(metadata.getContent(4L, 100L).get().readAllBytes()), Matchers.equalTo("ing"));
+    assertThat(metadata.getContent(100L, 3L).get().read(), Matchers.equalTo(-1));
+    assertThat(
+        metadata.transferContentTo(Channels.newChannel(target)).stream().boxed().findFirst(),
+        OptionalMatchers.isPresentAndIs(7L));
+    assertThat(target.toString(StandardCharsets.UTF_8), Matchers.equalTo("testing"));
+  }
+
+  @Test
+  public void transferContentToWritesContents() throws Exception {
+    final MetadataTransformation metadata =
+        manager.createTransform(currentUri, finalUri, metacardUri).add(TEST_METADATA_TYPE);
+    final ByteArrayOutputStream target = new ByteArrayOutputStream();
+
+    metadata.succeed("text/plain", new ByteArrayInputStream("testing".getBytes()));
+
+    assertThat(
+        metadata.transferContentTo(Channels.newChannel(target)).stream().boxed().findFirst(),
+        OptionalMatchers.isPresentAndIs(7L));
+    assertThat(target.toString(StandardCharsets.UTF_8), Matchers.equalTo("testing"));
+  }
+
+  @Test
+  public void transferContentToWhenNotCompleted() throws Exception {
+    final MetadataTransformation metadata =
+        manager.createTransform(currentUri, finalUri, metacardUri).add(TEST_METADATA_TYPE);
+    final ByteArrayOutputStream target = new ByteArrayOutputStream();
+
+    assertThat(
+        metadata.transferContentTo(Channels.newChannel(target)).stream().boxed().findFirst(),
+        OptionalMatchers.isEmpty());
+    assertThat(target.size(), Matchers.equalTo(0));
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void getContentChannelWhenDeletedThrowsException() throws Exception {
+    final Transformation transformation =
+        manager.createTransform(currentUri, finalUri, metacardUri);
+    final MetadataTransformation metadata = transformation.add(TEST_METADATA_TYPE);
+
+    metadata.succeed("text/plain", new ByteArrayInputStream("testing".getBytes()));
+    transformation.delete();
+
+    metadata.getContentChannel();
+  }
+
   @Test(expected = IllegalStateException.class)
   public void testMetadataContentIsNoLongerAvailableWhenDeleted() throws Exception {
     final Transformation transformation =
@@ -449,4 +950,846 @@ public class InMemoryTransformationManagerTest {
     Assert.assertThat(transformation.isDeleted(), Matchers.equalTo(true));
     Assert.assertThat(metadata.isDeleted(), Matchers.equalTo(true));
   }
+
+  @Test
+  public void testListenersAreNotifiedOfCompletions() throws Exception {
+    final InMemoryTransformationManager manager =
+        new InMemoryTransformationManager(clock, MoreExecutors.directExecutor());
+    final TransformationListener listener = Mockito.mock(TransformationListener.class);
+
+    manager.addListener(listener);
+    final Transformation transformation =
+        manager.createTransform(currentUri, finalUri, metacardUri);
+    final MetadataTransformation metadata = transformation.add(TEST_METADATA_TYPE);
+    final MetadataTransformation metadata2 = transformation.add("other");
+
+    metadata.fail(ErrorCode.TRANSFORMATION_FAILURE, "it failed");
+
+    Mockito.verify(listener).metadataCompleted(metadata);
+    Mockito.verify(listener, Mockito.never()).transformationCompleted(transformation);
+
+    metadata2.succeed("text/plain", new ByteArrayInputStream("testing".getBytes()));
+
+    Mockito.verify(listener).metadataCompleted(metadata2);
+    Mockito.verify(listener).transformationCompleted(transformation);
+  }
+
+  @Test
+  public void testCompletionsAreTrackedWhenTheExecutorIsShutDown() throws Exception {
+    final ExecutorService executor = Executors.newSingleThreadExecutor();
+    final InMemoryTransformationManager manager =
+        new InMemoryTransformationManager(clock, executor);
+    final TransformationListener listener = Mockito.mock(TransformationListener.class);
+
+    manager.addListener(listener);
+    final Transformation transformation =
+        manager.createTransform(currentUri, finalUri, metacardUri);
+    final MetadataTransformation metadata = transformation.add(TEST_METADATA_TYPE);
+    final CompletableFuture<Transformation> future =
+        transformation.onCompletion().toCompletableFuture();
+
+    executor.shutdown();
+
+    metadata.succeed("text/plain", new ByteArrayInputStream("testing".getBytes()));
+
+    assertThat(transformation.isCompleted(), Matchers.equalTo(true));
+    assertThat(manager.getInProgressCount(), Matchers.equalTo(0L));
+    assertThat(
+        manager.query(new TransformationQuery().setStates(State.SUCCESSFUL)).getTransformations(),
+        Matchers.contains(transformation));
+    Mockito.verifyZeroInteractions(listener);
+    try {
+      future.get();
+      fail();
+    } catch (ExecutionException e) {
+      assertThat(e.getCause(), Matchers.instanceOf(RejectedExecutionException.class));
+    }
+  }
+
+  @Test
+  public void testRemovedListenersAreNoLongerNotified() throws Exception {
+    final InMemoryTransformationManager manager =
+        new InMemoryTransformationManager(clock, MoreExecutors.directExecutor());
+    final TransformationListener listener = Mockito.mock(TransformationListener.class);
+
+    manager.addListener(listener);
+    manager.removeListener(listener);
+    final Transformation transformation =
+        manager.createTransform(currentUri, finalUri, metacardUri);
+
+    transformation.add(TEST_METADATA_TYPE).fail(ErrorCode.TRANSFORMATION_FAILURE, "it failed");
+
+    Mockito.verifyZeroInteractions(listener);
+  }
+
+  @Test
+  public void testOnCompletionIsCompletedWhenLastMetadataCompletes() throws Exception {
+    final InMemoryTransformationManager manager =
+        new InMemoryTransformationManager(clock, MoreExecutors.directExecutor());
+    final Transformation transformation =
+        manager.createTransform(currentUri, finalUri, metacardUri);
+    final MetadataTransformation metadata = transformation.add(TEST_METADATA_TYPE);
+    final CompletableFuture<Transformation> future =
+        transformation.onCompletion().toCompletableFuture();
+
+    assertFalse(future.isDone());
+
+    metadata.succeed("text/plain", new ByteArrayInputStream("testing".getBytes()));
+
+    assertThat(future.get(), Matchers.sameInstance(transformation));
+    assertThat(
+        transformation.onCompletion().toCompletableFuture().get(),
+        Matchers.sameInstance(transformation));
+  }
+
+  @Test
+  public void testOnCompletionFailsWhenDeleted() throws Exception {
+    final InMemoryTransformationManager manager =
+        new InMemoryTransformationManager(clock, MoreExecutors.directExecutor());
+    final Transformation transformation =
+        manager.createTransform(currentUri, finalUri, metacardUri);
+    final CompletableFuture<Transformation> future =
+        transformation.onCompletion().toCompletableFuture();
+
+    transformation.add(TEST_METADATA_TYPE);
+    transformation.delete();
+
+    try {
+      future.get();
+      fail();
+    } catch (ExecutionException e) {
+      assertThat(e.getCause(), Matchers.instanceOf(IllegalStateException.class));
+    }
+  }
+
+  @Test
+  public void testCreateTransforms() throws Exception {
+    final RequestInfoImpl request = new RequestInfoImpl(currentUri, finalUri, metacardUri);
+    final RequestInfoImpl request2 = new RequestInfoImpl(finalUri, finalUri, metacardUri);
+
+    final List<Transformation> transformations =
+        manager.createTransforms(List.of(request, request2));
+
+    assertThat(transformations, Matchers.hasSize(2));
+    assertThat(
+        transformations.get(0).getRequestInfo().getCurrentLocation(), Matchers.equalTo(currentUri));
+    assertThat(
+        transformations.get(1).getRequestInfo().getCurrentLocation(), Matchers.equalTo(finalUri));
+    assertThat(
+        manager.get(transformations.get(0).getTransformId()),
+        Matchers.sameInstance(transformations.get(0)));
+    assertThat(
+        manager.get(transformations.get(1).getTransformId()),
+        Matchers.sameInstance(transformations.get(1)));
+  }
+
+  @Test
+  public void testCreateTransformPropagatesFailures() throws Exception {
+    final IllegalStateException error = new IllegalStateException("testing");
+
+    when(clock.wallTime()).thenThrow(error);
+    try {
+      manager.createTransform(currentUri, finalUri, metacardUri);
+      fail();
+    } catch (IllegalStateException e) {
+      assertThat(e, Matchers.sameInstance(error));
+    }
+    assertThat(manager.size(), Matchers.equalTo(0));
+  }
+
+  @Test
+  public void testCreateTransformsPropagatesFailures() throws Exception {
+    final RequestInfoImpl request = new RequestInfoImpl(currentUri, finalUri, metacardUri);
+    final RequestInfo request2 = Mockito.mock(RequestInfo.class);
+    final IllegalStateException error = new IllegalStateException("testing");
+
+    when(request2.getCurrentLocation()).thenThrow(error);
+    try {
+      manager.createTransforms(List.of(request, request2));
+      fail();
+    } catch (IllegalStateException e) {
+      assertThat(e, Matchers.sameInstance(error));
+    }
+    assertThat(manager.size(), Matchers.equalTo(0));
+  }
+
+  @Test
+  public void testCreateTransformIsUndoneWhenFailingAfterBeingStored() throws Exception {
+    final AdmissionController controller =
+        manager.enableAdmissionControl(new AdmissionPolicy().setMaximumInFlight(1L));
+    final IllegalStateException error = new IllegalStateException("testing");
+
+    failClockOnceCreated(error);
+    try {
+      manager.createTransform(currentUri, finalUri, metacardUri);
+      fail();
+    } catch (IllegalStateException e) {
+      assertThat(e, Matchers.sameInstance(error));
+    }
+    assertUndone(controller);
+  }
+
+  @Test
+  public void testCreateTransformsAreUndoneWhenFailingAfterBeingStored() throws Exception {
+    final AdmissionController controller =
+        manager.enableAdmissionControl(new AdmissionPolicy().setMaximumInFlight(2L));
+    final RequestInfoImpl request = new RequestInfoImpl(currentUri, finalUri, metacardUri);
+    final IllegalStateException error = new IllegalStateException("testing");
+
+    failClockOnceCreated(error);
+    try {
+      manager.createTransforms(List.of(request, request));
+      fail();
+    } catch (IllegalStateException e) {
+      assertThat(e, Matchers.sameInstance(error));
+    }
+    assertUndone(controller);
+  }
+
+  @Test
+  public void testGetAll() throws Exception {
+    final Transformation transformation =
+        manager.createTransform(currentUri, finalUri, metacardUri);
+    final Transformation transformation2 =
+        manager.createTransform(currentUri, finalUri, metacardUri);
+
+    final TransformationLookup lookup =
+        manager.getAll(
+            List.of(
+                transformation.getTransformId(), "gibberish-ID", transformation2.getTransformId()));
+
+    assertThat(lookup.getFound().size(), Matchers.equalTo(2));
+    assertThat(
+        lookup.get(transformation.getTransformId()),
+        OptionalMatchers.isPresentAndIs(transformation));
+    assertThat(
+        lookup.get(transformation2.getTransformId()),
+        OptionalMatchers.isPresentAndIs(transformation2));
+    assertThat(lookup.getMissing(), Matchers.contains("gibberish-ID"));
+  }
+
+  @Test
+  public void testDeleteAll() throws Exception {
+    final Transformation transformation =
+        manager.createTransform(currentUri, finalUri, metacardUri);
+    final Transformation transformation2 =
+        manager.createTransform(currentUri, finalUri, metacardUri);
+
+    final Set<String> missing =
+        manager.deleteAll(
+            List.of(
+                transformation.getTransformId(), "gibberish-ID", transformation2.getTransformId()));
+
+    assertThat(missing, Matchers.contains("gibberish-ID"));
+    assertTrue(transformation.isDeleted());
+    assertTrue(transformation2.isDeleted());
+    assertThat(
+        manager
+            .getAll(List.of(transformation.getTransformId(), transformation2.getTransformId()))
+            .getFound()
+            .isEmpty(),
+        Matchers.equalTo(true));
+  }
+
+  @Test
+  public void testQueryReturnsAllTransformationsOrderedByStartTime() throws Exception {
+    final Transformation transformation =
+        manager.createTransform(currentUri, finalUri, metacardUri);
+    final Transformation transformation2 =
+        manager.createTransform(currentUri, finalUri, metacardUri);
+
+    final TransformationPage page = manager.query(new TransformationQuery());
+
+    assertThat(page.getTransformations(), Matchers.contains(transformation, transformation2));
+    assertThat(page.getNextCursor(), OptionalMatchers.isEmpty());
+  }
+
+  @Test
+  public void testQueryByState() throws Exception {
+    final Transformation transformation =
+        manager.createTransform(currentUri, finalUri, metacardUri);
+    final Transformation transformation2 =
+        manager.createTransform(currentUri, finalUri, metacardUri);
+    final Transformation transformation3 =
+        manager.createTransform(currentUri, finalUri, metacardUri);
+
+    transformation.add(TEST_METADATA_TYPE).fail(ErrorCode.TRANSFORMATION_FAILURE, "it failed");
+    transformation3
+        .add(TEST_METADATA_TYPE)
+        .succeed("text/plain", new ByteArrayInputStream("testing".getBytes()));
+
+    assertThat(
+        manager.query(new TransformationQuery().setStates(State.FAILED)).getTransformations(),
+        Matchers.contains(transformation));
+    assertThat(
+        manager.query(new TransformationQuery().setStates(State.IN_PROGRESS)).getTransformations(),
+        Matchers.contains(transformation2));
+    assertThat(
+        manager
+            .query(new TransformationQuery().setStates(State.FAILED, State.SUCCESSFUL))
+            .getTransformations(),
+        Matchers.contains(transformation, transformation3));
+  }
+
+  @Test
+  public void testQueryByMetadataType() throws Exception {
+    final Transformation transformation =
+        manager.createTransform(currentUri, finalUri, metacardUri);
+    final Transformation transformation2 =
+        manager.createTransform(currentUri, finalUri, metacardUri);
+
+    transformation2.add(TEST_METADATA_TYPE);
+    transformation.add("other");
+
+    assertThat(
+        manager
+            .query(new TransformationQuery().setMetadataType(TEST_METADATA_TYPE))
+            .getTransformations(),
+        Matchers.contains(transformation2));
+    assertThat(
+        manager
+            .query(
+                new TransformationQuery()
+                    .setMetadataType(TEST_METADATA_TYPE)
+                    .setStates(State.FAILED))
+            .getTransformations(),
+        Matchers.empty());
+    assertThat(
+        manager.query(new TransformationQuery().setMetadataType("unknown")).getTransformations(),
+        Matchers.empty());
+  }
+
+  @Test
+  public void testQueryByStartTimeRange() throws Exception {
+    manager.createTransform(currentUri, finalUri, metacardUri);
+    final Transformation transformation2 =
+        manager.createTransform(currentUri, finalUri, metacardUri);
+    manager.createTransform(currentUri, finalUri, metacardUri);
+
+    final TransformationPage page =
+        manager.query(
+            new TransformationQuery()
+                .setStartedFrom(InMemoryTransformationManagerTest.TIME2)
+                .setStartedBefore(InMemoryTransformationManagerTest.TIME3));
+
+    assertThat(page.getTransformations(), Matchers.contains(transformation2));
+  }
+
+  @Test
+  public void testQueryIsPagedUsingCursors() throws Exception {
+    final Transformation transformation =
+        manager.createTransform(currentUri, finalUri, metacardUri);
+    final Transformation transformation2 =
+        manager.createTransform(currentUri, finalUri, metacardUri);
+    final TransformationQuery query = new TransformationQuery().setLimit(1);
+
+    final TransformationPage page = manager.query(query);
+
+    assertThat(page.getTransformations(), Matchers.contains(transformation));
+    assertThat(page.getNextCursor(), OptionalMatchers.isPresent());
+
+    final TransformationPage page2 = manager.query(query.setCursor(page.getNextCursor().get()));
+
+    assertThat(page2.getTransformations(), Matchers.contains(transformation2));
+    assertThat(page2.getNextCursor(), OptionalMatchers.isEmpty());
+  }
+
+  @Test
+  public void testQueryDoesNotReturnDeletedTransformations() throws Exception {
+    final Transformation transformation =
+        manager.createTransform(currentUri, finalUri, metacardUri);
+    final InMemoryTransformation transformation2 =
+        (InMemoryTransformation) manager.createTransform(currentUri, finalUri, metacardUri);
+    final Transformation transformation3 =
+        manager.createTransform(currentUri, finalUri, metacardUri);
+
+    transformation.add(TEST_METADATA_TYPE);
+    transformation.delete();
+    transformation2.wasDeleted(); // simulates a deletion racing with the query
+
+    assertThat(
+        manager.query(new TransformationQuery()).getTransformations(),
+        Matchers.contains(transformation3));
+    assertThat(
+        manager
+            .query(new TransformationQuery().setMetadataType(TEST_METADATA_TYPE))
+            .getTransformations(),
+        Matchers.empty());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testQueryWithMalformedCursor() throws Exception {
+    manager.query(new TransformationQuery().setCursor("gibberish"));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testQueryWithInvalidCursor() throws Exception {
+    manager.query(new TransformationQuery().setCursor("a:b:c"));
+  }
+
+  @Test
+  public void testFindByCurrentLocation() throws Exception {
+    final Transformation transformation =
+        manager.createTransform(currentUri, finalUri, metacardUri);
+    final Transformation transformation2 = manager.createTransform(currentUri, finalUri, finalUri);
+
+    manager.createTransform(finalUri, finalUri, metacardUri);
+
+    assertThat(
+        manager.findByCurrentLocation(new URL("http://current.com")),
+        Matchers.contains(transformation, transformation2));
+    assertThat(manager.findByCurrentLocation(metacardUri), Matchers.empty());
+  }
+
+  @Test
+  public void testFindByMetacardLocation() throws Exception {
+    final Transformation transformation =
+        manager.createTransform(currentUri, finalUri, metacardUri);
+    final Transformation transformation2 = manager.createTransform(finalUri, finalUri, metacardUri);
+
+    manager.createTransform(currentUri, finalUri, finalUri);
+
+    assertThat(
+        manager.findByMetacardLocation(new URL("http://metacard.com")),
+        Matchers.contains(transformation, transformation2));
+    assertThat(manager.findByMetacardLocation(currentUri), Matchers.empty());
+  }
+
+  @Test
+  public void testFindByLocationDoesNotReturnDeletedTransformations() throws Exception {
+    final Transformation transformation =
+        manager.createTransform(currentUri, finalUri, metacardUri);
+    final Transformation transformation2 =
+        manager.createTransform(currentUri, finalUri, metacardUri);
+
+    transformation.delete();
+
+    assertThat(manager.findByCurrentLocation(currentUri), Matchers.contains(transformation2));
+    assertThat(manager.findByMetacardLocation(metacardUri), Matchers.contains(transformation2));
+
+    transformation2.delete();
+
+    assertThat(manager.findByCurrentLocation(currentUri), Matchers.empty());
+    assertThat(manager.findByMetacardLocation(metacardUri), Matchers.empty());
+  }
+
+  @Test
+  public void testFindByLocationDoesNotReturnDeletedTransformationsWithMetadata() throws Exception {
+    final Transformation transformation =
+        manager.createTransform(currentUri, finalUri, metacardUri);
+
+    transformation.add(TEST_METADATA_TYPE);
+    transformation.add("otherType").fail(ErrorCode.TRANSFORMATION_FAILURE, "this is why");
+
+    transformation.delete();
+
+    assertThat(manager.findByCurrentLocation(currentUri), Matchers.empty());
+    assertThat(manager.findByMetacardLocation(metacardUri), Matchers.empty());
+  }
+
+  @Test
+  public void testGetEventLogWhenNotEnabled() throws Exception {
+    assertThat(manager.getEventLog(), OptionalMatchers.isEmpty());
+  }
+
+  @Test
+  public void testEventLogRecordsStateTransitions() throws Exception {
+    try (final TransformationEventLog log =
+        new TransformationEventLog(folder.getRoot().toPath(), clock)) {
+      manager.enableEventLog(log);
+      final Transformation transformation =
+          manager.createTransform(currentUri, finalUri, metacardUri);
+      final String id = transformation.getTransformId();
+      final MetadataTransformation metadata = transformation.add(TEST_METADATA_TYPE);
+
+      transformation.add(TEST_METADATA_TYPE);
+      final MetadataTransformation metadata2 = transformation.add("other");
+
+      metadata.fail(ErrorCode.TRANSFORMATION_FAILURE, "failed");
+      metadata2.succeed("text/plain", new ByteArrayInputStream(new byte[1]));
+      transformation.delete();
+
+      assertThat(manager.getEventLog(), OptionalMatchers.isPresentAndIs(log));
+      assertThat(
+          log.read(0L, 10).stream().map(this::describe).collect(Collectors.toList()),
+          Matchers.contains(
+              Type.CREATED + ":" + id + ":null",
+              Type.METADATA_ADDED + ":" + id + ":" + TEST_METADATA_TYPE,
+              Type.METADATA_ADDED + ":" + id + ":other",
+              Type.FAILED + ":" + id + ":" + TEST_METADATA_TYPE,
+              Type.SUCCEEDED + ":" + id + ":other",
+              Type.DELETED + ":" + id + ":null"));
+    }
+  }
+
+  @Test
+  public void testEventLogRecordsTransformationsCreatedInBatches() throws Exception {
+    try (final TransformationEventLog log =
+        new TransformationEventLog(folder.getRoot().toPath(), clock)) {
+      manager.enableEventLog(log);
+      final RequestInfoImpl request = new RequestInfoImpl(currentUri, finalUri, metacardUri);
+      final List<Transformation> transformations =
+          manager.createTransforms(List.of(request, request));
+
+      assertThat(
+          log.read(0L, 10).stream().map(this::describe).collect(Collectors.toList()),
+          Matchers.contains(
+              Type.CREATED + ":" + transformations.get(0).getTransformId() + ":null",
+              Type.CREATED + ":" + transformations.get(1).getTransformId() + ":null"));
+    }
+  }
+
+  @Test
+  public void testEventLogFailuresDoNotAffectOperations() throws Exception {
+    final TransformationEventLog log = new TransformationEventLog(folder.getRoot().toPath(), clock);
+
+    manager.enableEventLog(log);
+    log.close();
+
+    assertNotNull(manager.createTransform(currentUri, finalUri, metacardUri));
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testEnableEventLogTwiceFails() throws Exception {
+    try (final TransformationEventLog log =
+        new TransformationEventLog(folder.getRoot().toPath(), clock)) {
+      manager.enableEventLog(log);
+      manager.enableEventLog(log);
+    }
+  }
+
+  @Test
+  public void testStoreStatistics() throws Exception {
+    final Transformation transformation =
+        manager.createTransform(currentUri, finalUri, metacardUri);
+    final Transformation transformation2 =
+        manager.createTransform(currentUri, finalUri, metacardUri);
+    final Transformation transformation3 =
+        manager.createTransform(currentUri, finalUri, metacardUri);
+
+    transformation.add(TEST_METADATA_TYPE).fail(ErrorCode.TRANSFORMATION_FAILURE, "this is why");
+    transformation2.add(TEST_METADATA_TYPE);
+
+    Assert.assertThat(manager.getTransformationCount(), Matchers.equalTo(3L));
+    Assert.assertThat(manager.getInProgressCount(), Matchers.equalTo(2L));
+
+    manager.delete(transformation.getTransformId());
+    manager.delete(transformation2.getTransformId());
+
+    Assert.assertThat(manager.getTransformationCount(), Matchers.equalTo(1L));
+    Assert.assertThat(manager.getInProgressCount(), Matchers.equalTo(1L));
+
+    transformation3.delete();
+
+    Assert.assertThat(manager.getTransformationCount(), Matchers.equalTo(0L));
+    Assert.assertThat(manager.getInProgressCount(), Matchers.equalTo(0L));
+  }
+
+  @Test
+  public void testGetMemoryStats() throws Exception {
+    final Transformation transformation =
+        manager.createTransform(currentUri, finalUri, metacardUri);
+    final Transformation transformation2 =
+        manager.createTransform(currentUri, finalUri, metacardUri);
+    final MetadataTransformation metadata = transformation.add(TEST_METADATA_TYPE);
+    final MetadataTransformation metadata2 = transformation.add("other");
+    final MetadataTransformation metadata3 = transformation2.add(TEST_METADATA_TYPE);
+
+    metadata.succeed("text/plain", new ByteArrayInputStream("testing".getBytes()));
+    metadata2.fail(ErrorCode.TRANSFORMATION_FAILURE, "this is why");
+    try (final OutputStream out = metadata3.openContent("text/plain")) {
+      out.write("more testing".getBytes());
+    }
+
+    final MemoryStats stats = manager.getMemoryStats();
+
+    Assert.assertThat(stats.getTransformationCount(), Matchers.equalTo(2L));
+    Assert.assertThat(stats.getMetadataCount(), Matchers.equalTo(3L));
+    Assert.assertThat(stats.getContentBytes(), Matchers.equalTo(19L));
+    Assert.assertThat(
+        stats.getMetadataTypes().keySet(), Matchers.contains("myMetadataType", "other"));
+    Assert.assertThat(
+        stats.getMetadataTypes().get(TEST_METADATA_TYPE).getContentBytes(), Matchers.equalTo(19L));
+    Assert.assertThat(
+        stats.getMetadataTypes().get(TEST_METADATA_TYPE).getMetadataCount(), Matchers.equalTo(2L));
+    Assert.assertThat(
+        stats.getMetadataTypes().get("other").getContentBytes(), Matchers.equalTo(0L));
+
+    transformation.delete();
+
+    final MemoryStats stats2 = manager.getMemoryStats();
+
+    Assert.assertThat(stats2.getTransformationCount(), Matchers.equalTo(1L));
+    Assert.assertThat(stats2.getMetadataCount(), Matchers.equalTo(1L));
+    Assert.assertThat(stats2.getContentBytes(), Matchers.equalTo(12L));
+    Assert.assertThat(
+        stats2.getOverheadBytes(),
+        Matchers.equalTo(
+            MemoryStats.TRANSFORMATION_OVERHEAD_BYTES + MemoryStats.METADATA_OVERHEAD_BYTES));
+  }
+
+  @Test
+  public void testBindToRegistersMemoryGauges() throws Exception {
+    final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    final Transformation transformation =
+        manager.createTransform(currentUri, finalUri, metacardUri);
+
+    manager.bindTo(registry);
+    transformation
+        .add(TEST_METADATA_TYPE)
+        .succeed("text/plain", new ByteArrayInputStream("testing".getBytes()));
+
+    Assert.assertThat(
+        registry.get("transformation.memory.content").gauge().value(), Matchers.equalTo(7.0));
+    Assert.assertThat(
+        registry
+            .get("transformation.memory.metadata.content")
+            .tag(MeteredTransformationManager.METADATA_TYPE_TAG, TEST_METADATA_TYPE)
+            .gauge()
+            .value(),
+        Matchers.equalTo(7.0));
+  }
+
+  @Test
+  public void testSucceedEmitsContentIngestEvent() throws Exception {
+    final MetadataTransformation metadata =
+        manager.createTransform(currentUri, finalUri, metacardUri).add(TEST_METADATA_TYPE);
+
+    final List<RecordedEvent> events =
+        recordContentIngest(
+            Duration.ZERO,
+            () -> {
+              metadata.succeed("text/plain", new ByteArrayInputStream("testing".getBytes()));
+              return null;
+            });
+
+    assertContentIngestEvent(events, metadata, "text/plain", 7L);
+  }
+
+  @Test
+  public void testOpenContentEmitsContentIngestEvent() throws Exception {
+    final MetadataTransformation metadata =
+        manager.createTransform(currentUri, finalUri, metacardUri).add(TEST_METADATA_TYPE);
+
+    final List<RecordedEvent> events =
+        recordContentIngest(
+            Duration.ZERO,
+            () -> {
+              try (final OutputStream out = metadata.openContent("text/xml")) {
+                out.write("<a/>".getBytes());
+              }
+              return null;
+            });
+
+    assertContentIngestEvent(events, metadata, "text/xml", 4L);
+  }
+
+  @Test
+  public void testContentIngestEventNotEmittedBelowThreshold() throws Exception {
+    final Transformation transformation =
+        manager.createTransform(currentUri, finalUri, metacardUri);
+    final MetadataTransformation metadata = transformation.add(TEST_METADATA_TYPE);
+    final MetadataTransformation metadata2 = transformation.add("other");
+
+    final List<RecordedEvent> events =
+        recordContentIngest(
+            Duration.ofHours(1L),
+            () -> {
+              metadata.succeed("text/plain", new ByteArrayInputStream("testing".getBytes()));
+              try (final OutputStream out = metadata2.openContent("text/xml")) {
+                out.write("<a/>".getBytes());
+              }
+              return null;
+            });
+
+    Assert.assertThat(events, Matchers.empty());
+  }
+
+  @Test
+  public void testDefaultLifecycleListenerIsNoop() throws Exception {
+    Assert.assertThat(
+        manager.getLifecycleListener(),
+        Matchers.sameInstance(TransformationLifecycleListener.NOOP));
+  }
+
+  @Test
+  public void testSetLifecycleListenerWithNullResetsToNoop() throws Exception {
+    final TransformationLifecycleListener listener =
+        Mockito.mock(TransformationLifecycleListener.class);
+
+    Assert.assertThat(manager.setLifecycleListener(listener), Matchers.sameInstance(manager));
+    Assert.assertThat(manager.getLifecycleListener(), Matchers.sameInstance(listener));
+
+    manager.setLifecycleListener(null);
+
+    Assert.assertThat(
+        manager.getLifecycleListener(),
+        Matchers.sameInstance(TransformationLifecycleListener.NOOP));
+  }
+
+  @Test
+  public void testLifecycleListenerIsNotifiedWithContext() throws Exception {
+    final Object context = new Object();
+    final TransformationLifecycleListener listener =
+        Mockito.mock(TransformationLifecycleListener.class);
+
+    Mockito.when(listener.transformationCreated(Mockito.any())).thenReturn(context);
+    manager.setLifecycleListener(listener);
+
+    final Transformation transformation =
+        manager.createTransform(currentUri, finalUri, metacardUri);
+    final MetadataTransformation metadata = transformation.add(TEST_METADATA_TYPE);
+    final MetadataTransformation metadata2 = transformation.add("other");
+
+    transformation.add(TEST_METADATA_TYPE);
+    metadata.succeed("text/plain", new ByteArrayInputStream("testing".getBytes()));
+    metadata2.fail(ErrorCode.TRANSFORMATION_FAILURE, "testing");
+    metadata.getContent().get().close();
+    metadata2.getContent();
+    transformation.delete();
+
+    final InMemoryTransformation impl = (InMemoryTransformation) transformation;
+
+    Assert.assertThat(impl.getLifecycleContext(), Matchers.sameInstance(context));
+    final InOrder inOrder = Mockito.inOrder(listener);
+
+    inOrder.verify(listener).transformationCreated(transformation);
+    inOrder.verify(listener).metadataAdded(metadata, context);
+    inOrder.verify(listener).metadataAdded(metadata2, context);
+    inOrder.verify(listener).metadataSucceeded(metadata, context);
+    inOrder.verify(listener).metadataFailed(metadata2, context);
+    inOrder.verify(listener).contentRead(metadata, context);
+    inOrder.verify(listener).transformationDeleted(transformation, context);
+    Mockito.verifyNoMoreInteractions(listener);
+  }
+
+  @Test
+  public void testLifecycleListenerIsNotifiedOfRangedAndBufferedContentReads() throws Exception {
+    final TransformationLifecycleListener listener =
+        Mockito.mock(TransformationLifecycleListener.class);
+
+    manager.setLifecycleListener(listener);
+    final Transformation transformation =
+        manager.createTransform(currentUri, finalUri, metacardUri);
+    final MetadataTransformation metadata = transformation.add(TEST_METADATA_TYPE);
+
+    metadata.succeed("text/plain", new ByteArrayInputStream("testing".getBytes()));
+    metadata.getContent(1L, 2L);
+    metadata.getContentChannel();
+
+    Mockito.verify(listener, Mockito.times(2)).contentRead(metadata, null);
+  }
+
+  @Test
+  public void testFailingLifecycleListenerDoesNotAffectOperations() throws Exception {
+    final TransformationLifecycleListener listener =
+        Mockito.mock(TransformationLifecycleListener.class);
+    final RuntimeException error = new IllegalStateException("testing");
+
+    Mockito.when(listener.transformationCreated(Mockito.any())).thenThrow(error);
+    Mockito.doThrow(error).when(listener).metadataAdded(Mockito.any(), Mockito.any());
+    Mockito.doThrow(error).when(listener).metadataSucceeded(Mockito.any(), Mockito.any());
+    Mockito.doThrow(error).when(listener).contentRead(Mockito.any(), Mockito.any());
+    Mockito.doThrow(error).when(listener).transformationDeleted(Mockito.any(), Mockito.any());
+    manager.setLifecycleListener(listener);
+
+    final Transformation transformation =
+        manager.createTransform(currentUri, finalUri, metacardUri);
+    final MetadataTransformation metadata = transformation.add(TEST_METADATA_TYPE);
+
+    metadata.succeed("text/plain", new ByteArrayInputStream("testing".getBytes()));
+
+    Assert.assertThat(
+        ByteStreams.toByteArray(metadata.getContent().get()),
+        Matchers.equalTo("testing".getBytes()));
+    Assert.assertThat(transformation.wasSuccessful(), Matchers.equalTo(true));
+    Assert.assertThat(
+        ((InMemoryTransformation) transformation).getLifecycleContext(), Matchers.nullValue());
+
+    transformation.delete();
+
+    Assert.assertThat(transformation.isDeleted(), Matchers.equalTo(true));
+  }
+
+  private List<RecordedEvent> recordContentIngest(Duration threshold, Callable<?> code)
+      throws Exception {
+    try (final Recording recording = new Recording()) {
+      recording.enable(ContentIngestEvent.NAME).withThreshold(threshold);
+      recording.start();
+      code.call();
+      recording.stop();
+      final Path path = folder.newFile().toPath();
+
+      recording.dump(path);
+      return RecordingFile.readAllEvents(path).stream()
+          .filter(e -> e.getEventType().getName().equals(ContentIngestEvent.NAME))
+          .collect(Collectors.toList());
+    }
+  }
+
+  private void assertContentIngestEvent(
+      List<RecordedEvent> events, MetadataTransformation metadata, String contentType, long bytes) {
+    Assert.assertThat(events, Matchers.hasSize(1));
+    final RecordedEvent event = events.get(0);
+
+    Assert.assertThat(event.getString("transformId"), Matchers.equalTo(metadata.getTransformId()));
+    Assert.assertThat(event.getString("metadataType"), Matchers.equalTo(TEST_METADATA_TYPE));
+    Assert.assertThat(event.getString("contentType"), Matchers.equalTo(contentType));
+    Assert.assertThat(event.getLong("bytes"), Matchers.equalTo(bytes));
+    Assert.assertThat(event.getStackTrace(), Matchers.nullValue());
+  }
+
+  private String describe(TransformationEvent event) {
+    return event.getType()
+        + ":"
+        + event.getTransformId()
+        + ":"
+        + event.getMetadataType().orElse(null);
+  }
+
+  private static long crc32c(String content) {
+    final CRC32C crc32c = new CRC32C();
+
+    crc32c.update(content.getBytes());
+    return crc32c.getValue();
+  }
+
+  private static void produceAndFail(OutputStream stream) throws IOException {
+    stream.write("partial".getBytes());
+    throw new IOException("testing");
+  }
+
+  /**
+   * Makes the monotonic clock fail once a transformation was created such that reporting the
+   * operation to the slow operation detector fails after the transformation was stored.
+   */
+  private void failClockOnceCreated(RuntimeException error) {
+    final AtomicBoolean failing = new AtomicBoolean();
+
+    when(clock.monotonicTime())
+        .thenAnswer(
+            i -> {
+              if (failing.get()) {
+                throw error;
+              }
+              return 0L;
+            });
+    manager.setLifecycleListener(
+        new TransformationLifecycleListener() {
+          @Override
+          public Object transformationCreated(Transformation transformation) {
+            failing.set(true);
+            return null;
+          }
+        });
+    manager.enableSlowOperationDetection(new SlowOperationPolicy());
+  }
+
+  private void assertUndone(AdmissionController controller) throws Exception {
+    assertThat(manager.size(), Matchers.equalTo(0));
+    assertThat(manager.getInProgressCount(), Matchers.equalTo(0L));
+    assertThat(manager.query(new TransformationQuery()).getTransformations(), Matchers.empty());
+    assertThat(manager.findByCurrentLocation(currentUri), Matchers.empty());
+    assertThat(controller.getInFlightCount(), Matchers.equalTo(0L));
+  }
 }
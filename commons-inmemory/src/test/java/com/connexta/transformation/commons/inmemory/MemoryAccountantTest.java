@@ -0,0 +1,145 @@
+/**
+ * Copyright (c) Connexta
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package com.connexta.transformation.commons.inmemory;
+
+import static org.mockito.Mockito.when;
+
+import com.connexta.transformation.commons.api.impl.MeteredTransformationManager;
+import com.connexta.transformation.commons.inmemory.MemoryStats.MetadataTypeStats;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.stream.Stream;
+import org.hamcrest.Matchers;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+public class MemoryAccountantTest {
+  private static final String TYPE = "metacard";
+  private static final String TYPE2 = "irm";
+
+  private final MemoryAccountant accountant = new MemoryAccountant();
+
+  @Test
+  public void testEmpty() {
+    final MemoryStats stats = accountant.getStats();
+
+    Assert.assertThat(stats.getTransformationCount(), Matchers.equalTo(0L));
+    Assert.assertThat(stats.getMetadataCount(), Matchers.equalTo(0L));
+    Assert.assertThat(stats.getContentBytes(), Matchers.equalTo(0L));
+    Assert.assertThat(stats.getOverheadBytes(), Matchers.equalTo(0L));
+    Assert.assertThat(stats.getMetadataTypes(), Matchers.anEmptyMap());
+  }
+
+  @Test
+  public void testAccounting() {
+    final InMemoryMetadataTransformation metadata = metadata(MemoryAccountantTest.TYPE, 100L);
+    final InMemoryMetadataTransformation metadata2 = metadata(MemoryAccountantTest.TYPE2, -1L);
+
+    accountant.created();
+    accountant.created();
+    accountant.metadataAdded(MemoryAccountantTest.TYPE);
+    accountant.metadataAdded(MemoryAccountantTest.TYPE2);
+    accountant.metadataCompleted(metadata);
+    accountant.metadataCompleted(metadata2);
+
+    final MemoryStats stats = accountant.getStats();
+
+    Assert.assertThat(stats.getTransformationCount(), Matchers.equalTo(2L));
+    Assert.assertThat(stats.getMetadataCount(), Matchers.equalTo(2L));
+    Assert.assertThat(stats.getContentBytes(), Matchers.equalTo(100L));
+    Assert.assertThat(accountant.getContentBytes(), Matchers.equalTo(100L));
+    Assert.assertThat(
+        accountant.getOverheadBytes(),
+        Matchers.equalTo(
+            2L * MemoryStats.TRANSFORMATION_OVERHEAD_BYTES
+                + 2L * MemoryStats.METADATA_OVERHEAD_BYTES));
+    assertType(stats, MemoryAccountantTest.TYPE, 1L, 100L);
+    assertType(stats, MemoryAccountantTest.TYPE2, 1L, 0L);
+  }
+
+  @Test
+  public void testRemoved() {
+    final InMemoryMetadataTransformation metadata = metadata(MemoryAccountantTest.TYPE, 100L);
+    final InMemoryMetadataTransformation metadata2 = metadata(MemoryAccountantTest.TYPE2, -1L);
+    final InMemoryTransformation transformation = Mockito.mock(InMemoryTransformation.class);
+
+    when(transformation.metadatas()).thenAnswer(i -> Stream.of(metadata, metadata2));
+    accountant.created();
+    accountant.metadataAdded(MemoryAccountantTest.TYPE);
+    accountant.metadataAdded(MemoryAccountantTest.TYPE2);
+    accountant.metadataCompleted(metadata);
+
+    accountant.removed(transformation);
+
+    final MemoryStats stats = accountant.getStats();
+
+    Assert.assertThat(stats.getTransformationCount(), Matchers.equalTo(0L));
+    Assert.assertThat(stats.getMetadataCount(), Matchers.equalTo(0L));
+    Assert.assertThat(stats.getContentBytes(), Matchers.equalTo(0L));
+    assertType(stats, MemoryAccountantTest.TYPE, 0L, 0L);
+    assertType(stats, MemoryAccountantTest.TYPE2, 0L, 0L);
+  }
+
+  @Test
+  public void testBindTo() {
+    final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    accountant.created();
+    accountant.metadataAdded(MemoryAccountantTest.TYPE);
+    accountant.bindTo(registry);
+    accountant.metadataAdded(MemoryAccountantTest.TYPE2);
+    accountant.metadataCompleted(metadata(MemoryAccountantTest.TYPE, 100L));
+    accountant.metadataCompleted(metadata(MemoryAccountantTest.TYPE2, 20L));
+
+    Assert.assertThat(
+        registry.get("transformation.memory.content").gauge().value(), Matchers.equalTo(120.0));
+    Assert.assertThat(
+        registry.get("transformation.memory.overhead").gauge().value(),
+        Matchers.equalTo((double) accountant.getOverheadBytes()));
+    for (final String type : new String[] {MemoryAccountantTest.TYPE, MemoryAccountantTest.TYPE2}) {
+      Assert.assertThat(
+          registry
+              .get("transformation.memory.metadata.count")
+              .tag(MeteredTransformationManager.METADATA_TYPE_TAG, type)
+              .gauge()
+              .value(),
+          Matchers.equalTo(1.0));
+    }
+    Assert.assertThat(
+        registry
+            .get("transformation.memory.metadata.content")
+            .tag(MeteredTransformationManager.METADATA_TYPE_TAG, MemoryAccountantTest.TYPE2)
+            .gauge()
+            .value(),
+        Matchers.equalTo(20.0));
+  }
+
+  private static InMemoryMetadataTransformation metadata(String type, long length) {
+    final InMemoryMetadataTransformation metadata =
+        Mockito.mock(InMemoryMetadataTransformation.class);
+
+    when(metadata.getMetadataType()).thenReturn(type);
+    when(metadata.accountContent()).thenReturn(Math.max(0L, length));
+    when(metadata.releaseContent()).thenReturn(Math.max(0L, length));
+    return metadata;
+  }
+
+  private static void assertType(MemoryStats stats, String type, long count, long bytes) {
+    final MetadataTypeStats typeStats = stats.getMetadataTypes().get(type);
+
+    Assert.assertThat(typeStats, Matchers.notNullValue());
+    Assert.assertThat(typeStats.getMetadataCount(), Matchers.equalTo(count));
+    Assert.assertThat(typeStats.getContentBytes(), Matchers.equalTo(bytes));
+  }
+}
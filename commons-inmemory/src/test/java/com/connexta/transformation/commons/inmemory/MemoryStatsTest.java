@@ -0,0 +1,77 @@
+/**
+ * Copyright (c) Connexta
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package com.connexta.transformation.commons.inmemory;
+
+import com.connexta.transformation.commons.inmemory.MemoryStats.MetadataTypeStats;
+import java.util.HashMap;
+import java.util.Map;
+import org.hamcrest.Matchers;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class MemoryStatsTest {
+  private static final String TYPE = "metacard";
+
+  private final Map<String, MetadataTypeStats> types = new HashMap<>();
+
+  @Test
+  public void testGetters() {
+    final MetadataTypeStats typeStats = new MetadataTypeStats(3L, 150L);
+
+    types.put(MemoryStatsTest.TYPE, typeStats);
+
+    final MemoryStats stats = new MemoryStats(2L, 3L, 150L, types);
+
+    Assert.assertThat(stats.getTransformationCount(), Matchers.equalTo(2L));
+    Assert.assertThat(stats.getMetadataCount(), Matchers.equalTo(3L));
+    Assert.assertThat(stats.getContentBytes(), Matchers.equalTo(150L));
+    Assert.assertThat(
+        stats.getOverheadBytes(),
+        Matchers.equalTo(
+            2L * MemoryStats.TRANSFORMATION_OVERHEAD_BYTES
+                + 3L * MemoryStats.METADATA_OVERHEAD_BYTES));
+    Assert.assertThat(stats.getTotalBytes(), Matchers.equalTo(150L + stats.getOverheadBytes()));
+    Assert.assertThat(stats.getMetadataTypes(), Matchers.hasEntry(MemoryStatsTest.TYPE, typeStats));
+    Assert.assertThat(typeStats.getMetadataCount(), Matchers.equalTo(3L));
+    Assert.assertThat(typeStats.getContentBytes(), Matchers.equalTo(150L));
+  }
+
+  @Test
+  public void testMetadataTypesAreCopied() {
+    final MemoryStats stats = new MemoryStats(0L, 0L, 0L, types);
+
+    types.put(MemoryStatsTest.TYPE, new MetadataTypeStats(1L, 1L));
+
+    Assert.assertThat(stats.getMetadataTypes(), Matchers.anEmptyMap());
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void testMetadataTypesAreUnmodifiable() {
+    new MemoryStats(0L, 0L, 0L, types)
+        .getMetadataTypes()
+        .put(MemoryStatsTest.TYPE, new MetadataTypeStats(1L, 1L));
+  }
+
+  @Test
+  public void testToString() {
+    types.put(MemoryStatsTest.TYPE, new MetadataTypeStats(3L, 150L));
+
+    Assert.assertThat(
+        new MemoryStats(2L, 3L, 150L, types).toString(),
+        Matchers.allOf(
+            Matchers.containsString("transformationCount=2"),
+            Matchers.containsString("contentBytes=150"),
+            Matchers.containsString(MemoryStatsTest.TYPE + "=MetadataTypeStats[metadataCount=3")));
+  }
+}
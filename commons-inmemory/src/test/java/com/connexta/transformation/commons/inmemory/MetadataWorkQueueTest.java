@@ -0,0 +1,459 @@
+/**
+ * Copyright (c) Connexta
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package com.connexta.transformation.commons.inmemory;
+
+import static org.mockito.Mockito.when;
+
+import com.connexta.transformation.commons.api.ErrorCode;
+import com.connexta.transformation.commons.api.MetadataTransformation;
+import com.connexta.transformation.commons.api.Transformation;
+import com.github.npathai.hamcrestopt.OptionalMatchers;
+import io.micrometer.core.instrument.Clock;
+import java.io.ByteArrayInputStream;
+import java.net.URL;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.hamcrest.Matchers;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+public class MetadataWorkQueueTest {
+  private static final String TYPE = "irm";
+  private static final String TYPE2 = "ddms";
+  private static final String TYPE3 = "metacard";
+  private static final List<String> TYPES = List.of(MetadataWorkQueueTest.TYPE);
+  private static final List<String> ALL_TYPES =
+      List.of(MetadataWorkQueueTest.TYPE, MetadataWorkQueueTest.TYPE2, MetadataWorkQueueTest.TYPE3);
+  private static final Duration LEASE = Duration.ofSeconds(30L);
+
+  private final AtomicLong now = new AtomicLong(1_000_000L);
+  private final Clock clock = Mockito.mock(Clock.class);
+
+  private InMemoryTransformationManager manager;
+  private MetadataWorkQueue queue;
+  private URL location;
+
+  @Before
+  public void setup() throws Exception {
+    when(clock.monotonicTime()).thenAnswer(i -> now.get());
+    this.manager = new InMemoryTransformationManager(clock);
+    this.queue = manager.getWorkQueue();
+    this.location = new URL("http://current.com");
+  }
+
+  @Test
+  public void testGetWorkQueueReturnsSameQueue() {
+    Assert.assertThat(manager.getWorkQueue(), Matchers.sameInstance(queue));
+  }
+
+  @Test
+  public void testGetWorkQueueQueuesExistingPendingMetadata() throws Exception {
+    final InMemoryTransformationManager manager2 = new InMemoryTransformationManager(clock);
+    final Transformation transformation = newTransformation(manager2);
+    final MetadataTransformation metadata = transformation.add(MetadataWorkQueueTest.TYPE);
+
+    transformation.add(MetadataWorkQueueTest.TYPE2).fail(ErrorCode.TRANSFORMATION_FAILURE, "x");
+
+    final MetadataWorkQueue queue2 = manager2.getWorkQueue();
+
+    Assert.assertThat(
+        queue2
+            .claimNext(
+                List.of(MetadataWorkQueueTest.TYPE, MetadataWorkQueueTest.TYPE2),
+                MetadataWorkQueueTest.LEASE)
+            .map(MetadataLease::getMetadata),
+        OptionalMatchers.isPresentAndIs(metadata));
+    Assert.assertThat(
+        queue2.claimNext(
+            List.of(MetadataWorkQueueTest.TYPE, MetadataWorkQueueTest.TYPE2),
+            MetadataWorkQueueTest.LEASE),
+        OptionalMatchers.isEmpty());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testClaimNextWithNegativeDuration() {
+    queue.claimNext(MetadataWorkQueueTest.TYPES, Duration.ofSeconds(-1L));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testClaimNextWithZeroDuration() {
+    queue.claimNext(MetadataWorkQueueTest.TYPES, Duration.ZERO);
+  }
+
+  @Test
+  public void testClaimNextWhenNothingWasEverQueued() {
+    Assert.assertThat(
+        queue.claimNext(MetadataWorkQueueTest.TYPES, MetadataWorkQueueTest.LEASE),
+        OptionalMatchers.isEmpty());
+  }
+
+  @Test
+  public void testClaimNextInOrder() throws Exception {
+    final MetadataTransformation metadata =
+        newTransformation(manager).add(MetadataWorkQueueTest.TYPE);
+    final MetadataTransformation metadata2 =
+        newTransformation(manager).add(MetadataWorkQueueTest.TYPE);
+
+    Assert.assertThat(claim(), OptionalMatchers.isPresentAndIs(metadata));
+    Assert.assertThat(claim(), OptionalMatchers.isPresentAndIs(metadata2));
+    Assert.assertThat(claim(), OptionalMatchers.isEmpty());
+    Assert.assertThat(queue.getLeaseCount(), Matchers.equalTo(2));
+  }
+
+  @Test
+  public void testClaimNextChecksTypesInOrder() throws Exception {
+    final Transformation transformation = newTransformation(manager);
+    final MetadataTransformation metadata = transformation.add(MetadataWorkQueueTest.TYPE);
+    final MetadataTransformation metadata2 = transformation.add(MetadataWorkQueueTest.TYPE2);
+    final List<String> types =
+        List.of(
+            MetadataWorkQueueTest.TYPE3, MetadataWorkQueueTest.TYPE2, MetadataWorkQueueTest.TYPE);
+
+    Assert.assertThat(
+        queue.claimNext(types, MetadataWorkQueueTest.LEASE).map(MetadataLease::getMetadata),
+        OptionalMatchers.isPresentAndIs(metadata2));
+    Assert.assertThat(
+        queue.claimNext(types, MetadataWorkQueueTest.LEASE).map(MetadataLease::getMetadata),
+        OptionalMatchers.isPresentAndIs(metadata));
+  }
+
+  @Test
+  public void testClaimNextDoesNotQueueTheSameMetadataTwice() throws Exception {
+    final Transformation transformation = newTransformation(manager);
+
+    transformation.add(MetadataWorkQueueTest.TYPE);
+    transformation.add(MetadataWorkQueueTest.TYPE);
+
+    Assert.assertThat(claim(), OptionalMatchers.isPresent());
+    Assert.assertThat(claim(), OptionalMatchers.isEmpty());
+  }
+
+  @Test
+  public void testClaimNextSkipsCompletedMetadata() throws Exception {
+    final Transformation transformation = newTransformation(manager);
+
+    transformation.add(MetadataWorkQueueTest.TYPE2);
+    transformation.add(MetadataWorkQueueTest.TYPE).fail(ErrorCode.TRANSFORMATION_FAILURE, "x");
+
+    Assert.assertThat(claim(), OptionalMatchers.isEmpty());
+  }
+
+  @Test
+  public void testClaimNextDoesNotQueueCompletedMetadataAddedAgain() throws Exception {
+    final Transformation transformation = newTransformation(manager);
+
+    transformation.add(MetadataWorkQueueTest.TYPE2);
+    transformation.add(MetadataWorkQueueTest.TYPE).fail(ErrorCode.TRANSFORMATION_FAILURE, "x");
+    claim();
+    transformation.add(MetadataWorkQueueTest.TYPE);
+
+    Assert.assertThat(claim(), OptionalMatchers.isEmpty());
+  }
+
+  @Test
+  public void testAddedDoesNotQueueMetadataAlreadyTracked() throws Exception {
+    final MetadataTransformation metadata =
+        newTransformation(manager).add(MetadataWorkQueueTest.TYPE);
+
+    queue.added((InMemoryMetadataTransformation) metadata);
+
+    Assert.assertThat(claim(), OptionalMatchers.isPresent());
+    Assert.assertThat(claim(), OptionalMatchers.isEmpty());
+  }
+
+  @Test
+  public void testAddedDoesNotQueueCompletedMetadata() throws Exception {
+    final MetadataWorkQueue queue2 = new MetadataWorkQueue(clock);
+    final MetadataTransformation metadata =
+        newTransformation(manager).add(MetadataWorkQueueTest.TYPE);
+
+    metadata.fail(ErrorCode.TRANSFORMATION_FAILURE, "x");
+    queue2.added((InMemoryMetadataTransformation) metadata);
+
+    Assert.assertThat(
+        queue2.claimNext(MetadataWorkQueueTest.TYPES, MetadataWorkQueueTest.LEASE),
+        OptionalMatchers.isEmpty());
+  }
+
+  @Test
+  public void testClaimNextSkipsMetadataOfDeletedTransformations() throws Exception {
+    final Transformation transformation = newTransformation(manager);
+
+    transformation.add(MetadataWorkQueueTest.TYPE);
+    transformation.delete();
+
+    Assert.assertThat(claim(), OptionalMatchers.isEmpty());
+  }
+
+  @Test
+  public void testClaimNextDoesNotHandOutLeasedMetadata() throws Exception {
+    final MetadataLease lease = claimLease(newTransformation(manager));
+
+    Assert.assertThat(lease.isValid(), Matchers.equalTo(true));
+    Assert.assertThat(claim(), OptionalMatchers.isEmpty());
+  }
+
+  @Test
+  public void testClaimNextReclaimsExpiredLeases() throws Exception {
+    final MetadataLease lease = claimLease(newTransformation(manager));
+
+    advance(MetadataWorkQueueTest.LEASE);
+
+    Assert.assertThat(lease.isValid(), Matchers.equalTo(false));
+    Assert.assertThat(claim(), OptionalMatchers.isPresentAndIs(lease.getMetadata()));
+    Assert.assertThat(queue.getLeaseCount(), Matchers.equalTo(1));
+  }
+
+  @Test
+  public void testExpireLeases() throws Exception {
+    final MetadataLease lease = claimLease(newTransformation(manager));
+
+    advance(Duration.ofSeconds(1L));
+    final MetadataLease lease2 = claimLease(newTransformation(manager));
+
+    advance(MetadataWorkQueueTest.LEASE.minusSeconds(1L));
+
+    Assert.assertThat(queue.expireLeases(), Matchers.equalTo(1));
+    Assert.assertThat(lease.isValid(), Matchers.equalTo(false));
+    Assert.assertThat(lease2.isValid(), Matchers.equalTo(true));
+    Assert.assertThat(queue.getLeaseCount(), Matchers.equalTo(1));
+
+    advance(Duration.ofSeconds(1L));
+
+    Assert.assertThat(queue.expireLeases(), Matchers.equalTo(1));
+    Assert.assertThat(queue.getLeaseCount(), Matchers.equalTo(0));
+  }
+
+  @Test
+  public void testExpireLeasesDoesNotRequeueCompletedMetadata() throws Exception {
+    final MetadataLease lease = claimLease(newTransformation(manager));
+
+    lease.getMetadata().fail(ErrorCode.TRANSFORMATION_FAILURE, "x");
+    advance(MetadataWorkQueueTest.LEASE);
+
+    Assert.assertThat(queue.expireLeases(), Matchers.equalTo(0));
+    Assert.assertThat(claim(), OptionalMatchers.isEmpty());
+  }
+
+  @Test
+  public void testCompletingMetadataRevokesItsLease() throws Exception {
+    final MetadataLease lease = claimLease(newTransformation(manager));
+
+    lease.getMetadata().succeed("text/plain", new ByteArrayInputStream(new byte[] {1}));
+
+    Assert.assertThat(lease.isValid(), Matchers.equalTo(false));
+    Assert.assertThat(queue.getLeaseCount(), Matchers.equalTo(0));
+  }
+
+  @Test
+  public void testDeletingTransformationRevokesLeases() throws Exception {
+    final Transformation transformation = newTransformation(manager);
+    final MetadataLease lease = claimLease(transformation);
+
+    transformation.delete();
+
+    Assert.assertThat(lease.isValid(), Matchers.equalTo(false));
+    Assert.assertThat(queue.getLeaseCount(), Matchers.equalTo(0));
+  }
+
+  @Test
+  public void testRenew() throws Exception {
+    final MetadataLease lease = claimLease(newTransformation(manager));
+
+    advance(MetadataWorkQueueTest.LEASE.minusSeconds(1L));
+
+    Assert.assertThat(lease.renew(MetadataWorkQueueTest.LEASE), Matchers.equalTo(true));
+
+    advance(Duration.ofSeconds(2L));
+
+    Assert.assertThat(lease.isValid(), Matchers.equalTo(true));
+    Assert.assertThat(queue.expireLeases(), Matchers.equalTo(0));
+    Assert.assertThat(claim(), OptionalMatchers.isEmpty());
+  }
+
+  @Test
+  public void testRenewWhenExpired() throws Exception {
+    final MetadataLease lease = claimLease(newTransformation(manager));
+
+    advance(MetadataWorkQueueTest.LEASE);
+
+    Assert.assertThat(lease.renew(MetadataWorkQueueTest.LEASE), Matchers.equalTo(false));
+  }
+
+  @Test
+  public void testRenewWhenReleased() throws Exception {
+    final MetadataLease lease = claimLease(newTransformation(manager));
+
+    lease.release();
+
+    Assert.assertThat(lease.renew(MetadataWorkQueueTest.LEASE), Matchers.equalTo(false));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testRenewWithInvalidDuration() throws Exception {
+    claimLease(newTransformation(manager)).renew(Duration.ZERO);
+  }
+
+  @Test
+  public void testRelease() throws Exception {
+    final MetadataLease lease = claimLease(newTransformation(manager));
+
+    lease.release();
+
+    Assert.assertThat(lease.isValid(), Matchers.equalTo(false));
+    Assert.assertThat(queue.getLeaseCount(), Matchers.equalTo(0));
+    Assert.assertThat(claim(), OptionalMatchers.isPresentAndIs(lease.getMetadata()));
+  }
+
+  @Test
+  public void testReleaseTwice() throws Exception {
+    final MetadataLease lease = claimLease(newTransformation(manager));
+
+    lease.release();
+    lease.release();
+
+    Assert.assertThat(claim(), OptionalMatchers.isPresentAndIs(lease.getMetadata()));
+    Assert.assertThat(claim(), OptionalMatchers.isEmpty());
+  }
+
+  @Test
+  public void testReleasedWhenNoLongerLeased() throws Exception {
+    final MetadataLease lease = claimLease(newTransformation(manager));
+
+    lease.release();
+    queue.released(lease);
+
+    Assert.assertThat(claim(), OptionalMatchers.isPresent());
+    Assert.assertThat(claim(), OptionalMatchers.isEmpty());
+  }
+
+  @Test
+  public void testReleaseWhenMetadataCompletedWithoutNotification() throws Exception {
+    final InMemoryTransformationManager manager2 = new InMemoryTransformationManager(clock);
+    final MetadataWorkQueue queue2 = new MetadataWorkQueue(clock);
+    final MetadataTransformation metadata =
+        newTransformation(manager2).add(MetadataWorkQueueTest.TYPE);
+
+    queue2.added((InMemoryMetadataTransformation) metadata);
+    final MetadataLease lease =
+        queue2.claimNext(MetadataWorkQueueTest.TYPES, MetadataWorkQueueTest.LEASE).get();
+
+    metadata.fail(ErrorCode.TRANSFORMATION_FAILURE, "x");
+    lease.release();
+
+    Assert.assertThat(queue2.getLeaseCount(), Matchers.equalTo(0));
+    Assert.assertThat(
+        queue2.claimNext(MetadataWorkQueueTest.TYPES, MetadataWorkQueueTest.LEASE),
+        OptionalMatchers.isEmpty());
+  }
+
+  @Test
+  public void testRevokeIfExpired() throws Exception {
+    final MetadataLease lease = claimLease(newTransformation(manager));
+    final long expiration = lease.getExpiration();
+
+    Assert.assertThat(lease.revokeIfExpired(expiration - 1L), Matchers.equalTo(false));
+    Assert.assertThat(lease.revokeIfExpired(expiration), Matchers.equalTo(true));
+    Assert.assertThat(lease.revokeIfExpired(expiration), Matchers.equalTo(false));
+    Assert.assertThat(lease.revoke(), Matchers.equalTo(false));
+  }
+
+  @Test
+  public void testConcurrentWorkersNeverShareMetadata() throws Exception {
+    final int transformations = 200;
+    final int workers = 16;
+    final List<String> types = MetadataWorkQueueTest.ALL_TYPES;
+    final List<Transformation> created = new ArrayList<>(transformations);
+
+    for (int i = 0; i < transformations; i++) {
+      final Transformation transformation = newTransformation(manager);
+
+      for (final String type : types) {
+        transformation.add(type);
+      }
+      created.add(transformation);
+    }
+    final Set<MetadataTransformation> claimed = ConcurrentHashMap.newKeySet();
+    final AtomicInteger duplicates = new AtomicInteger();
+    final CountDownLatch start = new CountDownLatch(1);
+    final ExecutorService executor = Executors.newFixedThreadPool(workers);
+    final List<Future<?>> futures = new ArrayList<>(workers);
+
+    try {
+      for (int w = 0; w < workers; w++) {
+        futures.add(
+            executor.submit(
+                () -> {
+                  start.await();
+                  Optional<MetadataLease> lease;
+
+                  while ((lease = queue.claimNext(types, MetadataWorkQueueTest.LEASE))
+                      .isPresent()) {
+                    final MetadataTransformation metadata = lease.get().getMetadata();
+
+                    if (!claimed.add(metadata)) {
+                      duplicates.incrementAndGet();
+                    }
+                    metadata.succeed("text/plain", new ByteArrayInputStream(new byte[] {1}));
+                  }
+                  return null;
+                }));
+      }
+      start.countDown();
+      for (final Future<?> future : futures) {
+        future.get(30L, TimeUnit.SECONDS);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    Assert.assertThat(duplicates.get(), Matchers.equalTo(0));
+    Assert.assertThat(claimed, Matchers.hasSize(transformations * types.size()));
+    Assert.assertThat(queue.getLeaseCount(), Matchers.equalTo(0));
+    for (final Transformation transformation : created) {
+      Assert.assertThat(transformation.wasSuccessful(), Matchers.equalTo(true));
+    }
+  }
+
+  private Transformation newTransformation(InMemoryTransformationManager manager) throws Exception {
+    return manager.createTransform(location, location, location);
+  }
+
+  private Optional<MetadataTransformation> claim() {
+    return queue
+        .claimNext(MetadataWorkQueueTest.TYPES, MetadataWorkQueueTest.LEASE)
+        .map(MetadataLease::getMetadata);
+  }
+
+  private MetadataLease claimLease(Transformation transformation) throws Exception {
+    transformation.add(MetadataWorkQueueTest.TYPE);
+    return queue.claimNext(MetadataWorkQueueTest.TYPES, MetadataWorkQueueTest.LEASE).get();
+  }
+
+  private void advance(Duration duration) {
+    now.addAndGet(duration.toNanos());
+  }
+}
@@ -0,0 +1,132 @@
+/**
+ * Copyright (c) Connexta
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package com.connexta.transformation.commons.inmemory;
+
+import static org.mockito.Mockito.when;
+
+import com.connexta.transformation.commons.api.Transformation;
+import com.connexta.transformation.commons.api.TransformationStatus.State;
+import com.github.npathai.hamcrestopt.OptionalMatchers;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import org.hamcrest.Matchers;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+public class RetentionPolicyTest {
+  private static final Instant START = Instant.ofEpochMilli(1000L);
+  private static final Instant COMPLETION = Instant.ofEpochMilli(5000L);
+  private static final Duration SUCCESSFUL_TTL = Duration.ofMinutes(1L);
+  private static final Duration FAILED_TTL = Duration.ofMinutes(2L);
+  private static final Duration IN_PROGRESS_TTL = Duration.ofMinutes(3L);
+
+  private final Transformation transformation = Mockito.mock(Transformation.class);
+
+  private final RetentionPolicy policy =
+      new RetentionPolicy()
+          .setSuccessfulTtl(RetentionPolicyTest.SUCCESSFUL_TTL)
+          .setFailedTtl(RetentionPolicyTest.FAILED_TTL)
+          .setInProgressTtl(RetentionPolicyTest.IN_PROGRESS_TTL);
+
+  @Before
+  public void setup() {
+    when(transformation.getStartTime()).thenReturn(RetentionPolicyTest.START);
+    when(transformation.getCompletionTime())
+        .thenReturn(Optional.of(RetentionPolicyTest.COMPLETION));
+  }
+
+  @Test
+  public void testDefaultsRetainForever() {
+    final RetentionPolicy policy = new RetentionPolicy();
+
+    Assert.assertThat(policy.getSuccessfulTtl(), OptionalMatchers.isEmpty());
+    Assert.assertThat(policy.getFailedTtl(), OptionalMatchers.isEmpty());
+    Assert.assertThat(policy.getInProgressTtl(), OptionalMatchers.isEmpty());
+
+    when(transformation.getState()).thenReturn(State.SUCCESSFUL);
+
+    Assert.assertThat(policy.getExpiration(transformation), OptionalMatchers.isEmpty());
+  }
+
+  @Test
+  public void testSetters() {
+    Assert.assertThat(
+        policy.getSuccessfulTtl(),
+        OptionalMatchers.isPresentAndIs(RetentionPolicyTest.SUCCESSFUL_TTL));
+    Assert.assertThat(
+        policy.getFailedTtl(), OptionalMatchers.isPresentAndIs(RetentionPolicyTest.FAILED_TTL));
+    Assert.assertThat(
+        policy.getInProgressTtl(),
+        OptionalMatchers.isPresentAndIs(RetentionPolicyTest.IN_PROGRESS_TTL));
+  }
+
+  @Test
+  public void testSettersAcceptNull() {
+    policy.setSuccessfulTtl(null).setFailedTtl(null).setInProgressTtl(null);
+
+    Assert.assertThat(policy.getSuccessfulTtl(), OptionalMatchers.isEmpty());
+    Assert.assertThat(policy.getFailedTtl(), OptionalMatchers.isEmpty());
+    Assert.assertThat(policy.getInProgressTtl(), OptionalMatchers.isEmpty());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testSetterFailsWithNegativeTtl() {
+    policy.setFailedTtl(Duration.ofSeconds(-1L));
+  }
+
+  @Test
+  public void testExpirationOfSuccessfulTransformation() {
+    when(transformation.getState()).thenReturn(State.SUCCESSFUL);
+
+    Assert.assertThat(
+        policy.getExpiration(transformation),
+        OptionalMatchers.isPresentAndIs(
+            RetentionPolicyTest.COMPLETION.plus(RetentionPolicyTest.SUCCESSFUL_TTL)));
+  }
+
+  @Test
+  public void testExpirationOfFailedTransformation() {
+    when(transformation.getState()).thenReturn(State.FAILED);
+
+    Assert.assertThat(
+        policy.getExpiration(transformation),
+        OptionalMatchers.isPresentAndIs(
+            RetentionPolicyTest.COMPLETION.plus(RetentionPolicyTest.FAILED_TTL)));
+  }
+
+  @Test
+  public void testExpirationOfInProgressTransformation() {
+    when(transformation.getState()).thenReturn(State.IN_PROGRESS);
+
+    Assert.assertThat(
+        policy.getExpiration(transformation),
+        OptionalMatchers.isPresentAndIs(
+            RetentionPolicyTest.START.plus(RetentionPolicyTest.IN_PROGRESS_TTL)));
+  }
+
+  @Test
+  public void testUnknownTransformationsNeverExpire() {
+    when(transformation.getState()).thenReturn(State.UNKNOWN);
+
+    Assert.assertThat(policy.getExpiration(transformation), OptionalMatchers.isEmpty());
+  }
+
+  @Test
+  public void testToString() {
+    Assert.assertThat(policy.toString(), Matchers.containsString("PT1M"));
+  }
+}
@@ -0,0 +1,344 @@
+/**
+ * Copyright (c) Connexta
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package com.connexta.transformation.commons.inmemory;
+
+import static org.mockito.Mockito.when;
+
+import com.connexta.transformation.commons.api.ErrorCode;
+import com.connexta.transformation.commons.api.MetadataTransformation;
+import com.connexta.transformation.commons.api.Transformation;
+import com.connexta.transformation.commons.api.exceptions.TransformationNotFoundException;
+import com.connexta.transformation.commons.api.impl.RequestInfoImpl;
+import com.connexta.transformation.commons.inmemory.SlowOperation.Type;
+import com.github.npathai.hamcrestopt.OptionalMatchers;
+import io.micrometer.core.instrument.Clock;
+import java.io.ByteArrayInputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import org.hamcrest.Matchers;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+public class SlowOperationDetectorTest {
+  private static final String TYPE = "myMetadataType";
+  private static final String TYPE2 = "myMetadataType2";
+  private static final String TYPE3 = "myMetadataType3";
+  private static final long TIME = 1_000L;
+
+  /** Each read of the monotonic clock advances it by this much. */
+  private static final long TICK = TimeUnit.MILLISECONDS.toNanos(1L);
+
+  private final AtomicLong now = new AtomicLong();
+  private final Clock clock = Mockito.mock(Clock.class);
+  private final InMemoryTransformationManager manager = new InMemoryTransformationManager(clock);
+
+  private URL location;
+
+  @Before
+  public void setup() throws Exception {
+    when(clock.wallTime()).thenReturn(SlowOperationDetectorTest.TIME);
+    when(clock.monotonicTime()).thenAnswer(i -> now.addAndGet(SlowOperationDetectorTest.TICK));
+    this.location = new URL("http://current.com");
+  }
+
+  @Test
+  public void testManagerHasNoSlowOperationDetectionByDefault() {
+    Assert.assertThat(manager.getSlowOperationDetector(), OptionalMatchers.isEmpty());
+  }
+
+  @Test
+  public void testEnableSlowOperationDetection() {
+    final SlowOperationPolicy policy = new SlowOperationPolicy();
+    final SlowOperationDetector detector = manager.enableSlowOperationDetection(policy);
+
+    Assert.assertThat(
+        manager.getSlowOperationDetector(), OptionalMatchers.isPresentAndIs(detector));
+    Assert.assertThat(detector.getPolicy(), Matchers.sameInstance(policy));
+    Assert.assertThat(detector.getSlowOperationCount(), Matchers.equalTo(0L));
+    Assert.assertThat(detector.getSkippedLogCount(), Matchers.equalTo(0L));
+    Assert.assertThat(detector.getRecentSlowOperations(), Matchers.empty());
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testEnableSlowOperationDetectionTwiceFails() {
+    manager.enableSlowOperationDetection(new SlowOperationPolicy());
+    manager.enableSlowOperationDetection(new SlowOperationPolicy());
+  }
+
+  @Test
+  public void testFastOperationsAreNotRecorded() throws Exception {
+    final SlowOperationDetector detector =
+        manager.enableSlowOperationDetection(new SlowOperationPolicy());
+
+    performAllOperations();
+
+    Assert.assertThat(detector.getSlowOperationCount(), Matchers.equalTo(0L));
+    Assert.assertThat(detector.getRecentSlowOperations(), Matchers.empty());
+  }
+
+  @Test
+  public void testSlowOperationsAreRecorded() throws Exception {
+    final SlowOperationDetector detector =
+        manager.enableSlowOperationDetection(new SlowOperationPolicy().setThreshold(Duration.ZERO));
+
+    performAllOperations();
+
+    Assert.assertThat(
+        detector.getRecentSlowOperations().stream()
+            .map(SlowOperation::getType)
+            .collect(Collectors.toList()),
+        Matchers.contains(
+            Type.CREATE,
+            Type.GET,
+            Type.ADD,
+            Type.ADD,
+            Type.ADD,
+            Type.SUCCEED,
+            Type.FAIL,
+            Type.SUCCEED,
+            Type.READ,
+            Type.READ,
+            Type.READ,
+            Type.DELETE));
+    Assert.assertThat(detector.getSlowOperationCount(), Matchers.equalTo(12L));
+  }
+
+  @Test
+  public void testSlowBatchOperationsAreRecorded() throws Exception {
+    final SlowOperationDetector detector =
+        manager.enableSlowOperationDetection(
+            new SlowOperationPolicy()
+                .setThreshold(Duration.ofHours(1L))
+                .setThreshold(Type.CREATE_ALL, Duration.ZERO)
+                .setThreshold(Type.GET_ALL, Duration.ZERO)
+                .setThreshold(Type.DELETE_ALL, Duration.ZERO));
+    final RequestInfoImpl request = new RequestInfoImpl(location, location, location);
+    final List<String> ids =
+        manager.createTransforms(List.of(request, request)).stream()
+            .map(Transformation::getTransformId)
+            .collect(Collectors.toList());
+
+    manager.getAll(ids);
+    manager.deleteAll(ids);
+
+    Assert.assertThat(
+        detector.getRecentSlowOperations().stream()
+            .map(SlowOperation::getType)
+            .collect(Collectors.toList()),
+        Matchers.contains(Type.CREATE_ALL, Type.GET_ALL, Type.DELETE_ALL));
+    Assert.assertThat(
+        detector.getRecentSlowOperations().get(0).getTransformId(), OptionalMatchers.isEmpty());
+  }
+
+  @Test
+  public void testSlowReadsOfMetadataWithoutContentAreRecorded() throws Exception {
+    final SlowOperationDetector detector =
+        manager.enableSlowOperationDetection(new SlowOperationPolicy().setThreshold(Duration.ZERO));
+    final InMemoryMetadataTransformation metadata =
+        (InMemoryMetadataTransformation)
+            manager
+                .createTransform(location, location, location)
+                .add(SlowOperationDetectorTest.TYPE);
+
+    metadata.getContent();
+    metadata.getContent(0L, 1L);
+    metadata.getContentBuffer();
+
+    Assert.assertThat(
+        detector.getRecentSlowOperations().stream()
+            .map(SlowOperation::getType)
+            .filter(Type.READ::equals)
+            .count(),
+        Matchers.equalTo(3L));
+  }
+
+  @Test
+  public void testSlowOperationDetails() throws Exception {
+    final SlowOperationDetector detector =
+        manager.enableSlowOperationDetection(
+            new SlowOperationPolicy()
+                .setThreshold(Duration.ofHours(1L))
+                .setThreshold(Type.SUCCEED, Duration.ZERO));
+    final Transformation transformation = manager.createTransform(location, location, location);
+
+    transformation
+        .add(SlowOperationDetectorTest.TYPE)
+        .succeed("text/plain", new ByteArrayInputStream("testing".getBytes()));
+
+    final List<SlowOperation> operations = detector.getRecentSlowOperations();
+
+    Assert.assertThat(operations, Matchers.hasSize(1));
+    final SlowOperation operation = operations.get(0);
+
+    Assert.assertThat(operation.getType(), Matchers.equalTo(Type.SUCCEED));
+    Assert.assertThat(
+        operation.getTime(),
+        Matchers.equalTo(Instant.ofEpochMilli(SlowOperationDetectorTest.TIME)));
+    Assert.assertThat(
+        operation.getTransformId(),
+        OptionalMatchers.isPresentAndIs(transformation.getTransformId()));
+    Assert.assertThat(
+        operation.getMetadataType(),
+        OptionalMatchers.isPresentAndIs(SlowOperationDetectorTest.TYPE));
+    Assert.assertThat(operation.getContentLength().getAsLong(), Matchers.equalTo(7L));
+    Assert.assertThat(operation.getThread(), Matchers.equalTo(Thread.currentThread().getName()));
+    Assert.assertThat(operation.getElapsed(), Matchers.equalTo(Duration.ofMillis(2L)));
+    Assert.assertThat(operation.getWait(), Matchers.equalTo(Duration.ofMillis(1L)));
+    Assert.assertThat(operation.getThreshold(), Matchers.equalTo(Duration.ZERO));
+  }
+
+  @Test
+  public void testSlowOperationWithoutMetadata() throws Exception {
+    final SlowOperationDetector detector =
+        manager.enableSlowOperationDetection(
+            new SlowOperationPolicy()
+                .setThreshold(Duration.ofHours(1L))
+                .setThreshold(Type.GET, Duration.ZERO));
+    final Transformation transformation = manager.createTransform(location, location, location);
+
+    manager.get(transformation.getTransformId());
+
+    final SlowOperation operation = detector.getRecentSlowOperations().get(0);
+
+    Assert.assertThat(operation.getType(), Matchers.equalTo(Type.GET));
+    Assert.assertThat(
+        operation.getTransformId(),
+        OptionalMatchers.isPresentAndIs(transformation.getTransformId()));
+    Assert.assertThat(operation.getMetadataType(), OptionalMatchers.isEmpty());
+    Assert.assertThat(operation.getContentLength().isPresent(), Matchers.equalTo(false));
+    Assert.assertThat(operation.getWait(), Matchers.equalTo(Duration.ZERO));
+  }
+
+  @Test
+  public void testOperationsAtTheThresholdAreNotRecorded() throws Exception {
+    final SlowOperationDetector detector =
+        manager.enableSlowOperationDetection(
+            new SlowOperationPolicy()
+                .setThreshold(Duration.ofNanos(SlowOperationDetectorTest.TICK)));
+    final Transformation transformation = manager.createTransform(location, location, location);
+
+    manager.get(transformation.getTransformId());
+
+    Assert.assertThat(
+        detector.getRecentSlowOperations().stream()
+            .map(SlowOperation::getType)
+            .collect(Collectors.toList()),
+        Matchers.contains(Type.CREATE));
+  }
+
+  @Test
+  public void testHistoryIsBounded() throws Exception {
+    final SlowOperationDetector detector =
+        manager.enableSlowOperationDetection(
+            new SlowOperationPolicy().setThreshold(Duration.ZERO).setHistorySize(2));
+
+    performAllOperations();
+
+    Assert.assertThat(
+        detector.getRecentSlowOperations().stream()
+            .map(SlowOperation::getType)
+            .collect(Collectors.toList()),
+        Matchers.contains(Type.READ, Type.DELETE));
+    Assert.assertThat(detector.getSlowOperationCount(), Matchers.equalTo(12L));
+  }
+
+  @Test
+  public void testLogsAreSampled() throws Exception {
+    final SlowOperationDetector detector =
+        manager.enableSlowOperationDetection(
+            new SlowOperationPolicy()
+                .setThreshold(Duration.ZERO)
+                .setLogSampling(3)
+                .setMaximumLogs(100, Duration.ofHours(1L)));
+
+    performAllOperations();
+
+    Assert.assertThat(detector.getSkippedLogCount(), Matchers.equalTo(8L));
+  }
+
+  @Test
+  public void testLogsAreRateLimited() throws Exception {
+    final SlowOperationDetector detector =
+        manager.enableSlowOperationDetection(
+            new SlowOperationPolicy()
+                .setThreshold(Duration.ZERO)
+                .setMaximumLogs(2, Duration.ofHours(1L)));
+    final Transformation transformation = manager.createTransform(location, location, location);
+
+    manager.get(transformation.getTransformId());
+    manager.get(transformation.getTransformId());
+    manager.get(transformation.getTransformId());
+
+    Assert.assertThat(detector.getSkippedLogCount(), Matchers.equalTo(2L));
+
+    now.addAndGet(TimeUnit.HOURS.toNanos(1L));
+    manager.get(transformation.getTransformId());
+
+    Assert.assertThat(detector.getSkippedLogCount(), Matchers.equalTo(2L));
+    Assert.assertThat(detector.getSlowOperationCount(), Matchers.equalTo(5L));
+  }
+
+  @Test
+  public void testNothingIsLoggedWhenMaximumLogsIsZero() throws Exception {
+    final SlowOperationDetector detector =
+        manager.enableSlowOperationDetection(
+            new SlowOperationPolicy()
+                .setThreshold(Duration.ZERO)
+                .setMaximumLogs(0, Duration.ofHours(1L)));
+
+    performAllOperations();
+
+    Assert.assertThat(detector.getSkippedLogCount(), Matchers.equalTo(12L));
+  }
+
+  @Test
+  public void testFailedOperationsAreNotRecorded() throws Exception {
+    final SlowOperationDetector detector =
+        manager.enableSlowOperationDetection(new SlowOperationPolicy().setThreshold(Duration.ZERO));
+
+    try {
+      manager.get("unknown");
+      Assert.fail("expected a TransformationNotFoundException");
+    } catch (TransformationNotFoundException e) {
+      Assert.assertThat(detector.getRecentSlowOperations(), Matchers.empty());
+    }
+  }
+
+  private void performAllOperations() throws Exception {
+    final Transformation transformation = manager.createTransform(location, location, location);
+
+    manager.get(transformation.getTransformId());
+    final MetadataTransformation metadata = transformation.add(SlowOperationDetectorTest.TYPE);
+    final MetadataTransformation metadata2 = transformation.add(SlowOperationDetectorTest.TYPE2);
+    final MetadataTransformation metadata3 = transformation.add(SlowOperationDetectorTest.TYPE3);
+
+    metadata.succeed("text/plain", new ByteArrayInputStream("testing".getBytes()));
+    metadata2.fail(ErrorCode.TRANSFORMATION_FAILURE, "testing");
+    try (final OutputStream out = metadata3.openContent("text/plain")) {
+      out.write("testing".getBytes());
+    }
+    metadata.getContent();
+    metadata.getContent(1L, 2L);
+    ((InMemoryMetadataTransformation) metadata).getContentBuffer();
+    manager.delete(transformation.getTransformId());
+  }
+}
@@ -0,0 +1,95 @@
+/**
+ * Copyright (c) Connexta
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package com.connexta.transformation.commons.inmemory;
+
+import com.connexta.transformation.commons.inmemory.SlowOperation.Type;
+import java.time.Duration;
+import org.hamcrest.Matchers;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SlowOperationPolicyTest {
+  private final SlowOperationPolicy policy = new SlowOperationPolicy();
+
+  @Test
+  public void testDefaults() {
+    for (final Type type : Type.values()) {
+      Assert.assertThat(policy.getThreshold(type), Matchers.equalTo(Duration.ofSeconds(1L)));
+    }
+    Assert.assertThat(policy.getHistorySize(), Matchers.equalTo(100));
+    Assert.assertThat(policy.getLogSampling(), Matchers.equalTo(1));
+    Assert.assertThat(policy.getMaximumLogs(), Matchers.equalTo(10));
+    Assert.assertThat(policy.getLogInterval(), Matchers.equalTo(Duration.ofMinutes(1L)));
+  }
+
+  @Test
+  public void testSetters() {
+    policy
+        .setThreshold(Duration.ofMillis(500L))
+        .setThreshold(Type.SUCCEED, Duration.ofSeconds(5L))
+        .setHistorySize(10)
+        .setLogSampling(3)
+        .setMaximumLogs(0, Duration.ofSeconds(30L));
+
+    Assert.assertThat(policy.getThreshold(Type.GET), Matchers.equalTo(Duration.ofMillis(500L)));
+    Assert.assertThat(policy.getThreshold(Type.SUCCEED), Matchers.equalTo(Duration.ofSeconds(5L)));
+    Assert.assertThat(policy.getHistorySize(), Matchers.equalTo(10));
+    Assert.assertThat(policy.getLogSampling(), Matchers.equalTo(3));
+    Assert.assertThat(policy.getMaximumLogs(), Matchers.equalTo(0));
+    Assert.assertThat(policy.getLogInterval(), Matchers.equalTo(Duration.ofSeconds(30L)));
+    Assert.assertThat(policy.toString(), Matchers.containsString("SUCCEED=PT5S"));
+  }
+
+  @Test
+  public void testSetThresholdAcceptsZero() {
+    policy.setThreshold(Duration.ZERO);
+
+    Assert.assertThat(policy.getThreshold(Type.CREATE), Matchers.equalTo(Duration.ZERO));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testSetThresholdFailsWhenNegative() {
+    policy.setThreshold(Duration.ofMillis(-1L));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testSetThresholdForTypeFailsWhenNegative() {
+    policy.setThreshold(Type.GET, Duration.ofMillis(-1L));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testSetHistorySizeFailsWhenNotPositive() {
+    policy.setHistorySize(0);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testSetLogSamplingFailsWhenNotPositive() {
+    policy.setLogSampling(0);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testSetMaximumLogsFailsWhenNegative() {
+    policy.setMaximumLogs(-1, Duration.ofMinutes(1L));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testSetMaximumLogsFailsWhenIntervalIsZero() {
+    policy.setMaximumLogs(1, Duration.ZERO);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testSetMaximumLogsFailsWhenIntervalIsNegative() {
+    policy.setMaximumLogs(1, Duration.ofMinutes(-1L));
+  }
+}
@@ -0,0 +1,80 @@
+/**
+ * Copyright (c) Connexta
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package com.connexta.transformation.commons.inmemory;
+
+import com.connexta.transformation.commons.inmemory.SlowOperation.Type;
+import com.github.npathai.hamcrestopt.OptionalMatchers;
+import java.time.Duration;
+import java.time.Instant;
+import org.hamcrest.Matchers;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SlowOperationTest {
+  private static final Instant TIME = Instant.ofEpochMilli(1234L);
+
+  private final SlowOperation operation =
+      new SlowOperation(
+          Type.SUCCEED,
+          SlowOperationTest.TIME,
+          "transform-id",
+          "metacard",
+          128L,
+          "worker-1",
+          Duration.ofMillis(1500L),
+          Duration.ofMillis(1000L),
+          Duration.ofSeconds(1L));
+
+  @Test
+  public void testGetters() {
+    Assert.assertThat(operation.getType(), Matchers.equalTo(Type.SUCCEED));
+    Assert.assertThat(operation.getTime(), Matchers.equalTo(SlowOperationTest.TIME));
+    Assert.assertThat(operation.getTransformId(), OptionalMatchers.isPresentAndIs("transform-id"));
+    Assert.assertThat(operation.getMetadataType(), OptionalMatchers.isPresentAndIs("metacard"));
+    Assert.assertThat(operation.getContentLength().getAsLong(), Matchers.equalTo(128L));
+    Assert.assertThat(operation.getThread(), Matchers.equalTo("worker-1"));
+    Assert.assertThat(operation.getElapsed(), Matchers.equalTo(Duration.ofMillis(1500L)));
+    Assert.assertThat(operation.getWait(), Matchers.equalTo(Duration.ofMillis(1000L)));
+    Assert.assertThat(operation.getThreshold(), Matchers.equalTo(Duration.ofSeconds(1L)));
+  }
+
+  @Test
+  public void testOptionalFieldsWhenNotApplicable() {
+    final SlowOperation operation =
+        new SlowOperation(
+            Type.GET,
+            SlowOperationTest.TIME,
+            null,
+            null,
+            -1L,
+            "main",
+            Duration.ofMillis(1500L),
+            Duration.ZERO,
+            Duration.ofSeconds(1L));
+
+    Assert.assertThat(operation.getTransformId(), OptionalMatchers.isEmpty());
+    Assert.assertThat(operation.getMetadataType(), OptionalMatchers.isEmpty());
+    Assert.assertThat(operation.getContentLength().isPresent(), Matchers.equalTo(false));
+  }
+
+  @Test
+  public void testToString() {
+    Assert.assertThat(
+        operation.toString(),
+        Matchers.allOf(
+            Matchers.containsString("type=SUCCEED"),
+            Matchers.containsString("transformId=transform-id"),
+            Matchers.containsString("thread=worker-1")));
+  }
+}
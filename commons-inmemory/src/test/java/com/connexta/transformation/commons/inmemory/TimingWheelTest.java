@@ -0,0 +1,103 @@
+/**
+ * Copyright (c) Connexta
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package com.connexta.transformation.commons.inmemory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import org.hamcrest.Matchers;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TimingWheelTest {
+  private static final long NOW = 1_000_000_000L;
+
+  private final TimingWheel<String> wheel = new TimingWheel<>(TimingWheelTest.NOW);
+  private final List<String> expired = new ArrayList<>();
+
+  @Test
+  public void testExpiresItemsWhenTheirDeadlineIsReached() {
+    wheel.schedule("a", TimingWheelTest.NOW + 5_000L);
+    wheel.schedule("b", TimingWheelTest.NOW + 20_000L);
+
+    Assert.assertThat(wheel.size(), Matchers.equalTo(2));
+
+    wheel.advance(TimingWheelTest.NOW + 4_000L, expired::add);
+
+    Assert.assertThat(expired, Matchers.empty());
+
+    wheel.advance(TimingWheelTest.NOW + 6_100L, expired::add);
+
+    Assert.assertThat(expired, Matchers.contains("a"));
+    Assert.assertThat(wheel.size(), Matchers.equalTo(1));
+
+    wheel.advance(TimingWheelTest.NOW + 21_100L, expired::add);
+
+    Assert.assertThat(expired, Matchers.contains("a", "b"));
+    Assert.assertThat(wheel.size(), Matchers.equalTo(0));
+  }
+
+  @Test
+  public void testDoesNothingWhenTimeDoesNotAdvanceByATick() {
+    wheel.schedule("a", TimingWheelTest.NOW);
+
+    wheel.advance(TimingWheelTest.NOW, expired::add);
+
+    Assert.assertThat(expired, Matchers.empty());
+    Assert.assertThat(wheel.size(), Matchers.equalTo(1));
+  }
+
+  @Test
+  public void testExpiresItemsWhoseDeadlineHasAlreadyPassed() {
+    wheel.schedule("a", TimingWheelTest.NOW - 50_000L);
+
+    wheel.advance(TimingWheelTest.NOW + TimingWheel.TICK.toMillis(), expired::add);
+
+    Assert.assertThat(expired, Matchers.contains("a"));
+  }
+
+  @Test
+  public void testCascadesItemsFromHigherLevels() {
+    final long hour = Duration.ofHours(1L).toMillis();
+
+    wheel.schedule("a", TimingWheelTest.NOW + hour);
+    wheel.schedule("b", TimingWheelTest.NOW + 2 * hour);
+
+    for (long time = TimingWheelTest.NOW;
+        time <= TimingWheelTest.NOW + hour + 2_000L;
+        time += 1_000L) {
+      wheel.advance(time, expired::add);
+    }
+
+    Assert.assertThat(expired, Matchers.contains("a"));
+    Assert.assertThat(wheel.size(), Matchers.equalTo(1));
+  }
+
+  @Test
+  public void testExpiresItemsBeyondTheRangeOfTheWheelAfterALongPause() {
+    final long deadline = TimingWheelTest.NOW + Duration.ofDays(400L).toMillis();
+
+    wheel.schedule("a", deadline);
+    wheel.schedule("b", deadline + Duration.ofDays(400L).toMillis());
+
+    wheel.advance(deadline - 1L, expired::add);
+
+    Assert.assertThat(expired, Matchers.empty());
+
+    wheel.advance(deadline + Duration.ofDays(1L).toMillis(), expired::add);
+
+    Assert.assertThat(expired, Matchers.contains("a"));
+    Assert.assertThat(wheel.size(), Matchers.equalTo(1));
+  }
+}
@@ -0,0 +1,401 @@
+/**
+ * Copyright (c) Connexta
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package com.connexta.transformation.commons.inmemory;
+
+import static org.mockito.Mockito.when;
+
+import com.connexta.transformation.commons.api.ErrorCode;
+import com.connexta.transformation.commons.api.RequestInfo;
+import com.connexta.transformation.commons.api.Transformation;
+import com.connexta.transformation.commons.api.TransformationLifecycleListener;
+import com.connexta.transformation.commons.api.impl.RequestInfoImpl;
+import com.github.npathai.hamcrestopt.OptionalMatchers;
+import com.google.common.util.concurrent.MoreExecutors;
+import io.micrometer.core.instrument.Clock;
+import java.io.ByteArrayInputStream;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import org.hamcrest.Matchers;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+public class TransformationEvictorTest {
+  private static final String TYPE = "myMetadataType";
+
+  private final AtomicLong now = new AtomicLong(1_000L);
+  private final Clock clock = Mockito.mock(Clock.class);
+  private final List<Transformation> evicted = new ArrayList<>();
+
+  private URL location;
+
+  @Before
+  public void setup() throws Exception {
+    when(clock.wallTime()).thenAnswer(i -> now.incrementAndGet());
+    this.location = new URL("http://current.com");
+  }
+
+  @Test
+  public void testManagerIsUnboundedByDefault() {
+    Assert.assertThat(
+        new InMemoryTransformationManager(clock).getEvictor(), OptionalMatchers.isEmpty());
+  }
+
+  @Test
+  public void testGetPolicy() {
+    final CapacityPolicy policy = new CapacityPolicy().setMaximumSize(2L);
+    final InMemoryTransformationManager manager = newManager(policy);
+
+    Assert.assertThat(evictor(manager).getPolicy(), Matchers.sameInstance(policy));
+  }
+
+  @Test
+  public void testEvictsTheNewestCompletedTransformationWhenNoneWasRead() throws Exception {
+    final InMemoryTransformationManager manager =
+        newManager(new CapacityPolicy().setMaximumSize(2L));
+    final Transformation a = complete(manager, 1);
+    final Transformation b = complete(manager, 1);
+    final Transformation c = manager.createTransform(location, location, location);
+
+    Assert.assertThat(a.isDeleted(), Matchers.equalTo(false));
+    Assert.assertThat(b.isDeleted(), Matchers.equalTo(true));
+    Assert.assertThat(c.isDeleted(), Matchers.equalTo(false));
+    Assert.assertThat(evicted, Matchers.contains(b));
+    Assert.assertThat(evictor(manager).getEvictionCount(), Matchers.equalTo(1L));
+  }
+
+  @Test
+  public void testKeepsFrequentlyReadTransformations() throws Exception {
+    final InMemoryTransformationManager manager =
+        newManager(new CapacityPolicy().setMaximumSize(2L));
+    final Transformation a = complete(manager, 1);
+    final Transformation b = complete(manager, 1);
+
+    read(manager, b, 3);
+    manager.createTransform(location, location, location);
+
+    Assert.assertThat(a.isDeleted(), Matchers.equalTo(true));
+    Assert.assertThat(b.isDeleted(), Matchers.equalTo(false));
+    Assert.assertThat(evicted, Matchers.contains(a));
+  }
+
+  @Test
+  public void testKeepsTransformationsFrequentlyReadInBatches() throws Exception {
+    final InMemoryTransformationManager manager =
+        newManager(new CapacityPolicy().setMaximumSize(2L));
+    final Transformation a = complete(manager, 1);
+    final Transformation b = complete(manager, 1);
+
+    for (int i = 0; i < 3; i++) {
+      manager.getAll(List.of(b.getTransformId()));
+    }
+    manager.createTransform(location, location, location);
+
+    Assert.assertThat(a.isDeleted(), Matchers.equalTo(true));
+    Assert.assertThat(b.isDeleted(), Matchers.equalTo(false));
+    Assert.assertThat(evicted, Matchers.contains(a));
+  }
+
+  @Test
+  public void testProtectsTransformationsReadWhileOnProbation() throws Exception {
+    final InMemoryTransformationManager manager =
+        newManager(new CapacityPolicy().setMaximumSize(6L));
+    final List<Transformation> t = completeAll(manager, 6);
+
+    read(manager, t.get(0), 1);
+    read(manager, t.get(5), 2);
+    manager.createTransform(location, location, location);
+
+    // without protection, the first one would have been the victim
+    Assert.assertThat(evicted, Matchers.contains(t.get(1)));
+    Assert.assertThat(t.get(0).isDeleted(), Matchers.equalTo(false));
+    Assert.assertThat(t.get(5).isDeleted(), Matchers.equalTo(false));
+  }
+
+  @Test
+  public void testEvictsFromTheProtectedSegmentOnceProbationIsEmpty() throws Exception {
+    final InMemoryTransformationManager manager =
+        newManager(new CapacityPolicy().setMaximumSize(6L));
+    final List<Transformation> t = completeAll(manager, 6);
+
+    t.subList(0, 4).forEach(tx -> read(manager, tx, 1));
+    manager.createTransform(location, location, location);
+
+    Assert.assertThat(evicted, Matchers.contains(t.get(5)));
+
+    manager.createTransform(location, location, location);
+
+    Assert.assertThat(evicted, Matchers.contains(t.get(5), t.get(4)));
+
+    manager.createTransform(location, location, location);
+
+    Assert.assertThat(evicted, Matchers.contains(t.get(5), t.get(4), t.get(0)));
+  }
+
+  @Test
+  public void testDemotesTheLeastRecentlyUsedProtectedTransformationWhenFull() throws Exception {
+    final InMemoryTransformationManager manager =
+        newManager(new CapacityPolicy().setMaximumSize(6L));
+    final List<Transformation> t = completeAll(manager, 6);
+
+    t.subList(0, 5).forEach(tx -> read(manager, tx, 1));
+    read(manager, t.get(0), 1);
+    manager.createTransform(location, location, location);
+
+    Assert.assertThat(evicted, Matchers.contains(t.get(5)));
+
+    manager.createTransform(location, location, location);
+
+    Assert.assertThat(evicted, Matchers.contains(t.get(5), t.get(1)));
+    Assert.assertThat(t.get(0).isDeleted(), Matchers.equalTo(false));
+  }
+
+  @Test
+  public void testNeverEvictsTransformationsInProgress() throws Exception {
+    final InMemoryTransformationManager manager =
+        newManager(new CapacityPolicy().setMaximumSize(1L));
+    final Transformation a = manager.createTransform(location, location, location);
+    final Transformation b = manager.createTransform(location, location, location);
+
+    a.add(TransformationEvictorTest.TYPE);
+    b.add(TransformationEvictorTest.TYPE);
+
+    Assert.assertThat(a.isDeleted(), Matchers.equalTo(false));
+    Assert.assertThat(b.isDeleted(), Matchers.equalTo(false));
+    Assert.assertThat(evicted, Matchers.empty());
+  }
+
+  @Test
+  public void testEvictsWhenOverMaximumBytes() throws Exception {
+    final InMemoryTransformationManager manager =
+        newManager(new CapacityPolicy().setMaximumBytes(10L));
+    final Transformation a = complete(manager, 8);
+    final Transformation b = complete(manager, 8);
+
+    Assert.assertThat(evicted, Matchers.contains(a));
+    Assert.assertThat(b.isDeleted(), Matchers.equalTo(false));
+    Assert.assertThat(evictor(manager).getResidentBytes(), Matchers.equalTo(8L));
+  }
+
+  @Test
+  public void testResidentBytesAreReleasedOnDelete() throws Exception {
+    final InMemoryTransformationManager manager =
+        newManager(new CapacityPolicy().setMaximumBytes(100L));
+    final Transformation a = complete(manager, 8);
+    final Transformation b = manager.createTransform(location, location, location);
+    final Transformation c = manager.createTransform(location, location, location);
+
+    b.add(TransformationEvictorTest.TYPE).fail(ErrorCode.TRANSFORMATION_FAILURE, "x");
+    c.add(TransformationEvictorTest.TYPE);
+
+    Assert.assertThat(evictor(manager).getResidentBytes(), Matchers.equalTo(8L));
+
+    a.delete();
+    b.delete();
+    c.delete();
+
+    Assert.assertThat(evictor(manager).getResidentBytes(), Matchers.equalTo(0L));
+  }
+
+  @Test
+  public void testResidentBytesAreNotAccountedAgainWhenCompletionIsReportedAfterDeletion()
+      throws Exception {
+    final InMemoryTransformationManager manager =
+        newManager(new CapacityPolicy().setMaximumBytes(100L));
+    final Transformation a = complete(manager, 8);
+    final InMemoryMetadataTransformation metadata =
+        (InMemoryMetadataTransformation) a.metadatas().findFirst().get();
+
+    a.delete();
+    // simulates the completion of the metadata being reported concurrently with the deletion
+    manager.metadataCompleted(metadata);
+
+    Assert.assertThat(evictor(manager).getResidentBytes(), Matchers.equalTo(0L));
+  }
+
+  @Test
+  public void testWritesFromOtherThreadsDoNotWaitForVictimsToBeDeleted() throws Exception {
+    final InMemoryTransformationManager manager =
+        newManager(new CapacityPolicy().setMaximumSize(2L));
+    final ExecutorService executor = Executors.newSingleThreadExecutor();
+    final AtomicBoolean first = new AtomicBoolean(true);
+    final AtomicReference<Object> created = new AtomicReference<>();
+
+    manager.setLifecycleListener(
+        new TransformationLifecycleListener() {
+          @Override
+          public void transformationDeleted(Transformation transformation, Object context) {
+            if (first.getAndSet(false)) {
+              try {
+                created.set(
+                    executor
+                        .submit(() -> manager.createTransform(location, location, location))
+                        .get(5L, TimeUnit.SECONDS));
+              } catch (Exception e) {
+                created.set(e);
+              }
+            }
+          }
+        });
+    try {
+      completeAll(manager, 3);
+    } finally {
+      executor.shutdownNow();
+    }
+
+    Assert.assertThat(created.get(), Matchers.instanceOf(Transformation.class));
+    Assert.assertThat(evicted, Matchers.not(Matchers.empty()));
+  }
+
+  @Test
+  public void testMaintenanceRequestedWhileMaintainingIsPickedUpByTheMaintainingThread()
+      throws Exception {
+    final InMemoryTransformationManager manager = Mockito.mock(InMemoryTransformationManager.class);
+    final TransformationEvictor evictor =
+        new TransformationEvictor(
+            manager, new MemoryAccountant(), new CapacityPolicy().setMaximumSize(10L));
+    final ExecutorService executor = Executors.newSingleThreadExecutor();
+    final AtomicInteger maintained = new AtomicInteger();
+
+    when(manager.size())
+        .thenAnswer(
+            i -> {
+              if (maintained.incrementAndGet() == 1) {
+                // a write from another thread must not wait for this thread to be done
+                executor.submit(evictor::created).get(5L, TimeUnit.SECONDS);
+              }
+              return 0;
+            });
+    try {
+      evictor.created();
+    } finally {
+      executor.shutdownNow();
+    }
+
+    Assert.assertThat(maintained.get(), Matchers.equalTo(2));
+  }
+
+  @Test
+  public void testReadsAreDroppedWhenTheBufferIsFull() throws Exception {
+    final InMemoryTransformationManager manager =
+        newManager(new CapacityPolicy().setMaximumSize(3L));
+    final Transformation a = complete(manager, 1);
+    final Transformation b = complete(manager, 1);
+    final Transformation c = manager.createTransform(location, location, location);
+
+    read(manager, c, TransformationEvictor.READ_BUFFER_SIZE);
+    read(manager, b, 3);
+    manager.createTransform(location, location, location);
+
+    // the reads of b were dropped so it did not win against a
+    Assert.assertThat(evicted, Matchers.contains(b));
+    Assert.assertThat(a.isDeleted(), Matchers.equalTo(false));
+  }
+
+  @Test
+  public void testCreateTransformsEvicts() throws Exception {
+    final InMemoryTransformationManager manager =
+        newManager(new CapacityPolicy().setMaximumSize(2L));
+    final Transformation a = complete(manager, 1);
+    final RequestInfo request = new RequestInfoImpl(location, location, location);
+
+    manager.createTransforms(Arrays.asList(request, request));
+
+    Assert.assertThat(evicted, Matchers.contains(a));
+  }
+
+  @Test
+  public void testRemovedListenersAreNotNotified() throws Exception {
+    final InMemoryTransformationManager manager =
+        newManager(new CapacityPolicy().setMaximumSize(1L));
+    final List<Transformation> removed = new ArrayList<>();
+    final EvictionListener listener = removed::add;
+
+    evictor(manager).addListener(listener);
+    evictor(manager).removeListener(listener);
+    completeAll(manager, 2);
+
+    Assert.assertThat(removed, Matchers.empty());
+    Assert.assertThat(evicted, Matchers.hasSize(1));
+  }
+
+  @Test
+  public void testFailingListenersDoNotPreventOthersFromBeingNotified() throws Exception {
+    final InMemoryTransformationManager manager =
+        newManager(new CapacityPolicy().setMaximumSize(1L));
+    final List<Transformation> notified = new ArrayList<>();
+
+    evictor(manager)
+        .addListener(
+            t -> {
+              throw new IllegalStateException("testing");
+            });
+    evictor(manager).addListener(notified::add);
+    completeAll(manager, 2);
+
+    Assert.assertThat(notified, Matchers.equalTo(evicted));
+  }
+
+  private InMemoryTransformationManager newManager(CapacityPolicy policy) {
+    final InMemoryTransformationManager manager =
+        new InMemoryTransformationManager(clock, MoreExecutors.directExecutor(), policy);
+
+    evictor(manager).addListener(evicted::add);
+    return manager;
+  }
+
+  private Transformation complete(InMemoryTransformationManager manager, int bytes)
+      throws Exception {
+    final Transformation transformation = manager.createTransform(location, location, location);
+
+    transformation
+        .add(TransformationEvictorTest.TYPE)
+        .succeed("text/plain", new ByteArrayInputStream(new byte[bytes]));
+    return transformation;
+  }
+
+  private List<Transformation> completeAll(InMemoryTransformationManager manager, int count)
+      throws Exception {
+    final List<Transformation> transformations = new ArrayList<>();
+
+    for (int i = 0; i < count; i++) {
+      transformations.add(complete(manager, 1));
+    }
+    return transformations;
+  }
+
+  private static void read(InMemoryTransformationManager manager, Transformation t, int count) {
+    for (int i = 0; i < count; i++) {
+      try {
+        manager.get(t.getTransformId());
+      } catch (Exception e) {
+        throw new AssertionError(e);
+      }
+    }
+  }
+
+  private static TransformationEvictor evictor(InMemoryTransformationManager manager) {
+    return manager.getEvictor().get();
+  }
+}
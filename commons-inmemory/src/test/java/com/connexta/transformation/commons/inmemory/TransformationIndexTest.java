@@ -0,0 +1,221 @@
+/**
+ * Copyright (c) Connexta
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package com.connexta.transformation.commons.inmemory;
+
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.connexta.transformation.commons.api.RequestInfo;
+import com.connexta.transformation.commons.api.TransformationQuery;
+import com.connexta.transformation.commons.api.TransformationStatus.State;
+import java.net.URL;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import org.hamcrest.Matchers;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+public class TransformationIndexTest {
+  private static final String TYPE = "metacard";
+
+  private final TransformationIndex index = new TransformationIndex();
+
+  private final InMemoryTransformation transformation = Mockito.mock(InMemoryTransformation.class);
+  private final RequestInfo requestInfo = Mockito.mock(RequestInfo.class);
+
+  private URL location;
+
+  @Before
+  public void setup() throws Exception {
+    this.location = new URL("http://current.com");
+
+    when(transformation.getTransformId()).thenReturn("id");
+    when(transformation.getStartTime()).thenReturn(Instant.ofEpochMilli(1L));
+    when(transformation.getRequestInfo()).thenReturn(requestInfo);
+    when(transformation.getState()).thenReturn(State.IN_PROGRESS);
+    when(transformation.metadataTypes()).thenAnswer(i -> Stream.of(TransformationIndexTest.TYPE));
+    when(requestInfo.getCurrentLocation()).thenReturn(location);
+    when(requestInfo.getMetacardLocation()).thenReturn(location);
+  }
+
+  @Test
+  public void testCreated() throws Exception {
+    index.created(transformation);
+
+    Assert.assertThat(index.getInProgressCount(), Matchers.equalTo(1L));
+    Assert.assertThat(
+        index.query(new TransformationQuery()).getTransformations(),
+        Matchers.contains(transformation));
+    Assert.assertThat(index.findByCurrentLocation(location), Matchers.contains(transformation));
+  }
+
+  @Test
+  public void testCreatedTwiceIsCountedOnce() throws Exception {
+    index.created(transformation);
+    index.created(transformation);
+
+    Assert.assertThat(index.getInProgressCount(), Matchers.equalTo(1L));
+  }
+
+  @Test
+  public void testCreatedWhileBeingDeleted() throws Exception {
+    // deleted when indexed but the flag is reset afterward to detect stale entries in queries
+    when(transformation.isDeleted()).thenReturn(true, false);
+
+    index.created(transformation);
+
+    Assert.assertThat(index.getInProgressCount(), Matchers.equalTo(0L));
+    Assert.assertThat(
+        index.query(new TransformationQuery()).getTransformations(), Matchers.empty());
+    Assert.assertThat(index.findByCurrentLocation(location), Matchers.empty());
+    Assert.assertThat(index.findByMetacardLocation(location), Matchers.empty());
+  }
+
+  @Test
+  public void testMetadataAddedWhileBeingDeleted() throws Exception {
+    when(transformation.isDeleted()).thenReturn(false, true, false);
+
+    index.created(transformation);
+    index.metadataAdded(transformation, TransformationIndexTest.TYPE);
+
+    Assert.assertThat(
+        index
+            .query(new TransformationQuery().setMetadataType(TransformationIndexTest.TYPE))
+            .getTransformations(),
+        Matchers.empty());
+  }
+
+  @Test
+  public void testCompletedWhileBeingDeleted() throws Exception {
+    when(transformation.isDeleted()).thenReturn(false, true, false);
+
+    index.created(transformation);
+    when(transformation.getState()).thenReturn(State.SUCCESSFUL);
+    index.completed(transformation);
+
+    Assert.assertThat(index.getInProgressCount(), Matchers.equalTo(0L));
+    Assert.assertThat(
+        index.query(new TransformationQuery().setStates(State.SUCCESSFUL)).getTransformations(),
+        Matchers.empty());
+  }
+
+  @Test
+  public void testQueryByMultipleStatesNeverVisitsOtherStates() throws Exception {
+    final List<InMemoryTransformation> successful = indexAll(0, 10, State.SUCCESSFUL, null);
+    final InMemoryTransformation failed = index(10, State.FAILED, null);
+    final InMemoryTransformation unknown = index(11, State.UNKNOWN, null);
+    final InMemoryTransformation failed2 = index(12, State.FAILED, null);
+
+    Mockito.clearInvocations(successful.toArray());
+
+    Assert.assertThat(
+        index
+            .query(new TransformationQuery().setStates(State.FAILED, State.UNKNOWN))
+            .getTransformations(),
+        Matchers.contains(failed, unknown, failed2));
+    successful.forEach(TransformationIndexTest::verifyNeverVisited);
+  }
+
+  @Test
+  public void testQueryByMetadataTypeAndStateIteratesTheStateIndexWhenSmaller() throws Exception {
+    final List<InMemoryTransformation> successful =
+        indexAll(0, 10, State.SUCCESSFUL, TransformationIndexTest.TYPE);
+    final InMemoryTransformation failed = index(10, State.FAILED, TransformationIndexTest.TYPE);
+    final InMemoryTransformation failedWithoutType = index(11, State.FAILED, null);
+
+    Mockito.clearInvocations(successful.toArray());
+    Mockito.clearInvocations(failedWithoutType);
+
+    Assert.assertThat(
+        index
+            .query(
+                new TransformationQuery()
+                    .setMetadataType(TransformationIndexTest.TYPE)
+                    .setStates(State.FAILED))
+            .getTransformations(),
+        Matchers.contains(failed));
+    successful.forEach(TransformationIndexTest::verifyNeverVisited);
+    verifyNeverVisited(failedWithoutType);
+  }
+
+  @Test
+  public void testQueryByMetadataTypeAndStateIteratesTheTypeIndexWhenSmaller() throws Exception {
+    final List<InMemoryTransformation> failed = indexAll(0, 10, State.FAILED, null);
+    final InMemoryTransformation typed = index(10, State.FAILED, TransformationIndexTest.TYPE);
+
+    index(11, State.IN_PROGRESS, TransformationIndexTest.TYPE);
+
+    Mockito.clearInvocations(failed.toArray());
+
+    Assert.assertThat(
+        index
+            .query(
+                new TransformationQuery()
+                    .setMetadataType(TransformationIndexTest.TYPE)
+                    .setStates(State.FAILED, State.SUCCESSFUL))
+            .getTransformations(),
+        Matchers.contains(typed));
+    failed.forEach(TransformationIndexTest::verifyNeverVisited);
+  }
+
+  @Test
+  public void testQueryByMultipleStatesWhileCompleting() throws Exception {
+    index.created(transformation);
+    when(transformation.getState()).thenReturn(State.SUCCESSFUL);
+    index.completed(transformation);
+    // completion indexes the final state before removing the in-progress entry, re-indexing it as
+    // in progress simulates a query racing in between
+    index.created(transformation);
+
+    Assert.assertThat(
+        index
+            .query(new TransformationQuery().setStates(State.IN_PROGRESS, State.SUCCESSFUL))
+            .getTransformations(),
+        Matchers.contains(transformation));
+  }
+
+  private List<InMemoryTransformation> indexAll(int from, int to, State state, String type) {
+    return IntStream.range(from, to)
+        .mapToObj(i -> index(i, state, type))
+        .collect(Collectors.toList());
+  }
+
+  private InMemoryTransformation index(int i, State state, String type) {
+    final InMemoryTransformation t = Mockito.mock(InMemoryTransformation.class);
+
+    when(t.getTransformId()).thenReturn("id" + i);
+    when(t.getStartTime()).thenReturn(Instant.ofEpochMilli(i));
+    when(t.getRequestInfo()).thenReturn(requestInfo);
+    when(t.getState()).thenReturn(state);
+    index.created(t);
+    if (type != null) {
+      index.metadataAdded(t, type);
+    }
+    if (state != State.IN_PROGRESS) {
+      index.completed(t);
+    }
+    return t;
+  }
+
+  private static void verifyNeverVisited(InMemoryTransformation transformation) {
+    verify(transformation, never()).getState();
+    verify(transformation, never()).isDeleted();
+  }
+}
@@ -0,0 +1,281 @@
+/**
+ * Copyright (c) Connexta
+ *
+ * <p>This is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of
+ * the License, or any later version.
+ *
+ * <p>This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details. A copy of the GNU Lesser General Public
+ * License is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ */
+package com.connexta.transformation.commons.inmemory;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.when;
+
+import com.connexta.transformation.commons.api.ErrorCode;
+import com.connexta.transformation.commons.api.RequestInfo;
+import com.connexta.transformation.commons.api.Transformation;
+import com.connexta.transformation.commons.api.TransformationStatus.State;
+import com.connexta.transformation.commons.api.impl.RequestInfoImpl;
+import io.micrometer.core.instrument.Clock;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.ByteArrayInputStream;
+import java.net.URL;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.hamcrest.Matchers;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+public class TransformationReaperTest {
+  private static final String TYPE = "myMetadataType";
+  private static final byte[] CONTENT = "some content".getBytes();
+
+  private static final Duration SUCCESSFUL_TTL = Duration.ofMinutes(1L);
+  private static final Duration FAILED_TTL = Duration.ofMinutes(2L);
+  private static final Duration IN_PROGRESS_TTL = Duration.ofMinutes(10L);
+
+  private final AtomicLong now = new AtomicLong(1_000_000L);
+  private final Clock clock = Mockito.mock(Clock.class);
+  private final ScheduledExecutorService executor = Mockito.mock(ScheduledExecutorService.class);
+  private final ScheduledFuture<?> future = Mockito.mock(ScheduledFuture.class);
+
+  private final RetentionPolicy policy =
+      new RetentionPolicy()
+          .setSuccessfulTtl(TransformationReaperTest.SUCCESSFUL_TTL)
+          .setFailedTtl(TransformationReaperTest.FAILED_TTL)
+          .setInProgressTtl(TransformationReaperTest.IN_PROGRESS_TTL);
+
+  private InMemoryTransformationManager manager;
+  private URL location;
+
+  @Before
+  public void setup() throws Exception {
+    when(clock.wallTime()).thenAnswer(i -> now.get());
+    Mockito.doReturn(future)
+        .when(executor)
+        .scheduleWithFixedDelay(any(), anyLong(), anyLong(), any());
+    this.manager = new InMemoryTransformationManager(clock);
+    this.location = new URL("http://current.com");
+  }
+
+  @Test
+  public void testStartReaperSchedulesItself() {
+    final TransformationReaper reaper = manager.startReaper(policy, executor);
+
+    Assert.assertThat(reaper.getPolicy(), Matchers.sameInstance(policy));
+    Mockito.verify(executor)
+        .scheduleWithFixedDelay(
+            reaper,
+            TimingWheel.TICK.toMillis(),
+            TimingWheel.TICK.toMillis(),
+            TimeUnit.MILLISECONDS);
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testStartReaperFailsWhenAlreadyRunning() {
+    manager.startReaper(policy, executor);
+
+    manager.startReaper(policy, executor);
+  }
+
+  @Test
+  public void testReclaimsSuccessfulTransformations() throws Exception {
+    final TransformationReaper reaper = manager.startReaper(policy, executor);
+    final Transformation transformation = createSucceededTransformation();
+
+    advance(reaper, TransformationReaperTest.SUCCESSFUL_TTL.minusSeconds(5L));
+
+    Assert.assertThat(transformation.isDeleted(), Matchers.equalTo(false));
+
+    advance(reaper, Duration.ofSeconds(10L));
+
+    Assert.assertThat(transformation.isDeleted(), Matchers.equalTo(true));
+    Assert.assertThat(reaper.getReclaimedCount(State.SUCCESSFUL), Matchers.equalTo(1L));
+    Assert.assertThat(
+        reaper.getReclaimedBytes(),
+        Matchers.equalTo((long) TransformationReaperTest.CONTENT.length));
+  }
+
+  @Test
+  public void testReclaimsFailedTransformations() throws Exception {
+    final TransformationReaper reaper = manager.startReaper(policy, executor);
+    final Transformation transformation = manager.createTransform(location, location, location);
+
+    transformation.add(TransformationReaperTest.TYPE).fail(ErrorCode.TRANSFORMATION_FAILURE, "x");
+    advance(reaper, TransformationReaperTest.SUCCESSFUL_TTL.plusSeconds(5L));
+
+    Assert.assertThat(transformation.isDeleted(), Matchers.equalTo(false));
+
+    advance(reaper, TransformationReaperTest.FAILED_TTL);
+
+    Assert.assertThat(transformation.isDeleted(), Matchers.equalTo(true));
+    Assert.assertThat(reaper.getReclaimedCount(State.FAILED), Matchers.equalTo(1L));
+    Assert.assertThat(reaper.getReclaimedBytes(), Matchers.equalTo(0L));
+  }
+
+  @Test
+  public void testReclaimsStuckInProgressTransformations() throws Exception {
+    final TransformationReaper reaper = manager.startReaper(policy, executor);
+    final Transformation transformation = manager.createTransform(location, location, location);
+
+    transformation.add(TransformationReaperTest.TYPE);
+    advance(reaper, TransformationReaperTest.IN_PROGRESS_TTL.plusSeconds(5L));
+
+    Assert.assertThat(transformation.isDeleted(), Matchers.equalTo(true));
+    Assert.assertThat(reaper.getReclaimedCount(State.IN_PROGRESS), Matchers.equalTo(1L));
+  }
+
+  @Test
+  public void testDoesNotReclaimTransformationsCompletedAfterBeingScheduledAsInProgress()
+      throws Exception {
+    final TransformationReaper reaper =
+        manager.startReaper(policy.setSuccessfulTtl(Duration.ofHours(1L)), executor);
+    final Transformation transformation = manager.createTransform(location, location, location);
+
+    transformation.add(TransformationReaperTest.TYPE);
+    reaper.run();
+    advance(reaper, TransformationReaperTest.IN_PROGRESS_TTL.minusMinutes(1L));
+    transformation
+        .get(TransformationReaperTest.TYPE)
+        .succeed("text/plain", new ByteArrayInputStream(TransformationReaperTest.CONTENT));
+    advance(reaper, Duration.ofMinutes(2L));
+
+    Assert.assertThat(transformation.isDeleted(), Matchers.equalTo(false));
+    Assert.assertThat(reaper.getReclaimedCount(State.IN_PROGRESS), Matchers.equalTo(0L));
+  }
+
+  @Test
+  public void testDoesNotReclaimTransformationsWhoseStateIsRetainedForever() throws Exception {
+    final TransformationReaper reaper =
+        manager.startReaper(policy.setSuccessfulTtl(null), executor);
+    final Transformation transformation = manager.createTransform(location, location, location);
+
+    transformation.add(TransformationReaperTest.TYPE);
+    reaper.run();
+    transformation
+        .get(TransformationReaperTest.TYPE)
+        .succeed("text/plain", new ByteArrayInputStream(TransformationReaperTest.CONTENT));
+    advance(reaper, TransformationReaperTest.IN_PROGRESS_TTL.plusMinutes(1L));
+
+    Assert.assertThat(transformation.isDeleted(), Matchers.equalTo(false));
+  }
+
+  @Test
+  public void testIgnoresTransformationsDeletedBeforeExpiring() throws Exception {
+    final TransformationReaper reaper = manager.startReaper(policy, executor);
+    final Transformation transformation = createSucceededTransformation();
+
+    reaper.run();
+    transformation.delete();
+    advance(reaper, TransformationReaperTest.SUCCESSFUL_TTL.plusSeconds(5L));
+
+    Assert.assertThat(reaper.getReclaimedCount(State.SUCCESSFUL), Matchers.equalTo(0L));
+  }
+
+  @Test
+  public void testTracksTransformationsCreatedBeforeStarting() throws Exception {
+    final Transformation transformation = createSucceededTransformation();
+    final TransformationReaper reaper = manager.startReaper(policy, executor);
+
+    advance(reaper, TransformationReaperTest.SUCCESSFUL_TTL.plusSeconds(5L));
+
+    Assert.assertThat(transformation.isDeleted(), Matchers.equalTo(true));
+    Assert.assertThat(reaper.getReclaimedCount(State.SUCCESSFUL), Matchers.equalTo(1L));
+  }
+
+  @Test
+  public void testTracksTransformationsCreatedInBatches() throws Exception {
+    final TransformationReaper reaper = manager.startReaper(policy, executor);
+    final List<Transformation> transformations =
+        manager.createTransforms(
+            Collections.<RequestInfo>singletonList(
+                new RequestInfoImpl(location, location, location)));
+
+    transformations.get(0).add(TransformationReaperTest.TYPE);
+    advance(reaper, TransformationReaperTest.IN_PROGRESS_TTL.plusSeconds(5L));
+
+    Assert.assertThat(transformations.get(0).isDeleted(), Matchers.equalTo(true));
+    Assert.assertThat(reaper.getReclaimedCount(State.IN_PROGRESS), Matchers.equalTo(1L));
+  }
+
+  @Test
+  public void testCloseStopsTheReaper() throws Exception {
+    final TransformationReaper reaper = manager.startReaper(policy, executor);
+
+    reaper.close();
+    reaper.close();
+
+    Mockito.verify(future).cancel(false);
+
+    final Transformation transformation = createSucceededTransformation();
+
+    advance(reaper, TransformationReaperTest.SUCCESSFUL_TTL.plusSeconds(5L));
+
+    Assert.assertThat(transformation.isDeleted(), Matchers.equalTo(false));
+    Assert.assertThat(
+        manager.startReaper(policy, executor), Matchers.not(Matchers.sameInstance(reaper)));
+  }
+
+  @Test
+  public void testBindTo() throws Exception {
+    final TransformationReaper reaper = manager.startReaper(policy, executor);
+    final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    reaper.bindTo(registry);
+    createSucceededTransformation();
+    advance(reaper, TransformationReaperTest.SUCCESSFUL_TTL.plusSeconds(5L));
+
+    Assert.assertThat(
+        registry
+            .get("transformation.reaper.reclaimed")
+            .tag("state", "successful")
+            .functionCounter()
+            .count(),
+        Matchers.equalTo(1.0));
+    Assert.assertThat(
+        registry
+            .get("transformation.reaper.reclaimed")
+            .tag("state", "failed")
+            .functionCounter()
+            .count(),
+        Matchers.equalTo(0.0));
+    Assert.assertThat(
+        registry.get("transformation.reaper.reclaimed.bytes").functionCounter().count(),
+        Matchers.equalTo((double) TransformationReaperTest.CONTENT.length));
+  }
+
+  private Transformation createSucceededTransformation() throws Exception {
+    final Transformation transformation = manager.createTransform(location, location, location);
+
+    transformation
+        .add(TransformationReaperTest.TYPE)
+        .succeed("text/plain", new ByteArrayInputStream(TransformationReaperTest.CONTENT));
+    return transformation;
+  }
+
+  /**
+   * Advances the clock by the specified amount, running the reaper for each tick as the executor
+   * would.
+   */
+  private void advance(TransformationReaper reaper, Duration duration) {
+    final long end = now.get() + duration.toMillis();
+
+    while (now.get() < end) {
+      now.set(Math.min(end, now.get() + TimingWheel.TICK.toMillis()));
+      reaper.run();
+    }
+  }
+}
@@ -49,6 +49,8 @@ import javax.annotation.Nullable;
   "completion_time",
   "content_type",
   "content_length",
+  "content_crc32c",
+  "content_sha256",
   "failure_reason",
   "failure_message"
 })
@@ -69,9 +71,10 @@ public class MetadataPojo extends Pojo<MetadataPojo> {
    *
    * <ul>
    *   <li>1 - initial version.
+   *   <li>2 - added content checksums.
    * </ul>
    */
-  public static final int CURRENT_VERSION = 1;
+  public static final int CURRENT_VERSION = 2;
 
   /** The oldest version supported by the current code (anything before that will fail). */
   public static final int MINIMUM_VERSION = 1;
@@ -115,6 +118,14 @@ public class MetadataPojo extends Pojo<MetadataPojo> {
   @JsonProperty("content_length")
   private long contentLength = -1L;
 
+  @JsonProperty("content_crc32c")
+  @Nullable
+  private Long contentCrc32c;
+
+  @JsonProperty("content_sha256")
+  @Nullable
+  private String contentSha256;
+
   /**
    * Gets the identifier of the transformation that this metadata is associated with.
    *
@@ -363,6 +374,52 @@ public class MetadataPojo extends Pojo<MetadataPojo> {
     return this;
   }
 
+  /**
+   * Gets the CRC32C checksum for the metadata file generated.
+   *
+   * @return the CRC32C checksum for the metadata file generated or <code>null</code> if none
+   *     computed
+   */
+  @Nullable
+  public Long getContentCrc32c() {
+    return contentCrc32c;
+  }
+
+  /**
+   * Sets the CRC32C checksum for the metadata file generated.
+   *
+   * @param contentCrc32c the CRC32C checksum for the metadata file generated or <code>null</code>
+   *     if none computed
+   * @return this for chaining
+   */
+  public MetadataPojo setContentCrc32c(@Nullable Long contentCrc32c) {
+    this.contentCrc32c = contentCrc32c;
+    return this;
+  }
+
+  /**
+   * Gets the SHA-256 digest for the metadata file generated as a lowercase hexadecimal string.
+   *
+   * @return the SHA-256 digest for the metadata file generated or <code>null</code> if none
+   *     computed
+   */
+  @Nullable
+  public String getContentSha256() {
+    return contentSha256;
+  }
+
+  /**
+   * Sets the SHA-256 digest for the metadata file generated as a lowercase hexadecimal string.
+   *
+   * @param contentSha256 the SHA-256 digest for the metadata file generated or <code>null</code> if
+   *     none computed
+   * @return this for chaining
+   */
+  public MetadataPojo setContentSha256(@Nullable String contentSha256) {
+    this.contentSha256 = contentSha256;
+    return this;
+  }
+
   @Override
   public int hashCode() {
     return Objects.hash(
@@ -377,7 +434,9 @@ public class MetadataPojo extends Pojo<MetadataPojo> {
         completionTime,
         requestInfo,
         contentType,
-        contentLength);
+        contentLength,
+        contentCrc32c,
+        contentSha256);
   }
 
   @Override
@@ -394,7 +453,9 @@ public class MetadataPojo extends Pojo<MetadataPojo> {
           && Objects.equals(failureMessage, pojo.failureMessage)
           && Objects.equals(startTime, pojo.startTime)
           && Objects.equals(completionTime, pojo.completionTime)
-          && Objects.equals(contentType, pojo.contentType);
+          && Objects.equals(contentType, pojo.contentType)
+          && Objects.equals(contentCrc32c, pojo.contentCrc32c)
+          && Objects.equals(contentSha256, pojo.contentSha256);
     }
     return false;
   }
@@ -402,7 +463,7 @@ public class MetadataPojo extends Pojo<MetadataPojo> {
   @Override
   public String toString() {
     return String.format(
-        "MetadataPojo[id=%s, version=%d, transformId=%s, type=%s, requestInfo=%s, state=%s, startTime=%s, completionTime=%s, contentType=%s, contentLength=%d, failureReason=%s, failureMessage=%s]",
+        "MetadataPojo[id=%s, version=%d, transformId=%s, type=%s, requestInfo=%s, state=%s, startTime=%s, completionTime=%s, contentType=%s, contentLength=%d, contentCrc32c=%d, contentSha256=%s, failureReason=%s, failureMessage=%s]",
         getId(),
         getVersion(),
         transformId,
@@ -413,6 +474,8 @@ public class MetadataPojo extends Pojo<MetadataPojo> {
         completionTime,
         contentType,
         contentLength,
+        contentCrc32c,
+        contentSha256,
         failureReason,
         failureMessage);
   }
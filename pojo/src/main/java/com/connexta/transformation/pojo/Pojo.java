@@ -29,7 +29,7 @@ import javax.annotation.Nullable;
  * @param <T> the type of pojo this is
  */
 @JsonIgnoreProperties(ignoreUnknown = true)
-@JsonPropertyOrder({"id", "version"})
+@JsonPropertyOrder({"id", "version", "revision"})
 @JsonInclude(Include.NON_NULL)
 public abstract class Pojo<T extends Pojo<?>> {
   @JsonProperty("id")
@@ -39,6 +39,10 @@ public abstract class Pojo<T extends Pojo<?>> {
   @JsonProperty("version")
   private int version;
 
+  @JsonProperty("revision")
+  @JsonInclude(Include.NON_DEFAULT)
+  private long revision;
+
   /** Instantiates a blank pojo. */
   protected Pojo() {}
 
@@ -83,9 +87,32 @@ public abstract class Pojo<T extends Pojo<?>> {
     return (T) this;
   }
 
+  /**
+   * Gets the revision for this pojo. The revision is a monotonically increasing stamp incremented
+   * every time the pojo is conditionally written back to persistence and is used to detect
+   * concurrent modifications. A revision of <code>0</code> indicates the pojo was never written
+   * conditionally.
+   *
+   * @return the revision for this pojo
+   */
+  public long getRevision() {
+    return revision;
+  }
+
+  /**
+   * Sets the revision for this pojo.
+   *
+   * @param revision the pojo revision
+   * @return this for chaining
+   */
+  public T setRevision(long revision) {
+    this.revision = revision;
+    return (T) this;
+  }
+
   @Override
   public int hashCode() {
-    return Objects.hash(id, version);
+    return Objects.hash(id, version, revision);
   }
 
   @Override
@@ -95,7 +122,9 @@ public abstract class Pojo<T extends Pojo<?>> {
     } else if (obj instanceof Pojo) {
       final Pojo pojo = (Pojo) obj;
 
-      return (version == pojo.version) && Objects.equals(id, pojo.id);
+      return (version == pojo.version)
+          && (revision == pojo.revision)
+          && Objects.equals(id, pojo.id);
     }
     return false;
   }
@@ -40,7 +40,15 @@ import javax.annotation.Nullable;
  * persistence. It also provides the capability of persisting back the fields based on the latest
  * version format.
  */
-@JsonPropertyOrder({"clazz", "id", "version", "request_info", "start_time", "metadatas"})
+@JsonPropertyOrder({
+  "clazz",
+  "id",
+  "version",
+  "revision",
+  "request_info",
+  "start_time",
+  "metadatas"
+})
 @JsonIgnoreProperties(ignoreUnknown = true)
 @JsonInclude(Include.NON_NULL)
 @JsonTypeInfo(
@@ -58,9 +66,10 @@ public class TransformationPojo extends Pojo<TransformationPojo> {
    *
    * <ul>
    *   <li>1 - initial version.
+   *   <li>2 - added revision stamp.
    * </ul>
    */
-  public static final int CURRENT_VERSION = 1;
+  public static final int CURRENT_VERSION = 2;
 
   /** The oldest version supported by the current code (anything before that will fail). */
   public static final int MINIMUM_VERSION = 1;
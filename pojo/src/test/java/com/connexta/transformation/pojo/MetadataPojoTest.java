@@ -32,6 +32,9 @@ public class MetadataPojoTest {
   private static final String TYPE = "irm";
   private static final String CONTENT_TYPE = "application/xml";
   private static final long CONTENT_LENGTH = 1024L;
+  private static final long CONTENT_CRC32C = 0xcafeL;
+  private static final String CONTENT_SHA256 =
+      "e3b0c44298fc1c149afbf4c8996fb92427ae41e4649b934ca495991b7852b855";
   private static final int REQUEST_VERSION = 12;
   private static final String REQUEST_ID = "12345";
   private static final String REQUEST_METACARD_LOCATION = "http://localhost/metacard";
@@ -71,7 +74,9 @@ public class MetadataPojoTest {
           .setFailureReason(MetadataPojoTest.FAILURE_REASON)
           .setType(MetadataPojoTest.TYPE)
           .setContentType(MetadataPojoTest.CONTENT_TYPE)
-          .setContentLength(MetadataPojoTest.CONTENT_LENGTH);
+          .setContentLength(MetadataPojoTest.CONTENT_LENGTH)
+          .setContentCrc32c(MetadataPojoTest.CONTENT_CRC32C)
+          .setContentSha256(MetadataPojoTest.CONTENT_SHA256);
 
   private final MetadataPojo pojo2 =
       new MetadataPojo()
@@ -86,7 +91,9 @@ public class MetadataPojoTest {
           .setFailureReason(MetadataPojoTest.FAILURE_REASON)
           .setType(MetadataPojoTest.TYPE)
           .setContentType(MetadataPojoTest.CONTENT_TYPE)
-          .setContentLength(MetadataPojoTest.CONTENT_LENGTH);
+          .setContentLength(MetadataPojoTest.CONTENT_LENGTH)
+          .setContentCrc32c(MetadataPojoTest.CONTENT_CRC32C)
+          .setContentSha256(MetadataPojoTest.CONTENT_SHA256);
 
   @Test
   public void testSetAndGetId() throws Exception {
@@ -189,6 +196,20 @@ public class MetadataPojoTest {
     Assert.assertThat(pojo.getContentLength(), Matchers.equalTo(MetadataPojoTest.CONTENT_LENGTH));
   }
 
+  @Test
+  public void testSetAndGetContentCrc32c() throws Exception {
+    final MetadataPojo pojo = new MetadataPojo().setContentCrc32c(MetadataPojoTest.CONTENT_CRC32C);
+
+    Assert.assertThat(pojo.getContentCrc32c(), Matchers.equalTo(MetadataPojoTest.CONTENT_CRC32C));
+  }
+
+  @Test
+  public void testSetAndGetContentSha256() throws Exception {
+    final MetadataPojo pojo = new MetadataPojo().setContentSha256(MetadataPojoTest.CONTENT_SHA256);
+
+    Assert.assertThat(pojo.getContentSha256(), Matchers.equalTo(MetadataPojoTest.CONTENT_SHA256));
+  }
+
   @Test
   public void testHashCodeWhenEquals() throws Exception {
     Assert.assertThat(MetadataPojoTest.POJO.hashCode(), Matchers.equalTo(pojo2.hashCode()));
@@ -308,4 +329,18 @@ public class MetadataPojoTest {
 
     Assert.assertThat(MetadataPojoTest.POJO.equals(pojo2), Matchers.not(Matchers.equalTo(true)));
   }
+
+  @Test
+  public void testEqualsWhenContentCrc32cIsDifferent() throws Exception {
+    pojo2.setContentCrc32c(MetadataPojoTest.CONTENT_CRC32C + 2L);
+
+    Assert.assertThat(MetadataPojoTest.POJO.equals(pojo2), Matchers.not(Matchers.equalTo(true)));
+  }
+
+  @Test
+  public void testEqualsWhenContentSha256IsDifferent() throws Exception {
+    pojo2.setContentSha256(MetadataPojoTest.CONTENT_SHA256 + "2");
+
+    Assert.assertThat(MetadataPojoTest.POJO.equals(pojo2), Matchers.not(Matchers.equalTo(true)));
+  }
 }
@@ -109,6 +109,13 @@ public class TransformationPojoTest {
     Assert.assertThat(pojo.getVersion(), Matchers.equalTo(TransformationPojoTest.VERSION));
   }
 
+  @Test
+  public void testSetAndGetRevision() throws Exception {
+    final TransformationPojo pojo = new TransformationPojo().setRevision(5L);
+
+    Assert.assertThat(pojo.getRevision(), Matchers.equalTo(5L));
+  }
+
   @Test
   public void testSetAndGetRequestInfo() throws Exception {
     final TransformationPojo pojo =
@@ -204,6 +211,14 @@ public class TransformationPojoTest {
         TransformationPojoTest.POJO.equals(pojo2), Matchers.not(Matchers.equalTo(true)));
   }
 
+  @Test
+  public void testEqualsWhenRevisionIsDifferent() throws Exception {
+    pojo2.setRevision(2L);
+
+    Assert.assertThat(
+        TransformationPojoTest.POJO.equals(pojo2), Matchers.not(Matchers.equalTo(true)));
+  }
+
   @Test
   public void testEqualsWhenRequestInfoIsDifferent() throws Exception {
     pojo2.setRequestInfo(TransformationPojoTest.REQUEST2);
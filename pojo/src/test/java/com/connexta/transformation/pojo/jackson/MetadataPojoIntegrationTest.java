@@ -38,6 +38,9 @@ public class MetadataPojoIntegrationTest {
   private static final String TYPE = "irm";
   private static final String CONTENT_TYPE = "application/xml";
   private static final long CONTENT_LENGTH = 1024L;
+  private static final long CONTENT_CRC32C = 0xcafeL;
+  private static final String CONTENT_SHA256 =
+      "e3b0c44298fc1c149afbf4c8996fb92427ae41e4649b934ca495991b7852b855";
   private static final int REQUEST_VERSION = 1;
   private static final String REQUEST_ID = "1234";
   private static final String REQUEST_METACARD_LOCATION = "http://localhost/metcard";
@@ -80,7 +83,9 @@ public class MetadataPojoIntegrationTest {
           .setState(MetadataPojoIntegrationTest.STATE)
           .setType(MetadataPojoIntegrationTest.TYPE)
           .setContentType(MetadataPojoIntegrationTest.CONTENT_TYPE)
-          .setContentLength(MetadataPojoIntegrationTest.CONTENT_LENGTH);
+          .setContentLength(MetadataPojoIntegrationTest.CONTENT_LENGTH)
+          .setContentCrc32c(MetadataPojoIntegrationTest.CONTENT_CRC32C)
+          .setContentSha256(MetadataPojoIntegrationTest.CONTENT_SHA256);
 
   private final JSONObject jsonObject;
 
@@ -105,7 +110,9 @@ public class MetadataPojoIntegrationTest {
             .put("state", MetadataPojoIntegrationTest.STATE)
             .put("type", MetadataPojoIntegrationTest.TYPE)
             .put("content_type", MetadataPojoIntegrationTest.CONTENT_TYPE)
-            .put("content_length", MetadataPojoIntegrationTest.CONTENT_LENGTH);
+            .put("content_length", MetadataPojoIntegrationTest.CONTENT_LENGTH)
+            .put("content_crc32c", MetadataPojoIntegrationTest.CONTENT_CRC32C)
+            .put("content_sha256", MetadataPojoIntegrationTest.CONTENT_SHA256);
   }
 
   @Test
@@ -330,6 +337,54 @@ public class MetadataPojoIntegrationTest {
     Assert.assertThat(pojo2, Matchers.not(Matchers.isA(UnknownMetadataPojo.class)));
   }
 
+  @Test
+  public void testPojoJsonPersistenceWhenContentCrc32cIsNull() throws Exception {
+    pojo.setContentCrc32c(null);
+    jsonObject.remove("content_crc32c");
+
+    final String json = JsonUtils.write(pojo);
+    final MetadataPojo pojo2 = JsonUtils.read(MetadataPojo.class, json);
+
+    Assert.assertThat(json, SameJSONAs.sameJSONAs(jsonObject.toString()));
+    Assert.assertThat(pojo2, Matchers.equalTo(pojo));
+    Assert.assertThat(pojo2, Matchers.not(Matchers.isA(UnknownMetadataPojo.class)));
+  }
+
+  @Test
+  public void testPojoJsonPersistenceWhenContentCrc32cIsMissing() throws Exception {
+    pojo.setContentCrc32c(null);
+    jsonObject.remove("content_crc32c");
+
+    final MetadataPojo pojo2 = JsonUtils.read(MetadataPojo.class, jsonObject.toString());
+
+    Assert.assertThat(pojo2, Matchers.equalTo(pojo));
+    Assert.assertThat(pojo2, Matchers.not(Matchers.isA(UnknownMetadataPojo.class)));
+  }
+
+  @Test
+  public void testPojoJsonPersistenceWhenContentSha256IsNull() throws Exception {
+    pojo.setContentSha256(null);
+    jsonObject.remove("content_sha256");
+
+    final String json = JsonUtils.write(pojo);
+    final MetadataPojo pojo2 = JsonUtils.read(MetadataPojo.class, json);
+
+    Assert.assertThat(json, SameJSONAs.sameJSONAs(jsonObject.toString()));
+    Assert.assertThat(pojo2, Matchers.equalTo(pojo));
+    Assert.assertThat(pojo2, Matchers.not(Matchers.isA(UnknownMetadataPojo.class)));
+  }
+
+  @Test
+  public void testPojoJsonPersistenceWhenContentSha256IsMissing() throws Exception {
+    pojo.setContentSha256(null);
+    jsonObject.remove("content_sha256");
+
+    final MetadataPojo pojo2 = JsonUtils.read(MetadataPojo.class, jsonObject.toString());
+
+    Assert.assertThat(pojo2, Matchers.equalTo(pojo));
+    Assert.assertThat(pojo2, Matchers.not(Matchers.isA(UnknownMetadataPojo.class)));
+  }
+
   @Test
   public void testPojoJsonPersistenceWithExtraJsonProperties() throws Exception {
     jsonObject.put("extra", "EXTRA");
@@ -353,7 +408,9 @@ public class MetadataPojoIntegrationTest {
             .setState(MetadataPojoIntegrationTest.STATE)
             .setType(MetadataPojoIntegrationTest.TYPE)
             .setContentType(MetadataPojoIntegrationTest.CONTENT_TYPE)
-            .setContentLength(MetadataPojoIntegrationTest.CONTENT_LENGTH);
+            .setContentLength(MetadataPojoIntegrationTest.CONTENT_LENGTH)
+            .setContentCrc32c(MetadataPojoIntegrationTest.CONTENT_CRC32C)
+            .setContentSha256(MetadataPojoIntegrationTest.CONTENT_SHA256);
 
     jsonObject.remove("clazz");
 
@@ -376,7 +433,9 @@ public class MetadataPojoIntegrationTest {
             .setState(MetadataPojoIntegrationTest.STATE)
             .setType(MetadataPojoIntegrationTest.TYPE)
             .setContentType(MetadataPojoIntegrationTest.CONTENT_TYPE)
-            .setContentLength(MetadataPojoIntegrationTest.CONTENT_LENGTH);
+            .setContentLength(MetadataPojoIntegrationTest.CONTENT_LENGTH)
+            .setContentCrc32c(MetadataPojoIntegrationTest.CONTENT_CRC32C)
+            .setContentSha256(MetadataPojoIntegrationTest.CONTENT_SHA256);
     jsonObject.put("clazz", "new_metadata");
 
     final MetadataPojo pojo2 = JsonUtils.read(MetadataPojo.class, jsonObject.toString());
@@ -207,6 +207,19 @@ public class TransformationPojoIntegrationTest {
     Assert.assertThat(pojo2, Matchers.not(Matchers.isA(UnknownTransformationPojo.class)));
   }
 
+  @Test
+  public void testPojoJsonPersistenceWithRevision() throws Exception {
+    pojo.setRevision(3L);
+    jsonObject.put("revision", 3L);
+
+    final String json = JsonUtils.write(pojo);
+    final TransformationPojo pojo2 = JsonUtils.read(TransformationPojo.class, json);
+
+    Assert.assertThat(json, SameJSONAs.sameJSONAs(jsonObject.toString()));
+    Assert.assertThat(pojo2, Matchers.equalTo(pojo));
+    Assert.assertThat(pojo2.getRevision(), Matchers.equalTo(3L));
+  }
+
   @Test
   public void testPojoJsonPersistenceWhenVersionIsMissing() throws Exception {
     pojo.setVersion(0);